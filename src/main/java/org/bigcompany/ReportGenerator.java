@@ -1,12 +1,30 @@
 package org.bigcompany;
 
+import org.bigcompany.dao.impl.ExternalSorter;
+import org.bigcompany.dao.impl.ReportCache;
 import org.bigcompany.exception.EmployeeDataException;
 import org.bigcompany.exception.InvalidSalaryException;
+import org.bigcompany.model.ReportFinding;
+import org.bigcompany.model.SalaryBenchmark;
 import org.bigcompany.service.IEmployeeService;
 import org.bigcompany.service.IReportingService;
 import org.bigcompany.service.ISalaryService;
 import org.bigcompany.service.factory.ServiceFactory;
+import org.bigcompany.service.impl.EmployeeService;
+import org.bigcompany.service.impl.ExternalMemoryAnalysis;
 import org.bigcompany.service.impl.ReportingService;
+import org.bigcompany.service.impl.SalaryService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * The ReportGenerator class is the main entry point for generating the employee report.
@@ -15,20 +33,97 @@ import org.bigcompany.service.impl.ReportingService;
  */
 public class ReportGenerator {
 
+    private static final String LENIENT_OPTION = "--lenient";
+    private static final String INPUT_OPTION = "--input";
+    private static final String PIPELINED_OPTION = "--pipelined";
+    private static final String EXTERNAL_MEMORY_OPTION = "--external-memory";
+    private static final String CACHE_OPTION = "--cache";
+    private static final String MEDIAN_BAND_OPTION = "--median-band";
+    private static final String SAMPLE_OPTION = "--sample";
+    private static final String CACHE_FORMAT_VERSION = "1";
+
     /**
      * The main method which is the entry point of the application.
      * It creates instances of EmployeeService, SalaryService, and ReportingService.
      * Then it calls the generateEmployeeReport method of the ReportingService class.
      * It catches any exceptions that occur and prints the error message.
+     * With the --lenient option, invalid CSV rows are skipped and listed after the report instead of aborting it.
+     * With the --input option, the employees are read from the given CSV file, which may be gzip or deflate
+     * compressed, or from standard input if the file is "-".
+     * With the --pipelined option, reading, parsing and collecting the rows run on separate threads.
+     * With the --external-memory option, the report is computed from sorted spill files under a fixed memory budget,
+     * for organisations that do not fit in the heap, and each finding is printed as soon as it is found.
+     * With the --cache option, the report of a CSV file is kept in the given directory and printed from there
+     * while neither the file nor the analysis parameters change. Standard input and external-memory reports are not cached.
+     * With the --median-band option, managers' salaries are judged against the median salary of their direct subordinates
+     * instead of the average.
+     * With the --sample option, the report is estimated from a random sample of the given number of employees,
+     * with confidence intervals, instead of analysing every employee. Sampled reports are not cached.
      *
      * @param args The command line arguments.
      */
     public static void main(String[] args) {
         try {
-            IEmployeeService employeeService = ServiceFactory.createEmployeeService();
-            ISalaryService salaryService = ServiceFactory.createSalaryService();
-            IReportingService reportingService = new ReportingService(employeeService, salaryService);
-            reportingService.generateEmployeeReport();
+            List<String> options = Arrays.asList(args);
+            boolean lenient = options.contains(LENIENT_OPTION);
+            boolean pipelined = options.contains(PIPELINED_OPTION);
+            SalaryBenchmark salaryBenchmark = options.contains(MEDIAN_BAND_OPTION) ? SalaryBenchmark.MEDIAN : SalaryBenchmark.MEAN;
+            int inputOption = options.indexOf(INPUT_OPTION);
+            if (inputOption >= 0 && inputOption == options.size() - 1) {
+                throw new IllegalArgumentException("The " + INPUT_OPTION + " option needs a file name, or - for standard input");
+            }
+            int cacheOption = options.indexOf(CACHE_OPTION);
+            if (cacheOption >= 0 && cacheOption == options.size() - 1) {
+                throw new IllegalArgumentException("The " + CACHE_OPTION + " option needs a directory name");
+            }
+            int sampleOption = options.indexOf(SAMPLE_OPTION);
+            if (sampleOption >= 0 && sampleOption == options.size() - 1) {
+                throw new IllegalArgumentException("The " + SAMPLE_OPTION + " option needs a number of employees");
+            }
+            int sampleSize = sampleOption >= 0 ? parseSampleSize(options.get(sampleOption + 1)) : 0;
+            Path csvFilePath = inputOption >= 0 ? Paths.get(options.get(inputOption + 1)) : EmployeeService.DEFAULT_CSV_FILE;
+            if (options.contains(EXTERNAL_MEMORY_OPTION)) {
+                List<String> unsupportedOptions = Stream.of(LENIENT_OPTION, PIPELINED_OPTION, CACHE_OPTION,
+                                                            MEDIAN_BAND_OPTION, SAMPLE_OPTION)
+                        .filter(options::contains)
+                        .toList();
+                if (!unsupportedOptions.isEmpty()) {
+                    throw new IllegalArgumentException("The " + String.join(", ", unsupportedOptions)
+                                                               + (unsupportedOptions.size() == 1 ? " option is" : " options are")
+                                                               + " not supported with " + EXTERNAL_MEMORY_OPTION);
+                }
+                generateExternalMemoryReport(csvFilePath);
+                return;
+            }
+            ReportCache reportCache = null;
+            String cacheKey = null;
+            if (cacheOption >= 0 && sampleOption < 0 && !csvFilePath.equals(EmployeeService.STANDARD_INPUT)) {
+                reportCache = new ReportCache(Paths.get(options.get(cacheOption + 1)), ReportCache.DEFAULT_MAX_BYTES);
+                cacheKey = ReportCache.computeKey(csvFilePath, getCacheParameters(lenient, salaryBenchmark));
+                if (reportCache.copyTo(cacheKey, System.out)) {
+                    System.out.flush();
+                    return;
+                }
+            }
+            IEmployeeService employeeService;
+            if (inputOption >= 0 || pipelined) {
+                employeeService = ServiceFactory.createEmployeeService(csvFilePath, lenient, pipelined);
+            } else {
+                employeeService = lenient
+                        ? ServiceFactory.createLenientEmployeeService()
+                        : ServiceFactory.createEmployeeService();
+            }
+            ISalaryService salaryService = ServiceFactory.createSalaryService(salaryBenchmark);
+            if (sampleOption >= 0) {
+                IReportingService reportingService = new ReportingService(employeeService, salaryService);
+                reportingService.generateApproximateEmployeeReport(sampleSize,
+                                                                   ThreadLocalRandom.current().nextLong());
+            } else if (reportCache == null) {
+                IReportingService reportingService = new ReportingService(employeeService, salaryService);
+                reportingService.generateEmployeeReport();
+            } else {
+                generateCachedReport(employeeService, salaryService, reportCache, cacheKey);
+            }
         } catch (InvalidSalaryException e) {
             System.err.println("An error occurred while calculating employee salary: " + e.getMessage());
             e.printStackTrace();
@@ -41,4 +136,107 @@ public class ReportGenerator {
         }
     }
 
+    /**
+     * Parses the number of employees to sample, which must be a whole number of at least one.
+     * @param value The value of the --sample option.
+     * @return The number of employees to sample.
+     */
+    private static int parseSampleSize(String value) {
+        int sampleSize;
+        try {
+            sampleSize = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The " + SAMPLE_OPTION + " option needs a number of employees, not: " + value);
+        }
+        if (sampleSize < 1) {
+            throw new IllegalArgumentException("The " + SAMPLE_OPTION + " option needs at least one employee, not: " + value);
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Generates the employee report, prints it and stores it in the report cache.
+     * A report that cannot be stored is still printed, with a warning.
+     * @param employeeService The service to load the employees with.
+     * @param salaryService The service to analyse the salaries with.
+     * @param reportCache The cache to store the report in.
+     * @param cacheKey The key of the report.
+     */
+    private static void generateCachedReport(IEmployeeService employeeService, ISalaryService salaryService,
+                                             ReportCache reportCache, String cacheKey) {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        PrintStream reportStream = new PrintStream(report, true, System.out.charset());
+        new ReportingService(employeeService, salaryService, reportStream).generateEmployeeReport();
+        reportStream.flush();
+        byte[] reportBytes = report.toByteArray();
+        System.out.writeBytes(reportBytes);
+        System.out.flush();
+        try {
+            reportCache.put(cacheKey, reportBytes);
+        } catch (IOException e) {
+            System.err.println("The report could not be cached: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the parameters that the cached reports depend on besides the CSV data: the format of the report,
+     * the salary multipliers and benchmark, the reporting line threshold and whether invalid rows are skipped.
+     * @param lenient Whether invalid rows are skipped.
+     * @param salaryBenchmark The statistic of the subordinates' salaries that the salary bands are judged against.
+     * @return The parameters, as a string to include in the cache key.
+     */
+    static String getCacheParameters(boolean lenient, SalaryBenchmark salaryBenchmark) {
+        return "format=" + CACHE_FORMAT_VERSION
+                + ";underpaid=" + SalaryService.UNDERPAID_MULTIPLIER
+                + ";overpaid=" + SalaryService.OVERPAID_MULTIPLIER
+                + ";benchmark=" + salaryBenchmark
+                + ";reportingLine=" + ReportingService.LONG_REPORTING_LINE_THRESHOLD
+                + ";lenient=" + lenient;
+    }
+
+    /**
+     * Generates the employee report with the external-memory analysis and prints each finding as it is passed on.
+     * The header is printed with the first finding, or at the end if there is none, so invalid data prints nothing.
+     * @param csvFilePath The path to the CSV file, or "-" for standard input.
+     * @throws IOException If the CSV data cannot be read or the spill files cannot be written.
+     */
+    private static void generateExternalMemoryReport(Path csvFilePath) throws IOException {
+        ExternalMemoryAnalysis analysis = new ExternalMemoryAnalysis(ExternalSorter.DEFAULT_LINES_IN_MEMORY, null);
+        boolean[] headerPrinted = new boolean[1];
+        Consumer<ReportFinding> printer = finding -> {
+            if (!headerPrinted[0]) {
+                printExternalMemoryReportHeader();
+                headerPrinted[0] = true;
+            }
+            printFinding(finding);
+        };
+        if (csvFilePath.equals(EmployeeService.STANDARD_INPUT)) {
+            analysis.analyse(System.in, printer);
+        } else {
+            analysis.analyse(csvFilePath, printer);
+        }
+        if (!headerPrinted[0]) {
+            printExternalMemoryReportHeader();
+        }
+    }
+
+    private static void printExternalMemoryReportHeader() {
+        System.out.println("\nEmployee Report:");
+        System.out.println("----------------");
+    }
+
+    /**
+     * Prints a single finding of the employee report.
+     * @param finding The finding to print.
+     */
+    private static void printFinding(ReportFinding finding) {
+        switch (finding) {
+            case ReportFinding.LongReportingLine line -> System.out.printf("%s %s with ID %s has a reporting line of length %s%n",
+                    line.employee().getFirstName(), line.employee().getLastName(), line.employee().getId(), line.reportingLineLength());
+            case ReportFinding.OverpaidManager overpaid -> System.out.printf("%s %s with ID %s is overpaid by %s%n",
+                    overpaid.employee().getFirstName(), overpaid.employee().getLastName(), overpaid.employee().getId(), overpaid.overpayment());
+            case ReportFinding.UnderpaidManager underpaid -> System.out.printf("%s %s with ID %s is underpaid by %s%n",
+                    underpaid.employee().getFirstName(), underpaid.employee().getLastName(), underpaid.employee().getId(), underpaid.underpayment());
+        }
+    }
 }
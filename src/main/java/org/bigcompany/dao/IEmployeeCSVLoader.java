@@ -3,6 +3,9 @@ package org.bigcompany.dao;
 import org.bigcompany.exception.EmployeeDataException;
 import org.bigcompany.model.CompanyStaff;
 
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
 import java.util.Map;
 
@@ -25,4 +28,61 @@ public interface IEmployeeCSVLoader {
      * @throws EmployeeDataException If there is an error reading employee data from the CSV file.
      */
     Map<String, CompanyStaff> buildEmployeeMapFromCSV(Path csvFilePath) throws EmployeeDataException;
+
+    /**
+     * Reads a CSV file and builds a map of employees, skipping invalid rows instead of failing on them.
+     * Each skipped row is recorded in the given log with its line number and the reason it was rejected.
+     *
+     * @param csvFilePath The path to the CSV file.
+     * @param rowErrorLog The log that collects the skipped rows.
+     * @return A map of the valid employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If the CSV file cannot be read as a whole, for example because it is empty.
+     */
+    Map<String, CompanyStaff> buildEmployeeMapFromCSV(Path csvFilePath, RowErrorLog rowErrorLog) throws EmployeeDataException;
+
+    /**
+     * Reads CSV data from a stream and builds a map of employees.
+     * The stream may be gzip or deflate compressed; it is read to its end but not closed.
+     *
+     * @param csvInput The stream of CSV data, such as standard input.
+     * @return A map of employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If there is an error reading employee data from the stream.
+     */
+    Map<String, CompanyStaff> buildEmployeeMapFromCSV(InputStream csvInput) throws EmployeeDataException;
+
+    /**
+     * Reads CSV data from a stream and builds a map of employees, skipping invalid rows instead of failing on them.
+     * The stream may be gzip or deflate compressed; it is read to its end but not closed.
+     *
+     * @param csvInput    The stream of CSV data, such as standard input.
+     * @param rowErrorLog The log that collects the skipped rows.
+     * @return A map of the valid employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If the CSV data is empty.
+     */
+    Map<String, CompanyStaff> buildEmployeeMapFromCSV(InputStream csvInput, RowErrorLog rowErrorLog) throws EmployeeDataException;
+
+    /**
+     * Reads CSV data from a channel and builds a map of employees.
+     * The data may be gzip or deflate compressed; the channel is read to its end but not closed.
+     *
+     * @param csvChannel The channel of CSV data.
+     * @return A map of employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If there is an error reading employee data from the channel.
+     */
+    default Map<String, CompanyStaff> buildEmployeeMapFromCSV(ReadableByteChannel csvChannel) throws EmployeeDataException {
+        return buildEmployeeMapFromCSV(Channels.newInputStream(csvChannel));
+    }
+
+    /**
+     * Reads CSV data from a channel and builds a map of employees, skipping invalid rows instead of failing on them.
+     * The data may be gzip or deflate compressed; the channel is read to its end but not closed.
+     *
+     * @param csvChannel  The channel of CSV data.
+     * @param rowErrorLog The log that collects the skipped rows.
+     * @return A map of the valid employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If the CSV data is empty.
+     */
+    default Map<String, CompanyStaff> buildEmployeeMapFromCSV(ReadableByteChannel csvChannel, RowErrorLog rowErrorLog) throws EmployeeDataException {
+        return buildEmployeeMapFromCSV(Channels.newInputStream(csvChannel), rowErrorLog);
+    }
 }
@@ -0,0 +1,43 @@
+package org.bigcompany.dao;
+
+/**
+ * The RowError record describes one CSV row that was skipped by a lenient load.
+ * It keeps the line as read from the file, so no message is built unless the error is reported.
+ * An employee dropped after the rows were read, because its reporting line does not reach the CEO,
+ * has no line number and a line rebuilt from its fields.
+ *
+ * @param lineNumber the 1-based line number of the row in the file, header included, or 0 for a dropped employee
+ * @param reason     the reason the row was skipped
+ * @param line       the row as read from the file, or as rebuilt for a dropped employee
+ */
+public record RowError(long lineNumber, Reason reason, String line) {
+
+    /**
+     * The Reason enum lists the reasons a CSV row can be rejected for.
+     */
+    public enum Reason {
+        INCORRECT_FIELD_COUNT("Incorrect number of fields"),
+        MALFORMED_QUOTED_FIELD("Quoted field is not closed or is followed by more than a comma"),
+        MISSING_ID_OR_NAME("ID, first name, or last name is empty"),
+        INVALID_SALARY("Invalid salary"),
+        NON_POSITIVE_SALARY("Salary must be greater than zero"),
+        DUPLICATE_ID("Duplicate employee ID"),
+        ADDITIONAL_CEO("More than one employee without a manager ID"),
+        UNKNOWN_MANAGER("Reporting line does not reach the CEO");
+
+        private final String description;
+
+        Reason(String description) {
+            this.description = description;
+        }
+
+        /**
+         * Returns the human-readable description of the reason.
+         *
+         * @return the description of the reason
+         */
+        public String getDescription() {
+            return description;
+        }
+    }
+}
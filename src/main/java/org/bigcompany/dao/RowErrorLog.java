@@ -0,0 +1,102 @@
+package org.bigcompany.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The RowErrorLog class collects the rows skipped by a lenient load.
+ * It keeps at most a fixed number of RowError records and only counts the rows beyond that,
+ * so a load over a badly broken export cannot run out of memory on its own error report.
+ */
+public final class RowErrorLog {
+
+    public static final int DEFAULT_CAPACITY = 1_000;
+
+    private final int capacity;
+    private final List<RowError> errors = new ArrayList<>();
+    private final Map<RowError.Reason, Long> countsByReason = new EnumMap<>(RowError.Reason.class);
+    private long totalCount;
+
+    /**
+     * Constructs a RowErrorLog that keeps the default number of errors.
+     */
+    public RowErrorLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a RowErrorLog that keeps at most the given number of errors.
+     *
+     * @param capacity the maximum number of errors kept
+     */
+    public RowErrorLog(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records a skipped row. The row is only kept while the log is below its capacity; it is always counted.
+     *
+     * @param lineNumber the 1-based line number of the row in the file, header included
+     * @param reason     the reason the row was skipped
+     * @param line       the row as read from the file
+     */
+    public void record(long lineNumber, RowError.Reason reason, String line) {
+        totalCount++;
+        countsByReason.merge(reason, 1L, Long::sum);
+        if (errors.size() < capacity) {
+            errors.add(new RowError(lineNumber, reason, line));
+        }
+    }
+
+    /**
+     * Returns the kept errors, in the order of the rows in the file.
+     *
+     * @return the kept errors
+     */
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns the number of skipped rows, kept or not.
+     *
+     * @return the number of skipped rows
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the number of skipped rows that were counted but not kept.
+     *
+     * @return the number of skipped rows beyond the capacity
+     */
+    public long getOverflowCount() {
+        return totalCount - errors.size();
+    }
+
+    /**
+     * Returns the number of rows skipped for the given reason, kept or not.
+     *
+     * @param reason the reason to count
+     * @return the number of rows skipped for the reason
+     */
+    public long getCount(RowError.Reason reason) {
+        return countsByReason.getOrDefault(reason, 0L);
+    }
+
+    /**
+     * Returns whether no row was skipped.
+     *
+     * @return true if no row was skipped, false otherwise
+     */
+    public boolean isEmpty() {
+        return totalCount == 0;
+    }
+}
@@ -0,0 +1,177 @@
+package org.bigcompany.dao.impl;
+
+import java.util.Arrays;
+
+/**
+ * The CsvFieldTokenizer class finds the comma-separated fields of a CSV record without copying them.
+ * It records where each field starts and ends in a char buffer, in arrays that are reused for every record,
+ * so tokenizing a record allocates nothing once the arrays have grown to the widest record.
+ * The fields are the same as those of String.split(","): trailing empty fields are dropped.
+ * <p>
+ * Quoted fields follow RFC 4180: a field that starts with a quote runs to the next single quote, and may hold commas,
+ * line breaks and quotes written as two quotes. A record without a quote at the start of a field takes the fast path,
+ * where the fields are found in the caller's buffer. A record with one is unquoted into a buffer of the tokenizer
+ * instead, so getChars must be used to read the fields. A quote inside an unquoted field is kept as it is.
+ * A tokenizer is not thread-safe.
+ */
+final class CsvFieldTokenizer {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int fieldCount;
+    private char[] chars;
+    private char[] unquoted = new char[0];
+    private boolean malformed;
+
+    /**
+     * Finds the fields of a record.
+     * @param chars The buffer that holds the record.
+     * @param start The index of the first char of the record.
+     * @param end The index after the last char of the record.
+     * @return The number of fields, which is zero if the record is malformed.
+     */
+    int tokenize(char[] chars, int start, int end) {
+        this.chars = chars;
+        malformed = false;
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int index = start; index < end; index++) {
+            char c = chars[index];
+            if (c == ',') {
+                addField(fieldStart, index);
+                fieldStart = index + 1;
+            } else if (c == '"' && index == fieldStart) {
+                return tokenizeQuoted(chars, start, end);
+            }
+        }
+        if (fieldCount == 0) {
+            // A record without a comma is one field, even if it is empty
+            addField(start, end);
+            return fieldCount;
+        }
+        addField(fieldStart, end);
+        return dropTrailingEmptyFields();
+    }
+
+    /**
+     * Gets the buffer that the field boundaries of the last record refer to.
+     * @return The buffer that was tokenized, or the tokenizer's buffer if the record had quoted fields.
+     */
+    char[] getChars() {
+        return chars;
+    }
+
+    /**
+     * Gets the number of fields of the last record.
+     * @return The number of fields.
+     */
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Checks whether the last record has a quoted field that is not closed, or that is followed by more than a comma.
+     * @return true if the record is malformed, false otherwise.
+     */
+    boolean isMalformed() {
+        return malformed;
+    }
+
+    /**
+     * Gets the start of a field of the last record.
+     * @param field The index of the field.
+     * @return The index of the first char of the field in the buffer.
+     */
+    int getStart(int field) {
+        return starts[field];
+    }
+
+    /**
+     * Gets the end of a field of the last record.
+     * @param field The index of the field.
+     * @return The index after the last char of the field in the buffer.
+     */
+    int getEnd(int field) {
+        return ends[field];
+    }
+
+    /**
+     * Checks whether a field of the last record is empty.
+     * @param field The index of the field.
+     * @return true if the field has no chars, false otherwise.
+     */
+    boolean isEmpty(int field) {
+        return starts[field] == ends[field];
+    }
+
+    /**
+     * Finds the fields of a record with quoted fields, copying their values into the tokenizer's buffer.
+     * Unquoting only ever shortens a field, so the buffer never needs to be longer than the record.
+     */
+    private int tokenizeQuoted(char[] record, int start, int end) {
+        if (unquoted.length < end - start) {
+            unquoted = new char[Math.max(end - start, unquoted.length * 2)];
+        }
+        chars = unquoted;
+        fieldCount = 0;
+        int length = 0;
+        int index = start;
+        while (true) {
+            int fieldStart = length;
+            if (index < end && record[index] == '"') {
+                index++;
+                while (true) {
+                    if (index == end) {
+                        return reject();
+                    }
+                    char c = record[index++];
+                    if (c != '"') {
+                        unquoted[length++] = c;
+                    } else if (index < end && record[index] == '"') {
+                        unquoted[length++] = '"';
+                        index++;
+                    } else {
+                        break;
+                    }
+                }
+                if (index < end && record[index] != ',') {
+                    return reject();
+                }
+            } else {
+                while (index < end && record[index] != ',') {
+                    unquoted[length++] = record[index++];
+                }
+            }
+            addField(fieldStart, length);
+            if (index == end) {
+                return fieldCount == 1 ? fieldCount : dropTrailingEmptyFields();
+            }
+            index++;
+        }
+    }
+
+    private int reject() {
+        malformed = true;
+        fieldCount = 0;
+        return fieldCount;
+    }
+
+    private int dropTrailingEmptyFields() {
+        while (fieldCount > 0 && starts[fieldCount - 1] == ends[fieldCount - 1]) {
+            fieldCount--;
+        }
+        return fieldCount;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+}
@@ -0,0 +1,100 @@
+package org.bigcompany.dao.impl;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The CsvInputStreams class opens CSV sources that may be compressed.
+ * Gzip input is recognised by its first two bytes and zlib-wrapped deflate input by a valid zlib header whose
+ * first bytes also inflate cleanly, whatever the file name, so plain text that happens to start like a zlib header
+ * is still read as it is. Compressed input is inflated inline on a separate thread while the caller parses,
+ * without temporary files.
+ */
+final class CsvInputStreams {
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int GZIP_MAGIC_FIRST = 0x1f;
+    private static final int GZIP_MAGIC_SECOND = 0x8b;
+    private static final int DEFLATE_METHOD = 8;
+    private static final int MAX_DEFLATE_WINDOW_BITS = 7;
+    private static final int ZLIB_HEADER_CHECK = 31;
+    private static final int ZLIB_PRESET_DICTIONARY = 0x20;
+    private static final int DEFLATE_PROBE_SIZE = 1024;
+
+    private CsvInputStreams() {
+    }
+
+    /**
+     * Opens a CSV source, inflating it if it is compressed.
+     * @param source The raw source. It is closed when the returned stream is closed.
+     * @return A stream of the uncompressed CSV bytes.
+     * @throws IOException If the first bytes of the source cannot be read.
+     */
+    static InputStream open(InputStream source) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(source, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == GZIP_MAGIC_FIRST && second == GZIP_MAGIC_SECOND) {
+            return new ReadAheadInputStream(new GZIPInputStream(buffered, BUFFER_SIZE), "csv-gzip-inflater");
+        }
+        if (isZlibHeader(first, second) && inflatesCleanly(buffered)) {
+            Inflater inflater = new Inflater();
+            InputStream inflating = new InflaterInputStream(buffered, inflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inflater.end();
+                    }
+                }
+            };
+            return new ReadAheadInputStream(inflating, "csv-deflate-inflater");
+        }
+        return buffered;
+    }
+
+    /**
+     * Checks for the two-byte zlib header (RFC 1950): the deflate method, a valid window size, a header checksum
+     * and no preset dictionary, which a compressed export never needs.
+     */
+    private static boolean isZlibHeader(int first, int second) {
+        return first >= 0 && second >= 0
+                && (first & 0x0f) == DEFLATE_METHOD
+                && (first >> 4) <= MAX_DEFLATE_WINDOW_BITS
+                && (second & ZLIB_PRESET_DICTIONARY) == 0
+                && ((first << 8) | second) % ZLIB_HEADER_CHECK == 0;
+    }
+
+    /**
+     * Checks that the first bytes of the source inflate without an error. Some plain text starts with a valid
+     * zlib header, but hardly any of it goes on as valid deflate data. The source is reset afterwards.
+     */
+    private static boolean inflatesCleanly(BufferedInputStream buffered) throws IOException {
+        byte[] probe = new byte[DEFLATE_PROBE_SIZE];
+        buffered.mark(DEFLATE_PROBE_SIZE);
+        int length = buffered.readNBytes(probe, 0, DEFLATE_PROBE_SIZE);
+        buffered.reset();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(probe, 0, length);
+            byte[] inflated = new byte[DEFLATE_PROBE_SIZE];
+            while (!inflater.finished() && !inflater.needsInput() && inflater.inflate(inflated) > 0) {
+                // Only the absence of a format error matters
+            }
+            return !inflater.needsDictionary();
+        } catch (DataFormatException e) {
+            return false;
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.bigcompany.dao.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * The CsvRecordReader class splits character data into CSV records as RFC 4180 defines them, and leaves each record
+ * in a reused char buffer instead of copying it into a new String. A record ends at a line feed, a carriage return
+ * or a carriage return followed by a line feed, unless the line break is inside a quoted field, and the last record
+ * need not end at all.
+ * <p>
+ * A quote opens a quoted field only at the start of a field; inside one, two quotes stand for a quote and a single
+ * quote closes it. Records are scanned for line breaks and quotes in the same pass, so data without quotes is read
+ * as fast as plain lines. The quote state is kept while the buffer is refilled, so a quoted field may span any number
+ * of reads, and a reader that hands whole records to other threads never cuts a quoted field in two.
+ * <p>
+ * The reader is also a view of its current record, so a caller can hand the record on as a CharSequence
+ * and turn it into a String only when it has to keep it. The view and the buffer change with every call to next.
+ * A record reader is not thread-safe.
+ */
+final class CsvRecordReader implements CharSequence {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private final Reader reader;
+    private char[] buffer = new char[INITIAL_CAPACITY];
+    private int position;
+    private int limit;
+    private int recordStart;
+    private int recordEnd;
+    private int lineBreaks;
+    private boolean skipLineFeed;
+
+    /**
+     * Constructs a CsvRecordReader.
+     * @param reader The reader of the character data. It is not closed by the record reader.
+     */
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Moves to the next record.
+     * @return true if there is a next record, false at the end of the data.
+     * @throws IOException If the data cannot be read.
+     */
+    boolean next() throws IOException {
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if (position == limit && !fill()) {
+                return false;
+            }
+            if (buffer[position] == '\n') {
+                position++;
+            }
+        }
+        lineBreaks = 0;
+        boolean quoted = false;
+        boolean quoteClosed = false;
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                char c = buffer[scan];
+                if (quoted) {
+                    if (c == '"') {
+                        quoted = false;
+                        quoteClosed = true;
+                    } else if (c == '\r' || (c == '\n' && buffer[scan - 1] != '\r')) {
+                        lineBreaks++;
+                    }
+                    continue;
+                }
+                if (c == '\n' || c == '\r') {
+                    recordStart = position;
+                    recordEnd = scan;
+                    position = scan + 1;
+                    skipLineFeed = c == '\r';
+                    return true;
+                }
+                // A quote right after a closing quote is an escaped quote, which reopens the field
+                quoted = c == '"' && (quoteClosed || scan == position || buffer[scan - 1] == ',');
+                quoteClosed = false;
+            }
+            int scanned = scan - position;
+            if (!fill()) {
+                if (scanned == 0) {
+                    return false;
+                }
+                recordStart = position;
+                recordEnd = limit;
+                position = limit;
+                return true;
+            }
+            scan = position + scanned;
+        }
+    }
+
+    /**
+     * Gets the buffer that holds the current record.
+     * @return The buffer, which is reused for the following records.
+     */
+    char[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Gets the start of the current record.
+     * @return The index of the first char of the record in the buffer.
+     */
+    int getRecordStart() {
+        return recordStart;
+    }
+
+    /**
+     * Gets the end of the current record.
+     * @return The index after the last char of the record in the buffer, before its line terminator.
+     */
+    int getRecordEnd() {
+        return recordEnd;
+    }
+
+    /**
+     * Gets the number of line breaks inside the quoted fields of the current record.
+     * @return The number of lines the record spans, less one.
+     */
+    int getLineBreaks() {
+        return lineBreaks;
+    }
+
+    @Override
+    public int length() {
+        return recordEnd - recordStart;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return buffer[recordStart + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Copies the current record into a String.
+     * @return The current record without its line terminator.
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, recordStart, recordEnd - recordStart);
+    }
+
+    /**
+     * Moves the unread chars to the front of the buffer, growing it if a record fills all of it, and reads more after them.
+     * @return true if more chars were read, false at the end of the data.
+     */
+    private boolean fill() throws IOException {
+        int unread = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, unread);
+        } else if (unread == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position = 0;
+        limit = unread;
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read <= 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
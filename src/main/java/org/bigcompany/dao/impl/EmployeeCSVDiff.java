@@ -0,0 +1,221 @@
+package org.bigcompany.dao.impl;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.OrgChange;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static org.bigcompany.dao.RowError.Reason.DUPLICATE_ID;
+
+/**
+ * The EmployeeCSVDiff class compares two CSV files in the format read by the EmployeeCSVLoader and reports
+ * the hires, leavers, salary changes and manager changes between them, in employee ID order.
+ * <p>
+ * The files are merged row by row on the employee ID, so neither is loaded into memory. A file whose rows are
+ * already in ID order is read as it is; any other file is first sorted with an ExternalSorter, which holds a bounded
+ * number of rows in memory and spills the rest to temporary files. Like the loader, the diff accepts compressed files
+ * and fails on the first invalid row.
+ */
+public class EmployeeCSVDiff {
+
+    /**
+     * The order of employee IDs in the diff: shorter IDs first, and IDs of equal length in string order.
+     * For numeric IDs without leading zeros this is their numeric order.
+     */
+    public static final Comparator<String> EMPLOYEE_ID_ORDER =
+            Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private static final Comparator<String> ROW_ORDER = Comparator.comparing(EmployeeCSVDiff::getEmployeeId, EMPLOYEE_ID_ORDER);
+
+    private final ExternalSorter sorter;
+
+    /**
+     * Constructs an EmployeeCSVDiff that holds up to the default number of rows in memory when it sorts a file.
+     */
+    public EmployeeCSVDiff() {
+        this(ExternalSorter.DEFAULT_LINES_IN_MEMORY, null);
+    }
+
+    /**
+     * Constructs an EmployeeCSVDiff.
+     * @param maxRowsInMemory The largest number of rows held in memory when a file has to be sorted.
+     * @param spillDirectory The directory for the temporary files of a sort, or null for the default temporary directory.
+     */
+    public EmployeeCSVDiff(int maxRowsInMemory, Path spillDirectory) {
+        this.sorter = new ExternalSorter(ROW_ORDER, maxRowsInMemory, spillDirectory);
+    }
+
+    /**
+     * Compares two CSV files and passes each change to the given consumer as soon as it is found.
+     * @param before The older CSV file.
+     * @param after The newer CSV file.
+     * @param changes The consumer of the changes, called in employee ID order.
+     * @throws IOException If a file cannot be read or sorted.
+     * @throws EmployeeDataException If a file is empty, has an invalid row or has a duplicate employee ID.
+     */
+    public void diff(Path before, Path after, Consumer<? super OrgChange> changes) throws IOException {
+        try (EmployeeRows beforeRows = openSorted(before);
+             EmployeeRows afterRows = openSorted(after)) {
+            CompanyStaff beforeEmployee = beforeRows.next();
+            CompanyStaff afterEmployee = afterRows.next();
+            while (beforeEmployee != null || afterEmployee != null) {
+                int comparison = beforeEmployee == null ? 1
+                        : afterEmployee == null ? -1
+                        : EMPLOYEE_ID_ORDER.compare(beforeEmployee.getId(), afterEmployee.getId());
+                if (comparison < 0) {
+                    changes.accept(new OrgChange.Leaver(beforeEmployee));
+                    beforeEmployee = beforeRows.next();
+                } else if (comparison > 0) {
+                    changes.accept(new OrgChange.Hire(afterEmployee));
+                    afterEmployee = afterRows.next();
+                } else {
+                    if (beforeEmployee.getSalary().compareTo(afterEmployee.getSalary()) != 0) {
+                        changes.accept(new OrgChange.SalaryChange(beforeEmployee.getId(), beforeEmployee.getSalary(),
+                                                                  afterEmployee.getSalary()));
+                    }
+                    if (!Objects.equals(beforeEmployee.getManagerId(), afterEmployee.getManagerId())) {
+                        changes.accept(new OrgChange.ManagerChange(beforeEmployee.getId(), beforeEmployee.getManagerId(),
+                                                                   afterEmployee.getManagerId()));
+                    }
+                    beforeEmployee = beforeRows.next();
+                    afterEmployee = afterRows.next();
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the data rows of a CSV file in employee ID order, sorting them first if they are not in order yet.
+     */
+    private EmployeeRows openSorted(Path csvFile) throws IOException {
+        boolean sorted;
+        try (BufferedReader reader = openRows(csvFile)) {
+            sorted = isSorted(readRecords(reader));
+        }
+        BufferedReader reader = openRows(csvFile);
+        if (sorted) {
+            return new EmployeeRows(csvFile, readRecords(reader), reader);
+        }
+        try (reader; ExternalSorter.Sorting sorting = sorter.newSorting()) {
+            LineSource records = readRecords(reader);
+            String record;
+            while ((record = records.readLine()) != null) {
+                sorting.add(record);
+            }
+            ExternalSorter.SortedLines sortedLines = sorting.finish();
+            return new EmployeeRows(csvFile, sortedLines::readLine, sortedLines);
+        }
+    }
+
+    /**
+     * Opens a CSV file, which may be compressed, positioned after the header line.
+     */
+    private static BufferedReader openRows(Path csvFile) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(CsvInputStreams.open(Files.newInputStream(csvFile)),
+                                                                         StandardCharsets.UTF_8), CsvInputStreams.BUFFER_SIZE);
+        try {
+            if (reader.readLine() == null) {
+                throw new EmployeeDataException("The CSV file " + csvFile + " is empty");
+            }
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the remaining CSV records of a reader, so that a row with a quoted line break is read whole.
+     */
+    private static LineSource readRecords(BufferedReader reader) {
+        CsvRecordReader records = new CsvRecordReader(reader);
+        return () -> records.next() ? records.toString() : null;
+    }
+
+    private static boolean isSorted(LineSource records) throws IOException {
+        String previous = records.readLine();
+        String line;
+        while (previous != null && (line = records.readLine()) != null) {
+            if (ROW_ORDER.compare(previous, line) > 0) {
+                return false;
+            }
+            previous = line;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the employee ID of a CSV record without parsing the rest of it. A quoted ID is unquoted.
+     */
+    private static String getEmployeeId(String csvLine) {
+        if (!csvLine.startsWith("\"")) {
+            int comma = csvLine.indexOf(',');
+            return comma < 0 ? csvLine : csvLine.substring(0, comma);
+        }
+        StringBuilder id = new StringBuilder();
+        for (int index = 1; index < csvLine.length(); index++) {
+            char c = csvLine.charAt(index);
+            if (c == '"') {
+                if (index + 1 == csvLine.length() || csvLine.charAt(index + 1) != '"') {
+                    break;
+                }
+                index++;
+            }
+            id.append(c);
+        }
+        return id.toString();
+    }
+
+    /**
+     * A source of CSV records in ID order.
+     */
+    @FunctionalInterface
+    private interface LineSource {
+        String readLine() throws IOException;
+    }
+
+    /**
+     * The employees of one file in ID order, parsed one row at a time and checked for duplicate IDs.
+     */
+    private static final class EmployeeRows implements Closeable {
+        private final Path csvFile;
+        private final LineSource lines;
+        private final Closeable resource;
+        private final EmployeeRowParser parser = new EmployeeRowParser(false, false);
+        private String previousId;
+
+        private EmployeeRows(Path csvFile, LineSource lines, Closeable resource) {
+            this.csvFile = csvFile;
+            this.lines = lines;
+            this.resource = resource;
+        }
+
+        private CompanyStaff next() throws IOException {
+            String line = lines.readLine();
+            if (line == null) {
+                return null;
+            }
+            CompanyStaff employee = parser.parse(line);
+            if (employee.getId().equals(previousId)) {
+                throw new EmployeeDataException(DUPLICATE_ID.getDescription() + ": " + employee.getId() + " in " + csvFile);
+            }
+            previousId = employee.getId();
+            return employee;
+        }
+
+        @Override
+        public void close() throws IOException {
+            resource.close();
+        }
+    }
+}
@@ -1,21 +1,24 @@
 package org.bigcompany.dao.impl;
 
 import org.bigcompany.dao.IEmployeeCSVLoader;
+import org.bigcompany.dao.RowErrorLog;
+import org.bigcompany.event.CsvBatchEvent;
+import org.bigcompany.event.CsvLoadEvent;
 import org.bigcompany.exception.EmployeeDataException;
-import org.bigcompany.exception.InvalidSalaryException;
 import org.bigcompany.model.CompanyStaff;
-import org.bigcompany.model.Employee;
 
 import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
-
-import static java.nio.file.Files.newBufferedReader;
-import static java.math.BigDecimal.ZERO;
+import java.util.Objects;
 
 /**
  * The EmployeeCSVLoader class provides methods to load employee data from a CSV file.
@@ -26,17 +29,14 @@ import static java.math.BigDecimal.ZERO;
  * The specific implementation of how the data is loaded and parsed is left to the implementing class.
  * It throws an EmployeeDataException if there is an error reading employee data from the CSV file.
  * It throws an InvalidSalaryException if the salary is not a valid number or if it's less than or equal to zero.
+ * In lenient mode, invalid rows are skipped and recorded in a RowErrorLog instead of aborting the load.
+ * Files and streams may be gzip or deflate compressed; they are inflated inline while the rows are parsed.
  */
 public class EmployeeCSVLoader implements IEmployeeCSVLoader {
 
-    private static final int ID_INDEX = 0;
-    private static final int FIRST_NAME_INDEX = 1;
-    private static final int LAST_NAME_INDEX = 2;
-    private static final int SALARY_INDEX = 3;
-    private static final int MANAGER_ID_INDEX = 4;
-    private static final int MIN_CSV_FIELDS = 4;
-    private static final int MAX_CSV_FIELDS = 5;
-    private static final int ZERO_SALARY = ZERO.intValue();
+    static final long FIRST_DATA_LINE = 2;
+    private static final int ROWS_PER_BATCH_EVENT = 10_000;
+    private static final String STREAM_SOURCE = "stream";
 
     /**
      * Reads a CSV file and builds a map of employees.
@@ -48,82 +48,190 @@ public class EmployeeCSVLoader implements IEmployeeCSVLoader {
      * @throws EmployeeDataException If there is an error reading employee data from the CSV file.
      */
     public Map<String, CompanyStaff> buildEmployeeMapFromCSV(Path csvFilePath) throws EmployeeDataException{
-        Map<String, CompanyStaff> employeeMap = new HashMap<>();
-        int ceoCount = 0;
-        try (BufferedReader reader = newBufferedReader(csvFilePath)) {
-            String line;
-            String headerLine = reader.readLine(); // Skips the header
-            if (headerLine == null) {
-                throw new EmployeeDataException("The CSV file is empty");
-            }
-            while ((line = reader.readLine()) != null) {
-                CompanyStaff employee = validateAndCreateEmployeeFromCSVLine(line);
-                if (employeeMap.containsKey(employee.getId())) {
-                    throw new EmployeeDataException("Duplicate employee ID: " + employee.getId());
-                }
-                if (employee.getManagerId() == null) {
-                    ceoCount++;
-                    if (ceoCount > 1) {
-                        throw new EmployeeDataException("More than one employee without a manager ID");
-                    }
-                }
-                employeeMap.put(employee.getId(), employee);
-            }
+        return buildEmployeeMap(csvFilePath, null);
+    }
+
+    /**
+     * Reads a CSV file and builds a map of employees, skipping invalid rows instead of failing on them.
+     * Each skipped row is recorded in the given log with its line number and the reason it was rejected.
+     *
+     * @param csvFilePath The path to the CSV file.
+     * @param rowErrorLog The log that collects the skipped rows.
+     * @return A map of the valid employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If the CSV file is empty.
+     */
+    public Map<String, CompanyStaff> buildEmployeeMapFromCSV(Path csvFilePath, RowErrorLog rowErrorLog) throws EmployeeDataException {
+        return buildEmployeeMap(csvFilePath, Objects.requireNonNull(rowErrorLog, "rowErrorLog"));
+    }
+
+    /**
+     * Reads CSV data from a stream and builds a map of employees.
+     * The stream may be gzip or deflate compressed; it is read to its end but not closed.
+     *
+     * @param csvInput The stream of CSV data, such as standard input.
+     * @return A map of employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If there is an error reading employee data from the stream.
+     */
+    public Map<String, CompanyStaff> buildEmployeeMapFromCSV(InputStream csvInput) throws EmployeeDataException {
+        return buildEmployeeMap(csvInput, null);
+    }
+
+    /**
+     * Reads CSV data from a stream and builds a map of employees, skipping invalid rows instead of failing on them.
+     * The stream may be gzip or deflate compressed; it is read to its end but not closed.
+     *
+     * @param csvInput The stream of CSV data, such as standard input.
+     * @param rowErrorLog The log that collects the skipped rows.
+     * @return A map of the valid employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If the CSV data is empty.
+     */
+    public Map<String, CompanyStaff> buildEmployeeMapFromCSV(InputStream csvInput, RowErrorLog rowErrorLog) throws EmployeeDataException {
+        return buildEmployeeMap(csvInput, Objects.requireNonNull(rowErrorLog, "rowErrorLog"));
+    }
+
+    /**
+     * Reads a CSV file, which may be compressed, and builds a map of employees.
+     * @param csvFilePath The path to the CSV file.
+     * @param rowErrorLog The log that collects skipped rows, or null to fail on the first invalid row.
+     * @return A map of employees, keyed by their unique identifiers.
+     */
+    private Map<String, CompanyStaff> buildEmployeeMap(Path csvFilePath, RowErrorLog rowErrorLog) {
+        try (InputStream csvInput = Files.newInputStream(csvFilePath)) {
+            return buildEmployeeMap(csvInput, csvFilePath.toString(), rowErrorLog);
         } catch (NoSuchFileException e) {
             System.err.println("The file " + csvFilePath + " does not exist.");
         } catch (IOException e) {
             System.err.println("Error reading employee data from the CSV file");
         }
-        return employeeMap;
+        return new HashMap<>();
     }
 
     /**
-     * This method takes a line from the CSV file and constructs a CompanyStaff object.
-     * It extracts the Employee's ID, first name, last name, salary, and manager ID from the line.
-     *
-     * @param csvLine A line from the CSV file.
-     * @return A CompanyStaff object representing the Employee.
+     * Reads CSV data, which may be compressed, from a stream that is left open and builds a map of employees.
+     * @param csvInput The stream of CSV data.
+     * @param rowErrorLog The log that collects skipped rows, or null to fail on the first invalid row.
+     * @return A map of employees, keyed by their unique identifiers.
      */
-    private static CompanyStaff validateAndCreateEmployeeFromCSVLine(String csvLine) {
-        String[] employeeFields = csvLine.split(",");
-        validateEmployeeFields(employeeFields);
-        String id = employeeFields[ID_INDEX];
-        String firstName = employeeFields[FIRST_NAME_INDEX];
-        String lastName = employeeFields[LAST_NAME_INDEX];
-        BigDecimal salary = parseSalary(employeeFields[SALARY_INDEX]);
-        String managerId = employeeFields.length > MANAGER_ID_INDEX && !employeeFields[MANAGER_ID_INDEX].isEmpty()
-                ? employeeFields[MANAGER_ID_INDEX]
-                : null;
-        return new Employee(id, firstName, lastName, salary, managerId);
+    private Map<String, CompanyStaff> buildEmployeeMap(InputStream csvInput, RowErrorLog rowErrorLog) {
+        try {
+            return buildEmployeeMap(new FilterInputStream(csvInput) {
+                @Override
+                public void close() {
+                    // The caller owns the stream
+                }
+            }, STREAM_SOURCE, rowErrorLog);
+        } catch (IOException e) {
+            System.err.println("Error reading employee data from the CSV stream");
+        }
+        return new HashMap<>();
     }
 
     /**
-     * Validates the fields of an employee from the CSV file.
-     * @param employeeFields The fields of an employee from the CSV file.
+     * Reads CSV data and builds a map of employees.
+     * @param csvInput The raw CSV data, which is closed when this method returns.
+     * @param source The name of the source, as recorded in the flight recorder event.
+     * @param rowErrorLog The log that collects skipped rows, or null to fail on the first invalid row.
+     * @return A map of employees, keyed by their unique identifiers.
+     * @throws IOException If the CSV data cannot be read.
      */
-    private static void validateEmployeeFields(String[] employeeFields) {
-        if (employeeFields.length < MIN_CSV_FIELDS || employeeFields.length > MAX_CSV_FIELDS) {
-            throw new EmployeeDataException("Incorrect number of fields in line: " + String.join(",", employeeFields));
+    private Map<String, CompanyStaff> buildEmployeeMap(InputStream csvInput, String source, RowErrorLog rowErrorLog) throws IOException {
+        CsvLoadEvent loadEvent = new CsvLoadEvent();
+        loadEvent.begin();
+        CountingInputStream countingInput = new CountingInputStream(csvInput);
+        Map<String, CompanyStaff> employeeMap;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(CsvInputStreams.open(countingInput), StandardCharsets.UTF_8),
+                                                        CsvInputStreams.BUFFER_SIZE)) {
+            String headerLine = reader.readLine(); // Skips the header
+            if (headerLine == null) {
+                throw new EmployeeDataException("The CSV file is empty");
+            }
+            employeeMap = collectEmployees(reader, rowErrorLog);
         }
-        if (employeeFields[ID_INDEX].isEmpty() || employeeFields[FIRST_NAME_INDEX].isEmpty() || employeeFields[LAST_NAME_INDEX].isEmpty()) {
-            throw new EmployeeDataException("ID, first name, or last name is empty in line: " + String.join(",", employeeFields));
+        loadEvent.end();
+        if (loadEvent.shouldCommit()) {
+            loadEvent.source = source;
+            loadEvent.rows = employeeMap.size();
+            loadEvent.bytes = countingInput.count;
+            loadEvent.commit();
         }
+        return employeeMap;
     }
 
     /**
-     * Parses the salary field from the CSV file.
-     * @param salaryField The salary field from the CSV file.
-     * @return BigDecimal representing the salary.
+     * Reads the data rows that follow the header, validates them and collects the employees.
+     * The rows are read into a reused buffer and parsed in place; a row is copied into a String only if it is skipped.
+     * A row with a quoted line break spans several lines, and is recorded under the number of its first line.
+     * @param reader The reader positioned after the header line.
+     * @param rowErrorLog The log that collects skipped rows, or null to fail on the first invalid row.
+     * @return A map of employees, keyed by their unique identifiers.
+     * @throws IOException If the CSV data cannot be read.
      */
-    private static BigDecimal parseSalary(String salaryField) {
-        try {
-            BigDecimal salary = new BigDecimal(salaryField);
-            if (salary.compareTo(ZERO) <= ZERO_SALARY) {
-                throw new InvalidSalaryException("Salary must be greater than zero");
+    protected Map<String, CompanyStaff> collectEmployees(BufferedReader reader, RowErrorLog rowErrorLog) throws IOException {
+        EmployeeRowParser parser = new EmployeeRowParser(rowErrorLog != null);
+        EmployeeMapCollector collector = new EmployeeMapCollector(rowErrorLog);
+        CsvRecordReader record = new CsvRecordReader(reader);
+        long nextLineNumber = FIRST_DATA_LINE;
+        CsvBatchEvent batchEvent = newBatchEvent(FIRST_DATA_LINE);
+        while (record.next()) {
+            long lineNumber = nextLineNumber;
+            nextLineNumber += 1 + record.getLineBreaks();
+            if (batchEvent.rows == ROWS_PER_BATCH_EVENT) {
+                batchEvent.commit();
+                batchEvent = newBatchEvent(lineNumber);
+            }
+            batchEvent.rows++;
+            batchEvent.chars += record.length() + 1;
+            CompanyStaff employee = parser.parse(record.getBuffer(), record.getRecordStart(), record.getRecordEnd());
+            if (employee == null) {
+                collector.reject(lineNumber, parser.getRejectionReason(), record);
+            } else {
+                collector.add(employee, lineNumber, record);
+            }
+        }
+        if (batchEvent.rows > 0) {
+            batchEvent.commit();
+        }
+        return collector.getEmployeeMap();
+    }
+
+    /**
+     * Starts a flight recorder event for the batch of rows beginning at the given line.
+     * @param firstLine The 1-based line number of the first row of the batch.
+     * @return The started batch event.
+     */
+    static CsvBatchEvent newBatchEvent(long firstLine) {
+        CsvBatchEvent batchEvent = new CsvBatchEvent();
+        batchEvent.firstLine = firstLine;
+        batchEvent.begin();
+        return batchEvent;
+    }
+
+    /**
+     * Counts the bytes read from the source, which for a compressed source is its compressed size.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream source) {
+            super(source);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                count += read;
             }
-            return salary;
-        } catch (NumberFormatException e) {
-            throw new InvalidSalaryException("Invalid salary: " + salaryField, e);
+            return read;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package org.bigcompany.dao.impl;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The EmployeeCSVReader class reads the employees of CSV data in the format read by the EmployeeCSVLoader
+ * one row at a time, for callers that process more employees than fit in memory. Like the loader, it accepts
+ * compressed data and fails on the first invalid row; the rules that span rows, such as unique IDs,
+ * are left to the caller.
+ */
+public final class EmployeeCSVReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final CsvRecordReader records;
+    private final EmployeeRowParser parser = new EmployeeRowParser(false, false);
+
+    /**
+     * Constructs an EmployeeCSVReader over a stream of CSV data and skips its header.
+     * @param csvInput The stream of CSV data, which may be gzip or deflate compressed. It is closed with the reader.
+     * @throws IOException If the header cannot be read.
+     * @throws EmployeeDataException If the CSV data is empty.
+     */
+    public EmployeeCSVReader(InputStream csvInput) throws IOException {
+        reader = new BufferedReader(new InputStreamReader(CsvInputStreams.open(csvInput), StandardCharsets.UTF_8),
+                                    CsvInputStreams.BUFFER_SIZE);
+        try {
+            if (reader.readLine() == null) {
+                throw new EmployeeDataException("The CSV file is empty");
+            }
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+        records = new CsvRecordReader(reader);
+    }
+
+    /**
+     * Opens a CSV file and skips its header.
+     * @param csvFilePath The path to the CSV file, which may be gzip or deflate compressed.
+     * @return The reader of the file's employees.
+     * @throws IOException If the file cannot be opened.
+     * @throws EmployeeDataException If the file is empty.
+     */
+    public static EmployeeCSVReader open(Path csvFilePath) throws IOException {
+        return new EmployeeCSVReader(Files.newInputStream(csvFilePath));
+    }
+
+    /**
+     * Reads the employee of the next row.
+     * @return The employee, or null after the last row.
+     * @throws IOException If the CSV data cannot be read.
+     * @throws EmployeeDataException If the row is invalid.
+     */
+    public CompanyStaff next() throws IOException {
+        return records.next() ? parser.parse(records.getBuffer(), records.getRecordStart(), records.getRecordEnd()) : null;
+    }
+
+    /**
+     * Closes the underlying stream.
+     * @throws IOException If the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,77 @@
+package org.bigcompany.dao.impl;
+
+import org.bigcompany.dao.RowError;
+import org.bigcompany.dao.RowErrorLog;
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.bigcompany.dao.RowError.Reason.ADDITIONAL_CEO;
+import static org.bigcompany.dao.RowError.Reason.DUPLICATE_ID;
+
+/**
+ * The EmployeeMapCollector class collects the parsed employees of one CSV load in line order and applies the rules
+ * that span rows: employee IDs are unique and only one employee has no manager.
+ * In strict mode a broken rule throws; in lenient mode the row is recorded in the row error log and skipped.
+ */
+final class EmployeeMapCollector {
+
+    private final Map<String, CompanyStaff> employeeMap = new HashMap<>();
+    private final RowErrorLog rowErrorLog;
+    private int ceoCount;
+
+    /**
+     * Constructs an EmployeeMapCollector.
+     * @param rowErrorLog The log that collects skipped rows, or null to fail on the first invalid row.
+     */
+    EmployeeMapCollector(RowErrorLog rowErrorLog) {
+        this.rowErrorLog = rowErrorLog;
+    }
+
+    /**
+     * Adds the employee of a valid row, unless its ID was already loaded or it is a second employee without a manager.
+     * @param employee The employee parsed from the row.
+     * @param lineNumber The 1-based line number of the row in the file.
+     * @param line The row, which is copied into the row error log only if the row is skipped.
+     */
+    void add(CompanyStaff employee, long lineNumber, CharSequence line) {
+        if (employeeMap.containsKey(employee.getId())) {
+            if (rowErrorLog == null) {
+                throw new EmployeeDataException(DUPLICATE_ID.getDescription() + ": " + employee.getId());
+            }
+            rowErrorLog.record(lineNumber, DUPLICATE_ID, line.toString());
+            return;
+        }
+        if (employee.getManagerId() == null) {
+            if (ceoCount > 0) {
+                if (rowErrorLog == null) {
+                    throw new EmployeeDataException(ADDITIONAL_CEO.getDescription());
+                }
+                rowErrorLog.record(lineNumber, ADDITIONAL_CEO, line.toString());
+                return;
+            }
+            ceoCount++;
+        }
+        employeeMap.put(employee.getId(), employee);
+    }
+
+    /**
+     * Records a row that the parser rejected.
+     * @param lineNumber The 1-based line number of the row in the file.
+     * @param reason The reason the parser rejected the row.
+     * @param line The row, which is copied into the row error log.
+     */
+    void reject(long lineNumber, RowError.Reason reason, CharSequence line) {
+        rowErrorLog.record(lineNumber, reason, line.toString());
+    }
+
+    /**
+     * Gets the collected employees.
+     * @return A map of employees, keyed by their unique identifiers.
+     */
+    Map<String, CompanyStaff> getEmployeeMap() {
+        return employeeMap;
+    }
+}
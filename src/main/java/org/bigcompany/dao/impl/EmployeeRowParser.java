@@ -0,0 +1,317 @@
+package org.bigcompany.dao.impl;
+
+import org.bigcompany.dao.RowError;
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.exception.InvalidSalaryException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.NameDictionary;
+
+import java.math.BigDecimal;
+
+import static java.math.BigDecimal.ZERO;
+import static org.bigcompany.dao.RowError.Reason.INCORRECT_FIELD_COUNT;
+import static org.bigcompany.dao.RowError.Reason.INVALID_SALARY;
+import static org.bigcompany.dao.RowError.Reason.MALFORMED_QUOTED_FIELD;
+import static org.bigcompany.dao.RowError.Reason.MISSING_ID_OR_NAME;
+import static org.bigcompany.dao.RowError.Reason.NON_POSITIVE_SALARY;
+
+/**
+ * The EmployeeRowParser class turns the data rows of one CSV load into employees.
+ * In strict mode an invalid row throws; in lenient mode it is rejected and the reason is kept for the caller to record.
+ * Names and manager IDs repeat heavily; the parser's dictionaries keep one String per distinct value of the load.
+ * Quoted fields follow RFC 4180, so a name may hold commas, quotes and line breaks.
+ * A row is tokenized in place, and the salary and the dictionary lookups read the fields straight from the buffer,
+ * so a String is created only for a field the employee keeps that the dictionaries have not seen before.
+ * A parser for rows that are not all kept in memory does without the dictionaries, since they grow with the load.
+ * A parser is not thread-safe and is used by one thread for one load.
+ */
+final class EmployeeRowParser {
+
+    private static final int ID_INDEX = 0;
+    private static final int FIRST_NAME_INDEX = 1;
+    private static final int LAST_NAME_INDEX = 2;
+    private static final int SALARY_INDEX = 3;
+    private static final int MANAGER_ID_INDEX = 4;
+    private static final int MIN_CSV_FIELDS = 4;
+    private static final int MAX_CSV_FIELDS = 5;
+    private static final int ZERO_SALARY = ZERO.intValue();
+    private static final int MAX_EXPONENT_DIGITS = 9;
+    private static final int MAX_PLAIN_DIGITS = 18;
+    private static final int INITIAL_LINE_CAPACITY = 256;
+
+    private final boolean lenient;
+    private final NameDictionary names;
+    private final NameDictionary ids;
+    private final CsvFieldTokenizer fields = new CsvFieldTokenizer();
+    private char[] lineBuffer = new char[INITIAL_LINE_CAPACITY];
+    private RowError.Reason rejectionReason;
+
+    /**
+     * Constructs an EmployeeRowParser.
+     * @param lenient true to reject invalid rows, false to throw on them.
+     */
+    EmployeeRowParser(boolean lenient) {
+        this(lenient, true);
+    }
+
+    /**
+     * Constructs an EmployeeRowParser.
+     * @param lenient true to reject invalid rows, false to throw on them.
+     * @param canonicalize true to share one String per distinct name and ID, false to keep the parsed Strings.
+     */
+    EmployeeRowParser(boolean lenient, boolean canonicalize) {
+        this.lenient = lenient;
+        this.names = canonicalize ? new NameDictionary() : null;
+        this.ids = canonicalize ? new NameDictionary() : null;
+    }
+
+    /**
+     * Parses one data row.
+     * @param csvLine A line from the CSV file.
+     * @return The employee of the row, or null if the parser is lenient and the row is invalid.
+     * @throws EmployeeDataException If the parser is strict and the row is invalid.
+     */
+    CompanyStaff parse(String csvLine) {
+        int length = csvLine.length();
+        if (lineBuffer.length < length) {
+            lineBuffer = new char[Math.max(length, lineBuffer.length * 2)];
+        }
+        csvLine.getChars(0, length, lineBuffer, 0);
+        return parse(lineBuffer, 0, length);
+    }
+
+    /**
+     * Parses one data row held in a range of a char buffer. Strings are created only for the fields
+     * that the employee keeps, and not at all for names and IDs that the dictionaries have already seen.
+     * @param chars The buffer that holds the line, or the record if it spans several lines.
+     * @param start The index of the first char of the line.
+     * @param end The index after the last char of the line.
+     * @return The employee of the row, or null if the parser is lenient and the row is invalid.
+     * @throws EmployeeDataException If the parser is strict and the row is invalid.
+     */
+    CompanyStaff parse(char[] chars, int start, int end) {
+        fields.tokenize(chars, start, end);
+        return lenient ? createEmployeeOrReject(fields.getChars()) : validateAndCreateEmployeeFromCSVLine(chars, start, end);
+    }
+
+    /**
+     * Gets the reason the last rejected row was rejected.
+     * @return The reason of the last row for which parse returned null.
+     */
+    RowError.Reason getRejectionReason() {
+        return rejectionReason;
+    }
+
+    /**
+     * This method takes the tokenized line from the CSV file and constructs a CompanyStaff object.
+     * It extracts the Employee's ID, first name, last name, salary, and manager ID from the line.
+     *
+     * @param chars The buffer that holds the line.
+     * @param start The index of the first char of the line.
+     * @param end The index after the last char of the line.
+     * @return A CompanyStaff object representing the Employee.
+     */
+    private CompanyStaff validateAndCreateEmployeeFromCSVLine(char[] chars, int start, int end) {
+        validateEmployeeFields(chars, start, end);
+        char[] fieldChars = fields.getChars();
+        return createEmployee(fieldChars, parseSalary(fieldChars));
+    }
+
+    /**
+     * This method takes the tokenized line from the CSV file and constructs a CompanyStaff object, like
+     * validateAndCreateEmployeeFromCSVLine, but keeps the reason an invalid line is rejected instead of throwing.
+     *
+     * @param chars The buffer that holds the fields of the line.
+     * @return A CompanyStaff object representing the Employee, or null if the line is invalid.
+     */
+    private CompanyStaff createEmployeeOrReject(char[] chars) {
+        RowError.Reason reason = checkEmployeeFields();
+        if (reason == null) {
+            BigDecimal salary = parsePlainDecimal(chars, fields.getStart(SALARY_INDEX), fields.getEnd(SALARY_INDEX));
+            if (salary == null) {
+                String salaryField = getField(chars, SALARY_INDEX);
+                salary = isDecimal(salaryField) ? new BigDecimal(salaryField) : null;
+            }
+            if (salary == null) {
+                reason = INVALID_SALARY;
+            } else if (salary.signum() > 0) {
+                return createEmployee(chars, salary);
+            } else {
+                reason = NON_POSITIVE_SALARY;
+            }
+        }
+        rejectionReason = reason;
+        return null;
+    }
+
+    /**
+     * Constructs an Employee from validated CSV fields.
+     * The names and IDs are replaced by their canonical instances, so that equal values share one String.
+     * @param chars The buffer that holds the tokenized line.
+     * @param salary The parsed salary of the employee.
+     * @return A CompanyStaff object representing the Employee.
+     */
+    private CompanyStaff createEmployee(char[] chars, BigDecimal salary) {
+        String id = canonicalize(ids, chars, ID_INDEX);
+        String firstName = canonicalize(names, chars, FIRST_NAME_INDEX);
+        String lastName = canonicalize(names, chars, LAST_NAME_INDEX);
+        String managerId = fields.getFieldCount() > MANAGER_ID_INDEX && !fields.isEmpty(MANAGER_ID_INDEX)
+                ? canonicalize(ids, chars, MANAGER_ID_INDEX)
+                : null;
+        return new Employee(id, firstName, lastName, salary, managerId);
+    }
+
+    private String canonicalize(NameDictionary dictionary, char[] chars, int field) {
+        return dictionary == null
+                ? getField(chars, field)
+                : dictionary.canonicalize(chars, fields.getStart(field), fields.getEnd(field));
+    }
+
+    private String getField(char[] chars, int field) {
+        return new String(chars, fields.getStart(field), fields.getEnd(field) - fields.getStart(field));
+    }
+
+    /**
+     * Validates the fields of an employee from the CSV file.
+     * The line in the message is shown without its trailing commas, like the fields it was split into.
+     * @param chars The buffer that holds the line.
+     * @param start The index of the first char of the line.
+     * @param end The index after the last char of the line.
+     */
+    private void validateEmployeeFields(char[] chars, int start, int end) {
+        RowError.Reason reason = checkEmployeeFields();
+        if (reason != null) {
+            while (end > start && chars[end - 1] == ',') {
+                end--;
+            }
+            throw new EmployeeDataException(reason.getDescription() + " in line: " + new String(chars, start, end - start));
+        }
+    }
+
+    /**
+     * Checks the quoting, the number of fields and the mandatory fields of the tokenized line.
+     * @return The reason the fields are invalid, or null if they are valid.
+     */
+    private RowError.Reason checkEmployeeFields() {
+        if (fields.isMalformed()) {
+            return MALFORMED_QUOTED_FIELD;
+        }
+        int fieldCount = fields.getFieldCount();
+        if (fieldCount < MIN_CSV_FIELDS || fieldCount > MAX_CSV_FIELDS) {
+            return INCORRECT_FIELD_COUNT;
+        }
+        if (fields.isEmpty(ID_INDEX) || fields.isEmpty(FIRST_NAME_INDEX) || fields.isEmpty(LAST_NAME_INDEX)) {
+            return MISSING_ID_OR_NAME;
+        }
+        return null;
+    }
+
+    /**
+     * Parses the salary field of the tokenized line.
+     * @param chars The buffer that holds the tokenized line.
+     * @return BigDecimal representing the salary.
+     */
+    private BigDecimal parseSalary(char[] chars) {
+        BigDecimal salary = parsePlainDecimal(chars, fields.getStart(SALARY_INDEX), fields.getEnd(SALARY_INDEX));
+        if (salary == null) {
+            String salaryField = getField(chars, SALARY_INDEX);
+            try {
+                salary = new BigDecimal(salaryField);
+            } catch (NumberFormatException e) {
+                throw new InvalidSalaryException(INVALID_SALARY.getDescription() + ": " + salaryField, e);
+            }
+        }
+        if (salary.compareTo(ZERO) <= ZERO_SALARY) {
+            throw new InvalidSalaryException(NON_POSITIVE_SALARY.getDescription());
+        }
+        return salary;
+    }
+
+    /**
+     * Parses a plain decimal number, an optional sign followed by ASCII digits with an optional decimal point,
+     * straight from the buffer. The result equals the BigDecimal parsed from the same chars, scale included.
+     * @param chars The buffer that holds the number.
+     * @param start The index of the first char of the number.
+     * @param end The index after the last char of the number.
+     * @return The number, or null if the chars are not a plain decimal number of at most 18 digits,
+     *         which leaves exponents, other digits and invalid salaries to the BigDecimal parser.
+     */
+    private static BigDecimal parsePlainDecimal(char[] chars, int start, int end) {
+        int index = start;
+        boolean negative = false;
+        if (index < end && (chars[index] == '+' || chars[index] == '-')) {
+            negative = chars[index] == '-';
+            index++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; index < end; index++) {
+            char c = chars[index];
+            if (c >= '0' && c <= '9') {
+                if (digits == MAX_PLAIN_DIGITS) {
+                    return null;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    /**
+     * Checks that a salary field is a decimal number that BigDecimal accepts, without the cost of
+     * a NumberFormatException for the fields that are not.
+     * @param salaryField The salary field from the CSV file.
+     * @return true if the field is a decimal number, false otherwise.
+     */
+    private static boolean isDecimal(String salaryField) {
+        int length = salaryField.length();
+        int i = 0;
+        if (i < length && (salaryField.charAt(i) == '+' || salaryField.charAt(i) == '-')) {
+            i++;
+        }
+        int digits = 0;
+        while (i < length && Character.isDigit(salaryField.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < length && salaryField.charAt(i) == '.') {
+            i++;
+            while (i < length && Character.isDigit(salaryField.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < length && (salaryField.charAt(i) == 'e' || salaryField.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (salaryField.charAt(i) == '+' || salaryField.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            while (i < length && Character.isDigit(salaryField.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0 || exponentDigits > MAX_EXPONENT_DIGITS) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+}
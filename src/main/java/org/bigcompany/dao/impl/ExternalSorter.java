@@ -0,0 +1,390 @@
+package org.bigcompany.dao.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The ExternalSorter class sorts the lines of an input that may not fit in memory. It holds at most a fixed number
+ * of lines at a time: each full chunk is sorted and spilled to a temporary run file, and the runs are then merged,
+ * at most {@value #MAX_MERGE_FAN_IN} at a time, into a stream of sorted lines. Input that fits in one chunk is
+ * sorted in memory without spilling. The sort is stable, so lines that compare as equal keep their input order.
+ * A line may hold line breaks, such as a CSV record with a quoted line break: the run files store them escaped.
+ */
+public final class ExternalSorter {
+
+    /**
+     * The number of lines held in memory when no other limit is given.
+     */
+    public static final int DEFAULT_LINES_IN_MEMORY = 100_000;
+
+    static final int MAX_MERGE_FAN_IN = 64;
+
+    private final Comparator<String> order;
+    private final int maxLinesInMemory;
+    private final Path spillDirectory;
+
+    /**
+     * Constructs an ExternalSorter that spills to the default temporary directory.
+     * @param order The order to sort the lines in.
+     * @param maxLinesInMemory The largest number of lines held in memory at a time.
+     */
+    public ExternalSorter(Comparator<String> order, int maxLinesInMemory) {
+        this(order, maxLinesInMemory, null);
+    }
+
+    /**
+     * Constructs an ExternalSorter.
+     * @param order The order to sort the lines in.
+     * @param maxLinesInMemory The largest number of lines held in memory at a time.
+     * @param spillDirectory The directory for the run files, or null for the default temporary directory.
+     */
+    public ExternalSorter(Comparator<String> order, int maxLinesInMemory, Path spillDirectory) {
+        if (maxLinesInMemory < 1) {
+            throw new IllegalArgumentException("At least one line must fit in memory");
+        }
+        this.order = order;
+        this.maxLinesInMemory = maxLinesInMemory;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Reads the remaining lines of the input and returns them in sorted order.
+     * @param input The input, which is read to its end but not closed.
+     * @return The sorted lines, which must be closed to delete the run files.
+     * @throws IOException If the input cannot be read or the run files cannot be written.
+     */
+    public SortedLines sort(BufferedReader input) throws IOException {
+        try (Sorting sorting = newSorting()) {
+            String line;
+            while ((line = input.readLine()) != null) {
+                sorting.add(line);
+            }
+            return sorting.finish();
+        }
+    }
+
+    /**
+     * Starts a sort whose lines are added one at a time, for input that is not read from a single reader.
+     * @return The sort, which must be finished or closed.
+     */
+    public Sorting newSorting() {
+        return new Sorting();
+    }
+
+    /**
+     * Merges consecutive groups of runs into one run each. The merged runs keep the order of their groups,
+     * so lines that compare as equal stay in input order.
+     * @param runs The runs to merge, which are deleted once merged.
+     * @param spilledRuns All run files of the sort, to which the new runs are added.
+     * @return The merged runs.
+     */
+    private List<Path> mergePass(List<Path> runs, List<Path> spilledRuns) throws IOException {
+        List<Path> mergedRuns = new ArrayList<>();
+        for (int start = 0; start < runs.size(); start += MAX_MERGE_FAN_IN) {
+            List<Path> group = new ArrayList<>(runs.subList(start, Math.min(start + MAX_MERGE_FAN_IN, runs.size())));
+            if (group.size() == 1) {
+                mergedRuns.add(group.getFirst());
+                continue;
+            }
+            Path mergedRun = createRunFile();
+            spilledRuns.add(mergedRun);
+            mergedRuns.add(mergedRun);
+            try (SortedLines lines = new SortedLines(group);
+                 BufferedWriter writer = Files.newBufferedWriter(mergedRun, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    writeLine(writer, line);
+                }
+            }
+        }
+        return mergedRuns;
+    }
+
+    /**
+     * Sorts a full chunk and writes it to a new run file.
+     */
+    private Path spill(List<String> chunk) throws IOException {
+        chunk.sort(order);
+        Path run = createRunFile();
+        try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            for (String line : chunk) {
+                writeLine(writer, line);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteAll(List.of(run), e);
+            throw e;
+        }
+        return run;
+    }
+
+    private static void writeLine(BufferedWriter writer, String line) throws IOException {
+        writer.write(escapeLineBreaks(line));
+        writer.newLine();
+    }
+
+    /**
+     * Escapes the line breaks of a line, so that it can be stored as one line of a file, with a backslash
+     * before each n, r and backslash that stands for a line feed, a carriage return and a backslash.
+     * @param line The line to escape.
+     * @return The escaped line, which is the line itself if it has no line breaks or backslashes.
+     */
+    public static String escapeLineBreaks(String line) {
+        int index = 0;
+        while (index < line.length() && !needsEscape(line.charAt(index))) {
+            index++;
+        }
+        if (index == line.length()) {
+            return line;
+        }
+        StringBuilder escaped = new StringBuilder(line.length() + 8).append(line, 0, index);
+        for (; index < line.length(); index++) {
+            char c = line.charAt(index);
+            switch (c) {
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\\' -> escaped.append("\\\\");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Reverses escapeLineBreaks.
+     * @param line The escaped line, or null.
+     * @return The line with its line breaks and backslashes restored, or null if the line is null.
+     */
+    public static String unescapeLineBreaks(String line) {
+        if (line == null || line.indexOf('\\') < 0) {
+            return line;
+        }
+        StringBuilder unescaped = new StringBuilder(line.length());
+        for (int index = 0; index < line.length(); index++) {
+            char c = line.charAt(index);
+            if (c == '\\' && index + 1 < line.length()) {
+                c = line.charAt(++index);
+                c = c == 'n' ? '\n' : c == 'r' ? '\r' : c;
+            }
+            unescaped.append(c);
+        }
+        return unescaped.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c == '\n' || c == '\r' || c == '\\';
+    }
+
+    private Path createRunFile() throws IOException {
+        return spillDirectory == null
+                ? Files.createTempFile("employees-", ".run")
+                : Files.createTempFile(spillDirectory, "employees-", ".run");
+    }
+
+    private static void deleteAll(List<Path> runs, Exception failure) {
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * The Sorting class collects the lines of one sort, spilling each full chunk to a run file.
+     * Closing it before it is finished deletes the run files written so far.
+     */
+    public final class Sorting implements Closeable {
+
+        private final List<String> chunk = new ArrayList<>();
+        private final List<Path> spilledRuns = new ArrayList<>();
+        private boolean finished;
+
+        private Sorting() {
+        }
+
+        /**
+         * Adds a line to the sort.
+         * @param line The line to add.
+         * @throws IOException If a run file cannot be written.
+         */
+        public void add(String line) throws IOException {
+            checkNotFinished();
+            chunk.add(line);
+            if (chunk.size() == maxLinesInMemory) {
+                spilledRuns.add(spill(chunk));
+                chunk.clear();
+            }
+        }
+
+        /**
+         * Finishes the sort. The run files then belong to the returned lines.
+         * @return The sorted lines, which must be closed to delete the run files.
+         * @throws IOException If the run files cannot be written or merged.
+         */
+        public SortedLines finish() throws IOException {
+            checkNotFinished();
+            finished = true;
+            try {
+                chunk.sort(order);
+                if (spilledRuns.isEmpty()) {
+                    return new SortedLines(chunk, List.of());
+                }
+                if (!chunk.isEmpty()) {
+                    spilledRuns.add(spill(chunk));
+                }
+                chunk.clear();
+                List<Path> runs = new ArrayList<>(spilledRuns);
+                while (runs.size() > MAX_MERGE_FAN_IN) {
+                    runs = mergePass(runs, spilledRuns);
+                }
+                return new SortedLines(runs);
+            } catch (IOException | RuntimeException e) {
+                deleteAll(spilledRuns, e);
+                throw e;
+            }
+        }
+
+        /**
+         * Deletes the run files if the sort was not finished.
+         * @throws IOException If a run file cannot be deleted.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                finished = true;
+                chunk.clear();
+                IOException failure = new IOException("The run files of an unfinished sort could not be deleted");
+                deleteAll(spilledRuns, failure);
+                if (failure.getSuppressed().length > 0) {
+                    throw failure;
+                }
+            }
+        }
+
+        private void checkNotFinished() {
+            if (finished) {
+                throw new IllegalStateException("The sort is already finished");
+            }
+        }
+    }
+
+    /**
+     * The SortedLines class returns the lines of a sort one at a time, either from memory or by merging run files.
+     * Closing it deletes the run files.
+     */
+    public final class SortedLines implements Closeable {
+
+        private final List<String> sortedChunk;
+        private final List<Path> runs;
+        private final PriorityQueue<Run> mergeQueue;
+        private int position;
+
+        private SortedLines(List<String> sortedChunk, List<Path> runs) {
+            this.sortedChunk = sortedChunk;
+            this.runs = runs;
+            this.mergeQueue = null;
+        }
+
+        private SortedLines(List<Path> runs) throws IOException {
+            this.sortedChunk = null;
+            this.runs = runs;
+            this.mergeQueue = new PriorityQueue<>(runs.size(), Comparator.comparing((Run run) -> run.line, order)
+                    .thenComparingInt(run -> run.index));
+            try {
+                for (int index = 0; index < runs.size(); index++) {
+                    Run run = new Run(index, Files.newBufferedReader(runs.get(index), StandardCharsets.UTF_8));
+                    if (run.advance()) {
+                        mergeQueue.add(run);
+                    } else {
+                        run.reader.close();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Gets the number of run files the lines are merged from.
+         * @return The number of run files, or 0 if the lines were sorted in memory.
+         */
+        public int getRunCount() {
+            return runs.size();
+        }
+
+        /**
+         * Reads the next line in sorted order.
+         * @return The next line, or null after the last one.
+         * @throws IOException If a run file cannot be read.
+         */
+        public String readLine() throws IOException {
+            if (sortedChunk != null) {
+                return position < sortedChunk.size() ? sortedChunk.get(position++) : null;
+            }
+            Run run = mergeQueue.poll();
+            if (run == null) {
+                return null;
+            }
+            String line = run.line;
+            if (run.advance()) {
+                mergeQueue.add(run);
+            } else {
+                run.reader.close();
+            }
+            return line;
+        }
+
+        /**
+         * Closes the run files and deletes them.
+         * @throws IOException If a run file cannot be closed or deleted.
+         */
+        @Override
+        public void close() throws IOException {
+            IOException failure = new IOException("The sorted lines could not be closed");
+            if (mergeQueue != null) {
+                for (Run run : mergeQueue) {
+                    try {
+                        run.reader.close();
+                    } catch (IOException e) {
+                        failure.addSuppressed(e);
+                    }
+                }
+                mergeQueue.clear();
+            }
+            deleteAll(runs, failure);
+            if (failure.getSuppressed().length > 0) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * One run file being merged, with its current line.
+     */
+    private static final class Run {
+        private final int index;
+        private final BufferedReader reader;
+        private String line;
+
+        private Run(int index, BufferedReader reader) {
+            this.index = index;
+            this.reader = reader;
+        }
+
+        private boolean advance() throws IOException {
+            line = unescapeLineBreaks(reader.readLine());
+            return line != null;
+        }
+    }
+}
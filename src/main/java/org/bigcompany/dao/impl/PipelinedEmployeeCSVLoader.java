@@ -0,0 +1,197 @@
+package org.bigcompany.dao.impl;
+
+import org.bigcompany.dao.RowError;
+import org.bigcompany.dao.RowErrorLog;
+import org.bigcompany.event.CsvBatchEvent;
+import org.bigcompany.model.CompanyStaff;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The PipelinedEmployeeCSVLoader class loads employee data like the EmployeeCSVLoader, but runs the stages of a load
+ * on separate threads connected by bounded queues of row batches: a reading thread splits the input into CSV records,
+ * a parsing thread turns them into employees, and the calling thread collects them into the employee map.
+ * A full queue blocks the stage in front of it, so a fast reader never gets more than a few batches ahead,
+ * and the wall time of a load approaches that of its slowest stage instead of the sum of all of them.
+ * The result, including the first error in strict mode and the order of the skipped rows in lenient mode,
+ * is the same as with the EmployeeCSVLoader.
+ */
+public class PipelinedEmployeeCSVLoader extends EmployeeCSVLoader {
+
+    private static final int ROWS_PER_BATCH = 1_024;
+    private static final int BATCHES_IN_FLIGHT = 8;
+
+    /**
+     * Reads, parses and collects the data rows that follow the header on three threads.
+     * @param reader The reader positioned after the header line.
+     * @param rowErrorLog The log that collects skipped rows, or null to fail on the first invalid row.
+     * @return A map of employees, keyed by their unique identifiers.
+     * @throws IOException If the CSV data cannot be read.
+     */
+    @Override
+    protected Map<String, CompanyStaff> collectEmployees(BufferedReader reader, RowErrorLog rowErrorLog) throws IOException {
+        BlockingQueue<RowBatch> lineBatches = new ArrayBlockingQueue<>(BATCHES_IN_FLIGHT);
+        BlockingQueue<RowBatch> parsedBatches = new ArrayBlockingQueue<>(BATCHES_IN_FLIGHT);
+        Thread readingThread = Thread.ofPlatform().name("csv-reader").daemon()
+                .start(() -> readBatches(reader, lineBatches));
+        Thread parsingThread = Thread.ofPlatform().name("csv-parser").daemon()
+                .start(() -> parseBatches(lineBatches, parsedBatches, new EmployeeRowParser(rowErrorLog != null)));
+        EmployeeMapCollector collector = new EmployeeMapCollector(rowErrorLog);
+        try {
+            while (true) {
+                RowBatch batch = parsedBatches.take();
+                for (int row = 0; row < batch.size; row++) {
+                    long lineNumber = batch.lineNumbers[row];
+                    if (batch.employees[row] == null) {
+                        collector.reject(lineNumber, batch.rejectionReasons[row], batch.lines[row]);
+                    } else {
+                        collector.add(batch.employees[row], lineNumber, batch.lines[row]);
+                    }
+                }
+                if (batch.failure != null) {
+                    throw rethrow(batch.failure);
+                }
+                if (batch.last) {
+                    return collector.getEmployeeMap();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the employee data");
+        } finally {
+            // Stops the other stages if this one failed; after the last batch they have already finished
+            readingThread.interrupt();
+            parsingThread.interrupt();
+        }
+    }
+
+    /**
+     * The reading stage: splits the input into batches of records until the end of the input or a read error.
+     * Batches end between records, so a quoted field that spans several lines is always parsed whole.
+     * A read error ends the batch being filled, so the rows read before it are still parsed and collected in order
+     * before the failure is rethrown, as the sequential loader would report an invalid row among them first.
+     */
+    private static void readBatches(BufferedReader reader, BlockingQueue<RowBatch> lineBatches) {
+        CsvRecordReader record = new CsvRecordReader(reader);
+        long lineNumber = FIRST_DATA_LINE;
+        RowBatch batch = new RowBatch(lineNumber);
+        try {
+            while (true) {
+                batch = new RowBatch(lineNumber);
+                while (batch.size < ROWS_PER_BATCH && record.next()) {
+                    batch.lines[batch.size] = record.toString();
+                    batch.lineNumbers[batch.size++] = lineNumber;
+                    lineNumber += 1 + record.getLineBreaks();
+                }
+                batch.last = batch.size < ROWS_PER_BATCH;
+                lineBatches.put(batch);
+                if (batch.last) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // The load was abandoned; nothing reads further batches
+        } catch (Throwable e) {
+            // Any failure, even an Error, is handed on, since the collecting thread waits for the next batch
+            batch.failure = e;
+            batch.last = true;
+            putBatch(lineBatches, batch);
+        }
+    }
+
+    /**
+     * The parsing stage: parses each batch of lines. A strict parse error, or any other failure of the parser,
+     * cuts the batch at the row it failed on, so the rows before it are still collected in order before
+     * the failure is rethrown.
+     */
+    private static void parseBatches(BlockingQueue<RowBatch> lineBatches, BlockingQueue<RowBatch> parsedBatches,
+                                     EmployeeRowParser parser) {
+        long lineNumber = FIRST_DATA_LINE;
+        try {
+            while (true) {
+                RowBatch batch = lineBatches.take();
+                lineNumber = batch.firstLineNumber;
+                CsvBatchEvent batchEvent = newBatchEvent(batch.firstLineNumber);
+                for (int row = 0; row < batch.size; row++) {
+                    try {
+                        batch.employees[row] = parser.parse(batch.lines[row]);
+                    } catch (Throwable e) {
+                        batch.size = row;
+                        batch.failure = e;
+                        batch.last = true;
+                        break;
+                    }
+                    if (batch.employees[row] == null) {
+                        batch.rejectionReasons[row] = parser.getRejectionReason();
+                    }
+                    batchEvent.chars += batch.lines[row].length() + 1;
+                }
+                batchEvent.rows = batch.size;
+                batchEvent.commit();
+                parsedBatches.put(batch);
+                if (batch.last) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // The load was abandoned; nothing collects further batches
+        } catch (Throwable e) {
+            putFailure(parsedBatches, lineNumber, e);
+        }
+    }
+
+    private static void putFailure(BlockingQueue<RowBatch> batches, long lineNumber, Throwable failure) {
+        RowBatch batch = new RowBatch(lineNumber);
+        batch.failure = failure;
+        batch.last = true;
+        putBatch(batches, batch);
+    }
+
+    private static void putBatch(BlockingQueue<RowBatch> batches, RowBatch batch) {
+        try {
+            batches.put(batch);
+        } catch (InterruptedException e) {
+            // The load was abandoned; nothing waits for the failure
+        }
+    }
+
+    /**
+     * Rethrows the failure of another stage on the calling thread, keeping its type.
+     */
+    private static IOException rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        if (failure instanceof IOException ioException) {
+            return ioException;
+        }
+        return new IOException(failure);
+    }
+
+    /**
+     * A batch of consecutive data rows, filled in by the reading stage and then by the parsing stage.
+     * A batch is only used by one stage at a time; the queues between the stages publish its contents.
+     */
+    private static final class RowBatch {
+        private final long firstLineNumber;
+        private final String[] lines = new String[ROWS_PER_BATCH];
+        private final long[] lineNumbers = new long[ROWS_PER_BATCH];
+        private final CompanyStaff[] employees = new CompanyStaff[ROWS_PER_BATCH];
+        private final RowError.Reason[] rejectionReasons = new RowError.Reason[ROWS_PER_BATCH];
+        private int size;
+        private boolean last;
+        private Throwable failure;
+
+        private RowBatch(long firstLineNumber) {
+            this.firstLineNumber = firstLineNumber;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.bigcompany.dao.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The ReadAheadInputStream class reads another stream on a separate thread, so that producing the bytes,
+ * for example inflating a compressed export, overlaps with consuming them.
+ * The bytes are handed over in chunks through a bounded queue: when the consumer falls behind, the reading
+ * thread blocks until a chunk buffer is recycled, so at most a fixed number of chunks is ever in memory.
+ */
+final class ReadAheadInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int CHUNKS_IN_FLIGHT = 4;
+    private static final Chunk END = new Chunk(null, -1, null);
+
+    private final BlockingQueue<Chunk> filledChunks = new ArrayBlockingQueue<>(CHUNKS_IN_FLIGHT + 1);
+    private final BlockingQueue<byte[]> emptyBuffers = new ArrayBlockingQueue<>(CHUNKS_IN_FLIGHT);
+    private final InputStream source;
+    private final Thread reader;
+    private Chunk current;
+    private int position;
+    private boolean endReached;
+
+    /**
+     * Constructs a ReadAheadInputStream and starts reading the given stream.
+     * @param source The stream to read ahead. It is closed by the reading thread once it is exhausted or fails,
+     *               and by close otherwise.
+     * @param threadName The name of the reading thread.
+     */
+    ReadAheadInputStream(InputStream source, String threadName) {
+        this.source = source;
+        for (int i = 0; i < CHUNKS_IN_FLIGHT; i++) {
+            emptyBuffers.add(new byte[CHUNK_SIZE]);
+        }
+        reader = Thread.ofPlatform().name(threadName).daemon().start(() -> readAhead(source));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return current.buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current.buffer, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Stops the reading thread and closes the source, so the source is closed when this method returns,
+     * even if the reading thread is blocked reading it.
+     * @throws IOException If the source cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.interrupt();
+        source.close();
+    }
+
+    /**
+     * Makes sure the current chunk has unread bytes, waiting for the next chunk if needed.
+     * @return true if bytes are available, false at the end of the stream.
+     */
+    private boolean ensureAvailable() throws IOException {
+        while (!endReached && (current == null || position == current.length)) {
+            if (current != null) {
+                emptyBuffers.add(current.buffer);
+                current = null;
+            }
+            Chunk chunk;
+            try {
+                chunk = filledChunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for input");
+            }
+            if (chunk.failure != null) {
+                endReached = true;
+                if (chunk.failure instanceof Error error) {
+                    throw error;
+                }
+                throw new IOException("Error reading ahead of the CSV parser", chunk.failure);
+            }
+            if (chunk == END) {
+                endReached = true;
+            } else {
+                current = chunk;
+                position = 0;
+            }
+        }
+        return !endReached;
+    }
+
+    /**
+     * Fills recycled buffers from the source until it is exhausted or this stream is closed.
+     */
+    private void readAhead(InputStream source) {
+        try (source) {
+            while (true) {
+                byte[] buffer = emptyBuffers.take();
+                int length = 0;
+                int count = 0;
+                while (length < buffer.length && (count = source.read(buffer, length, buffer.length - length)) >= 0) {
+                    length += count;
+                }
+                if (length > 0) {
+                    filledChunks.put(new Chunk(buffer, length, null));
+                }
+                if (count < 0) {
+                    filledChunks.put(END);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // The consumer closed the stream; nothing is waiting for further chunks
+        } catch (Throwable e) {
+            // Any failure, even an Error, is handed on, since the consumer waits for the next chunk.
+            // The queue holds one chunk more than there are buffers, so the failure always fits.
+            filledChunks.offer(new Chunk(null, -1, e));
+        }
+    }
+
+    /**
+     * A chunk of bytes read ahead, or the failure that ended the reading.
+     */
+    private record Chunk(byte[] buffer, int length, Throwable failure) {
+    }
+}
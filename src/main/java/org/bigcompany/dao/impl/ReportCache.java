@@ -0,0 +1,192 @@
+package org.bigcompany.dao.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The ReportCache class stores computed reports in a directory, keyed by the content of the CSV file they were
+ * computed from and the parameters of the analysis, so that a report of unchanged input can be printed again
+ * without loading and analysing the employees.
+ * <p>
+ * Each report is one file named after its key. A report is written to a temporary file first and then moved
+ * into place atomically, so several processes can share the directory: readers see either no report or a complete
+ * one, and a key written twice holds the same content either way. Reading a report marks it as recently used,
+ * and after each write the least recently used reports are deleted until the directory fits the size limit again.
+ */
+public final class ReportCache {
+
+    /**
+     * The total size of the cached reports when no other limit is given.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final String REPORT_SUFFIX = ".report";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final Duration ABANDONED_TEMPORARY_FILE_AGE = Duration.ofHours(1);
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * Constructs a ReportCache and creates its directory if it does not exist.
+     * @param directory The directory to keep the reports in.
+     * @param maxBytes The largest total size of the reports kept in the directory.
+     * @throws IOException If the directory cannot be created.
+     */
+    public ReportCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The cache size limit must be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Computes the key of the report of a CSV file. The key is a SHA-256 hash of the raw bytes of the file
+     * followed by the parameters, so a compressed file is hashed without decompressing it.
+     * @param csvFilePath The path to the CSV file.
+     * @param parameters The parameters of the analysis that change the report, such as its thresholds.
+     * @return The key, as a hexadecimal string.
+     * @throws IOException If the file cannot be read.
+     */
+    public static String computeKey(Path csvFilePath, String parameters) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(csvFilePath)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        digest.update((byte) 0);
+        digest.update(parameters.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Copies a cached report to the given stream and marks it as recently used.
+     * @param key The key of the report.
+     * @param out The stream to copy the report to.
+     * @return true if the report was cached and copied, false otherwise.
+     * @throws IOException If the report cannot be read or the stream cannot be written.
+     */
+    public boolean copyTo(String key, OutputStream out) throws IOException {
+        Path report = getReportPath(key);
+        InputStream in;
+        try {
+            in = Files.newInputStream(report);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        try (in) {
+            in.transferTo(out);
+        }
+        try {
+            Files.setLastModifiedTime(report, FileTime.from(Instant.now()));
+        } catch (NoSuchFileException e) {
+            // Evicted by another process after it was read, which leaves nothing to mark.
+        }
+        return true;
+    }
+
+    /**
+     * Stores a report, replacing any report with the same key, and then evicts the least recently used reports
+     * until the cache fits its size limit.
+     * @param key The key of the report.
+     * @param report The content of the report.
+     * @throws IOException If the report cannot be written or the directory cannot be read.
+     */
+    public void put(String key, byte[] report) throws IOException {
+        Path temporaryFile = Files.createTempFile(directory, key + "-", TEMPORARY_SUFFIX);
+        try {
+            Files.write(temporaryFile, report);
+            Files.move(temporaryFile, getReportPath(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.deleteIfExists(temporaryFile);
+            return;
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        evict();
+    }
+
+    /**
+     * Deletes the least recently used reports until the rest fit the size limit, and deletes temporary files
+     * left behind by writers that did not finish.
+     * @throws IOException If the directory cannot be read or a file cannot be deleted.
+     */
+    public void evict() throws IOException {
+        List<CachedFile> reports = new ArrayList<>();
+        long totalBytes = 0;
+        Instant abandonedBefore = Instant.now().minus(ABANDONED_TEMPORARY_FILE_AGE);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (fileName.endsWith(REPORT_SUFFIX)) {
+                    reports.add(new CachedFile(file, attributes.size(), attributes.lastModifiedTime()));
+                    totalBytes += attributes.size();
+                } else if (fileName.endsWith(TEMPORARY_SUFFIX)
+                        && attributes.lastModifiedTime().toInstant().isBefore(abandonedBefore)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        reports.sort(Comparator.comparing(CachedFile::lastUsed));
+        for (int index = 0; totalBytes > maxBytes && index < reports.size(); index++) {
+            CachedFile report = reports.get(index);
+            Files.deleteIfExists(report.path());
+            totalBytes -= report.size();
+        }
+    }
+
+    private Path getReportPath(String key) {
+        return directory.resolve(key + REPORT_SUFFIX);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every Java platform supports SHA-256", e);
+        }
+    }
+
+    /**
+     * A report file with the attributes used for eviction.
+     */
+    private record CachedFile(Path path, long size, FileTime lastUsed) {
+    }
+}
@@ -0,0 +1,36 @@
+package org.bigcompany.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The AnalysisEvent class is a JDK Flight Recorder event that spans one analysis over the loaded organisation,
+ * such as the overpaid managers, the underpaid managers or the long reporting lines.
+ */
+@Name("org.bigcompany.Analysis")
+@Label("Analysis")
+@Category({"Employee Metrics", "Service"})
+@Description("One analysis pass over the loaded organisation")
+@StackTrace(false)
+public class AnalysisEvent extends Event {
+
+    public static final String OVERPAID_MANAGERS = "Overpaid managers";
+    public static final String UNDERPAID_MANAGERS = "Underpaid managers";
+    public static final String LONG_REPORTING_LINES = "Long reporting lines";
+    public static final String SALARY_RATIO_INDEX = "Salary ratio index";
+    public static final String SUBTREE_SALARY_QUANTILES = "Subtree salary quantiles";
+    public static final String APPROXIMATE_REPORT = "Approximate report";
+
+    @Label("Analysis")
+    public String analysis;
+
+    @Label("Organisation Size")
+    public int orgSize;
+
+    @Label("Findings")
+    public int findings;
+}
@@ -0,0 +1,31 @@
+package org.bigcompany.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The CsvBatchEvent class is a JDK Flight Recorder event that spans one batch of consecutive rows
+ * parsed from an employee CSV export.
+ * The first row of the batch is recorded as a 1-based line number of the file, header included.
+ */
+@Name("org.bigcompany.CsvBatch")
+@Label("CSV Batch")
+@Category({"Employee Metrics", "Loader"})
+@Description("Parsing of a batch of consecutive rows of an employee CSV export")
+@StackTrace(false)
+public class CsvBatchEvent extends Event {
+
+    @Label("First Line")
+    public long firstLine;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Characters")
+    @Description("UTF-16 characters read for the batch, one per line terminator included")
+    public long chars;
+}
@@ -0,0 +1,32 @@
+package org.bigcompany.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The CsvLoadEvent class is a JDK Flight Recorder event that spans one call to
+ * {@code IEmployeeCSVLoader.buildEmployeeMapFromCSV}.
+ * It records the source file, the number of data rows parsed and the size of the file in bytes.
+ */
+@Name("org.bigcompany.CsvLoad")
+@Label("CSV Load")
+@Category({"Employee Metrics", "Loader"})
+@Description("Reading and parsing of a complete employee CSV export")
+@StackTrace(false)
+public class CsvLoadEvent extends Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
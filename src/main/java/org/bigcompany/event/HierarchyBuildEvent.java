@@ -0,0 +1,26 @@
+package org.bigcompany.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The HierarchyBuildEvent class is a JDK Flight Recorder event that spans one call to
+ * {@code IEmployeeService.loadAllEmployee}, including the CSV load it triggers.
+ */
+@Name("org.bigcompany.HierarchyBuild")
+@Label("Hierarchy Build")
+@Category({"Employee Metrics", "Service"})
+@Description("Loading of the employees and construction of the manager hierarchy")
+@StackTrace(false)
+public class HierarchyBuildEvent extends Event {
+
+    @Label("Organisation Size")
+    public int orgSize;
+
+    @Label("Managers")
+    public int managers;
+}
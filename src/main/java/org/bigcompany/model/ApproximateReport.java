@@ -0,0 +1,15 @@
+package org.bigcompany.model;
+
+/**
+ * The ApproximateReport record is the employee report estimated from a random sample of employees: the number and
+ * share of overpaid managers, underpaid managers and employees with a long reporting line, each with a confidence
+ * interval.
+ *
+ * @param confidenceLevel    The confidence level of the intervals, such as 0.95.
+ * @param overpaidManagers   The estimate of the overpaid managers.
+ * @param underpaidManagers  The estimate of the underpaid managers.
+ * @param longReportingLines The estimate of the employees with a long reporting line.
+ */
+public record ApproximateReport(double confidenceLevel, ShareEstimate overpaidManagers,
+                                ShareEstimate underpaidManagers, ShareEstimate longReportingLines) {
+}
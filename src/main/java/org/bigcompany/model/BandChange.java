@@ -0,0 +1,13 @@
+package org.bigcompany.model;
+
+/**
+ * The BandChange record describes an employee's salary band changing, for example after a tentative salary change
+ * or a simulated reorganisation. A null band means that the employee has no subordinates at that point,
+ * so their salary is not classified.
+ *
+ * @param employee The employee, as loaded.
+ * @param before   The band before the change, or null if the employee had no subordinates.
+ * @param after    The band after the change, or null if the employee has no subordinates.
+ */
+public record BandChange(CompanyStaff employee, SalaryBand before, SalaryBand after) {
+}
@@ -0,0 +1,24 @@
+package org.bigcompany.model;
+
+import org.bigcompany.dao.RowErrorLog;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The EmployeeLoad record is the result of one load of the employees: the built hierarchy and, for a lenient load,
+ * the rows it skipped. Each load returns its own log, so concurrent loads never see each other's skipped rows.
+ *
+ * @param employees   A map of all employees, keyed by their unique identifiers.
+ * @param rowErrorLog The rows skipped by the load, or null if the load is not lenient.
+ */
+public record EmployeeLoad(Map<String, CompanyStaff> employees, RowErrorLog rowErrorLog) {
+
+    /**
+     * Gets the rows skipped by the load, if it skipped any.
+     * @return The log of skipped rows, or an empty Optional if the load is not lenient or skipped no rows.
+     */
+    public Optional<RowErrorLog> getSkippedRows() {
+        return Optional.ofNullable(rowErrorLog).filter(log -> !log.isEmpty());
+    }
+}
@@ -0,0 +1,28 @@
+package org.bigcompany.model;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The EmployeeReport record is the result of one employee report: the employees with a long reporting line and
+ * the overpaid and underpaid managers. Its maps cannot be modified, so a report can be shared between threads.
+ *
+ * @param longReportingLines The employees with a long reporting line and their reporting line lengths.
+ * @param overpaidManagers   The overpaid managers and their overpayment amounts.
+ * @param underpaidManagers  The underpaid managers and their underpayment amounts.
+ */
+public record EmployeeReport(Map<CompanyStaff, Integer> longReportingLines,
+                             Map<Manager, BigDecimal> overpaidManagers,
+                             Map<Manager, BigDecimal> underpaidManagers) {
+
+    /**
+     * Constructs an EmployeeReport over read-only views of the given maps, which the caller must not modify afterwards.
+     * The maps are not copied, because a copy would rehash every manager, and a manager's hash covers its subordinates.
+     */
+    public EmployeeReport {
+        longReportingLines = Collections.unmodifiableMap(longReportingLines);
+        overpaidManagers = Collections.unmodifiableMap(overpaidManagers);
+        underpaidManagers = Collections.unmodifiableMap(underpaidManagers);
+    }
+}
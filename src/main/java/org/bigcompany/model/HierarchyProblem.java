@@ -0,0 +1,82 @@
+package org.bigcompany.model;
+
+import java.util.List;
+
+/**
+ * The HierarchyProblem interface is a single problem with the shape of a loaded organisation that prevents building
+ * its hierarchy: a manager ID that refers to no employee, a reporting line that forms a cycle, a missing or extra
+ * CEO, or a group of employees whose reporting lines do not reach the CEO.
+ */
+public sealed interface HierarchyProblem
+        permits HierarchyProblem.UnknownManager, HierarchyProblem.ReportingCycle, HierarchyProblem.NoCeo,
+                HierarchyProblem.MultipleCeos, HierarchyProblem.UnreachableGroup {
+
+    /**
+     * Gets a description of the problem for error messages.
+     * @return The description.
+     */
+    String getDescription();
+
+    /**
+     * The UnknownManager record is an employee whose manager ID refers to no employee.
+     *
+     * @param employeeId The ID of the employee.
+     * @param managerId  The unknown manager ID.
+     */
+    record UnknownManager(String employeeId, String managerId) implements HierarchyProblem {
+        @Override
+        public String getDescription() {
+            return "Unknown manager ID " + managerId + " for employee " + employeeId;
+        }
+    }
+
+    /**
+     * The ReportingCycle record is a group of employees whose reporting lines lead back to themselves.
+     *
+     * @param employeeIds The IDs of the employees in the cycle, each followed by their manager,
+     *                    starting with the smallest ID.
+     */
+    record ReportingCycle(List<String> employeeIds) implements HierarchyProblem {
+        @Override
+        public String getDescription() {
+            return "Employees " + String.join(" -> ", employeeIds) + " -> " + employeeIds.getFirst() + " form a reporting cycle";
+        }
+    }
+
+    /**
+     * The NoCeo record is an organisation in which every employee has a manager ID.
+     */
+    record NoCeo() implements HierarchyProblem {
+        @Override
+        public String getDescription() {
+            return "No employee is without a manager ID";
+        }
+    }
+
+    /**
+     * The MultipleCeos record is an organisation with more than one employee without a manager ID.
+     *
+     * @param employeeIds The IDs of the employees without a manager ID.
+     */
+    record MultipleCeos(List<String> employeeIds) implements HierarchyProblem {
+        @Override
+        public String getDescription() {
+            return "More than one employee without a manager ID: " + String.join(", ", employeeIds);
+        }
+    }
+
+    /**
+     * The UnreachableGroup record is a group of employees who report, directly or indirectly, to an employee with
+     * an unknown manager or to a cycle, so their reporting lines do not reach the CEO.
+     *
+     * @param topEmployeeId The ID of the employee the reporting lines end at: the one with the unknown manager,
+     *                      or the first member of the cycle that the group reaches.
+     * @param size          The number of employees in the group, including the top employee and any cycle.
+     */
+    record UnreachableGroup(String topEmployeeId, int size) implements HierarchyProblem {
+        @Override
+        public String getDescription() {
+            return size + " employees reporting up to " + topEmployeeId + " do not reach the CEO";
+        }
+    }
+}
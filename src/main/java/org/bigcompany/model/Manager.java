@@ -1,7 +1,7 @@
 package org.bigcompany.model;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -16,6 +16,7 @@ import java.util.Objects;
 public final class Manager  extends Employee {
 
     private final List<CompanyStaff> subordinates;
+    private int hash;
 
     /**
      * Constructs a Manager with the given parameters.
@@ -29,7 +30,40 @@ public final class Manager  extends Employee {
      */
     public Manager(String id, String firstName, String lastName, BigDecimal salary, String managerId, List<CompanyStaff> subordinates) {
         super(id, firstName, lastName, salary, managerId);
-        this.subordinates = Collections.unmodifiableList(new ArrayList<>(subordinates));
+        this.subordinates = Collections.unmodifiableList(Arrays.asList(subordinates.toArray(new CompanyStaff[0])));
+    }
+
+    /**
+     * Constructs a Manager from a completed builder, taking over its subordinate array without copying it.
+     *
+     * @param builder the builder holding the manager's fields and all of its subordinates
+     */
+    private Manager(Builder builder) {
+        super(builder.id, builder.firstName, builder.lastName, builder.salary, builder.managerId);
+        this.subordinates = Collections.unmodifiableList(Arrays.asList(builder.subordinates));
+    }
+
+    /**
+     * Constructs a Manager with the fields of the given employee, taking over an immutable list of subordinates
+     * without copying it.
+     *
+     * @param employee     the employee who is the manager
+     * @param subordinates the subordinates of the manager, which must never change
+     */
+    Manager(CompanyStaff employee, List<CompanyStaff> subordinates) {
+        super(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getSalary(), employee.getManagerId());
+        this.subordinates = subordinates;
+    }
+
+    /**
+     * Creates a builder for a manager with the fields of the given employee and a known number of subordinates.
+     *
+     * @param employee         the employee who is the manager
+     * @param subordinateCount the number of subordinates that will be added to the builder
+     * @return a builder that creates the Manager once all of its subordinates are added
+     */
+    public static Builder builder(CompanyStaff employee, int subordinateCount) {
+        return new Builder(employee, subordinateCount);
     }
 
     /**
@@ -47,7 +81,17 @@ public final class Manager  extends Employee {
      * @return the manager's list of subordinates
  */
     public List<CompanyStaff> getSubordinates() {
-        return Collections.unmodifiableList(subordinates);
+        return subordinates;
+    }
+
+    /**
+     * Returns the manager's subordinates as a persistent vector. A manager built from an array copies it once;
+     * the managers that an OrgSnapshot derives from it then share the vector's unchanged nodes.
+     *
+     * @return the manager's subordinates, in the same order
+     */
+    PersistentVector<CompanyStaff> getSubordinateVector() {
+        return subordinates instanceof PersistentVector<CompanyStaff> vector ? vector : PersistentVector.copyOf(subordinates);
     }
 
     /**
@@ -87,12 +131,96 @@ public final class Manager  extends Employee {
 
     /**
      * Returns the hash code of the Manager.
+     * It covers the whole subtree, so it is computed once and cached.
      *
      * @return the hash code of the Manager
      */
     @Override
     public int hashCode() {
-        return Objects.hash(getId(), getFirstName(), getLastName(), getSalary(), getManagerId(), subordinates);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(getId(), getFirstName(), getLastName(), getSalary(), getManagerId(), subordinates);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * The Builder class creates a Manager once, after all of its subordinates are known.
+     * The subordinates are collected in an array sized up front, which the Manager takes over without copying.
+     */
+    public static final class Builder {
+
+        private final String id;
+        private final String firstName;
+        private final String lastName;
+        private final BigDecimal salary;
+        private final String managerId;
+        private CompanyStaff[] subordinates;
+        private int size;
+
+        /**
+         * Constructs a Builder with the fields of the given employee.
+         *
+         * @param employee         the employee who is the manager
+         * @param subordinateCount the number of subordinates that will be added to the builder
+         */
+        private Builder(CompanyStaff employee, int subordinateCount) {
+            if (subordinateCount < 0) {
+                throw new IllegalArgumentException("The number of subordinates must not be negative");
+            }
+            this.id = employee.getId();
+            this.firstName = employee.getFirstName();
+            this.lastName = employee.getLastName();
+            this.salary = employee.getSalary();
+            this.managerId = employee.getManagerId();
+            this.subordinates = new CompanyStaff[subordinateCount];
+        }
+
+        /**
+         * Adds a subordinate to the manager.
+         *
+         * @param subordinate the subordinate to add
+         * @return this builder
+         */
+        public Builder addSubordinate(CompanyStaff subordinate) {
+            checkNotBuilt();
+            if (size == subordinates.length) {
+                throw new IllegalStateException("Manager " + id + " already has all of its " + size + " subordinates");
+            }
+            subordinates[size++] = subordinate;
+            return this;
+        }
+
+        /**
+         * Returns whether all of the manager's subordinates have been added.
+         *
+         * @return true if the builder holds the announced number of subordinates, false otherwise
+         */
+        public boolean isComplete() {
+            return subordinates != null && size == subordinates.length;
+        }
+
+        /**
+         * Creates the Manager. The builder cannot be used any more afterwards.
+         *
+         * @return the Manager with all of its subordinates
+         */
+        public Manager build() {
+            checkNotBuilt();
+            if (size != subordinates.length) {
+                throw new IllegalStateException("Manager " + id + " has " + size + " of its " + subordinates.length + " subordinates");
+            }
+            Manager manager = new Manager(this);
+            subordinates = null;
+            return manager;
+        }
+
+        private void checkNotBuilt() {
+            if (subordinates == null) {
+                throw new IllegalStateException("Manager " + id + " has already been built");
+            }
+        }
     }
 
 }
\ No newline at end of file
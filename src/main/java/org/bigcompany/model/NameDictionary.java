@@ -0,0 +1,152 @@
+package org.bigcompany.model;
+
+import java.util.Arrays;
+
+/**
+ * The NameDictionary class assigns a compact integer code to each distinct name it is given.
+ * Names in real exports repeat heavily, so a loader that passes every parsed name through the dictionary
+ * keeps one String per distinct name instead of one per row, and storage that cannot hold references
+ * can keep the codes instead and decode them when a name is rendered.
+ * Codes are assigned in the order names are first seen, starting at zero.
+ * The class is not thread-safe.
+ */
+public final class NameDictionary {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int EMPTY = -1;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+    private int size;
+
+    /**
+     * Returns the code of the given name, assigning the next free code if the name is new.
+     *
+     * @param name the name to encode
+     * @return the code of the name
+     */
+    public int encode(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        int code;
+        while ((code = slots[slot]) != EMPTY) {
+            if (hashes[code] == hash && names[code].equals(name)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(name, hash, slot);
+    }
+
+    /**
+     * Returns the canonical instance of the given name: the first equal String passed to this dictionary.
+     *
+     * @param name the name to canonicalize
+     * @return the canonical instance of the name
+     */
+    public String canonicalize(String name) {
+        int code = encode(name); // may grow the names array, so it must be read afterwards
+        return names[code];
+    }
+
+    /**
+     * Returns the canonical instance of the name held in a range of a char buffer. A String is created only
+     * if the name is new to this dictionary, so a parser can look up repeated names without copying them.
+     *
+     * @param chars the buffer that holds the name
+     * @param start the index of the first char of the name
+     * @param end   the index after the last char of the name
+     * @return the canonical instance of the name
+     */
+    public String canonicalize(char[] chars, int start, int end) {
+        int hash = 0;
+        for (int index = start; index < end; index++) {
+            hash = 31 * hash + chars[index]; // the hash of the equal String
+        }
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        int code;
+        while ((code = slots[slot]) != EMPTY) {
+            if (hashes[code] == hash && contentEquals(names[code], chars, start, end)) {
+                return names[code];
+            }
+            slot = (slot + 1) & mask;
+        }
+        code = add(new String(chars, start, end - start), hash, slot);
+        return names[code];
+    }
+
+    /**
+     * Returns the name with the given code.
+     *
+     * @param code a code returned by this dictionary
+     * @return the name with the code
+     * @throws IndexOutOfBoundsException if the code was not assigned by this dictionary
+     */
+    public String decode(int code) {
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("Unknown name code: " + code);
+        }
+        return names[code];
+    }
+
+    /**
+     * Returns the number of distinct names in the dictionary.
+     *
+     * @return the number of distinct names
+     */
+    public int size() {
+        return size;
+    }
+
+    private int add(String name, int hash, int slot) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int code = size++;
+        names[code] = name;
+        hashes[code] = hash;
+        slots[slot] = code;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return code;
+    }
+
+    private void rehash(int capacity) {
+        slots = newSlots(capacity);
+        int mask = capacity - 1;
+        for (int code = 0; code < size; code++) {
+            int slot = spread(hashes[code]) & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = code;
+        }
+    }
+
+    private static boolean contentEquals(String name, char[] chars, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int index = 0; index < name.length(); index++) {
+            if (name.charAt(index) != chars[start + index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
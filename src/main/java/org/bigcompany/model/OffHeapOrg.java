@@ -0,0 +1,250 @@
+package org.bigcompany.model;
+
+import org.bigcompany.exception.EmployeeDataException;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * The OffHeapOrg class stores a loaded organisation outside the Java heap, in memory segments allocated from
+ * its own shared Arena. IDs, salaries, manager links and subordinate ranges are kept as primitive columns,
+ * so the heap only holds the dictionary of distinct names and the garbage collector never scans the employees.
+ * Salaries are stored as their unscaled value and scale, which keeps them exact.
+ * The class requires numeric employee IDs and salaries whose unscaled value fits in a long.
+ * It is safe to read from several threads; closing it releases the memory of all columns at once.
+ */
+public final class OffHeapOrg implements OrgView {
+
+    private final Arena arena;
+    private final int size;
+    private final MemorySegment ids;
+    private final MemorySegment unscaledSalaries;
+    private final MemorySegment salaryScales;
+    private final MemorySegment managers;
+    private final MemorySegment firstSubordinates;
+    private final MemorySegment subordinateCounts;
+    private final MemorySegment firstNames;
+    private final MemorySegment lastNames;
+    private final NameDictionary names;
+    private boolean mixedSalaryScales;
+
+    private OffHeapOrg(int size) {
+        this.arena = Arena.ofShared();
+        this.size = size;
+        this.ids = allocate(ValueLayout.JAVA_LONG.byteSize());
+        this.unscaledSalaries = allocate(ValueLayout.JAVA_LONG.byteSize());
+        this.salaryScales = allocate(ValueLayout.JAVA_INT.byteSize());
+        this.managers = allocate(ValueLayout.JAVA_INT.byteSize());
+        this.firstSubordinates = allocate(ValueLayout.JAVA_INT.byteSize());
+        this.subordinateCounts = allocate(ValueLayout.JAVA_INT.byteSize());
+        this.firstNames = allocate(ValueLayout.JAVA_INT.byteSize());
+        this.lastNames = allocate(ValueLayout.JAVA_INT.byteSize());
+        this.names = new NameDictionary();
+    }
+
+    /**
+     * Copies the given employees, as returned by the CSV loader, into off-heap storage.
+     * The employees must form a single tree under one CEO.
+     *
+     * @param employees the employees keyed by ID
+     * @return the off-heap organisation, which the caller must close
+     * @throws EmployeeDataException if an ID is not numeric, a salary is out of range, or the employees do not form a tree
+     */
+    public static OffHeapOrg from(Map<String, CompanyStaff> employees) {
+        List<CompanyStaff> staff = new ArrayList<>(employees.values());
+        int size = staff.size();
+        Map<String, Integer> positions = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            positions.put(staff.get(i).getId(), i);
+        }
+        int root = OrgView.NONE;
+        int[] subordinateCounts = new int[size];
+        int[] managers = new int[size];
+        for (int i = 0; i < size; i++) {
+            String managerId = staff.get(i).getManagerId();
+            if (managerId == null) {
+                if (root != OrgView.NONE) {
+                    throw new EmployeeDataException("More than one employee without a manager ID");
+                }
+                root = i;
+                managers[i] = OrgView.NONE;
+            } else {
+                Integer manager = positions.get(managerId);
+                if (manager == null) {
+                    throw new EmployeeDataException("Unknown manager ID " + managerId + " for employee " + staff.get(i).getId());
+                }
+                managers[i] = manager;
+                subordinateCounts[manager]++;
+            }
+        }
+        if (size > 0 && root == OrgView.NONE) {
+            throw new EmployeeDataException("No employee without a manager ID");
+        }
+        // Group the subordinates of each employee, then number the employees breadth-first from the CEO
+        int[] subordinateStarts = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            subordinateStarts[i + 1] = subordinateStarts[i] + subordinateCounts[i];
+        }
+        int[] subordinates = new int[size];
+        int[] filled = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (managers[i] != OrgView.NONE) {
+                subordinates[subordinateStarts[managers[i]] + filled[managers[i]]++] = i;
+            }
+        }
+        int[] order = new int[size];
+        int tail = 0;
+        if (size > 0) {
+            order[tail++] = root;
+        }
+        OffHeapOrg org = new OffHeapOrg(size);
+        try {
+            for (int index = 0; index < tail; index++) {
+                int position = order[index];
+                int count = subordinateCounts[position];
+                org.firstSubordinates.setAtIndex(ValueLayout.JAVA_INT, index, tail);
+                org.subordinateCounts.setAtIndex(ValueLayout.JAVA_INT, index, count);
+                for (int k = 0; k < count; k++) {
+                    int subordinate = subordinates[subordinateStarts[position] + k];
+                    org.managers.setAtIndex(ValueLayout.JAVA_INT, tail, index);
+                    order[tail++] = subordinate;
+                }
+                org.store(index, staff.get(position));
+            }
+            if (tail != size) {
+                throw new EmployeeDataException((size - tail) + " employees are not in the reporting line of the CEO");
+            }
+            if (size > 0) {
+                org.managers.setAtIndex(ValueLayout.JAVA_INT, 0, OrgView.NONE);
+            }
+            return org;
+        } catch (RuntimeException e) {
+            org.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getId(int index) {
+        return ids.getAtIndex(ValueLayout.JAVA_LONG, checkIndex(index));
+    }
+
+    @Override
+    public String getFirstName(int index) {
+        return names.decode(firstNames.getAtIndex(ValueLayout.JAVA_INT, checkIndex(index)));
+    }
+
+    @Override
+    public String getLastName(int index) {
+        return names.decode(lastNames.getAtIndex(ValueLayout.JAVA_INT, checkIndex(index)));
+    }
+
+    @Override
+    public BigDecimal getSalary(int index) {
+        return BigDecimal.valueOf(getUnscaledSalary(index), getSalaryScale(index));
+    }
+
+    /**
+     * Returns the unscaled value of the salary of the employee with the given index.
+     *
+     * @param index the index of the employee
+     * @return the unscaled value of the salary
+     */
+    public long getUnscaledSalary(int index) {
+        return unscaledSalaries.getAtIndex(ValueLayout.JAVA_LONG, checkIndex(index));
+    }
+
+    /**
+     * Returns the scale shared by all salaries, if they all have the same one.
+     * Salaries at a common scale can be compared and summed as their unscaled values.
+     *
+     * @return the common scale of all salaries, or an empty OptionalInt if the scales differ or there are no employees
+     */
+    public OptionalInt getUniformSalaryScale() {
+        return size == 0 || mixedSalaryScales ? OptionalInt.empty() : OptionalInt.of(getSalaryScale(0));
+    }
+
+    /**
+     * Copies the unscaled salaries of all employees, in index order, into a heap array.
+     *
+     * @return the unscaled salaries
+     */
+    public long[] copyUnscaledSalaries() {
+        long[] salaries = new long[size];
+        MemorySegment.copy(unscaledSalaries, ValueLayout.JAVA_LONG, 0, salaries, 0, size);
+        return salaries;
+    }
+
+    /**
+     * Returns the scale of the salary of the employee with the given index.
+     *
+     * @param index the index of the employee
+     * @return the scale of the salary
+     */
+    public int getSalaryScale(int index) {
+        return salaryScales.getAtIndex(ValueLayout.JAVA_INT, checkIndex(index));
+    }
+
+    @Override
+    public int getManager(int index) {
+        return managers.getAtIndex(ValueLayout.JAVA_INT, checkIndex(index));
+    }
+
+    @Override
+    public int getFirstSubordinate(int index) {
+        return firstSubordinates.getAtIndex(ValueLayout.JAVA_INT, checkIndex(index));
+    }
+
+    @Override
+    public int getSubordinateCount(int index) {
+        return subordinateCounts.getAtIndex(ValueLayout.JAVA_INT, checkIndex(index));
+    }
+
+    /**
+     * Releases the off-heap memory of the organisation.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private MemorySegment allocate(long bytesPerEmployee) {
+        return arena.allocate(Math.max(1, bytesPerEmployee * size), bytesPerEmployee);
+    }
+
+    private void store(int index, CompanyStaff employee) {
+        try {
+            ids.setAtIndex(ValueLayout.JAVA_LONG, index, Long.parseLong(employee.getId()));
+        } catch (NumberFormatException e) {
+            throw new EmployeeDataException("Off-heap storage requires numeric employee IDs, found: " + employee.getId());
+        }
+        BigDecimal salary = employee.getSalary();
+        if (salary.unscaledValue().bitLength() >= Long.SIZE) {
+            throw new EmployeeDataException("Salary of employee " + employee.getId() + " is too large for off-heap storage");
+        }
+        unscaledSalaries.setAtIndex(ValueLayout.JAVA_LONG, index, salary.unscaledValue().longValue());
+        salaryScales.setAtIndex(ValueLayout.JAVA_INT, index, salary.scale());
+        mixedSalaryScales |= index > 0 && salary.scale() != getSalaryScale(0);
+        firstNames.setAtIndex(ValueLayout.JAVA_INT, index, names.encode(employee.getFirstName()));
+        lastNames.setAtIndex(ValueLayout.JAVA_INT, index, names.encode(employee.getLastName()));
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Employee index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+}
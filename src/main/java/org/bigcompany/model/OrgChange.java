@@ -0,0 +1,63 @@
+package org.bigcompany.model;
+
+import java.math.BigDecimal;
+
+/**
+ * The OrgChange interface is a single difference between two versions of the organisation: a hire, a leaver,
+ * a salary change or a manager change. An employee whose salary and manager both changed has one change of each.
+ */
+public sealed interface OrgChange
+        permits OrgChange.Hire, OrgChange.Leaver, OrgChange.SalaryChange, OrgChange.ManagerChange {
+
+    /**
+     * Gets the ID of the employee the change is about.
+     * @return The ID of the employee.
+     */
+    String employeeId();
+
+    /**
+     * The Hire record is an employee who is only part of the newer version.
+     *
+     * @param employee The employee, as in the newer version.
+     */
+    record Hire(CompanyStaff employee) implements OrgChange {
+
+        @Override
+        public String employeeId() {
+            return employee.getId();
+        }
+    }
+
+    /**
+     * The Leaver record is an employee who is only part of the older version.
+     *
+     * @param employee The employee, as in the older version.
+     */
+    record Leaver(CompanyStaff employee) implements OrgChange {
+
+        @Override
+        public String employeeId() {
+            return employee.getId();
+        }
+    }
+
+    /**
+     * The SalaryChange record is an employee whose salary differs between the versions.
+     *
+     * @param employeeId The ID of the employee.
+     * @param oldSalary  The salary in the older version.
+     * @param newSalary  The salary in the newer version.
+     */
+    record SalaryChange(String employeeId, BigDecimal oldSalary, BigDecimal newSalary) implements OrgChange {
+    }
+
+    /**
+     * The ManagerChange record is an employee whose manager differs between the versions.
+     *
+     * @param employeeId   The ID of the employee.
+     * @param oldManagerId The ID of the manager in the older version, or null if the employee was the CEO.
+     * @param newManagerId The ID of the manager in the newer version, or null if the employee is the CEO.
+     */
+    record ManagerChange(String employeeId, String oldManagerId, String newManagerId) implements OrgChange {
+    }
+}
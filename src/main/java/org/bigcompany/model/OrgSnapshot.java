@@ -0,0 +1,214 @@
+package org.bigcompany.model;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.exception.InvalidSalaryException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The OrgSnapshot class is an immutable version of a built hierarchy. Every change returns a new snapshot
+ * that shares all unchanged employees and managers with the old one.
+ * <p>
+ * The employees are kept in a PersistentHashMap, and the managers of changed snapshots hold their subordinates
+ * in a PersistentVector. Since a Manager is immutable, a changed employee is replaced together with the managers
+ * on their reporting line, but each of those managers shares all but one path of its subordinate vector with the
+ * manager it replaces, and a second PersistentHashMap gives the position of every employee in their manager's
+ * subordinates, so a change costs a few small arrays per level of the reporting line however wide the organisation
+ * is. The snapshot's map is a hierarchy like the one built by the EmployeeService: employees without subordinates
+ * are plain employees, all others are managers. Removing a subordinate moves the manager's last subordinate into
+ * its place, so the order of the subordinates is not kept across removals.
+ */
+public final class OrgSnapshot {
+
+    private final PersistentHashMap<String, CompanyStaff> employees;
+    private final PersistentHashMap<String, Integer> positions;
+
+    private OrgSnapshot(PersistentHashMap<String, CompanyStaff> employees, PersistentHashMap<String, Integer> positions) {
+        this.employees = employees;
+        this.positions = positions;
+    }
+
+    /**
+     * Creates a snapshot of a built hierarchy.
+     *
+     * @param employees a map of all employees, keyed by their unique identifiers, as built by the EmployeeService
+     * @return the snapshot, sharing the employee and manager objects of the map
+     */
+    public static OrgSnapshot of(Map<String, CompanyStaff> employees) {
+        PersistentHashMap<String, Integer> positions = PersistentHashMap.empty();
+        for (CompanyStaff employee : employees.values()) {
+            if (employee instanceof Manager manager) {
+                List<CompanyStaff> subordinates = manager.getSubordinates();
+                for (int position = 0; position < subordinates.size(); position++) {
+                    positions = positions.plus(subordinates.get(position).getId(), position);
+                }
+            }
+        }
+        return new OrgSnapshot(PersistentHashMap.copyOf(employees), positions);
+    }
+
+    /**
+     * Returns the employees of this snapshot as a read-only map that the salary and reporting analyses accept.
+     *
+     * @return a map of all employees, keyed by their unique identifiers
+     */
+    public Map<String, CompanyStaff> asMap() {
+        return employees;
+    }
+
+    /**
+     * Returns the number of employees.
+     *
+     * @return the number of employees
+     */
+    public int size() {
+        return employees.size();
+    }
+
+    /**
+     * Returns an employee of this snapshot.
+     *
+     * @param employeeId the ID of the employee
+     * @return the employee, or a manager with their subordinates in this snapshot
+     */
+    public CompanyStaff get(String employeeId) {
+        CompanyStaff employee = employees.get(employeeId);
+        if (employee == null) {
+            throw new EmployeeDataException("Unknown employee ID: " + employeeId);
+        }
+        return employee;
+    }
+
+    /**
+     * Returns a snapshot in which an employee earns a new salary.
+     *
+     * @param employeeId the ID of the employee
+     * @param salary     the new salary, greater than zero
+     * @return the new snapshot
+     */
+    public OrgSnapshot withSalary(String employeeId, BigDecimal salary) {
+        if (salary.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidSalaryException("Salary must be greater than zero");
+        }
+        CompanyStaff employee = get(employeeId);
+        CompanyStaff changed = copy(employee, salary, employee.getManagerId());
+        return new OrgSnapshot(employees.plus(employeeId, changed), positions)
+                .replaceSubordinate(employee.getManagerId(), employee, changed);
+    }
+
+    /**
+     * Returns a snapshot in which an employee, with everyone who reports to them, has moved under a new manager.
+     *
+     * @param employeeId   the ID of the employee
+     * @param newManagerId the ID of the employee's new manager
+     * @return the new snapshot
+     */
+    public OrgSnapshot withManager(String employeeId, String newManagerId) {
+        CompanyStaff employee = get(employeeId);
+        for (CompanyStaff manager = get(newManagerId); ; manager = employees.get(manager.getManagerId())) {
+            if (manager.getId().equals(employeeId)) {
+                throw new EmployeeDataException("Moving employee " + employeeId + " under " + newManagerId
+                                                        + " would create a cycle in the reporting line");
+            }
+            if (manager.getManagerId() == null) {
+                break;
+            }
+        }
+        if (newManagerId.equals(employee.getManagerId())) {
+            return this;
+        }
+        CompanyStaff moved = copy(employee, employee.getSalary(), newManagerId);
+        OrgSnapshot withoutEmployee = replaceSubordinate(employee.getManagerId(), employee, null);
+        return new OrgSnapshot(withoutEmployee.employees.plus(employeeId, moved), withoutEmployee.positions)
+                .replaceSubordinate(newManagerId, null, moved);
+    }
+
+    /**
+     * Returns a snapshot with a new employee, who has no subordinates yet.
+     *
+     * @param employee the new employee, whose manager must be part of this snapshot
+     * @return the new snapshot
+     */
+    public OrgSnapshot withHire(Employee employee) {
+        if (employees.containsKey(employee.getId())) {
+            throw new EmployeeDataException("Duplicate employee ID " + employee.getId());
+        }
+        if (employee.getManagerId() == null) {
+            throw new EmployeeDataException("Employee " + employee.getId() + " has no manager");
+        }
+        get(employee.getManagerId());
+        CompanyStaff hired = new Employee(employee.getId(), employee.getFirstName(), employee.getLastName(),
+                                          employee.getSalary(), employee.getManagerId());
+        return new OrgSnapshot(employees.plus(hired.getId(), hired), positions)
+                .replaceSubordinate(hired.getManagerId(), null, hired);
+    }
+
+    /**
+     * Returns a snapshot without an employee who has left. Their subordinates must have moved to other managers first.
+     *
+     * @param employeeId the ID of the employee
+     * @return the new snapshot
+     */
+    public OrgSnapshot withoutEmployee(String employeeId) {
+        CompanyStaff employee = get(employeeId);
+        if (employee instanceof Manager manager) {
+            throw new EmployeeDataException("Employee " + employeeId + " still has "
+                                                    + manager.getSubordinates().size() + " subordinates");
+        }
+        return new OrgSnapshot(employees.minus(employeeId), positions)
+                .replaceSubordinate(employee.getManagerId(), employee, null);
+    }
+
+    /**
+     * Replaces a subordinate of a manager, and then the manager in the subordinates of each manager above them.
+     *
+     * @param managerId      the ID of the manager, or null if the subordinate is the CEO
+     * @param oldSubordinate the subordinate to replace, or null to add the new subordinate
+     * @param newSubordinate the subordinate to put in its place, or null to remove the old subordinate
+     * @return the updated snapshot
+     */
+    private OrgSnapshot replaceSubordinate(String managerId, CompanyStaff oldSubordinate, CompanyStaff newSubordinate) {
+        PersistentHashMap<String, CompanyStaff> changedEmployees = employees;
+        PersistentHashMap<String, Integer> changedPositions = positions;
+        while (managerId != null) {
+            CompanyStaff manager = changedEmployees.get(managerId);
+            PersistentVector<CompanyStaff> subordinates = manager instanceof Manager loadedManager
+                    ? loadedManager.getSubordinateVector()
+                    : PersistentVector.empty();
+            if (oldSubordinate == null) {
+                changedPositions = changedPositions.plus(newSubordinate.getId(), subordinates.size());
+                subordinates = subordinates.plus(newSubordinate);
+            } else if (newSubordinate != null) {
+                subordinates = subordinates.with(changedPositions.get(oldSubordinate.getId()), newSubordinate);
+            } else {
+                // The last subordinate takes the place of the removed one, so no other subordinate moves
+                int position = changedPositions.get(oldSubordinate.getId());
+                CompanyStaff last = subordinates.get(subordinates.size() - 1);
+                subordinates = subordinates.with(position, last).minusLast();
+                changedPositions = changedPositions.minus(oldSubordinate.getId());
+                if (!last.getId().equals(oldSubordinate.getId())) {
+                    changedPositions = changedPositions.plus(last.getId(), position);
+                }
+            }
+            CompanyStaff changedManager = subordinates.isEmpty()
+                    ? new Employee(manager.getId(), manager.getFirstName(), manager.getLastName(),
+                                   manager.getSalary(), manager.getManagerId())
+                    : new Manager(manager, subordinates);
+            changedEmployees = changedEmployees.plus(managerId, changedManager);
+            oldSubordinate = manager;
+            newSubordinate = changedManager;
+            managerId = manager.getManagerId();
+        }
+        return new OrgSnapshot(changedEmployees, changedPositions);
+    }
+
+    /**
+     * Copies an employee with a new salary and manager, sharing their subordinates.
+     */
+    private static CompanyStaff copy(CompanyStaff employee, BigDecimal salary, String managerId) {
+        Employee fields = new Employee(employee.getId(), employee.getFirstName(), employee.getLastName(), salary, managerId);
+        return employee instanceof Manager manager ? new Manager(fields, manager.getSubordinates()) : fields;
+    }
+}
@@ -0,0 +1,87 @@
+package org.bigcompany.model;
+
+import java.math.BigDecimal;
+
+/**
+ * The OrgView interface gives index-based access to a loaded organisation, without one object per employee.
+ * Employees are numbered from 0 to size() - 1 in breadth-first order from the CEO, who has index 0.
+ * As a consequence, the direct subordinates of each employee occupy a contiguous range of indices,
+ * and every employee has a higher index than their manager.
+ * Views may hold resources outside the heap, so they must be closed once they are no longer used.
+ */
+public interface OrgView extends AutoCloseable {
+
+    /**
+     * Marks the absence of an employee, such as the manager of the CEO.
+     */
+    int NONE = -1;
+
+    /**
+     * Returns the number of employees in the organisation.
+     *
+     * @return the number of employees
+     */
+    int size();
+
+    /**
+     * Returns the numeric identifier of the employee with the given index.
+     *
+     * @param index the index of the employee
+     * @return the identifier of the employee
+     */
+    long getId(int index);
+
+    /**
+     * Returns the first name of the employee with the given index.
+     *
+     * @param index the index of the employee
+     * @return the first name of the employee
+     */
+    String getFirstName(int index);
+
+    /**
+     * Returns the last name of the employee with the given index.
+     *
+     * @param index the index of the employee
+     * @return the last name of the employee
+     */
+    String getLastName(int index);
+
+    /**
+     * Returns the salary of the employee with the given index.
+     *
+     * @param index the index of the employee
+     * @return the salary of the employee
+     */
+    BigDecimal getSalary(int index);
+
+    /**
+     * Returns the index of the manager of the employee with the given index.
+     *
+     * @param index the index of the employee
+     * @return the index of the manager, or NONE for the CEO
+     */
+    int getManager(int index);
+
+    /**
+     * Returns the index of the first direct subordinate of the employee with the given index.
+     *
+     * @param index the index of the employee
+     * @return the index of the first direct subordinate; meaningless if the employee has none
+     */
+    int getFirstSubordinate(int index);
+
+    /**
+     * Returns the number of direct subordinates of the employee with the given index.
+     *
+     * @param index the index of the employee
+     * @return the number of direct subordinates
+     */
+    int getSubordinateCount(int index);
+
+    /**
+     * Releases the resources held by the view. The view must not be used afterwards.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,31 @@
+package org.bigcompany.model;
+
+import org.bigcompany.dao.RowErrorLog;
+
+import java.util.Optional;
+
+/**
+ * The OrgViewLoad record is the result of one load of the employees into an index-based view: the view and,
+ * for a lenient load, the rows it skipped. Closing the load closes the view.
+ *
+ * @param view        The view of the organisation, which must be closed.
+ * @param rowErrorLog The rows skipped by the load, or null if the load is not lenient.
+ */
+public record OrgViewLoad(OrgView view, RowErrorLog rowErrorLog) implements AutoCloseable {
+
+    /**
+     * Gets the rows skipped by the load, if it skipped any.
+     * @return The log of skipped rows, or an empty Optional if the load is not lenient or skipped no rows.
+     */
+    public Optional<RowErrorLog> getSkippedRows() {
+        return Optional.ofNullable(rowErrorLog).filter(log -> !log.isEmpty());
+    }
+
+    /**
+     * Closes the view and releases its memory.
+     */
+    @Override
+    public void close() {
+        view.close();
+    }
+}
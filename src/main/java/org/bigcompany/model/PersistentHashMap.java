@@ -0,0 +1,430 @@
+package org.bigcompany.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The PersistentHashMap class is an immutable hash array mapped trie. Adding or removing a key returns a new map
+ * that shares every node of the old one except the few on the path to the key, so many versions of a large map
+ * cost little more memory than one of them plus the changes between them.
+ * <p>
+ * Each level of the trie consumes five bits of the key's hash and stores its entries and child nodes in an array
+ * compacted by a 32-bit bitmap; keys whose hashes are equal end up in a collision node. The map itself is a
+ * read-only {@link Map}: its mutators throw UnsupportedOperationException. Keys and values must not be null.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+    private Set<Entry<K, V>> entrySet;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Gets the empty map.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Creates a map with the entries of the given map.
+     *
+     * @param map the map to copy
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return a persistent map with the same entries
+     */
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        PersistentHashMap<K, V> copy = empty();
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            copy = copy.plus(entry.getKey(), entry.getValue());
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a map with the given key mapped to the given value, sharing all unaffected nodes with this map.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the new map, or this map if the key is already mapped to the same value
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        int hash = hash(key);
+        boolean[] added = new boolean[1];
+        Node newRoot = root == null
+                ? BitmapNode.EMPTY.put(0, hash, key, value, added)
+                : root.put(0, hash, key, value, added);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the given key, sharing all unaffected nodes with this map.
+     *
+     * @param key the key
+     * @return the new map, or this map if the key is not mapped
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        if (root == null || key == null) {
+            return this;
+        }
+        Node newRoot = root.remove(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Returns the value mapped to the given key.
+     *
+     * @param key the key
+     * @return the value, or null if the key is not mapped
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object value = find(key);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    /**
+     * Returns whether the given key is mapped.
+     *
+     * @param key the key
+     * @return true if the map contains the key, false otherwise
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != NOT_FOUND;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a read-only view of the entries, in the order of the trie.
+     *
+     * @return the entries of the map
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> entries = entrySet;
+        if (entries == null) {
+            entries = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+            entrySet = entries;
+        }
+        return entries;
+    }
+
+    private Object find(Object key) {
+        if (root == null || key == null) {
+            return NOT_FOUND;
+        }
+        return root.find(0, hash(key), key);
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    /**
+     * A node of the trie. Nodes are never modified once they are reachable from a map.
+     * Their arrays hold key and value pairs; a null key marks a slot whose value is a child node.
+     */
+    private abstract static sealed class Node permits BitmapNode, CollisionNode {
+
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node put(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /**
+         * Removes a key.
+         * @return the node without the key, this node if the key is absent, or null if the node became empty.
+         */
+        abstract Node remove(int shift, int hash, Object key);
+    }
+
+    /**
+     * A node that spreads its entries over 32 slots by the five bits of the hash at its level.
+     */
+    private static final class BitmapNode extends Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+
+        BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int slot = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object slotKey = array[slot];
+            if (slotKey == null) {
+                return ((Node) array[slot + 1]).find(shift + BITS_PER_LEVEL, hash, key);
+            }
+            return key.equals(slotKey) ? array[slot + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int slot = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, slot);
+                newArray[slot] = key;
+                newArray[slot + 1] = value;
+                System.arraycopy(array, slot, newArray, slot + 2, array.length - slot);
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            Object slotKey = array[slot];
+            Object slotValue = array[slot + 1];
+            if (slotKey == null) {
+                Node child = ((Node) slotValue).put(shift + BITS_PER_LEVEL, hash, key, value, added);
+                return child == slotValue ? this : withSlot(slot, null, child);
+            }
+            if (key.equals(slotKey)) {
+                return slotValue == value ? this : withSlot(slot, slotKey, value);
+            }
+            added[0] = true;
+            return withSlot(slot, null, createChild(shift + BITS_PER_LEVEL, slotKey, slotValue, hash, key, value));
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int slot = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object slotKey = array[slot];
+            if (slotKey == null) {
+                Node child = (Node) array[slot + 1];
+                Node newChild = child.remove(shift + BITS_PER_LEVEL, hash, key);
+                if (newChild == child) {
+                    return this;
+                }
+                return newChild == null ? withoutSlot(bit, slot) : withSlot(slot, null, newChild);
+            }
+            return key.equals(slotKey) ? withoutSlot(bit, slot) : this;
+        }
+
+        private BitmapNode withSlot(int slot, Object key, Object value) {
+            Object[] newArray = array.clone();
+            newArray[slot] = key;
+            newArray[slot + 1] = value;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        private BitmapNode withoutSlot(int bit, int slot) {
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, slot);
+            System.arraycopy(array, slot + 2, newArray, slot, array.length - slot - 2);
+            return new BitmapNode(bitmap ^ bit, newArray);
+        }
+
+        /**
+         * Creates the child node for two keys that share the slot of this level.
+         */
+        private static Node createChild(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            }
+            boolean[] added = new boolean[1];
+            return EMPTY.put(shift, hash1, key1, value1, added).put(shift, hash2, key2, value2, added);
+        }
+    }
+
+    /**
+     * A node for keys whose hashes are all equal, searched linearly.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+
+        CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int slot = indexOf(hash, key);
+            return slot < 0 ? NOT_FOUND : array[slot + 1];
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // Nests this node one level down, next to the new key
+                Node parent = new BitmapNode(bit(this.hash, shift), new Object[]{null, this});
+                return parent.put(shift, hash, key, value, added);
+            }
+            int slot = indexOf(hash, key);
+            if (slot >= 0) {
+                if (array[slot + 1] == value) {
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[slot + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            added[0] = true;
+            Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int slot = indexOf(hash, key);
+            if (slot < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, slot);
+            System.arraycopy(array, slot + 2, newArray, slot, array.length - slot - 2);
+            return new CollisionNode(hash, newArray);
+        }
+
+        private int indexOf(int hash, Object key) {
+            if (hash == this.hash) {
+                for (int slot = 0; slot < array.length; slot += 2) {
+                    if (key.equals(array[slot])) {
+                        return slot;
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Iterates over the entries of a trie depth-first, with an explicit stack of nodes and slots.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        // Seven levels of five bits cover the 32-bit hash; one more level holds the collision nodes
+        private final Node[] nodes = new Node[8];
+        private final int[] slots = new int[8];
+        private int depth = -1;
+        private Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                nodes[0] = root;
+                depth = 0;
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            Entry<K, V> entry = next;
+            if (entry == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                int slot = slots[depth];
+                if (slot == node.array.length) {
+                    slots[depth] = 0;
+                    depth--;
+                    continue;
+                }
+                slots[depth] = slot + 2;
+                Object key = node.array[slot];
+                if (key == null) {
+                    depth++;
+                    nodes[depth] = (Node) node.array[slot + 1];
+                    slots[depth] = 0;
+                } else {
+                    next = new SimpleImmutableEntry<>((K) key, (V) node.array[slot + 1]);
+                    return;
+                }
+            }
+            next = null;
+        }
+    }
+}
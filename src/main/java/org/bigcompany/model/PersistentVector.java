@@ -0,0 +1,206 @@
+package org.bigcompany.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * The PersistentVector class is an immutable list stored as a trie of 32-way nodes. Replacing, appending or removing
+ * the last element returns a new vector that shares every node of the old one except the few on the path to that
+ * element, so a change to a long list copies a handful of small arrays instead of the whole list.
+ * <p>
+ * The leaves hold the elements in order and the inner nodes hold their children, each level consuming five bits
+ * of the index. The vector itself is a read-only {@link java.util.List}: its mutators throw UnsupportedOperationException.
+ * Elements must not be null.
+ *
+ * @param <E> the type of the elements
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int NODE_SIZE = 1 << BITS_PER_LEVEL;
+    private static final int LEVEL_MASK = NODE_SIZE - 1;
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(new Object[0], 0, 0);
+
+    private final Object[] root;
+    private final int size;
+    private final int shift;
+
+    private PersistentVector(Object[] root, int size, int shift) {
+        this.root = root;
+        this.size = size;
+        this.shift = shift;
+    }
+
+    /**
+     * Gets the empty vector.
+     *
+     * @param <E> the type of the elements
+     * @return the empty vector
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Creates a vector with the elements of the given collection, in their iteration order.
+     * The trie is built bottom-up, so this takes time linear in the number of elements.
+     *
+     * @param elements the elements to copy
+     * @param <E>      the type of the elements
+     * @return a persistent vector with the same elements
+     */
+    public static <E> PersistentVector<E> copyOf(Collection<? extends E> elements) {
+        Object[] nodes = elements.toArray();
+        for (Object element : nodes) {
+            Objects.requireNonNull(element, "element");
+        }
+        if (nodes.length == 0) {
+            return empty();
+        }
+        int size = nodes.length;
+        int shift = -BITS_PER_LEVEL;
+        do {
+            nodes = groupIntoNodes(nodes);
+            shift += BITS_PER_LEVEL;
+        } while (nodes.length > 1);
+        return new PersistentVector<>((Object[]) nodes[0], size, shift);
+    }
+
+    /**
+     * Returns the element at the given index.
+     *
+     * @param index the index of the element
+     * @return the element
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS_PER_LEVEL) {
+            node = (Object[]) node[(index >>> level) & LEVEL_MASK];
+        }
+        return (E) node[index & LEVEL_MASK];
+    }
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return the number of elements
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a vector with the element at the given index replaced, sharing all other nodes with this vector.
+     *
+     * @param index   the index of the element to replace
+     * @param element the new element
+     * @return the new vector, or this vector if the index already holds the same element
+     */
+    public PersistentVector<E> with(int index, E element) {
+        Objects.checkIndex(index, size);
+        Objects.requireNonNull(element, "element");
+        if (get(index) == element) {
+            return this;
+        }
+        return new PersistentVector<>(replace(root, shift, index, element), size, shift);
+    }
+
+    /**
+     * Returns a vector with the given element appended, sharing all full nodes with this vector.
+     *
+     * @param element the element to append
+     * @return the new vector
+     */
+    public PersistentVector<E> plus(E element) {
+        Objects.requireNonNull(element, "element");
+        if (size == 1 << (shift + BITS_PER_LEVEL)) {
+            // The trie is full, so it becomes the first child of a new root one level higher
+            Object[] newRoot = {root, newPath(shift, element)};
+            return new PersistentVector<>(newRoot, size + 1, shift + BITS_PER_LEVEL);
+        }
+        return new PersistentVector<>(append(root, shift, size, element), size + 1, shift);
+    }
+
+    /**
+     * Returns a vector without its last element, sharing all other nodes with this vector.
+     *
+     * @return the new vector
+     */
+    public PersistentVector<E> minusLast() {
+        if (size == 0) {
+            throw new IllegalStateException("The vector is empty");
+        }
+        if (size == 1) {
+            return empty();
+        }
+        Object[] newRoot = removeLast(root, shift, size - 1);
+        int newShift = shift;
+        if (newShift > 0 && newRoot.length == 1) {
+            // The root has a single child left, which becomes the root one level lower
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS_PER_LEVEL;
+        }
+        return new PersistentVector<>(newRoot, size - 1, newShift);
+    }
+
+    private static Object[] replace(Object[] node, int level, int index, Object element) {
+        Object[] copy = node.clone();
+        int slot = (index >>> level) & LEVEL_MASK;
+        copy[slot] = level == 0 ? element : replace((Object[]) node[slot], level - BITS_PER_LEVEL, index, element);
+        return copy;
+    }
+
+    private static Object[] append(Object[] node, int level, int index, Object element) {
+        int slot = (index >>> level) & LEVEL_MASK;
+        if (level == 0) {
+            Object[] copy = Arrays.copyOf(node, slot + 1);
+            copy[slot] = element;
+            return copy;
+        }
+        Object[] copy = Arrays.copyOf(node, Math.max(node.length, slot + 1));
+        copy[slot] = slot < node.length
+                ? append((Object[]) node[slot], level - BITS_PER_LEVEL, index, element)
+                : newPath(level - BITS_PER_LEVEL, element);
+        return copy;
+    }
+
+    /**
+     * Removes the element at the given index, which is the last one.
+     * @return the node without the element, or null if the node became empty.
+     */
+    private static Object[] removeLast(Object[] node, int level, int index) {
+        int slot = (index >>> level) & LEVEL_MASK;
+        Object[] child = level == 0 ? null : removeLast((Object[]) node[slot], level - BITS_PER_LEVEL, index);
+        if (child == null) {
+            return slot == 0 ? null : Arrays.copyOf(node, slot);
+        }
+        Object[] copy = node.clone();
+        copy[slot] = child;
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object element) {
+        Object[] node = {element};
+        for (int depth = 0; depth < level; depth += BITS_PER_LEVEL) {
+            node = new Object[]{node};
+        }
+        return node;
+    }
+
+    private static Object[] groupIntoNodes(Object[] items) {
+        Object[] nodes = new Object[(items.length + LEVEL_MASK) >>> BITS_PER_LEVEL];
+        for (int node = 0; node < nodes.length; node++) {
+            int from = node << BITS_PER_LEVEL;
+            nodes[node] = Arrays.copyOfRange(items, from, Math.min(items.length, from + NODE_SIZE));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,44 @@
+package org.bigcompany.model;
+
+import java.math.BigDecimal;
+
+/**
+ * The ReportFinding interface is a single finding of the employee report: an employee whose reporting line is
+ * too long, or a manager whose salary is outside the band of their direct subordinates' average salary.
+ */
+public sealed interface ReportFinding
+        permits ReportFinding.LongReportingLine, ReportFinding.OverpaidManager, ReportFinding.UnderpaidManager {
+
+    /**
+     * Gets the employee the finding is about.
+     * @return The employee, as loaded.
+     */
+    CompanyStaff employee();
+
+    /**
+     * The LongReportingLine record is an employee with too many managers between them and the CEO.
+     *
+     * @param employee            The employee.
+     * @param reportingLineLength The number of managers above the employee.
+     */
+    record LongReportingLine(CompanyStaff employee, int reportingLineLength) implements ReportFinding {
+    }
+
+    /**
+     * The OverpaidManager record is a manager who earns more than the upper multiple of their subordinates' average.
+     *
+     * @param employee    The manager.
+     * @param overpayment The amount by which the manager is overpaid.
+     */
+    record OverpaidManager(Manager employee, BigDecimal overpayment) implements ReportFinding {
+    }
+
+    /**
+     * The UnderpaidManager record is a manager who earns less than the lower multiple of their subordinates' average.
+     *
+     * @param employee     The manager.
+     * @param underpayment The amount by which the manager is underpaid.
+     */
+    record UnderpaidManager(Manager employee, BigDecimal underpayment) implements ReportFinding {
+    }
+}
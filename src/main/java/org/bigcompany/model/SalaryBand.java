@@ -0,0 +1,22 @@
+package org.bigcompany.model;
+
+/**
+ * The SalaryBand enum classifies a manager's salary against the average salary of their direct subordinates.
+ */
+public enum SalaryBand {
+
+    /**
+     * The manager earns less than the lower multiple of the average.
+     */
+    UNDERPAID,
+
+    /**
+     * The manager earns between the lower and the upper multiple of the average, both included.
+     */
+    WITHIN_BAND,
+
+    /**
+     * The manager earns more than the upper multiple of the average.
+     */
+    OVERPAID
+}
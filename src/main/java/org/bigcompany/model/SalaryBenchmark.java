@@ -0,0 +1,19 @@
+package org.bigcompany.model;
+
+/**
+ * The SalaryBenchmark enum selects the statistic of the direct subordinates' salaries that a manager's salary band
+ * is judged against.
+ */
+public enum SalaryBenchmark {
+
+    /**
+     * The average salary of the direct subordinates.
+     */
+    MEAN,
+
+    /**
+     * The median salary of the direct subordinates, which a few very high or very low salaries do not move.
+     * With an even number of subordinates it is the average of the two middle salaries.
+     */
+    MEDIAN
+}
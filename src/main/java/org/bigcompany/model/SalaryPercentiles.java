@@ -0,0 +1,13 @@
+package org.bigcompany.model;
+
+import java.math.BigDecimal;
+
+/**
+ * The SalaryPercentiles record holds the median, the 90th and the 99th percentile of a group of salaries.
+ *
+ * @param p50 The median salary.
+ * @param p90 The salary that 90 percent of the group earn at most.
+ * @param p99 The salary that 99 percent of the group earn at most.
+ */
+public record SalaryPercentiles(BigDecimal p50, BigDecimal p90, BigDecimal p99) {
+}
@@ -0,0 +1,227 @@
+package org.bigcompany.model;
+
+import java.util.Arrays;
+
+/**
+ * The SalarySketch class estimates the quantiles of a stream of salaries in bounded memory, in the manner of a
+ * KLL sketch. Salaries are kept in a stack of compactors: the salaries at level h each stand for 2^h salaries.
+ * When the sketch holds more salaries than its capacity, the lowest full level is sorted and every other salary of it
+ * is promoted to the level above, halving that level while keeping its distribution. The capacity of a level shrinks
+ * geometrically with its distance from the top, so a sketch holds about three times its accuracy parameter in
+ * salaries however many it has seen, and the rank error of a quantile shrinks as the accuracy parameter grows.
+ * <p>
+ * Sketches are mergeable: merging two sketches gives a sketch of both streams with the same error bound, so the
+ * sketch of a subtree can be built from the sketches of its children. A sketch that never had to compact is exact.
+ */
+public final class SalarySketch {
+
+    /**
+     * The accuracy parameter used when no other is given, for a rank error of around one percent.
+     */
+    public static final int DEFAULT_ACCURACY = 200;
+
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    private final int accuracy;
+    private double[][] levels = new double[1][MIN_LEVEL_CAPACITY];
+    private int[] levelSizes = new int[1];
+    private int levelCount = 1;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private boolean promoteOdd;
+
+    /**
+     * Constructs an empty SalarySketch with the default accuracy.
+     */
+    public SalarySketch() {
+        this(DEFAULT_ACCURACY);
+    }
+
+    /**
+     * Constructs an empty SalarySketch.
+     * @param accuracy The accuracy parameter: the capacity of the top level, which the memory of the sketch grows with.
+     */
+    public SalarySketch(int accuracy) {
+        if (accuracy < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("The accuracy must be at least " + MIN_LEVEL_CAPACITY);
+        }
+        this.accuracy = accuracy;
+    }
+
+    /**
+     * Adds a salary to the sketch.
+     * @param salary The salary to add.
+     */
+    public void add(double salary) {
+        if (Double.isNaN(salary)) {
+            throw new IllegalArgumentException("A salary must be a number");
+        }
+        append(0, salary);
+        count++;
+        min = Math.min(min, salary);
+        max = Math.max(max, salary);
+        compress();
+    }
+
+    /**
+     * Adds the salaries seen by another sketch to this one. The other sketch is not changed.
+     * @param other The sketch to merge into this one.
+     */
+    public void merge(SalarySketch other) {
+        for (int level = 0; level < other.levelCount; level++) {
+            for (int index = 0; index < other.levelSizes[level]; index++) {
+                append(level, other.levels[level][index]);
+            }
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress();
+    }
+
+    /**
+     * Gets the number of salaries the sketch has seen.
+     * @return The number of salaries added to this sketch and the sketches merged into it.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of salaries the sketch holds in memory.
+     * @return The number of retained salaries.
+     */
+    public int getRetainedCount() {
+        int retained = 0;
+        for (int level = 0; level < levelCount; level++) {
+            retained += levelSizes[level];
+        }
+        return retained;
+    }
+
+    /**
+     * Estimates a quantile of the salaries: the smallest retained salary that at least the given fraction
+     * of all salaries is less than or equal to. The lowest and the highest salary are exact.
+     * The sketch is only read, not changed.
+     * @param rank The fraction of the salaries, from 0 to 1, such as 0.5 for the median.
+     * @return The estimated quantile.
+     */
+    public double getQuantile(double rank) {
+        if (!(rank >= 0 && rank <= 1)) {
+            throw new IllegalArgumentException("The rank must be between 0 and 1: " + rank);
+        }
+        if (count == 0) {
+            throw new IllegalStateException("The sketch is empty");
+        }
+        if (rank == 0) {
+            return min;
+        }
+        if (rank == 1) {
+            return max;
+        }
+        // Sorts a copy of each level, then merges the levels in salary order until the weight reaches the rank
+        int retained = getRetainedCount();
+        double[] salaries = new double[retained];
+        int[] levelEnds = new int[levelCount];
+        int[] heads = new int[levelCount];
+        int position = 0;
+        for (int level = 0; level < levelCount; level++) {
+            heads[level] = position;
+            System.arraycopy(levels[level], 0, salaries, position, levelSizes[level]);
+            position += levelSizes[level];
+            Arrays.sort(salaries, heads[level], position);
+            levelEnds[level] = position;
+        }
+        long targetWeight = (long) Math.ceil(rank * count);
+        long cumulativeWeight = 0;
+        while (true) {
+            int lowest = -1;
+            for (int level = 0; level < levelCount; level++) {
+                if (heads[level] < levelEnds[level] && (lowest < 0 || salaries[heads[level]] < salaries[heads[lowest]])) {
+                    lowest = level;
+                }
+            }
+            if (lowest < 0) {
+                break;
+            }
+            cumulativeWeight += 1L << lowest;
+            double salary = salaries[heads[lowest]++];
+            if (cumulativeWeight >= targetWeight) {
+                return salary;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Adds a salary to a level, growing the level and the stack of levels as needed.
+     */
+    private void append(int level, double salary) {
+        while (level >= levelCount) {
+            addLevel();
+        }
+        double[] items = levels[level];
+        if (levelSizes[level] == items.length) {
+            items = levels[level] = Arrays.copyOf(items, items.length * 2);
+        }
+        items[levelSizes[level]++] = salary;
+    }
+
+    private void addLevel() {
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, levelCount * 2);
+            levelSizes = Arrays.copyOf(levelSizes, levelCount * 2);
+        }
+        levels[levelCount] = new double[MIN_LEVEL_CAPACITY];
+        levelCount++;
+    }
+
+    /**
+     * Compacts the lowest full level until the sketch fits its capacity again.
+     */
+    private void compress() {
+        while (getRetainedCount() > getTotalCapacity()) {
+            for (int level = 0; level < levelCount; level++) {
+                if (levelSizes[level] >= getLevelCapacity(level)) {
+                    compact(level);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts a level and promotes every other salary of it to the level above. A level with an odd number of salaries
+     * keeps its lowest one. The half that is promoted alternates between compactions, so neither end is favoured.
+     */
+    private void compact(int level) {
+        if (level + 1 == levelCount) {
+            addLevel();
+        }
+        double[] items = levels[level];
+        int size = levelSizes[level];
+        Arrays.sort(items, 0, size);
+        int kept = size % 2;
+        int offset = promoteOdd ? 1 : 0;
+        promoteOdd = !promoteOdd;
+        for (int index = kept + offset; index < size; index += 2) {
+            append(level + 1, levels[level][index]);
+        }
+        levelSizes[level] = kept;
+    }
+
+    private int getLevelCapacity(int level) {
+        int depth = levelCount - level - 1;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(accuracy * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private int getTotalCapacity() {
+        int capacity = 0;
+        for (int level = 0; level < levelCount; level++) {
+            capacity += getLevelCapacity(level);
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,72 @@
+package org.bigcompany.model;
+
+/**
+ * The ShareEstimate record is an estimate, from a random sample of employees, of how many employees of the
+ * organisation have a property, with a confidence interval. The interval is a Wilson score interval with a finite
+ * population correction, so it stays inside 0 and 1 for rare properties and closes to the exact share when the
+ * sample is the whole organisation.
+ *
+ * @param sampleCount The number of sampled employees with the property.
+ * @param sampleSize  The number of sampled employees.
+ * @param orgSize     The number of employees in the organisation.
+ * @param share       The estimated share of the organisation with the property.
+ * @param lowerShare  The lower bound of the confidence interval of the share.
+ * @param upperShare  The upper bound of the confidence interval of the share.
+ */
+public record ShareEstimate(int sampleCount, int sampleSize, long orgSize,
+                            double share, double lowerShare, double upperShare) {
+
+    /**
+     * Estimates a share from a sample.
+     * @param sampleCount The number of sampled employees with the property.
+     * @param sampleSize The number of sampled employees.
+     * @param orgSize The number of employees in the organisation.
+     * @param z The standard normal quantile of the confidence level, such as 1.96 for 95 percent.
+     * @return The estimate.
+     */
+    public static ShareEstimate of(int sampleCount, int sampleSize, long orgSize, double z) {
+        if (sampleSize == 0) {
+            return new ShareEstimate(0, 0, orgSize, 0, 0, orgSize == 0 ? 0 : 1);
+        }
+        double share = (double) sampleCount / sampleSize;
+        if (sampleSize >= orgSize) {
+            return new ShareEstimate(sampleCount, sampleSize, orgSize, share, share, share);
+        }
+        // Sampling without replacement varies less than the binomial model by the finite population correction,
+        // which is the same as a proportionally larger sample
+        double populationCorrection = (double) (orgSize - sampleSize) / (orgSize - 1);
+        double effectiveSize = sampleSize / populationCorrection;
+        double zSquared = z * z;
+        double denominator = 1 + zSquared / effectiveSize;
+        double centre = (share + zSquared / (2 * effectiveSize)) / denominator;
+        double halfWidth = z / denominator
+                * Math.sqrt(share * (1 - share) / effectiveSize + zSquared / (4 * effectiveSize * effectiveSize));
+        return new ShareEstimate(sampleCount, sampleSize, orgSize, share,
+                                 Math.max(0, centre - halfWidth), Math.min(1, centre + halfWidth));
+    }
+
+    /**
+     * Gets the estimated number of employees of the organisation with the property.
+     * @return The estimated share times the size of the organisation, rounded, or the exact count if the whole
+     *         organisation was sampled.
+     */
+    public long count() {
+        return sampleSize >= orgSize ? sampleCount : Math.round(share * orgSize);
+    }
+
+    /**
+     * Gets the lower bound of the confidence interval of the number of employees with the property.
+     * @return The lower share bound times the size of the organisation, rounded down.
+     */
+    public long lowerCount() {
+        return sampleSize >= orgSize ? sampleCount : (long) Math.floor(lowerShare * orgSize);
+    }
+
+    /**
+     * Gets the upper bound of the confidence interval of the number of employees with the property.
+     * @return The upper share bound times the size of the organisation, rounded up.
+     */
+    public long upperCount() {
+        return sampleSize >= orgSize ? sampleCount : (long) Math.ceil(upperShare * orgSize);
+    }
+}
@@ -0,0 +1,47 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.CompanyStaff;
+
+import java.util.Optional;
+
+/**
+ * The IAncestryService interface provides queries about the management chains of a loaded hierarchy.
+ */
+public interface IAncestryService {
+
+    /**
+     * Checks whether a manager is in the management chain of an employee.
+     *
+     * @param employeeId The ID of the employee.
+     * @param managerId  The ID of the manager.
+     * @return true if the employee reports to the manager, directly or indirectly, false otherwise.
+     */
+    boolean isInManagementChain(String employeeId, String managerId);
+
+    /**
+     * Retrieves the lowest employee whose management chain both employees are part of.
+     * If one employee reports to the other, directly or indirectly, that other employee is returned.
+     *
+     * @param firstEmployeeId  The ID of the first employee.
+     * @param secondEmployeeId The ID of the second employee.
+     * @return The lowest common manager of the two employees.
+     */
+    CompanyStaff getLowestCommonManager(String firstEmployeeId, String secondEmployeeId);
+
+    /**
+     * Retrieves the manager a given number of levels above an employee.
+     *
+     * @param employeeId The ID of the employee.
+     * @param levels     The number of levels to go up, where 1 is the employee's direct manager.
+     * @return The manager at that level, or an empty Optional if the employee's reporting line is shorter.
+     */
+    Optional<CompanyStaff> getManagerAtLevel(String employeeId, int levels);
+
+    /**
+     * Retrieves the length of an employee's reporting line.
+     *
+     * @param employeeId The ID of the employee.
+     * @return The number of managers between the employee and the CEO.
+     */
+    int getReportingLineLength(String employeeId);
+}
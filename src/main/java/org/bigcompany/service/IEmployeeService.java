@@ -1,6 +1,9 @@
 package org.bigcompany.service;
 
 import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.EmployeeLoad;
+import org.bigcompany.model.OffHeapOrg;
+import org.bigcompany.model.OrgViewLoad;
 
 import java.util.Map;
 
@@ -18,5 +21,25 @@ public interface IEmployeeService {
      * @return A map containing all employees, keyed by their unique identifiers.
      */
     Map<String, CompanyStaff> loadAllEmployee();
-}
 
+    /**
+     * Loads all employees into an index-based view stored off the Java heap, together with the rows skipped
+     * while loading them. The view keeps no employee objects, so the caller must close it to release its memory.
+     *
+     * @return A view of the organisation, backed by off-heap storage, and the log of skipped rows if the load is lenient.
+     */
+    default OrgViewLoad loadOrgView() {
+        EmployeeLoad load = loadEmployees();
+        return new OrgViewLoad(OffHeapOrg.from(load.employees()), load.rowErrorLog());
+    }
+
+    /**
+     * Loads all employees, together with the rows skipped while loading them.
+     * Services that do not load leniently skip no rows.
+     *
+     * @return The employees and, if the load is lenient, the log of the rows this load skipped.
+     */
+    default EmployeeLoad loadEmployees() {
+        return new EmployeeLoad(loadAllEmployee(), null);
+    }
+}
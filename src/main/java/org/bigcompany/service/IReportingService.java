@@ -1,10 +1,15 @@
 package org.bigcompany.service;
 
 import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.EmployeeReport;
 import org.bigcompany.model.Manager;
+import org.bigcompany.model.OrgSnapshot;
+import org.bigcompany.model.OrgView;
+import org.bigcompany.model.ReportFinding;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.concurrent.Flow;
 
 /**
  * The IReportingService interface provides methods for generating reports within the company.
@@ -19,6 +24,44 @@ public interface IReportingService {
      */
     void generateEmployeeReport();
 
+    /**
+     * Computes the employee report of an organisation without printing it. The organisation is only read,
+     * so many threads can compute reports of the same or different organisations at once.
+     *
+     * @param employees A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     * @return The employees with a long reporting line and the overpaid and underpaid managers.
+     */
+    EmployeeReport createReport(Map<String, CompanyStaff> employees);
+
+    /**
+     * Computes the employee report of an immutable snapshot of an organisation without printing it.
+     *
+     * @param org The snapshot of the organisation.
+     * @return The employees with a long reporting line and the overpaid and underpaid managers.
+     */
+    default EmployeeReport createReport(OrgSnapshot org) {
+        return createReport(org.asMap());
+    }
+
+    /**
+     * Generates an estimate of the employee report from a random sample of the employees, with the number and share
+     * of overpaid managers, underpaid managers and employees with a long reporting line and their confidence intervals.
+     * The report is printed to the console.
+     *
+     * @param sampleSize The number of employees to sample.
+     * @param seed       The seed of the random sample.
+     */
+    void generateApproximateEmployeeReport(int sampleSize, long seed);
+
+    /**
+     * Creates a publisher of the report findings: employees with a long reporting line, overpaid managers,
+     * and underpaid managers. The employees are analysed only as far as the subscriber has requested findings,
+     * so the analysis pauses while the subscriber falls behind instead of buffering the findings.
+     *
+     * @return A publisher that runs a new analysis for each subscriber.
+     */
+    Flow.Publisher<ReportFinding> publishFindings();
+
     /**
      * Retrieves a map of employees along with their reporting line lengths.
      * The reporting line length is defined as the number of managers above the employee in the hierarchy.
@@ -27,6 +70,15 @@ public interface IReportingService {
      */
     Map<CompanyStaff, Integer> getEmployeeReportingLineLengths();
 
+    /**
+     * Retrieves the employees of an index-based organisation view whose reporting line is too long,
+     * along with their reporting line lengths, without materialising employee objects.
+     *
+     * @param org The view of the organisation.
+     * @return A map from the index of each employee with a long reporting line to its length, in index order.
+     */
+    Map<Integer, Integer> getEmployeeReportingLineLengths(OrgView org);
+
     /**
      * Prints a report for a given set of managers and their overpayment or underpayment amounts to the console.
      *
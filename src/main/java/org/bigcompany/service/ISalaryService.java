@@ -2,9 +2,12 @@ package org.bigcompany.service;
 
 import org.bigcompany.model.CompanyStaff;
 import org.bigcompany.model.Manager;
+import org.bigcompany.model.OrgView;
+import org.bigcompany.model.ReportFinding;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * The ISalaryService interface provides methods for salary-related calculations within the company.
@@ -29,4 +32,40 @@ public interface ISalaryService {
      * @return A map containing underpaid managers and their underpayment amounts.
      */
     Map<Manager, BigDecimal> getUnderpaidManagers(Map<String, CompanyStaff> employees);
+
+    /**
+     * Retrieves the overpaid managers of an index-based organisation view, without materialising employee objects.
+     *
+     * @param org The view of the organisation.
+     * @return A map from the index of each overpaid manager to the overpayment amount, in index order.
+     */
+    Map<Integer, BigDecimal> getOverpaidManagers(OrgView org);
+
+    /**
+     * Retrieves the underpaid managers of an index-based organisation view, without materialising employee objects.
+     *
+     * @param org The view of the organisation.
+     * @return A map from the index of each underpaid manager to the underpayment amount, in index order.
+     */
+    Map<Integer, BigDecimal> getUnderpaidManagers(OrgView org);
+
+    /**
+     * Retrieves the salary finding for a single manager, if their salary is outside the band.
+     * The default implementation runs the map-based analyses over the manager alone.
+     *
+     * @param manager The manager, with their direct subordinates.
+     * @return The overpaid or underpaid finding for the manager, or an empty Optional if the salary is within the band.
+     */
+    default Optional<ReportFinding> getSalaryFinding(Manager manager) {
+        Map<String, CompanyStaff> employees = Map.of(manager.getId(), manager);
+        BigDecimal overpayment = getOverpaidManagers(employees).get(manager);
+        if (overpayment != null) {
+            return Optional.of(new ReportFinding.OverpaidManager(manager, overpayment));
+        }
+        BigDecimal underpayment = getUnderpaidManagers(employees).get(manager);
+        if (underpayment != null) {
+            return Optional.of(new ReportFinding.UnderpaidManager(manager, underpayment));
+        }
+        return Optional.empty();
+    }
 }
@@ -1,43 +1,84 @@
 package org.bigcompany.service.factory;
 
+import org.bigcompany.dao.RowErrorLog;
 import org.bigcompany.dao.impl.EmployeeCSVLoader;
+import org.bigcompany.dao.impl.PipelinedEmployeeCSVLoader;
+import org.bigcompany.model.SalaryBenchmark;
 import org.bigcompany.service.IEmployeeService;
 import org.bigcompany.service.ISalaryService;
 import org.bigcompany.service.impl.EmployeeService;
 import org.bigcompany.service.impl.SalaryService;
+
+import java.nio.file.Path;
 /**
  * The ServiceFactory class is used to create instances of the EmployeeService and SalaryService classes.
- * It ensures that only one instance of each service is created and shared across the application.
+ * The methods without arguments, createEmployeeService, createLenientEmployeeService and createSalaryService, share
+ * one instance of each service across the application. They are synchronized, so threads that ask for a service at
+ * the same time get the same instance. The methods that take a configuration create a new instance for it instead.
  *
  * @author Neha B Acharya
  */
 public class ServiceFactory {
 
     private static IEmployeeService employeeService;
+    private static IEmployeeService lenientEmployeeService;
     private static ISalaryService salaryService;
 
     private ServiceFactory() {
     }
 
-    public static IEmployeeService createEmployeeService() {
+    public static synchronized IEmployeeService createEmployeeService() {
         if (employeeService == null) {
             employeeService = new EmployeeService(new EmployeeCSVLoader());
         }
         return employeeService;
     }
 
-    public static ISalaryService createSalaryService() {
+    public static synchronized IEmployeeService createLenientEmployeeService() {
+        if (lenientEmployeeService == null) {
+            lenientEmployeeService = new EmployeeService(new EmployeeCSVLoader(), RowErrorLog.DEFAULT_CAPACITY);
+        }
+        return lenientEmployeeService;
+    }
+
+    /**
+     * Creates a new employee service for the given CSV file. Each call returns a new instance, which is not shared.
+     *
+     * @param csvFilePath The path of the CSV file to load the employees from.
+     * @param lenient     Whether invalid rows are skipped and logged instead of failing the load.
+     * @param pipelined   Whether the rows are parsed on a separate thread while the file is read.
+     * @return A new employee service.
+     */
+    public static IEmployeeService createEmployeeService(Path csvFilePath, boolean lenient, boolean pipelined) {
+        EmployeeCSVLoader employeeCSVLoader = pipelined ? new PipelinedEmployeeCSVLoader() : new EmployeeCSVLoader();
+        return lenient
+                ? new EmployeeService(employeeCSVLoader, RowErrorLog.DEFAULT_CAPACITY, csvFilePath)
+                : new EmployeeService(employeeCSVLoader, csvFilePath);
+    }
+
+    public static synchronized ISalaryService createSalaryService() {
         if (salaryService == null) {
             salaryService = new SalaryService();
         }
         return salaryService;
     }
 
-    public static void setEmployeeService(IEmployeeService employeeService) {
+    /**
+     * Gets a salary service that compares salaries against the given benchmark. The MEAN benchmark returns the shared
+     * instance of createSalaryService(); any other benchmark returns a new instance on every call.
+     *
+     * @param salaryBenchmark The benchmark to compare salaries against.
+     * @return A salary service for the benchmark.
+     */
+    public static synchronized ISalaryService createSalaryService(SalaryBenchmark salaryBenchmark) {
+        return salaryBenchmark == SalaryBenchmark.MEAN ? createSalaryService() : new SalaryService(salaryBenchmark);
+    }
+
+    public static synchronized void setEmployeeService(IEmployeeService employeeService) {
         ServiceFactory.employeeService = employeeService;
     }
 
-    public static void setSalaryService(ISalaryService salaryService) {
+    public static synchronized void setSalaryService(ISalaryService salaryService) {
         ServiceFactory.salaryService = salaryService;
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.service.IAncestryService;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The AncestryService class answers management chain queries over a loaded hierarchy without walking manager IDs.
+ * It numbers the employees depth-first once, so that each subtree is an interval of numbers and membership is
+ * checked in constant time, and builds binary lifting tables, in which row j holds the manager 2^j levels up,
+ * for logarithmic manager-at-level and lowest common manager queries.
+ */
+public class AncestryService implements IAncestryService {
+
+    private final HierarchyNumbering numbering;
+    private final int[][] ancestors;
+
+    /**
+     * Constructs an AncestryService over the given hierarchy.
+     * @param employees A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     */
+    public AncestryService(Map<String, CompanyStaff> employees) {
+        numbering = new HierarchyNumbering(employees);
+        int maxDepth = 0;
+        for (int depth : numbering.depths) {
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        int levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxDepth));
+        ancestors = new int[levels][];
+        // The CEO is its own ancestor, so lifting past the top stays at the CEO
+        ancestors[0] = new int[numbering.size()];
+        for (int index = 0; index < numbering.size(); index++) {
+            ancestors[0][index] = Math.max(numbering.parents[index], HierarchyNumbering.CEO);
+        }
+        for (int level = 1; level < levels; level++) {
+            int[] previous = ancestors[level - 1];
+            int[] current = new int[numbering.size()];
+            for (int index = 0; index < current.length; index++) {
+                current[index] = previous[previous[index]];
+            }
+            ancestors[level] = current;
+        }
+    }
+
+    /**
+     * Checks whether a manager is in the management chain of an employee.
+     * @param employeeId The ID of the employee.
+     * @param managerId The ID of the manager.
+     * @return true if the employee reports to the manager, directly or indirectly, false otherwise.
+     */
+    @Override
+    public boolean isInManagementChain(String employeeId, String managerId) {
+        int employee = numbering.indexOf(employeeId);
+        int manager = numbering.indexOf(managerId);
+        return employee != manager && numbering.isInSubtree(manager, employee);
+    }
+
+    /**
+     * Gets the lowest employee whose management chain both employees are part of.
+     * @param firstEmployeeId The ID of the first employee.
+     * @param secondEmployeeId The ID of the second employee.
+     * @return The lowest common manager of the two employees.
+     */
+    @Override
+    public CompanyStaff getLowestCommonManager(String firstEmployeeId, String secondEmployeeId) {
+        int first = numbering.indexOf(firstEmployeeId);
+        int second = numbering.indexOf(secondEmployeeId);
+        if (numbering.isInSubtree(first, second)) {
+            return numbering.employees[first];
+        }
+        // Lift the first employee as far as possible while staying below the common manager
+        for (int level = ancestors.length - 1; level >= 0; level--) {
+            int ancestor = ancestors[level][first];
+            if (!numbering.isInSubtree(ancestor, second)) {
+                first = ancestor;
+            }
+        }
+        return numbering.employees[ancestors[0][first]];
+    }
+
+    /**
+     * Gets the manager a given number of levels above an employee.
+     * @param employeeId The ID of the employee.
+     * @param levels The number of levels to go up, where 1 is the employee's direct manager.
+     * @return The manager at that level, or an empty Optional if the employee's reporting line is shorter.
+     */
+    @Override
+    public Optional<CompanyStaff> getManagerAtLevel(String employeeId, int levels) {
+        if (levels < 0) {
+            throw new IllegalArgumentException("The number of levels must not be negative");
+        }
+        int employee = numbering.indexOf(employeeId);
+        if (levels > numbering.depths[employee]) {
+            return Optional.empty();
+        }
+        for (int level = 0; levels > 0; level++, levels >>>= 1) {
+            if ((levels & 1) != 0) {
+                employee = ancestors[level][employee];
+            }
+        }
+        return Optional.of(numbering.employees[employee]);
+    }
+
+    /**
+     * Gets the length of an employee's reporting line.
+     * @param employeeId The ID of the employee.
+     * @return The number of managers between the employee and the CEO.
+     */
+    @Override
+    public int getReportingLineLength(String employeeId) {
+        return numbering.depths[numbering.indexOf(employeeId)];
+    }
+}
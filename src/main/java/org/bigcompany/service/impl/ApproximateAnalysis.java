@@ -0,0 +1,119 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.event.AnalysisEvent;
+import org.bigcompany.model.ApproximateReport;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Manager;
+import org.bigcompany.model.ReportFinding;
+import org.bigcompany.model.ShareEstimate;
+import org.bigcompany.service.ISalaryService;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+/**
+ * The ApproximateAnalysis class estimates the employee report from a random sample of the employees instead of
+ * analysing all of them. Only the sampled employees are classified: a sampled manager costs one pass over their
+ * direct subordinates and a sampled employee one walk up their reporting line. The organisation is still loaded,
+ * built and passed over once to draw the sample, so only the salary and reporting line analysis is saved, not the
+ * time to load the employees.
+ * <p>
+ * The sample is drawn in one pass over the employees with reservoir sampling (algorithm R): once the reservoir is
+ * full, the n-th employee replaces a random member of it with probability sampleSize / n. A fixed seed gives the
+ * same sample of the same organisation every time.
+ */
+public final class ApproximateAnalysis {
+
+    /**
+     * The confidence level of the intervals.
+     */
+    public static final double CONFIDENCE_LEVEL = 0.95;
+
+    private static final double CONFIDENCE_Z = 1.959963984540054;
+
+    private final ISalaryService salaryService;
+    private final int sampleSize;
+    private final long seed;
+
+    /**
+     * Constructs an ApproximateAnalysis.
+     * @param salaryService The service to classify the salaries of the sampled managers with.
+     * @param sampleSize The number of employees to sample.
+     * @param seed The seed of the random sample.
+     */
+    public ApproximateAnalysis(ISalaryService salaryService, int sampleSize, long seed) {
+        if (sampleSize < 1) {
+            throw new IllegalArgumentException("The sample must hold at least one employee");
+        }
+        this.salaryService = salaryService;
+        this.sampleSize = sampleSize;
+        this.seed = seed;
+    }
+
+    /**
+     * Estimates the employee report of an organisation.
+     * @param employees A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     * @return The estimated numbers and shares of overpaid managers, underpaid managers and long reporting lines.
+     */
+    public ApproximateReport analyse(Map<String, CompanyStaff> employees) {
+        AnalysisEvent analysisEvent = new AnalysisEvent();
+        analysisEvent.begin();
+        List<CompanyStaff> sample = sample(employees.values().iterator());
+        int overpaid = 0;
+        int underpaid = 0;
+        int longReportingLines = 0;
+        for (CompanyStaff employee : sample) {
+            if (employee instanceof Manager manager && !manager.getSubordinates().isEmpty()) {
+                Optional<ReportFinding> finding = salaryService.getSalaryFinding(manager);
+                if (finding.isPresent() && finding.get() instanceof ReportFinding.OverpaidManager) {
+                    overpaid++;
+                } else if (finding.isPresent() && finding.get() instanceof ReportFinding.UnderpaidManager) {
+                    underpaid++;
+                }
+            }
+            if (ReportingService.getReportingLineLength(employee, employees) > ReportingService.LONG_REPORTING_LINE_THRESHOLD) {
+                longReportingLines++;
+            }
+        }
+        ApproximateReport report = new ApproximateReport(CONFIDENCE_LEVEL,
+                ShareEstimate.of(overpaid, sample.size(), employees.size(), CONFIDENCE_Z),
+                ShareEstimate.of(underpaid, sample.size(), employees.size(), CONFIDENCE_Z),
+                ShareEstimate.of(longReportingLines, sample.size(), employees.size(), CONFIDENCE_Z));
+        analysisEvent.end();
+        if (analysisEvent.shouldCommit()) {
+            analysisEvent.analysis = AnalysisEvent.APPROXIMATE_REPORT;
+            analysisEvent.orgSize = employees.size();
+            analysisEvent.findings = overpaid + underpaid + longReportingLines;
+            analysisEvent.commit();
+        }
+        return report;
+    }
+
+    /**
+     * Draws a uniform random sample of the employees with algorithm R. After the reservoir is filled, each further
+     * employee draws a random position among the employees seen so far, and replaces the member of the reservoir
+     * at that position if there is one.
+     * @param employees The employees to sample from.
+     * @return The sample, which holds every employee if there are no more than the sample size.
+     */
+    private List<CompanyStaff> sample(Iterator<CompanyStaff> employees) {
+        List<CompanyStaff> reservoir = new ArrayList<>(sampleSize);
+        while (reservoir.size() < sampleSize && employees.hasNext()) {
+            reservoir.add(employees.next());
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        long seen = sampleSize;
+        while (employees.hasNext()) {
+            CompanyStaff employee = employees.next();
+            long position = random.nextLong(++seen);
+            if (position < sampleSize) {
+                reservoir.set((int) position, employee);
+            }
+        }
+        return reservoir;
+    }
+}
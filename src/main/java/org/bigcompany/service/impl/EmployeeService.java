@@ -1,9 +1,16 @@
 package org.bigcompany.service.impl;
 
 import org.bigcompany.dao.IEmployeeCSVLoader;
+import org.bigcompany.dao.RowError;
+import org.bigcompany.dao.RowErrorLog;
 import org.bigcompany.dao.impl.EmployeeCSVLoader;
+import org.bigcompany.event.HierarchyBuildEvent;
+import org.bigcompany.exception.EmployeeDataException;
 import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.EmployeeLoad;
 import org.bigcompany.model.Manager;
+import org.bigcompany.model.OffHeapOrg;
+import org.bigcompany.model.OrgViewLoad;
 import org.bigcompany.service.IEmployeeService;
 
 
@@ -13,22 +20,71 @@ import java.util.*;
 /**
  * The EmployeeService class provides methods to load and manage employee data.
  * It uses the EmployeeCSVLoader to load employee data from a CSV file.
- * It also provides a method to determine if an employee is a manager.
+ * The loaded employees are validated with the HierarchyValidator first, so the hierarchy is only built from
+ * employees that form a single tree under one CEO. A lenient load instead drops the employees whose reporting lines
+ * do not reach the CEO, such as those under a skipped manager row, and records them as skipped rows.
+ * Each Manager is built exactly once, bottom-up, after all of its subordinates are built.
  *
  * @author Neha B Acharya
  */
 public class EmployeeService implements IEmployeeService {
     private final IEmployeeCSVLoader employeeCSVLoader;
-    private Set<String> managerIds;
+    private final int maxRecordedRowErrors;
+    private final Path csvFilePath;
 
     private static final String CSV_FILE_PATH = "src/main/resources/big_company_1000_records.csv";
 
+    /**
+     * The CSV file loaded when no other file is given.
+     */
+    public static final Path DEFAULT_CSV_FILE = Paths.get(CSV_FILE_PATH);
+
+    /**
+     * The path that stands for standard input, as in most command line tools.
+     */
+    public static final Path STANDARD_INPUT = Paths.get("-");
+
     /**
      * Constructs an EmployeeService with the given EmployeeCSVLoader.
      * @param employeeCSVLoader The loader to use for loading employee data from a CSV file.
      */
     public EmployeeService(EmployeeCSVLoader employeeCSVLoader) {
+        this(employeeCSVLoader, DEFAULT_CSV_FILE);
+    }
+
+    /**
+     * Constructs an EmployeeService that loads the employees from the given CSV file.
+     * @param employeeCSVLoader The loader to use for loading employee data from a CSV file.
+     * @param csvFilePath The CSV file to load, which may be compressed, or STANDARD_INPUT to read standard input.
+     */
+    public EmployeeService(EmployeeCSVLoader employeeCSVLoader, Path csvFilePath) {
         this.employeeCSVLoader = employeeCSVLoader;
+        this.maxRecordedRowErrors = -1;
+        this.csvFilePath = csvFilePath;
+    }
+
+    /**
+     * Constructs an EmployeeService that loads leniently: invalid rows are skipped instead of aborting the load.
+     * @param employeeCSVLoader The loader to use for loading employee data from a CSV file.
+     * @param maxRecordedRowErrors The maximum number of skipped rows kept in detail; further rows are only counted.
+     */
+    public EmployeeService(EmployeeCSVLoader employeeCSVLoader, int maxRecordedRowErrors) {
+        this(employeeCSVLoader, maxRecordedRowErrors, DEFAULT_CSV_FILE);
+    }
+
+    /**
+     * Constructs an EmployeeService that loads the employees leniently from the given CSV file.
+     * @param employeeCSVLoader The loader to use for loading employee data from a CSV file.
+     * @param maxRecordedRowErrors The maximum number of skipped rows kept in detail; further rows are only counted.
+     * @param csvFilePath The CSV file to load, which may be compressed, or STANDARD_INPUT to read standard input.
+     */
+    public EmployeeService(EmployeeCSVLoader employeeCSVLoader, int maxRecordedRowErrors, Path csvFilePath) {
+        if (maxRecordedRowErrors < 0) {
+            throw new IllegalArgumentException("The maximum number of recorded row errors must not be negative");
+        }
+        this.employeeCSVLoader = employeeCSVLoader;
+        this.maxRecordedRowErrors = maxRecordedRowErrors;
+        this.csvFilePath = csvFilePath;
     }
 
 
@@ -36,55 +92,165 @@ public class EmployeeService implements IEmployeeService {
      * Loads all employees from a CSV file and organizes them into a map.
      * The map's keys are employee IDs, and the values are CompanyStaff objects.
      * @return A map of all employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If the employees cannot be loaded or, unless the load is lenient,
+     *                               do not form a single tree under one CEO.
      */
     public Map<String, CompanyStaff> loadAllEmployee() {
-        Map<String, CompanyStaff> employees = new HashMap<>();
-        Path filePath = Paths.get(CSV_FILE_PATH);
-        Map<String, CompanyStaff> employeeMap = employeeCSVLoader.buildEmployeeMapFromCSV(filePath);
-        managerIds = new HashSet<>();
-        Map<String, List<CompanyStaff>> managerToSubordinates = new HashMap<>();
+        return loadEmployees().employees();
+    }
+
+    /**
+     * Loads all employees from a CSV file and organizes them into a map, together with the rows skipped by a lenient load.
+     * Every call returns its own log of skipped rows, so one service can be used by several loads at once.
+     * @return The employees, keyed by their unique identifiers, and the log of skipped rows if the load is lenient.
+     * @throws EmployeeDataException If the employees cannot be loaded or, unless the load is lenient,
+     *                               do not form a single tree under one CEO.
+     */
+    @Override
+    public EmployeeLoad loadEmployees() {
+        HierarchyBuildEvent buildEvent = new HierarchyBuildEvent();
+        buildEvent.begin();
+        RowErrorLog rowErrorLog = newRowErrorLog();
+        Map<String, CompanyStaff> employeeMap = loadValidEmployeeMap(rowErrorLog);
+        Map<String, Manager.Builder> managerBuilders = createManagerBuilders(employeeMap);
+        Map<String, CompanyStaff> employees = HashMap.newHashMap(employeeMap.size());
+
+        // Attach each employee without subordinates to its manager; a manager is built as soon as it has
+        // all of its subordinates and is then attached to its own manager in turn.
         for (CompanyStaff employee : employeeMap.values()) {
-            if (isManager(employee.getId(), employeeMap)) {
-                Manager manager = new Manager(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getSalary(), employee.getManagerId(), new ArrayList<>());
-                employees.put(employee.getId(), manager);
-                managerToSubordinates.put(manager.getId(), new ArrayList<>());
-            } else {
-                employees.put(employee.getId(), employee);
+            if (!managerBuilders.containsKey(employee.getId())) {
+                attachToManagers(employee, managerBuilders, employees);
             }
         }
+        buildEvent.end();
+        if (buildEvent.shouldCommit()) {
+            buildEvent.orgSize = employees.size();
+            buildEvent.managers = managerBuilders.size();
+            buildEvent.commit();
+        }
+        return new EmployeeLoad(employees, rowErrorLog);
+    }
 
-        // Then, assign subordinates to each Manager
-        for (CompanyStaff employee : employees.values()) {
-            Optional.ofNullable(employee.getManagerId())
-                    .ifPresent(managerId -> managerToSubordinates.get(managerId).add(employee));
+    /**
+     * Loads the employees and makes sure they form a single tree under one CEO: a strict load fails if they do not,
+     * and a lenient load drops the employees whose reporting lines do not reach the CEO.
+     * @param rowErrorLog The log that collects skipped rows, or null to fail on the first invalid row.
+     * @return A map of the employees that form the tree, keyed by their unique identifiers.
+     * @throws EmployeeDataException If the employees cannot be loaded or, unless the load is lenient,
+     *                               do not form a single tree under one CEO.
+     */
+    private Map<String, CompanyStaff> loadValidEmployeeMap(RowErrorLog rowErrorLog) {
+        Map<String, CompanyStaff> employeeMap = loadEmployeeMap(rowErrorLog);
+        if (rowErrorLog == null) {
+            HierarchyValidator.requireValid(employeeMap);
+            return employeeMap;
         }
-        // Finally, create new Manager objects with the correct subordinates
-        for (Map.Entry<String, List<CompanyStaff>> entry : managerToSubordinates.entrySet()) {
-            Manager manager = (Manager) employees.get(entry.getKey());
-            Manager updatedManager = manager.withSubordinates(entry.getValue());
-            employees.put(entry.getKey(), updatedManager);
+        return dropUnreachable(employeeMap, rowErrorLog);
+    }
+
+    /**
+     * Creates the log of skipped rows for one load.
+     * @return A new log if this service loads leniently, or null otherwise.
+     */
+    private RowErrorLog newRowErrorLog() {
+        return maxRecordedRowErrors < 0 ? null : new RowErrorLog(maxRecordedRowErrors);
+    }
+
+    /**
+     * Removes the employees whose reporting lines do not reach the CEO and records each as a skipped row,
+     * so that the rest form a single tree. The skipped rows are recorded in the order of the employee IDs.
+     * @param employeeMap A map of the leniently loaded employees.
+     * @param rowErrorLog The log to record the dropped employees in.
+     * @return The employees that reach the CEO, which is the given map if no employee was dropped.
+     */
+    private static Map<String, CompanyStaff> dropUnreachable(Map<String, CompanyStaff> employeeMap, RowErrorLog rowErrorLog) {
+        List<CompanyStaff> unreachable = HierarchyValidator.findUnreachable(employeeMap);
+        if (unreachable.isEmpty()) {
+            return employeeMap;
+        }
+        unreachable.sort(Comparator.comparing(CompanyStaff::getId));
+        Map<String, CompanyStaff> reachable = new HashMap<>(employeeMap);
+        for (CompanyStaff employee : unreachable) {
+            reachable.remove(employee.getId());
+            rowErrorLog.record(0, RowError.Reason.UNKNOWN_MANAGER, String.join(",", employee.getId(),
+                    employee.getFirstName(), employee.getLastName(), employee.getSalary().toPlainString(),
+                    employee.getManagerId()));
         }
-        return employees;
+        return reachable;
     }
 
     /**
-     * Determines if an employee is a manager.
-     * An employee is considered a manager if they have at least one subordinate.
-     * @param employeeId The ID of the employee to check.
+     * Creates a Manager builder, sized to its number of subordinates, for every employee who has subordinates.
+     * The hierarchy is already validated, so every manager ID refers to a loaded employee.
      * @param employeeMap A map of all employees, keyed by their unique identifiers.
-     * @return true if the employee is a manager, false otherwise.
+     * @return A map of the builders, keyed by the manager's unique identifier.
      */
-    private boolean isManager(String employeeId, Map<String, CompanyStaff> employeeMap) {
-        if (managerIds.contains(employeeId)) {
-            return true;
+    private static Map<String, Manager.Builder> createManagerBuilders(Map<String, CompanyStaff> employeeMap) {
+        Map<String, int[]> subordinateCounts = new HashMap<>();
+        for (CompanyStaff employee : employeeMap.values()) {
+            String managerId = employee.getManagerId();
+            if (managerId != null) {
+                subordinateCounts.computeIfAbsent(managerId, id -> new int[1])[0]++;
+            }
         }
-        boolean isManager = employeeMap.values()
-                .stream()
-                .anyMatch(e -> employeeId.equals(e.getManagerId()));
-        if (isManager) {
-            managerIds.add(employeeId);
+        Map<String, Manager.Builder> managerBuilders = HashMap.newHashMap(subordinateCounts.size());
+        for (Map.Entry<String, int[]> entry : subordinateCounts.entrySet()) {
+            managerBuilders.put(entry.getKey(), Manager.builder(employeeMap.get(entry.getKey()), entry.getValue()[0]));
         }
-        return isManager;
+        return managerBuilders;
     }
 
-}
\ No newline at end of file
+    /**
+     * Adds the given employee to the map and to its manager's builder, then walks up the reporting line
+     * building every manager that has just received its last subordinate.
+     * @param employee The employee, or built manager, to attach.
+     * @param managerBuilders The builders of the managers, keyed by the manager's unique identifier.
+     * @param employees The map of finished employees and managers to add to.
+     */
+    private static void attachToManagers(CompanyStaff employee, Map<String, Manager.Builder> managerBuilders,
+                                         Map<String, CompanyStaff> employees) {
+        CompanyStaff current = employee;
+        while (true) {
+            employees.put(current.getId(), current);
+            if (current.getManagerId() == null) {
+                return;
+            }
+            Manager.Builder managerBuilder = managerBuilders.get(current.getManagerId()).addSubordinate(current);
+            if (!managerBuilder.isComplete()) {
+                return;
+            }
+            current = managerBuilder.build();
+        }
+    }
+
+    /**
+     * Loads all employees from a CSV file into an index-based view stored off the Java heap.
+     * The employees are validated like those of loadEmployees, then copied straight from the loaded rows,
+     * without building Manager objects.
+     * @return A view of the organisation, which the caller must close, and the log of skipped rows if the load is lenient.
+     * @throws EmployeeDataException If the employees cannot be loaded or, unless the load is lenient,
+     *                               do not form a single tree under one CEO.
+     */
+    @Override
+    public OrgViewLoad loadOrgView() {
+        RowErrorLog rowErrorLog = newRowErrorLog();
+        return new OrgViewLoad(OffHeapOrg.from(loadValidEmployeeMap(rowErrorLog)), rowErrorLog);
+    }
+
+    /**
+     * Loads the employees from the CSV file or standard input, leniently if a row error log is given.
+     * @param rowErrorLog The log that collects skipped rows, or null to fail on the first invalid row.
+     * @return A map of the loaded employees, keyed by their unique identifiers.
+     */
+    private Map<String, CompanyStaff> loadEmployeeMap(RowErrorLog rowErrorLog) {
+        boolean standardInput = STANDARD_INPUT.equals(csvFilePath);
+        if (rowErrorLog == null) {
+            return standardInput
+                    ? employeeCSVLoader.buildEmployeeMapFromCSV(System.in)
+                    : employeeCSVLoader.buildEmployeeMapFromCSV(csvFilePath);
+        }
+        return standardInput
+                ? employeeCSVLoader.buildEmployeeMapFromCSV(System.in, rowErrorLog)
+                : employeeCSVLoader.buildEmployeeMapFromCSV(csvFilePath, rowErrorLog);
+    }
+}
@@ -0,0 +1,381 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.dao.impl.EmployeeCSVDiff;
+import org.bigcompany.dao.impl.EmployeeCSVReader;
+import org.bigcompany.dao.impl.ExternalSorter;
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.Manager;
+import org.bigcompany.model.ReportFinding;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+import static org.bigcompany.dao.RowError.Reason.ADDITIONAL_CEO;
+import static org.bigcompany.dao.RowError.Reason.DUPLICATE_ID;
+
+/**
+ * The ExternalMemoryAnalysis class finds the overpaid and underpaid managers and the long reporting lines of an
+ * organisation that does not fit in memory. It holds a fixed number of rows in memory at a time and keeps
+ * everything else in sorted spill files:
+ * <ul>
+ *     <li>The CSV data is read once and its rows are sorted twice: by employee ID and by manager ID.</li>
+ *     <li>A sort-merge join of the two on manager ID gives each manager their subordinates' salary total and count,
+ *     from which the salary findings follow in employee ID order.</li>
+ *     <li>The reporting lines are measured level by level: the IDs at one level, sorted, are joined with the rows
+ *     not yet reached, sorted by manager ID, which gives the next level and the rows left for the level after it.</li>
+ * </ul>
+ * The findings are the same as those of the SalaryService and the ReportingService for the same data,
+ * except that the managers of the salary findings are reported without their subordinates. The data is checked
+ * like the EmployeeService checks it, so duplicate IDs, unknown managers and cycles fail the analysis. Some of these
+ * only show once the last level has been measured, so the findings are written to spill files of their own and
+ * passed on after the whole organisation has been checked: an analysis that fails has passed on no finding.
+ * Measuring the reporting lines reads the remaining rows once per level, so deep organisations take longer.
+ */
+public final class ExternalMemoryAnalysis {
+
+    private static final char SEPARATOR = '\u001F';
+    private static final String SEPARATOR_PATTERN = String.valueOf(SEPARATOR);
+    private static final Comparator<String> ID_ORDER = EmployeeCSVDiff.EMPLOYEE_ID_ORDER;
+
+    private final int maxRowsInMemory;
+    private final Path spillDirectory;
+
+    /**
+     * Constructs an ExternalMemoryAnalysis.
+     * @param maxRowsInMemory The largest number of rows held in memory at a time, at least two.
+     * @param spillDirectory The directory for the spill files, or null for the default temporary directory.
+     */
+    public ExternalMemoryAnalysis(int maxRowsInMemory, Path spillDirectory) {
+        if (maxRowsInMemory < 2) {
+            throw new IllegalArgumentException("At least two rows must fit in memory");
+        }
+        this.maxRowsInMemory = maxRowsInMemory;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Analyses a CSV file and passes each finding to the given consumer: first the salary findings in
+     * employee ID order, then the long reporting lines level by level. No finding is passed on before
+     * the data has been checked.
+     * @param csvFilePath The path to the CSV file, which may be gzip or deflate compressed.
+     * @param findings The consumer of the findings.
+     * @throws IOException If the file cannot be read or the spill files cannot be written.
+     * @throws EmployeeDataException If the employee data is invalid.
+     */
+    public void analyse(Path csvFilePath, Consumer<? super ReportFinding> findings) throws IOException {
+        try (EmployeeCSVReader reader = EmployeeCSVReader.open(csvFilePath)) {
+            analyse(reader, findings);
+        }
+    }
+
+    /**
+     * Analyses a stream of CSV data, such as standard input, and passes each finding to the given consumer.
+     * @param csvInput The stream of CSV data, which may be gzip or deflate compressed. It is closed at the end.
+     * @param findings The consumer of the findings.
+     * @throws IOException If the stream cannot be read or the spill files cannot be written.
+     * @throws EmployeeDataException If the employee data is invalid.
+     */
+    public void analyse(InputStream csvInput, Consumer<? super ReportFinding> findings) throws IOException {
+        try (EmployeeCSVReader reader = new EmployeeCSVReader(csvInput)) {
+            analyse(reader, findings);
+        }
+    }
+
+    private void analyse(EmployeeCSVReader reader, Consumer<? super ReportFinding> findings) throws IOException {
+        // Both sorts fill their chunks at the same time, so each gets half of the budget
+        ExternalSorter idSorter = new ExternalSorter(Comparator.comparing(ExternalMemoryAnalysis::getId, ID_ORDER),
+                                                     maxRowsInMemory / 2, spillDirectory);
+        ExternalSorter managerSorter = new ExternalSorter(Comparator.comparing(ExternalMemoryAnalysis::getManagerId, ID_ORDER),
+                                                          maxRowsInMemory / 2, spillDirectory);
+        try (ExternalSorter.Sorting idSorting = idSorter.newSorting();
+             ExternalSorter.Sorting managerSorting = managerSorter.newSorting()) {
+            CompanyStaff employee;
+            while ((employee = reader.next()) != null) {
+                String row = toRow(employee);
+                idSorting.add(row);
+                managerSorting.add(row);
+            }
+            Path rowsByManager = createSpillFile();
+            Path salaryFindings = null;
+            Path longReportingLines = null;
+            try {
+                salaryFindings = createSpillFile();
+                longReportingLines = createSpillFile();
+                String ceoId;
+                try (ExternalSorter.SortedLines employees = idSorting.finish();
+                     ExternalSorter.SortedLines subordinates = managerSorting.finish();
+                     BufferedWriter rowsByManagerWriter = Files.newBufferedWriter(rowsByManager, StandardCharsets.UTF_8);
+                     BufferedWriter salaryFindingsWriter = Files.newBufferedWriter(salaryFindings, StandardCharsets.UTF_8)) {
+                    ceoId = analyseSalaries(employees, subordinates, rowsByManagerWriter, salaryFindingsWriter);
+                }
+                if (ceoId != null) {
+                    try (BufferedWriter longReportingLinesWriter = Files.newBufferedWriter(longReportingLines, StandardCharsets.UTF_8)) {
+                        analyseReportingLines(ceoId, rowsByManager, longReportingLinesWriter);
+                    }
+                }
+                passFindings(salaryFindings, longReportingLines, findings);
+            } finally {
+                Files.deleteIfExists(rowsByManager);
+                if (salaryFindings != null) {
+                    Files.deleteIfExists(salaryFindings);
+                }
+                if (longReportingLines != null) {
+                    Files.deleteIfExists(longReportingLines);
+                }
+            }
+        }
+    }
+
+    /**
+     * Joins the rows sorted by employee ID with the rows sorted by manager ID, and writes down the managers whose
+     * salary is outside the band, each with the average salary of their subordinates. The rows sorted by manager ID
+     * are copied on for the reporting lines.
+     * @return The ID of the CEO, or null if there are no employees.
+     */
+    private static String analyseSalaries(ExternalSorter.SortedLines employees, ExternalSorter.SortedLines subordinates,
+                                          BufferedWriter rowsByManager, BufferedWriter salaryFindings)
+            throws IOException {
+        SubordinateGroups groups = new SubordinateGroups(subordinates, rowsByManager);
+        if (!groups.next()) {
+            return null;
+        }
+        String ceoId = null;
+        if (groups.managerId.isEmpty()) {
+            if (groups.count > 1) {
+                throw new EmployeeDataException(ADDITIONAL_CEO.getDescription());
+            }
+            ceoId = getId(groups.firstRow);
+            groups.next();
+        }
+        if (ceoId == null) {
+            throw new EmployeeDataException("No employee is without a manager ID");
+        }
+        String previousId = null;
+        String row;
+        while ((row = employees.readLine()) != null) {
+            String id = getId(row);
+            if (id.equals(previousId)) {
+                throw new EmployeeDataException(DUPLICATE_ID.getDescription() + ": " + id);
+            }
+            previousId = id;
+            if (groups.hasGroup() && ID_ORDER.compare(groups.managerId, id) < 0) {
+                throw groups.unknownManager();
+            }
+            if (groups.hasGroup() && groups.managerId.equals(id)) {
+                CompanyStaff employee = fromRow(row);
+                Manager manager = Manager.builder(employee, 0).build();
+                BigDecimal averageSalary = SalaryService.calculateAverageSalary(groups.salaryTotal, groups.count);
+                if (SalaryService.getSalaryFinding(manager, averageSalary).isPresent()) {
+                    writeFinding(salaryFindings, averageSalary, row);
+                }
+                groups.next();
+            }
+        }
+        if (groups.hasGroup()) {
+            throw groups.unknownManager();
+        }
+        return ceoId;
+    }
+
+    /**
+     * Measures the reporting lines level by level and writes down the long ones, each with its length.
+     */
+    private void analyseReportingLines(String ceoId, Path rowsByManager, BufferedWriter longReportingLines)
+            throws IOException {
+        // A level and the next one are held at the same time, so each gets half of the budget
+        ExternalSorter idSorter = new ExternalSorter(ID_ORDER, maxRowsInMemory / 2, spillDirectory);
+        ExternalSorter.Sorting ceoLevel = idSorter.newSorting();
+        ceoLevel.add(ceoId);
+        ExternalSorter.SortedLines level = ceoLevel.finish();
+        Path remainingRows = rowsByManager;
+        long remainingCount = Long.MAX_VALUE;
+        int reportingLineLength = 0;
+        try {
+            while (remainingCount > 0) {
+                reportingLineLength++;
+                ExternalSorter.SortedLines nextLevel;
+                Path nextRemainingRows = createSpillFile();
+                long reachedCount = 0;
+                remainingCount = 0;
+                try (ExternalSorter.Sorting nextLevelSorting = idSorter.newSorting();
+                     BufferedReader rows = Files.newBufferedReader(remainingRows, StandardCharsets.UTF_8);
+                     BufferedWriter nextRows = Files.newBufferedWriter(nextRemainingRows, StandardCharsets.UTF_8)) {
+                    String levelId = level.readLine();
+                    String row;
+                    while ((row = rows.readLine()) != null) {
+                        String managerId = getManagerId(row);
+                        while (levelId != null && ID_ORDER.compare(levelId, managerId) < 0) {
+                            levelId = level.readLine();
+                        }
+                        if (managerId.equals(levelId)) {
+                            reachedCount++;
+                            nextLevelSorting.add(getId(row));
+                            if (reportingLineLength > ReportingService.LONG_REPORTING_LINE_THRESHOLD) {
+                                writeFinding(longReportingLines, reportingLineLength, row);
+                            }
+                        } else {
+                            remainingCount++;
+                            nextRows.write(row);
+                            nextRows.newLine();
+                        }
+                    }
+                    nextLevel = nextLevelSorting.finish();
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(nextRemainingRows);
+                    throw e;
+                }
+                level.close();
+                level = nextLevel;
+                if (remainingRows != rowsByManager) {
+                    Files.delete(remainingRows);
+                }
+                remainingRows = nextRemainingRows;
+                if (reachedCount == 0 && remainingCount > 0) {
+                    throw new EmployeeDataException(remainingCount + " employees have a reporting line that forms a cycle");
+                }
+            }
+        } finally {
+            level.close();
+            if (remainingRows != rowsByManager) {
+                Files.deleteIfExists(remainingRows);
+            }
+        }
+    }
+
+    /**
+     * Passes on the findings written down by the analysis, once the data has been checked.
+     */
+    private static void passFindings(Path salaryFindings, Path longReportingLines, Consumer<? super ReportFinding> findings)
+            throws IOException {
+        try (BufferedReader rows = Files.newBufferedReader(salaryFindings, StandardCharsets.UTF_8)) {
+            String row;
+            while ((row = rows.readLine()) != null) {
+                int separator = row.indexOf(SEPARATOR);
+                Manager manager = Manager.builder(fromRow(row.substring(separator + 1)), 0).build();
+                SalaryService.getSalaryFinding(manager, new BigDecimal(row.substring(0, separator))).ifPresent(findings);
+            }
+        }
+        try (BufferedReader rows = Files.newBufferedReader(longReportingLines, StandardCharsets.UTF_8)) {
+            String row;
+            while ((row = rows.readLine()) != null) {
+                int separator = row.indexOf(SEPARATOR);
+                findings.accept(new ReportFinding.LongReportingLine(fromRow(row.substring(separator + 1)),
+                                                                     Integer.parseInt(row.substring(0, separator))));
+            }
+        }
+    }
+
+    /**
+     * Writes down a finding as the value it was found with, followed by the spill row of the employee.
+     */
+    private static void writeFinding(BufferedWriter findings, Object value, String row) throws IOException {
+        findings.write(value.toString());
+        findings.write(SEPARATOR);
+        findings.write(row);
+        findings.newLine();
+    }
+
+    private Path createSpillFile() throws IOException {
+        return spillDirectory == null
+                ? Files.createTempFile("employees-", ".rows")
+                : Files.createTempFile(spillDirectory, "employees-", ".rows");
+    }
+
+    /**
+     * Encodes an employee as a spill row. The fields are separated by a control character that the CSV rows
+     * cannot contain in their ID and salary fields; the names come last, so they are read back whole.
+     * Line breaks from quoted fields are escaped, so that every row is one line of a spill file.
+     */
+    private static String toRow(CompanyStaff employee) {
+        return ExternalSorter.escapeLineBreaks(employee.getId() + SEPARATOR
+                + (employee.getManagerId() == null ? "" : employee.getManagerId())
+                + SEPARATOR + employee.getSalary().toString() + SEPARATOR + employee.getFirstName()
+                + SEPARATOR + employee.getLastName());
+    }
+
+    private static CompanyStaff fromRow(String row) {
+        String[] fields = ExternalSorter.unescapeLineBreaks(row).split(SEPARATOR_PATTERN, 5);
+        return new Employee(fields[0], fields[3], fields[4], new BigDecimal(fields[2]), fields[1].isEmpty() ? null : fields[1]);
+    }
+
+    private static String getId(String row) {
+        return row.substring(0, row.indexOf(SEPARATOR));
+    }
+
+    private static String getManagerId(String row) {
+        int start = row.indexOf(SEPARATOR) + 1;
+        return row.substring(start, row.indexOf(SEPARATOR, start));
+    }
+
+    private static BigDecimal getSalary(String row) {
+        int start = row.indexOf(SEPARATOR, row.indexOf(SEPARATOR) + 1) + 1;
+        return new BigDecimal(row.substring(start, row.indexOf(SEPARATOR, start)));
+    }
+
+    /**
+     * The rows sorted by manager ID, read one manager at a time with the total and number of their subordinates.
+     */
+    private static final class SubordinateGroups {
+        private final ExternalSorter.SortedLines rows;
+        private final BufferedWriter copy;
+        private String nextRow;
+        private String managerId;
+        private String firstRow;
+        private BigDecimal salaryTotal;
+        private int count;
+
+        private SubordinateGroups(ExternalSorter.SortedLines rows, BufferedWriter copy) throws IOException {
+            this.rows = rows;
+            this.copy = copy;
+            this.nextRow = readRow();
+        }
+
+        private boolean hasGroup() {
+            return managerId != null;
+        }
+
+        /**
+         * Moves to the next manager.
+         * @return true if there is one, false after the last.
+         */
+        private boolean next() throws IOException {
+            if (nextRow == null) {
+                managerId = null;
+                return false;
+            }
+            managerId = getManagerId(nextRow);
+            firstRow = nextRow;
+            salaryTotal = BigDecimal.ZERO;
+            count = 0;
+            while (nextRow != null && getManagerId(nextRow).equals(managerId)) {
+                salaryTotal = salaryTotal.add(getSalary(nextRow));
+                count++;
+                nextRow = readRow();
+            }
+            return true;
+        }
+
+        private String readRow() throws IOException {
+            String row = rows.readLine();
+            if (row != null && !getManagerId(row).isEmpty()) {
+                copy.write(row);
+                copy.newLine();
+            }
+            return row;
+        }
+
+        private EmployeeDataException unknownManager() {
+            return new EmployeeDataException("Unknown manager ID " + managerId + " for employee " + getId(firstRow));
+        }
+    }
+}
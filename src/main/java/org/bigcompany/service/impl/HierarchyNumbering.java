@@ -0,0 +1,122 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Manager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The HierarchyNumbering class numbers the employees of a loaded hierarchy in depth-first order from the CEO.
+ * The CEO is number 0, and the subtree of every employee is the interval from their own number to their subtree end,
+ * so subtree membership is two comparisons.
+ */
+final class HierarchyNumbering {
+
+    static final int CEO = 0;
+
+    final CompanyStaff[] employees;
+    final int[] parents;
+    final int[] subtreeEnds;
+    final int[] depths;
+    private final Map<String, Integer> indexById;
+
+    /**
+     * Numbers the given hierarchy.
+     * @param employeeMap A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     */
+    HierarchyNumbering(Map<String, CompanyStaff> employeeMap) {
+        int size = employeeMap.size();
+        employees = new CompanyStaff[size];
+        parents = new int[size];
+        subtreeEnds = new int[size];
+        depths = new int[size];
+        indexById = HashMap.newHashMap(size);
+
+        CompanyStaff ceo = null;
+        for (CompanyStaff employee : employeeMap.values()) {
+            if (employee.getManagerId() == null) {
+                if (ceo != null) {
+                    throw new EmployeeDataException("More than one employee without a manager ID");
+                }
+                ceo = employee;
+            }
+        }
+        if (ceo == null && size > 0) {
+            throw new EmployeeDataException("No employee without a manager ID");
+        }
+        int numbered = ceo == null ? 0 : numberDepthFirst(ceo);
+        if (numbered != size) {
+            throw new EmployeeDataException((size - numbered) + " employees are not in the reporting line of the CEO");
+        }
+    }
+
+    /**
+     * Gets the number of employees.
+     * @return The number of employees in the hierarchy.
+     */
+    int size() {
+        return employees.length;
+    }
+
+    /**
+     * Gets the number of an employee.
+     * @param employeeId The ID of the employee.
+     * @return The depth-first number of the employee.
+     */
+    int indexOf(String employeeId) {
+        Integer index = indexById.get(employeeId);
+        if (index == null) {
+            throw new EmployeeDataException("Unknown employee ID: " + employeeId);
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether an employee is in the subtree of another, the root itself included.
+     * @param root The number of the root of the subtree.
+     * @param employee The number of the employee.
+     * @return true if the employee is the root or reports to it, directly or indirectly.
+     */
+    boolean isInSubtree(int root, int employee) {
+        return root <= employee && employee <= subtreeEnds[root];
+    }
+
+    /**
+     * Numbers the hierarchy depth-first from the CEO, recording parents, depths and subtree ends.
+     * @return The number of employees numbered.
+     */
+    private int numberDepthFirst(CompanyStaff ceo) {
+        int next = 0;
+        int[] stack = new int[employees.length];
+        int[] nextSubordinate = new int[employees.length];
+        int stackSize = 0;
+        employees[next] = ceo;
+        indexById.put(ceo.getId(), next);
+        parents[next] = -1;
+        stack[stackSize++] = next++;
+        // Each stacked employee numbers its subordinates one at a time, so a subtree ends at the last number
+        // handed out before its root is popped
+        while (stackSize > 0) {
+            int index = stack[stackSize - 1];
+            List<CompanyStaff> subordinates = employees[index] instanceof Manager manager ? manager.getSubordinates() : List.of();
+            if (nextSubordinate[index] < subordinates.size()) {
+                CompanyStaff subordinate = subordinates.get(nextSubordinate[index]++);
+                if (next == employees.length || indexById.containsKey(subordinate.getId())) {
+                    throw new EmployeeDataException("Employee " + subordinate.getId() + " appears more than once in the hierarchy");
+                }
+                employees[next] = subordinate;
+                indexById.put(subordinate.getId(), next);
+                parents[next] = index;
+                depths[next] = depths[index] + 1;
+                stack[stackSize++] = next++;
+            } else {
+                subtreeEnds[index] = next - 1;
+                stackSize--;
+            }
+        }
+        return next;
+    }
+}
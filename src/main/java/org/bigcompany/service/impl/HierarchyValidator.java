@@ -0,0 +1,200 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.HierarchyProblem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The HierarchyValidator class checks that loaded employees form a single tree under one CEO before the hierarchy
+ * is built, and reports every problem it finds instead of only the first.
+ * <p>
+ * It follows the manager IDs upwards from every employee with a three-colour marking: an employee is white until
+ * it is reached, grey while it is on the reporting line being followed, and black once the end of its reporting line
+ * is known. A line ends at the CEO, at an unknown manager ID, at a grey employee, which closes a cycle, or at a black
+ * employee, whose known end it shares. Each employee is followed once, so validation takes time linear in the number
+ * of employees.
+ */
+public final class HierarchyValidator {
+
+    private static final byte WHITE = 0;
+    private static final byte GREY = 1;
+    private static final byte BLACK = 2;
+    private static final int MAX_PROBLEMS_IN_MESSAGE = 10;
+
+    private HierarchyValidator() {
+    }
+
+    /**
+     * Finds the problems that prevent the given employees from forming a single tree under one CEO.
+     * An organisation without employees has no problems.
+     * @param employees A map of the loaded employees, keyed by their unique identifiers.
+     * @return The problems: missing or extra CEOs first, then unknown managers and cycles in the order they were found,
+     *         then the groups of employees that do not reach a CEO because they report to one of those.
+     *         The list is empty if the hierarchy is valid.
+     */
+    public static List<HierarchyProblem> validate(Map<String, CompanyStaff> employees) {
+        Walk walk = walk(employees);
+        List<Group> groups = walk.groups();
+        List<HierarchyProblem> problems = new ArrayList<>();
+        List<String> ceoIds = new ArrayList<>();
+        for (Group group : groups) {
+            if (group.ceo) {
+                ceoIds.add(group.topEmployeeId);
+            }
+        }
+        if (ceoIds.isEmpty() && !employees.isEmpty()) {
+            problems.add(new HierarchyProblem.NoCeo());
+        } else if (ceoIds.size() > 1) {
+            problems.add(new HierarchyProblem.MultipleCeos(List.copyOf(ceoIds)));
+        }
+        problems.addAll(walk.referenceProblems());
+        for (Group group : groups) {
+            if (!group.ceo && group.size > group.coreSize) {
+                problems.add(new HierarchyProblem.UnreachableGroup(group.topEmployeeId, group.size));
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Finds the employees whose reporting lines do not reach an employee without a manager ID, because they end at
+     * an unknown manager ID or in a cycle. A lenient load drops these employees and builds the hierarchy from the rest.
+     * @param employees A map of the loaded employees, keyed by their unique identifiers.
+     * @return The employees that do not reach a CEO, in no particular order. The list is empty if every reporting
+     *         line reaches a CEO, and holds every employee if there is no CEO.
+     */
+    public static List<CompanyStaff> findUnreachable(Map<String, CompanyStaff> employees) {
+        Walk walk = walk(employees);
+        List<CompanyStaff> unreachable = new ArrayList<>();
+        for (int index = 0; index < walk.staff().length; index++) {
+            if (!walk.groups().get(walk.groupOf()[index]).ceo) {
+                unreachable.add(walk.staff()[index]);
+            }
+        }
+        return unreachable;
+    }
+
+    /**
+     * Checks that the given employees form a single tree under one CEO.
+     * @param employees A map of the loaded employees, keyed by their unique identifiers.
+     * @throws EmployeeDataException If the hierarchy has any problem. The message describes the problem,
+     *                               or the first few problems if there are several.
+     */
+    public static void requireValid(Map<String, CompanyStaff> employees) {
+        List<HierarchyProblem> problems = validate(employees);
+        if (problems.isEmpty()) {
+            return;
+        }
+        if (problems.size() == 1) {
+            throw new EmployeeDataException(problems.getFirst().getDescription());
+        }
+        StringBuilder message = new StringBuilder("The employee hierarchy has ").append(problems.size()).append(" problems: ");
+        for (int index = 0; index < Math.min(problems.size(), MAX_PROBLEMS_IN_MESSAGE); index++) {
+            message.append(index == 0 ? "" : "; ").append(problems.get(index).getDescription());
+        }
+        if (problems.size() > MAX_PROBLEMS_IN_MESSAGE) {
+            message.append("; and ").append(problems.size() - MAX_PROBLEMS_IN_MESSAGE).append(" more");
+        }
+        throw new EmployeeDataException(message.toString());
+    }
+
+    /**
+     * Follows the reporting line of every employee once and sorts the employees into groups by where the line ends.
+     */
+    private static Walk walk(Map<String, CompanyStaff> employees) {
+        CompanyStaff[] staff = employees.values().toArray(new CompanyStaff[0]);
+        Map<String, Integer> indexById = HashMap.newHashMap(staff.length);
+        for (int index = 0; index < staff.length; index++) {
+            indexById.put(staff[index].getId(), index);
+        }
+        byte[] colours = new byte[staff.length];
+        int[] groupOf = new int[staff.length];
+        int[] pathPositions = new int[staff.length];
+        int[] path = new int[staff.length];
+        List<Group> groups = new ArrayList<>();
+        List<HierarchyProblem> referenceProblems = new ArrayList<>();
+
+        for (int start = 0; start < staff.length; start++) {
+            if (colours[start] != WHITE) {
+                continue;
+            }
+            int pathLength = 0;
+            int current = start;
+            int group;
+            while (true) {
+                colours[current] = GREY;
+                pathPositions[current] = pathLength;
+                path[pathLength++] = current;
+                String managerId = staff[current].getManagerId();
+                if (managerId == null) {
+                    group = addGroup(groups, staff[current].getId(), true, 1);
+                    break;
+                }
+                Integer manager = indexById.get(managerId);
+                if (manager == null) {
+                    referenceProblems.add(new HierarchyProblem.UnknownManager(staff[current].getId(), managerId));
+                    group = addGroup(groups, staff[current].getId(), false, 1);
+                    break;
+                }
+                if (colours[manager] == GREY) {
+                    List<String> cycle = new ArrayList<>(pathLength - pathPositions[manager]);
+                    for (int position = pathPositions[manager]; position < pathLength; position++) {
+                        cycle.add(staff[path[position]].getId());
+                    }
+                    // Start the cycle at its smallest ID, so it is reported the same whichever member was reached first
+                    Collections.rotate(cycle, -cycle.indexOf(Collections.min(cycle)));
+                    referenceProblems.add(new HierarchyProblem.ReportingCycle(List.copyOf(cycle)));
+                    group = addGroup(groups, staff[manager].getId(), false, cycle.size());
+                    break;
+                }
+                if (colours[manager] == BLACK) {
+                    group = groupOf[manager];
+                    break;
+                }
+                current = manager;
+            }
+            for (int position = 0; position < pathLength; position++) {
+                colours[path[position]] = BLACK;
+                groupOf[path[position]] = group;
+            }
+            groups.get(group).size += pathLength;
+        }
+
+        return new Walk(staff, groupOf, groups, referenceProblems);
+    }
+
+    private static int addGroup(List<Group> groups, String topEmployeeId, boolean ceo, int coreSize) {
+        groups.add(new Group(topEmployeeId, ceo, coreSize));
+        return groups.size() - 1;
+    }
+
+    /**
+     * The employees whose reporting lines end at the same CEO, unknown manager or cycle. The core of the group is
+     * the employees already named by the problem it ends at: the employee with the unknown manager or the cycle.
+     */
+    private static final class Group {
+        private final String topEmployeeId;
+        private final boolean ceo;
+        private final int coreSize;
+        private int size;
+
+        private Group(String topEmployeeId, boolean ceo, int coreSize) {
+            this.topEmployeeId = topEmployeeId;
+            this.ceo = ceo;
+            this.coreSize = coreSize;
+        }
+    }
+
+    /**
+     * The result of following every reporting line: the employees, the group of each, the groups, and the unknown
+     * managers and cycles found on the way.
+     */
+    private record Walk(CompanyStaff[] staff, int[] groupOf, List<Group> groups, List<HierarchyProblem> referenceProblems) {
+    }
+}
@@ -0,0 +1,73 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.OrgSnapshot;
+import org.bigcompany.service.IEmployeeService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The OrgVersionStore class keeps labelled versions of an organisation, for example one per month.
+ * The versions are OrgSnapshots, so consecutive versions share every employee and manager that did not change
+ * between them, and the store grows with the changes rather than with the number of versions.
+ * Each version can be analysed with the existing services through {@link #getEmployeeService(String)}.
+ */
+public final class OrgVersionStore {
+
+    private final Map<String, OrgSnapshot> versions = new LinkedHashMap<>();
+
+    /**
+     * Adds a version of the organisation.
+     * @param label The label of the version, for example the month it was taken.
+     * @param snapshot The organisation at that version.
+     */
+    public void commit(String label, OrgSnapshot snapshot) {
+        if (versions.containsKey(label)) {
+            throw new IllegalArgumentException("Version " + label + " already exists");
+        }
+        versions.put(label, snapshot);
+    }
+
+    /**
+     * Adds a version of the organisation from a built hierarchy.
+     * @param label The label of the version, for example the month it was taken.
+     * @param employees A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     * @return The snapshot stored for the version, to derive later versions from.
+     */
+    public OrgSnapshot commit(String label, Map<String, CompanyStaff> employees) {
+        OrgSnapshot snapshot = OrgSnapshot.of(employees);
+        commit(label, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Gets a version of the organisation.
+     * @param label The label of the version.
+     * @return The snapshot of the version, or an empty Optional if there is no version with the label.
+     */
+    public Optional<OrgSnapshot> getVersion(String label) {
+        return Optional.ofNullable(versions.get(label));
+    }
+
+    /**
+     * Gets the labels of all versions.
+     * @return The labels, in the order the versions were added.
+     */
+    public List<String> getLabels() {
+        return List.copyOf(versions.keySet());
+    }
+
+    /**
+     * Gets an employee service that loads a version of the organisation, to run the reporting analyses on it.
+     * @param label The label of the version.
+     * @return An employee service whose employees are those of the version.
+     */
+    public IEmployeeService getEmployeeService(String label) {
+        OrgSnapshot snapshot = getVersion(label)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown version: " + label));
+        return snapshot::asMap;
+    }
+}
@@ -0,0 +1,309 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.BandChange;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Manager;
+import org.bigcompany.model.SalaryBand;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ReorgSimulator class simulates moving whole subtrees of a loaded hierarchy to new managers and reports
+ * how each move changes the long reporting lines and the salary bands. The loaded employees are never modified.
+ * <p>
+ * The employees are numbered in depth-first order of the loaded hierarchy, so every loaded subtree is an interval
+ * of numbers. Each moved employee starts a block: the part of its loaded subtree that has not been moved away
+ * again. Within a block the loaded depths still hold up to a per-block offset, so a move shifts the depth of the
+ * whole moved subtree by changing the offsets of the blocks it contains, and counts the reporting lines that cross
+ * the threshold with binary searches over the employees of each depth. A move costs time in the number of moves
+ * made so far and the depth shift, not in the size of the moved subtree.
+ */
+public final class ReorgSimulator {
+
+    private static final int CEO = HierarchyNumbering.CEO;
+
+    private final HierarchyNumbering numbering;
+    private final CompanyStaff[] employees;
+    private final int[] loadedParents;
+    private final int[] loadedDepths;
+    private final int[][] employeesByDepth;
+
+    private final List<Integer> movedEmployees = new ArrayList<>();
+    private final Map<Integer, Integer> movedParents = new HashMap<>();
+    private final Map<Integer, Integer> blockDepths = new HashMap<>();
+    private final Map<Integer, SubordinateTotal> subordinateTotals = new HashMap<>();
+    private int longReportingLineCount;
+
+    /**
+     * Constructs a ReorgSimulator over the given hierarchy.
+     * @param employees A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     */
+    public ReorgSimulator(Map<String, CompanyStaff> employees) {
+        HierarchyNumbering numbering = new HierarchyNumbering(employees);
+        int size = numbering.size();
+        this.numbering = numbering;
+        this.employees = numbering.employees;
+        this.loadedParents = numbering.parents;
+        this.loadedDepths = numbering.depths;
+
+        int maxDepth = 0;
+        for (int depth : loadedDepths) {
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        int[] depthCounts = new int[maxDepth + 1];
+        for (int depth : loadedDepths) {
+            depthCounts[depth]++;
+        }
+        employeesByDepth = new int[maxDepth + 1][];
+        for (int depth = 0; depth <= maxDepth; depth++) {
+            employeesByDepth[depth] = new int[depthCounts[depth]];
+            if (depth > ReportingService.LONG_REPORTING_LINE_THRESHOLD) {
+                longReportingLineCount += depthCounts[depth];
+            }
+        }
+        // Employees are visited in increasing number, so each list is sorted
+        Arrays.fill(depthCounts, 0);
+        for (int index = 0; index < size; index++) {
+            int depth = loadedDepths[index];
+            employeesByDepth[depth][depthCounts[depth]++] = index;
+        }
+    }
+
+    /**
+     * Moves an employee, together with everyone who currently reports to them, under a new manager.
+     * @param employeeId The ID of the employee to move.
+     * @param newManagerId The ID of the employee's new manager.
+     * @return The effect of the move on the long reporting lines and on the salary bands of the old and new manager.
+     */
+    public MoveResult moveSubtree(String employeeId, String newManagerId) {
+        int employee = getIndex(employeeId);
+        int newParent = getIndex(newManagerId);
+        if (isAncestor(employee, newParent)) {
+            throw new EmployeeDataException("Moving employee " + employeeId + " under " + newManagerId
+                                                    + " would create a cycle in the reporting line");
+        }
+        int oldParent = getParent(employee);
+        if (oldParent == newParent) {
+            return new MoveResult(0, 0, 0, List.of());
+        }
+
+        int shift = getDepth(newParent) + 1 - getDepth(employee);
+        if (!blockDepths.containsKey(employee)) {
+            blockDepths.put(employee, getDepth(employee));
+            movedEmployees.add(employee);
+        }
+        int newlyLong = 0;
+        int noLongerLong = 0;
+        int movedCount = 0;
+        List<Integer> movedBlocks = new ArrayList<>();
+        for (int block : movedEmployees) {
+            if (isAncestor(employee, block)) {
+                movedBlocks.add(block);
+            }
+        }
+        for (int block : movedBlocks) {
+            List<Integer> innerBlocks = getInnerBlocks(block);
+            movedCount += countInBlock(block, innerBlocks, -1);
+            // The reporting lines whose length crosses the threshold by the shift
+            int threshold = ReportingService.LONG_REPORTING_LINE_THRESHOLD;
+            int depthOffset = blockDepths.get(block) - loadedDepths[block];
+            int lowestCrossing = shift > 0 ? threshold + 1 - shift : threshold + 1;
+            int highestCrossing = shift > 0 ? threshold : threshold - shift;
+            for (int depth = Math.max(lowestCrossing, blockDepths.get(block)); depth <= highestCrossing; depth++) {
+                int count = countInBlock(block, innerBlocks, depth - depthOffset);
+                if (shift > 0) {
+                    newlyLong += count;
+                } else {
+                    noLongerLong += count;
+                }
+            }
+        }
+        for (int block : movedBlocks) {
+            blockDepths.put(block, blockDepths.get(block) + shift);
+        }
+        movedParents.put(employee, newParent);
+        longReportingLineCount += newlyLong - noLongerLong;
+
+        BigDecimal salary = employees[employee].getSalary();
+        List<BandChange> bandChanges = new ArrayList<>(2);
+        updateSubordinateTotal(oldParent, salary.negate(), -1, bandChanges);
+        updateSubordinateTotal(newParent, salary, 1, bandChanges);
+        return new MoveResult(movedCount, newlyLong, noLongerLong, bandChanges);
+    }
+
+    /**
+     * Gets the current length of an employee's reporting line.
+     * @param employeeId The ID of the employee.
+     * @return The number of managers between the employee and the CEO, with all moves applied.
+     */
+    public int getReportingLineLength(String employeeId) {
+        return getDepth(getIndex(employeeId));
+    }
+
+    /**
+     * Gets the current manager of an employee.
+     * @param employeeId The ID of the employee.
+     * @return The ID of the employee's manager with all moves applied, or null for the CEO.
+     */
+    public String getManagerId(String employeeId) {
+        int parent = getParent(getIndex(employeeId));
+        return parent < 0 ? null : employees[parent].getId();
+    }
+
+    /**
+     * Gets the current number of employees with a long reporting line.
+     * @return The number of employees with more than the threshold number of managers above them, with all moves applied.
+     */
+    public int getLongReportingLineCount() {
+        return longReportingLineCount;
+    }
+
+    /**
+     * Gets the moved employees whose loaded manager lies in the given block, so their subtrees are not part of it.
+     */
+    private List<Integer> getInnerBlocks(int block) {
+        List<Integer> innerBlocks = new ArrayList<>();
+        for (int moved : movedEmployees) {
+            if (moved != block && isInLoadedSubtree(block, moved) && getBlock(loadedParents[moved]) == block) {
+                innerBlocks.add(moved);
+            }
+        }
+        return innerBlocks;
+    }
+
+    /**
+     * Counts the employees of a block at a loaded depth, or at any depth if the given depth is negative.
+     */
+    private int countInBlock(int block, List<Integer> innerBlocks, int loadedDepth) {
+        int count = countInLoadedSubtree(block, loadedDepth);
+        for (int innerBlock : innerBlocks) {
+            count -= countInLoadedSubtree(innerBlock, loadedDepth);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the employees of a loaded subtree at a loaded depth, or at any depth if the given depth is negative.
+     */
+    private int countInLoadedSubtree(int root, int loadedDepth) {
+        if (loadedDepth < 0) {
+            return numbering.subtreeEnds[root] - root + 1;
+        }
+        if (loadedDepth >= employeesByDepth.length) {
+            return 0;
+        }
+        int[] atDepth = employeesByDepth[loadedDepth];
+        return firstAbove(atDepth, numbering.subtreeEnds[root]) - firstAbove(atDepth, root - 1);
+    }
+
+    private static int firstAbove(int[] sorted, int value) {
+        int position = Arrays.binarySearch(sorted, value);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    /**
+     * Updates the running subordinate total of a manager and records the change of its salary band, if any.
+     */
+    private void updateSubordinateTotal(int manager, BigDecimal salaryChange, int countChange, List<BandChange> bandChanges) {
+        SubordinateTotal total = subordinateTotals.get(manager);
+        if (total == null) {
+            total = new SubordinateTotal();
+            if (employees[manager] instanceof Manager loadedManager) {
+                for (CompanyStaff subordinate : loadedManager.getSubordinates()) {
+                    total.salary = total.salary.add(subordinate.getSalary());
+                }
+                total.count = loadedManager.getSubordinates().size();
+            }
+            subordinateTotals.put(manager, total);
+        }
+        SalaryBand before = classify(manager, total);
+        total.salary = total.salary.add(salaryChange);
+        total.count += countChange;
+        SalaryBand after = classify(manager, total);
+        if (before != after) {
+            bandChanges.add(new BandChange(employees[manager], before, after));
+        }
+    }
+
+    private SalaryBand classify(int manager, SubordinateTotal total) {
+        if (total.count == 0) {
+            return null;
+        }
+        BigDecimal averageSalary = SalaryService.calculateAverageSalary(total.salary, total.count);
+        return SalaryService.classifySalary(employees[manager].getSalary(), averageSalary);
+    }
+
+    /**
+     * Checks whether an employee currently is the given employee or one of their managers, direct or indirect.
+     */
+    private boolean isAncestor(int ancestor, int employee) {
+        int ancestorBlock = getBlock(ancestor);
+        int current = employee;
+        while (true) {
+            int block = getBlock(current);
+            if (block == ancestorBlock && isInLoadedSubtree(ancestor, current)) {
+                return true;
+            }
+            if (block == CEO) {
+                return false;
+            }
+            current = movedParents.get(block);
+        }
+    }
+
+    /**
+     * Gets the block of an employee: their nearest loaded manager, or themselves, that has been moved, or the CEO.
+     */
+    private int getBlock(int employee) {
+        int block = CEO;
+        for (int moved : movedEmployees) {
+            if (moved > block && isInLoadedSubtree(moved, employee)) {
+                block = moved;
+            }
+        }
+        return block;
+    }
+
+    private int getDepth(int employee) {
+        int block = getBlock(employee);
+        int blockDepth = block == CEO ? 0 : blockDepths.get(block);
+        return blockDepth + loadedDepths[employee] - loadedDepths[block];
+    }
+
+    private int getParent(int employee) {
+        return movedParents.getOrDefault(employee, loadedParents[employee]);
+    }
+
+    private boolean isInLoadedSubtree(int root, int employee) {
+        return numbering.isInSubtree(root, employee);
+    }
+
+    private int getIndex(String employeeId) {
+        return numbering.indexOf(employeeId);
+    }
+
+    /**
+     * The MoveResult record describes the effect of moving one subtree.
+     * @param movedEmployees The number of employees moved, including the employee the move was made for.
+     * @param newLongReportingLines The number of moved employees whose reporting line became too long.
+     * @param resolvedLongReportingLines The number of moved employees whose reporting line is no longer too long.
+     * @param bandChanges The salary band changes of the old and the new manager.
+     */
+    public record MoveResult(int movedEmployees, int newLongReportingLines, int resolvedLongReportingLines,
+                             List<BandChange> bandChanges) {
+    }
+
+    /**
+     * The running total and number of the current subordinates of one manager touched by a move.
+     */
+    private static final class SubordinateTotal {
+        private BigDecimal salary = BigDecimal.ZERO;
+        private int count;
+    }
+}
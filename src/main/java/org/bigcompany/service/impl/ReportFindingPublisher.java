@@ -0,0 +1,186 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Manager;
+import org.bigcompany.model.ReportFinding;
+import org.bigcompany.service.ISalaryService;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The ReportFindingPublisher class publishes the findings of the employee report to each subscriber as they are
+ * demanded. Every subscription loads the employees and analyses them one at a time, and only while the subscriber
+ * has outstanding demand: when the demand runs out, the analysis stops after the current employee and resumes on
+ * the next request. At most the findings of a single employee are held back, so a slow subscriber never causes
+ * findings to pile up.
+ * <p>
+ * The signals of a subscription are delivered on the given executor, one at a time.
+ */
+final class ReportFindingPublisher implements Flow.Publisher<ReportFinding> {
+
+    private final Supplier<Map<String, CompanyStaff>> employeeLoader;
+    private final ISalaryService salaryService;
+    private final Executor executor;
+
+    /**
+     * Constructs a ReportFindingPublisher.
+     * @param employeeLoader The loader of the employees, called once per subscription on its first request.
+     * @param salaryService The service to classify the managers' salaries with.
+     * @param executor The executor to analyse the employees and deliver the findings on.
+     */
+    ReportFindingPublisher(Supplier<Map<String, CompanyStaff>> employeeLoader, ISalaryService salaryService,
+                           Executor executor) {
+        this.employeeLoader = employeeLoader;
+        this.salaryService = salaryService;
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribes a subscriber to a new, independent analysis of the employees.
+     * @param subscriber The subscriber to deliver the findings to.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ReportFinding> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new FindingSubscription(subscriber));
+    }
+
+    /**
+     * The subscription of one subscriber. Requests and cancellations may come from any thread; they only update
+     * the demand and schedule the emitting loop, of which at most one runs at a time.
+     */
+    private final class FindingSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ReportFinding> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean invalidRequest;
+
+        // Only used by the emitting loop
+        private Map<String, CompanyStaff> employees;
+        private Iterator<CompanyStaff> remainingEmployees;
+        private final Queue<ReportFinding> employeeFindings = new ArrayDeque<>(3);
+        private boolean done;
+
+        private FindingSubscription(Flow.Subscriber<? super ReportFinding> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Adds to the demand of the subscriber and resumes the analysis if it was paused.
+         * @param n The number of further findings the subscriber can take.
+         */
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = true;
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        /**
+         * Stops the analysis; no further signals are delivered once the emitting loop has seen the cancellation.
+         */
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::emit);
+                } catch (RejectedExecutionException e) {
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        /**
+         * The emitting loop: delivers findings while there is demand, and runs again if a request or cancellation
+         * arrived while it was running.
+         */
+        private void emit() {
+            int drains = 1;
+            do {
+                while (!done) {
+                    if (cancelled) {
+                        finish();
+                        break;
+                    }
+                    if (invalidRequest) {
+                        finish();
+                        subscriber.onError(new IllegalArgumentException("The number of requested findings must be positive"));
+                        break;
+                    }
+                    if (demand.get() == 0) {
+                        break;
+                    }
+                    ReportFinding finding;
+                    try {
+                        finding = nextFinding();
+                    } catch (RuntimeException e) {
+                        finish();
+                        subscriber.onError(e);
+                        break;
+                    }
+                    if (finding == null) {
+                        finish();
+                        subscriber.onComplete();
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(finding);
+                }
+                drains = pendingDrains.addAndGet(-drains);
+            } while (drains != 0);
+        }
+
+        /**
+         * Gets the next finding, analysing further employees until one has a finding.
+         * @return The next finding, or null after the last employee.
+         */
+        private ReportFinding nextFinding() {
+            if (remainingEmployees == null) {
+                employees = employeeLoader.get();
+                remainingEmployees = employees.values().iterator();
+            }
+            while (employeeFindings.isEmpty() && remainingEmployees.hasNext()) {
+                analyse(remainingEmployees.next());
+            }
+            return employeeFindings.poll();
+        }
+
+        private void analyse(CompanyStaff employee) {
+            int reportingLineLength = ReportingService.getReportingLineLength(employee, employees);
+            if (reportingLineLength > ReportingService.LONG_REPORTING_LINE_THRESHOLD) {
+                employeeFindings.add(new ReportFinding.LongReportingLine(employee, reportingLineLength));
+            }
+            if (employee instanceof Manager manager) {
+                salaryService.getSalaryFinding(manager).ifPresent(employeeFindings::add);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            employees = null;
+            remainingEmployees = null;
+            employeeFindings.clear();
+        }
+    }
+}
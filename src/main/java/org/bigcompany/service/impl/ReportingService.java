@@ -1,28 +1,53 @@
 package org.bigcompany.service.impl;
 
+import org.bigcompany.dao.RowError;
+import org.bigcompany.dao.RowErrorLog;
+import org.bigcompany.event.AnalysisEvent;
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.ApproximateReport;
 import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.EmployeeLoad;
+import org.bigcompany.model.EmployeeReport;
 import org.bigcompany.model.Manager;
+import org.bigcompany.model.OrgView;
+import org.bigcompany.model.ReportFinding;
+import org.bigcompany.model.ShareEstimate;
 import org.bigcompany.service.IEmployeeService;
 import org.bigcompany.service.IReportingService;
 import org.bigcompany.service.ISalaryService;
 
+import java.io.PrintStream;
 import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
 
 /**
  * The ReportingService class provides methods to generate reports about employees.
  * It uses the IEmployeeService to load employee data and the ISalaryService to manage employee salaries.
  * It also provides methods to get the length of the reporting line for each employee and to print reports.
+ * A ReportingService keeps no state between calls: each report is computed from the organisation it is given or
+ * loads, so one instance can serve many threads at once, as long as its services can.
  *
  * @author Neha B Acharya
  */
 public class ReportingService implements IReportingService {
 
-    private static final int LONG_REPORTING_LINE_THRESHOLD = 4;
+    /**
+     * The longest reporting line, in steps from an employee up to the CEO, that is not reported.
+     */
+    public static final int LONG_REPORTING_LINE_THRESHOLD = 4;
+
     private final IEmployeeService employeeService;
     private final ISalaryService salaryService;
-    private Map<String, CompanyStaff> employees = new HashMap<>();
+    private final PrintStream out;
 
 
     /**
@@ -31,40 +56,129 @@ public class ReportingService implements IReportingService {
      * @param salaryService The service to use for managing employee salaries.
      */
     public ReportingService(IEmployeeService employeeService, ISalaryService salaryService) {
+        this(employeeService, salaryService, null);
+    }
+
+    /**
+     * Constructs a ReportingService that prints its reports to the given stream.
+     * @param employeeService The service to use for loading employee data.
+     * @param salaryService The service to use for managing employee salaries.
+     * @param out The stream to print the reports to, or null for the standard output at the time of printing.
+     */
+    public ReportingService(IEmployeeService employeeService, ISalaryService salaryService, PrintStream out) {
         this.employeeService = employeeService;
         this.salaryService = salaryService;
+        this.out = out;
     }
 
 
     /**
      * Generates a report about employees with a long reporting line, overpaid managers, and underpaid managers.
+     * The sections are computed concurrently by createReport and printed in this order once all of them are done.
      */
     public void generateEmployeeReport() {
-        Map<CompanyStaff, Integer> employeeWithLongReportingLine = getEmployeeReportingLineLengths();
-        Map<Manager, BigDecimal> overpaidManagers = salaryService.getOverpaidManagers(employees);
-        Map<Manager, BigDecimal> underpaidManagers = salaryService.getUnderpaidManagers(employees);
+        EmployeeLoad load = employeeService.loadEmployees();
+        EmployeeReport report = createReport(load.employees());
+
+        if (!report.longReportingLines().isEmpty() || !report.overpaidManagers().isEmpty() || !report.underpaidManagers().isEmpty()) {
+            out().println("\nEmployee Report:");
+            out().println("----------------");
+        }
+
+        printLongReportingLineReport(report.longReportingLines());
+        printPaymentReport("\nThe overpaid managers", report.overpaidManagers());
+        printPaymentReport("\nThe underpaid managers", report.underpaidManagers());
+        load.getSkippedRows().ifPresent(this::printRowErrorReport);
+    }
+
+
+    /**
+     * Computes the employee report of an organisation without printing it.
+     * The three sections only read the organisation, so they are computed at the same time, each on its own
+     * virtual thread of a StructuredTaskScope, and the report takes as long as its slowest section.
+     * If a section fails, the scope cancels the others and its exception is thrown.
+     * @param employees A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     *                  It is only read, so it may be shared with other threads that only read it.
+     * @return The employees with a long reporting line and the overpaid and underpaid managers.
+     * @throws CancellationException If the calling thread is interrupted while it waits for the sections.
+     */
+    @Override
+    public EmployeeReport createReport(Map<String, CompanyStaff> employees) {
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            Subtask<Map<CompanyStaff, Integer>> longReportingLines = scope.fork(() -> getEmployeeReportingLineLengths(employees));
+            Subtask<Map<Manager, BigDecimal>> overpaidManagers = scope.fork(() -> salaryService.getOverpaidManagers(employees));
+            Subtask<Map<Manager, BigDecimal>> underpaidManagers = scope.fork(() -> salaryService.getUnderpaidManagers(employees));
+            scope.join().throwIfFailed(ReportingService::rethrow);
+            return new EmployeeReport(longReportingLines.get(), overpaidManagers.get(), underpaidManagers.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while creating the employee report");
+        }
+    }
 
-        if (!employeeWithLongReportingLine.isEmpty() || !overpaidManagers.isEmpty() || !underpaidManagers.isEmpty()) {
-            System.out.println("\nEmployee Report:");
-            System.out.println("----------------");
+    /**
+     * Rethrows the failure of a report section on the calling thread, keeping its type.
+     */
+    private static RuntimeException rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
         }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException("A report section failed", failure);
+    }
 
-        printLongReportingLineReport(employeeWithLongReportingLine);
-        printPaymentReport("\nThe overpaid managers", overpaidManagers);
-        printPaymentReport("\nThe underpaid managers", underpaidManagers);
+    /**
+     * Generates an estimate of the employee report from a random sample of the employees.
+     * @param sampleSize The number of employees to sample.
+     * @param seed The seed of the random sample.
+     */
+    public void generateApproximateEmployeeReport(int sampleSize, long seed) {
+        EmployeeLoad load = employeeService.loadEmployees();
+        Map<String, CompanyStaff> employees = load.employees();
+        ApproximateReport report = new ApproximateAnalysis(salaryService, sampleSize, seed).analyse(employees);
+        out().printf(Locale.ROOT, "%nApproximate Employee Report (%d of %d employees sampled, %.0f%% confidence intervals):%n",
+                     report.overpaidManagers().sampleSize(), employees.size(), report.confidenceLevel() * 100);
+        out().println("----------------");
+        printShareEstimate("Overpaid managers", report.overpaidManagers());
+        printShareEstimate("Underpaid managers", report.underpaidManagers());
+        printShareEstimate("Employees with longer reporting line", report.longReportingLines());
+        load.getSkippedRows().ifPresent(this::printRowErrorReport);
     }
 
+    /**
+     * Creates a publisher of the report findings that analyses the employees on the common fork-join pool.
+     * @return A publisher that runs a new analysis for each subscriber, as far as the subscriber's demand goes.
+     */
+    public Flow.Publisher<ReportFinding> publishFindings() {
+        return publishFindings(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a publisher of the report findings that analyses the employees on the given executor.
+     * @param executor The executor to analyse the employees and deliver the findings on.
+     * @return A publisher that runs a new analysis for each subscriber, as far as the subscriber's demand goes.
+     */
+    public Flow.Publisher<ReportFinding> publishFindings(Executor executor) {
+        return new ReportFindingPublisher(employeeService::loadAllEmployee, salaryService, executor);
+    }
 
     /**
      * Gets the length of the reporting line for a given employee.
      * @param employee The employee to get the reporting line length for.
+     * @param employees A map of all employees, keyed by their unique identifiers.
      * @return The length of the reporting line for the given employee.
+     * @throws EmployeeDataException If the reporting line reaches an unknown manager or runs in a cycle.
      */
-    int getReportingLineLength(CompanyStaff employee) {
+    static int getReportingLineLength(CompanyStaff employee, Map<String, CompanyStaff> employees) {
+        String employeeId = employee.getId();
         int length = 0;
         while (employee.getManagerId() != null) {
             employee = employees.get(employee.getManagerId());
-            length++;
+            if (employee == null || ++length > employees.size()) {
+                throw new EmployeeDataException("The reporting line of employee " + employeeId + " does not reach the CEO");
+            }
         }
         return length;
     }
@@ -74,19 +188,73 @@ public class ReportingService implements IReportingService {
      * @return A map of employees and their reporting line lengths.
      */
     public Map<CompanyStaff, Integer> getEmployeeReportingLineLengths() {
+        return getEmployeeReportingLineLengths(employeeService.loadAllEmployee());
+    }
+
+    /**
+     * Gets the lengths of the long reporting lines of an organisation.
+     * @param employees A map of all employees, keyed by their unique identifiers.
+     * @return A map of the employees with a long reporting line and their reporting line lengths.
+     */
+    public Map<CompanyStaff, Integer> getEmployeeReportingLineLengths(Map<String, CompanyStaff> employees) {
         Map<CompanyStaff, Integer> employeeReportingLineLengths = new HashMap<>();
-        employees = employeeService.loadAllEmployee();
 
+        AnalysisEvent analysisEvent = new AnalysisEvent();
+        analysisEvent.begin();
         for (CompanyStaff employee : employees.values()) {
-            int length = getReportingLineLength(employee);
+            int length = getReportingLineLength(employee, employees);
             if(length > LONG_REPORTING_LINE_THRESHOLD)
                 employeeReportingLineLengths.put(employee, length);
         }
+        analysisEvent.end();
+        if (analysisEvent.shouldCommit()) {
+            analysisEvent.analysis = AnalysisEvent.LONG_REPORTING_LINES;
+            analysisEvent.orgSize = employees.size();
+            analysisEvent.findings = employeeReportingLineLengths.size();
+            analysisEvent.commit();
+        }
 
         return employeeReportingLineLengths;
     }
 
 
+    /**
+     * Gets the lengths of the long reporting lines of an index-based organisation view.
+     * The view numbers employees breadth-first, so the reporting line length only grows with the index:
+     * it increases by one after the last index of each level, which is tracked without any per-employee state.
+     * @param org The view of the organisation.
+     * @return A map from the index of each employee with a long reporting line to its length, in index order.
+     */
+    public Map<Integer, Integer> getEmployeeReportingLineLengths(OrgView org) {
+        AnalysisEvent analysisEvent = new AnalysisEvent();
+        analysisEvent.begin();
+        Map<Integer, Integer> employeeReportingLineLengths = new LinkedHashMap<>();
+        int length = 0;
+        int lastOfLevel = 0;
+        int lastOfNextLevel = 0;
+        for (int index = 0; index < org.size(); index++) {
+            int subordinateCount = org.getSubordinateCount(index);
+            if (subordinateCount > 0) {
+                lastOfNextLevel = org.getFirstSubordinate(index) + subordinateCount - 1;
+            }
+            if (length > LONG_REPORTING_LINE_THRESHOLD) {
+                employeeReportingLineLengths.put(index, length);
+            }
+            if (index == lastOfLevel) {
+                length++;
+                lastOfLevel = lastOfNextLevel;
+            }
+        }
+        analysisEvent.end();
+        if (analysisEvent.shouldCommit()) {
+            analysisEvent.analysis = AnalysisEvent.LONG_REPORTING_LINES;
+            analysisEvent.orgSize = org.size();
+            analysisEvent.findings = employeeReportingLineLengths.size();
+            analysisEvent.commit();
+        }
+        return employeeReportingLineLengths;
+    }
+
     /**
      * Prints a report about overpaid or underpaid managers.
      * @param title The title of the report.
@@ -94,18 +262,56 @@ public class ReportingService implements IReportingService {
      */
     public void printPaymentReport(String title, Map<Manager, BigDecimal> managers) {
         if (!managers.isEmpty()) {
-            System.out.println(title);
-            System.out.println("------------------------------------");
+            out().println(title);
+            out().println("------------------------------------");
             managers.forEach((manager, payment) ->
-                                     System.out.printf("%s %s with ID %s is %s by %s%n", manager.getFirstName(),
+                                     out().printf("%s %s with ID %s is %s by %s%n", manager.getFirstName(),
                                                        manager.getLastName(), manager.getId(), title.contains("overpaid") ? "overpaid" : "underpaid", payment));
         } else {
-            System.out.println("\nThere are no " + title.toLowerCase());
-            System.out.println("-----------------------------------");
+            out().println("\nThere are no " + title.toLowerCase());
+            out().println("-----------------------------------");
         }
     }
 
 
+    /**
+     * Gets the stream to print the reports to.
+     * @return The stream given at construction, or the current standard output.
+     */
+    private PrintStream out() {
+        return out != null ? out : System.out;
+    }
+
+    /**
+     * Prints one estimate of the approximate report.
+     * @param title The title of the estimate.
+     * @param estimate The estimate.
+     */
+    private void printShareEstimate(String title, ShareEstimate estimate) {
+        out().printf(Locale.ROOT, "%s: about %d (%.2f%%), between %d and %d (%.2f%% to %.2f%%)%n", title,
+                     estimate.count(), estimate.share() * 100, estimate.lowerCount(), estimate.upperCount(),
+                     estimate.lowerShare() * 100, estimate.upperShare() * 100);
+    }
+
+    /**
+     * Prints a report about the rows skipped by a lenient load.
+     * @param rowErrorLog The log of skipped rows.
+     */
+    private void printRowErrorReport(RowErrorLog rowErrorLog) {
+        out().println("\nRows skipped while loading the employee data: " + rowErrorLog.getTotalCount());
+        out().println("------------------------------------");
+        for (RowError rowError : rowErrorLog.getErrors()) {
+            if (rowError.lineNumber() > 0) {
+                out().printf("Line %d: %s in line: %s%n", rowError.lineNumber(), rowError.reason().getDescription(), rowError.line());
+            } else {
+                out().printf("%s for employee: %s%n", rowError.reason().getDescription(), rowError.line());
+            }
+        }
+        if (rowErrorLog.getOverflowCount() > 0) {
+            out().printf("... and %d more skipped rows not listed%n", rowErrorLog.getOverflowCount());
+        }
+    }
+
     /**
      * Prints a report about employees with a long reporting line.
      * @param employees A map of employees and their reporting line lengths.
@@ -113,14 +319,14 @@ public class ReportingService implements IReportingService {
     private void printLongReportingLineReport(Map<CompanyStaff, Integer> employees) {
         String title = "\nEmployee with longer reporting line";
         if (!employees.isEmpty()) {
-            System.out.println(title);
-            System.out.println("------------------------------------");
+            out().println(title);
+            out().println("------------------------------------");
             employees.forEach((employee, reportingLineLength) ->
-                                      System.out.printf("%s %s with ID %s has a reporting line of length %s%n",
+                                      out().printf("%s %s with ID %s has a reporting line of length %s%n",
                                                         employee.getFirstName(), employee.getLastName(), employee.getId(), reportingLineLength)
             );
         } else {
-            System.out.println("There are no " + title.toLowerCase());
+            out().println("There are no " + title.toLowerCase());
         }
 
     }
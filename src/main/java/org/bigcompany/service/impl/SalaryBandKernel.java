@@ -0,0 +1,66 @@
+package org.bigcompany.service.impl;
+
+/**
+ * The SalaryBandKernel interface describes the numeric inner loops of the salary band analysis,
+ * run over primitive salary arrays instead of BigDecimal objects.
+ * All salaries passed to a kernel are unscaled values at one common scale, and the subordinates of
+ * each manager are laid out contiguously, so the loops read memory sequentially.
+ * Implementations must produce exactly the same results; callers are responsible for ruling out overflow.
+ */
+public interface SalaryBandKernel {
+
+    /**
+     * The band of a manager whose salary is within the expected range.
+     */
+    byte WITHIN_BAND = 0;
+
+    /**
+     * The band of a manager who earns less than the lower threshold.
+     */
+    byte UNDERPAID = 1;
+
+    /**
+     * The band of a manager who earns more than the upper threshold.
+     */
+    byte OVERPAID = 2;
+
+    /**
+     * Sums a contiguous range of salaries.
+     *
+     * @param salaries the unscaled salaries
+     * @param from     the index of the first salary, inclusive
+     * @param to       the index of the last salary, exclusive
+     * @return the sum of the salaries in the range
+     */
+    long sum(long[] salaries, int from, int to);
+
+    /**
+     * Classifies managers against the thresholds {@code average * lowerNumerator / denominator} and
+     * {@code average * upperNumerator / denominator}. A manager is underpaid if their salary is strictly below
+     * the lower threshold and overpaid if it is strictly above the upper one; the comparisons are exact
+     * because both sides are multiplied out by the denominator.
+     *
+     * @param salaries       the unscaled salaries of the managers
+     * @param averages       the unscaled average subordinate salaries of the managers, at the same scale
+     * @param length         the number of managers to classify
+     * @param lowerNumerator the numerator of the lower multiplier
+     * @param upperNumerator the numerator of the upper multiplier
+     * @param denominator    the common denominator of both multipliers
+     * @param bands          receives the band of each manager
+     * @return the number of managers outside the band
+     */
+    int classify(long[] salaries, long[] averages, int length,
+                 long lowerNumerator, long upperNumerator, long denominator, byte[] bands);
+
+    /**
+     * Returns the fastest kernel available in the running JVM: the Vector API kernel when the
+     * jdk.incubator.vector module is present, the scalar kernel otherwise.
+     *
+     * @return the kernel to use
+     */
+    static SalaryBandKernel select() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                ? new VectorSalaryBandKernel()
+                : new ScalarSalaryBandKernel();
+    }
+}
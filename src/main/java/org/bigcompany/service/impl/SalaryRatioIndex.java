@@ -0,0 +1,174 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.event.AnalysisEvent;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Manager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SalaryRatioIndex class keeps every manager sorted by the ratio of their salary to the average salary
+ * of their direct subordinates. The ratios are computed once; the managers outside any band are then
+ * counted or listed with a binary search, so many multiplier pairs can be evaluated for the cost of one report.
+ * The ratios are compared exactly, by cross-multiplying salaries and averages, so a band evaluated here
+ * gives the same managers as the SalaryService with the same multipliers.
+ */
+public final class SalaryRatioIndex {
+
+    private final RatioEntry[] entries;
+    private final List<Manager> managersByRatio;
+
+    /**
+     * Constructs a SalaryRatioIndex over the managers of the given employees.
+     * @param employees A map of all employees, keyed by their unique identifiers.
+     */
+    public SalaryRatioIndex(Map<String, CompanyStaff> employees) {
+        AnalysisEvent analysisEvent = new AnalysisEvent();
+        analysisEvent.begin();
+        List<RatioEntry> ratioEntries = new ArrayList<>();
+        for (CompanyStaff employee : employees.values()) {
+            if (employee instanceof Manager manager && !manager.getSubordinates().isEmpty()) {
+                BigDecimal totalSalary = BigDecimal.ZERO;
+                for (CompanyStaff subordinate : manager.getSubordinates()) {
+                    totalSalary = totalSalary.add(subordinate.getSalary());
+                }
+                BigDecimal averageSalary = SalaryService.calculateAverageSalary(totalSalary, manager.getSubordinates().size());
+                ratioEntries.add(new RatioEntry(manager, averageSalary));
+            }
+        }
+        entries = ratioEntries.toArray(new RatioEntry[0]);
+        Arrays.sort(entries, RatioEntry.BY_RATIO);
+        Manager[] managers = new Manager[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            managers[i] = entries[i].manager();
+        }
+        managersByRatio = List.of(managers);
+        analysisEvent.end();
+        if (analysisEvent.shouldCommit()) {
+            analysisEvent.analysis = AnalysisEvent.SALARY_RATIO_INDEX;
+            analysisEvent.orgSize = employees.size();
+            analysisEvent.findings = entries.length;
+            analysisEvent.commit();
+        }
+    }
+
+    /**
+     * Gets the number of managers in the index.
+     * @return The number of managers with at least one subordinate.
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Counts the managers who earn less than the given multiple of their subordinates' average salary.
+     * @param underpaidMultiplier The multiplier of the lower bound of the band, such as 1.2.
+     * @return The number of underpaid managers.
+     */
+    public int countUnderpaid(BigDecimal underpaidMultiplier) {
+        return firstAtOrAbove(underpaidMultiplier);
+    }
+
+    /**
+     * Counts the managers who earn more than the given multiple of their subordinates' average salary.
+     * @param overpaidMultiplier The multiplier of the upper bound of the band, such as 1.5.
+     * @return The number of overpaid managers.
+     */
+    public int countOverpaid(BigDecimal overpaidMultiplier) {
+        return entries.length - firstAbove(overpaidMultiplier);
+    }
+
+    /**
+     * Counts the managers outside the band between the given multiples of their subordinates' average salary.
+     * @param underpaidMultiplier The multiplier of the lower bound of the band, such as 1.2.
+     * @param overpaidMultiplier The multiplier of the upper bound of the band, such as 1.5.
+     * @return The number of underpaid and overpaid managers.
+     */
+    public int countOutsideBand(BigDecimal underpaidMultiplier, BigDecimal overpaidMultiplier) {
+        return countUnderpaid(underpaidMultiplier) + countOverpaid(overpaidMultiplier);
+    }
+
+    /**
+     * Gets the managers who earn less than the given multiple of their subordinates' average salary.
+     * @param underpaidMultiplier The multiplier of the lower bound of the band, such as 1.2.
+     * @return The underpaid managers, from the lowest to the highest ratio.
+     */
+    public List<Manager> getUnderpaidManagers(BigDecimal underpaidMultiplier) {
+        return managersByRatio.subList(0, countUnderpaid(underpaidMultiplier));
+    }
+
+    /**
+     * Gets the managers who earn more than the given multiple of their subordinates' average salary.
+     * @param overpaidMultiplier The multiplier of the upper bound of the band, such as 1.5.
+     * @return The overpaid managers, from the lowest to the highest ratio.
+     */
+    public List<Manager> getOverpaidManagers(BigDecimal overpaidMultiplier) {
+        return managersByRatio.subList(firstAbove(overpaidMultiplier), entries.length);
+    }
+
+    /**
+     * Finds the first manager whose salary is at least the given multiple of their subordinates' average salary.
+     */
+    private int firstAtOrAbove(BigDecimal multiplier) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries[middle].compareToExpected(multiplier) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first manager whose salary is above the given multiple of their subordinates' average salary.
+     */
+    private int firstAbove(BigDecimal multiplier) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries[middle].compareToExpected(multiplier) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * A manager together with the average salary of their direct subordinates.
+     */
+    private record RatioEntry(Manager manager, BigDecimal averageSalary) {
+
+        /**
+         * Orders entries by salary / average without dividing: s1 / a1 < s2 / a2 exactly when s1 * a2 < s2 * a1.
+         * An average of zero, possible only after rounding, counts as an infinite ratio.
+         */
+        static final Comparator<RatioEntry> BY_RATIO = (first, second) -> {
+            boolean firstInfinite = first.averageSalary.signum() == 0;
+            boolean secondInfinite = second.averageSalary.signum() == 0;
+            if (firstInfinite || secondInfinite) {
+                return Boolean.compare(firstInfinite, secondInfinite);
+            }
+            return first.manager.getSalary().multiply(second.averageSalary)
+                    .compareTo(second.manager.getSalary().multiply(first.averageSalary));
+        };
+
+        /**
+         * Compares the manager's salary with the given multiple of the average, as the SalaryService does.
+         */
+        int compareToExpected(BigDecimal multiplier) {
+            return manager.getSalary().compareTo(averageSalary.multiply(multiplier));
+        }
+    }
+}
@@ -1,15 +1,25 @@
 package org.bigcompany.service.impl;
 
+import org.bigcompany.event.AnalysisEvent;
 import org.bigcompany.exception.EmployeeDataException;
 import org.bigcompany.exception.InvalidSalaryException;
 import org.bigcompany.model.CompanyStaff;
 import org.bigcompany.model.Manager;
+import org.bigcompany.model.OffHeapOrg;
+import org.bigcompany.model.OrgView;
+import org.bigcompany.model.ReportFinding;
+import org.bigcompany.model.SalaryBand;
+import org.bigcompany.model.SalaryBenchmark;
 import org.bigcompany.service.ISalaryService;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -18,15 +28,64 @@ import java.util.stream.Collectors;
  * The SalaryService class provides methods to manage employee salaries.
  * It provides methods to calculate the average subordinate salary and to get underpaid and overpaid managers.
  * It also provides methods to check if a manager's salary meets a certain condition and to calculate the underpayment or overpayment amount.
+ * By default a manager's salary is judged against the average salary of their direct subordinates; with the median
+ * benchmark it is judged against their median salary, which a single outlier in the team does not skew.
  *
  * @author Neha B Acharya
  */
 public class SalaryService implements ISalaryService {
 
-    private static final BigDecimal UNDERPAID_MULTIPLIER = BigDecimal.valueOf(1.2);
-    private static final BigDecimal OVERPAID_MULTIPLIER = BigDecimal.valueOf(1.5);
+    /**
+     * The multiple of the average subordinate salary that a manager must earn at least.
+     */
+    public static final BigDecimal UNDERPAID_MULTIPLIER = BigDecimal.valueOf(1.2);
+
+    /**
+     * The multiple of the average subordinate salary that a manager may earn at most.
+     */
+    public static final BigDecimal OVERPAID_MULTIPLIER = BigDecimal.valueOf(1.5);
+
     private static final int SCALE = 2;
 
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private final SalaryBandKernel salaryBandKernel;
+    private final SalaryBenchmark salaryBenchmark;
+
+    /**
+     * Constructs a SalaryService that uses the fastest salary band kernel available in the running JVM.
+     */
+    public SalaryService() {
+        this(SalaryBandKernel.select());
+    }
+
+    /**
+     * Constructs a SalaryService that judges salary bands against the given statistic of the subordinates' salaries.
+     * @param salaryBenchmark The statistic to multiply by the band multipliers.
+     */
+    public SalaryService(SalaryBenchmark salaryBenchmark) {
+        this(SalaryBandKernel.select(), salaryBenchmark);
+    }
+
+    /**
+     * Constructs a SalaryService that uses the given salary band kernel for off-heap organisations.
+     * @param salaryBandKernel The kernel to run the numeric inner loops with.
+     */
+    public SalaryService(SalaryBandKernel salaryBandKernel) {
+        this(salaryBandKernel, SalaryBenchmark.MEAN);
+    }
+
+    /**
+     * Constructs a SalaryService.
+     * @param salaryBandKernel The kernel to run the numeric inner loops with. It only computes means,
+     *                         so it is not used with the median benchmark.
+     * @param salaryBenchmark The statistic of the subordinates' salaries to multiply by the band multipliers.
+     */
+    public SalaryService(SalaryBandKernel salaryBandKernel, SalaryBenchmark salaryBenchmark) {
+        this.salaryBandKernel = salaryBandKernel;
+        this.salaryBenchmark = salaryBenchmark;
+    }
+
     /**
      * Gets the underpaid managers.
      * @param employees A map of all employees, keyed by their unique identifiers.
@@ -34,7 +93,8 @@ public class SalaryService implements ISalaryService {
      */
     public Map<Manager, BigDecimal> getUnderpaidManagers(Map<String, CompanyStaff> employees) {
         return getManagersBySalaryCondition(employees, UNDERPAID_MULTIPLIER,
-                                            (managerSalary, expectedSalary) -> managerSalary.compareTo(expectedSalary) < 0);
+                                            (managerSalary, expectedSalary) -> managerSalary.compareTo(expectedSalary) < 0,
+                                            AnalysisEvent.UNDERPAID_MANAGERS);
     }
 
     /**
@@ -45,7 +105,64 @@ public class SalaryService implements ISalaryService {
     public Map<Manager, BigDecimal> getOverpaidManagers(Map<String, CompanyStaff> employees) {
         return getManagersBySalaryCondition(employees,
                                             OVERPAID_MULTIPLIER,
-                                            (managerSalary, expectedSalary) -> expectedSalary.compareTo(managerSalary) < 0);
+                                            (managerSalary, expectedSalary) -> expectedSalary.compareTo(managerSalary) < 0,
+                                            AnalysisEvent.OVERPAID_MANAGERS);
+    }
+
+    /**
+     * Gets the underpaid managers of an index-based organisation view.
+     * @param org The view of the organisation.
+     * @return A map from the index of each underpaid manager to the underpayment amount, in index order.
+     */
+    public Map<Integer, BigDecimal> getUnderpaidManagers(OrgView org) {
+        return getManagersBySalaryCondition(org, UNDERPAID_MULTIPLIER,
+                                            (managerSalary, expectedSalary) -> managerSalary.compareTo(expectedSalary) < 0,
+                                            SalaryBandKernel.UNDERPAID,
+                                            AnalysisEvent.UNDERPAID_MANAGERS);
+    }
+
+    /**
+     * Gets the overpaid managers of an index-based organisation view.
+     * @param org The view of the organisation.
+     * @return A map from the index of each overpaid manager to the overpayment amount, in index order.
+     */
+    public Map<Integer, BigDecimal> getOverpaidManagers(OrgView org) {
+        return getManagersBySalaryCondition(org, OVERPAID_MULTIPLIER,
+                                            (managerSalary, expectedSalary) -> expectedSalary.compareTo(managerSalary) < 0,
+                                            SalaryBandKernel.OVERPAID,
+                                            AnalysisEvent.OVERPAID_MANAGERS);
+    }
+
+    /**
+     * Gets the salary finding for a single manager, computing the benchmark subordinate salary once.
+     * @param manager The manager, with their direct subordinates.
+     * @return The overpaid or underpaid finding for the manager, or an empty Optional if the salary is within the band.
+     */
+    @Override
+    public Optional<ReportFinding> getSalaryFinding(Manager manager) {
+        return getSalaryFinding(manager, calculateBenchmarkSubordinateSalary(manager));
+    }
+
+    /**
+     * Gets the salary finding for a manager whose benchmark subordinate salary is already known.
+     * @param manager The manager.
+     * @param averageSubordinateSalary The average, or with the median benchmark the median, salary of the manager's
+     *                                 direct subordinates.
+     * @return The overpaid or underpaid finding for the manager, or an empty Optional if the salary is within the band.
+     */
+    static Optional<ReportFinding> getSalaryFinding(Manager manager, BigDecimal averageSubordinateSalary) {
+        BigDecimal managerSalary = manager.getSalary();
+        BigDecimal lowerSalary = averageSubordinateSalary.multiply(UNDERPAID_MULTIPLIER);
+        if (managerSalary.compareTo(lowerSalary) < 0) {
+            BigDecimal underpayment = managerSalary.subtract(lowerSalary).abs().setScale(SCALE, RoundingMode.HALF_UP);
+            return Optional.of(new ReportFinding.UnderpaidManager(manager, underpayment));
+        }
+        BigDecimal upperSalary = averageSubordinateSalary.multiply(OVERPAID_MULTIPLIER);
+        if (upperSalary.compareTo(managerSalary) < 0) {
+            BigDecimal overpayment = managerSalary.subtract(upperSalary).abs().setScale(SCALE, RoundingMode.HALF_UP);
+            return Optional.of(new ReportFinding.OverpaidManager(manager, overpayment));
+        }
+        return Optional.empty();
     }
 
     /**
@@ -64,10 +181,72 @@ public class SalaryService implements ISalaryService {
         BigDecimal totalSalary = subordinates.stream()
                 .map(CompanyStaff::getSalary)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return calculateAverageSalary(totalSalary, subordinates.size());
+    }
+
+    /**
+     * Calculates the salary of a manager's direct subordinates that the manager's salary band is judged against.
+     * @param employee The manager.
+     * @return The average or the median subordinate salary, depending on the salary benchmark.
+     */
+    BigDecimal calculateBenchmarkSubordinateSalary(CompanyStaff employee) {
+        if (salaryBenchmark == SalaryBenchmark.MEAN) {
+            return calculateAverageSubordinateSalary(employee);
+        }
+        if (!(employee instanceof Manager manager)) {
+            throw new EmployeeDataException("CompanyStaff " + employee.getId() + " is not a manager");
+        }
+        List<BigDecimal> salaries = new ArrayList<>(manager.getSubordinates().size());
+        for (CompanyStaff subordinate : manager.getSubordinates()) {
+            salaries.add(subordinate.getSalary());
+        }
+        return salaries.isEmpty() ? BigDecimal.ZERO : calculateMedianSalary(salaries);
+    }
+
+    /**
+     * Calculates the median of the salaries of a manager's direct subordinates.
+     * @param salaries The salaries, which are sorted in place.
+     * @return The middle salary, or the average of the two middle salaries rounded half up at their scale.
+     */
+    static BigDecimal calculateMedianSalary(List<BigDecimal> salaries) {
+        salaries.sort(null);
+        int middle = salaries.size() / 2;
+        BigDecimal median = salaries.size() % 2 == 1
+                ? salaries.get(middle)
+                : salaries.get(middle - 1).add(salaries.get(middle)).divide(TWO, RoundingMode.HALF_UP);
+        if (median.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidSalaryException("Median salary of subordinates is zero or negative");
+        }
+        return median;
+    }
+
+    /**
+     * Calculates the average of a total salary over a number of subordinates.
+     * @param totalSalary The total salary of the subordinates.
+     * @param subordinateCount The number of subordinates.
+     * @return The average salary, at the scale of the total salary.
+     */
+    static BigDecimal calculateAverageSalary(BigDecimal totalSalary, int subordinateCount) {
         if (totalSalary.compareTo(BigDecimal.ZERO) <= 0) {
             throw new InvalidSalaryException("Total salary of subordinates is zero or negative");
         }
-        return totalSalary.divide(BigDecimal.valueOf(subordinates.size()), RoundingMode.HALF_UP);
+        return totalSalary.divide(BigDecimal.valueOf(subordinateCount), RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Classifies a manager's salary against the average salary of their direct subordinates.
+     * @param managerSalary The salary of the manager.
+     * @param averageSalary The average salary of the manager's direct subordinates.
+     * @return The band of the manager's salary.
+     */
+    static SalaryBand classifySalary(BigDecimal managerSalary, BigDecimal averageSalary) {
+        if (managerSalary.compareTo(averageSalary.multiply(UNDERPAID_MULTIPLIER)) < 0) {
+            return SalaryBand.UNDERPAID;
+        }
+        if (managerSalary.compareTo(averageSalary.multiply(OVERPAID_MULTIPLIER)) > 0) {
+            return SalaryBand.OVERPAID;
+        }
+        return SalaryBand.WITHIN_BAND;
     }
 
     /**
@@ -75,17 +254,176 @@ public class SalaryService implements ISalaryService {
      * @param employees A map of all employees, keyed by their unique identifiers.
      * @param multiplier The multiplier to calculate the expected salary.
      * @param salaryComparator The salary comparator to check if the salary meets the condition.
+     * @param analysis The name of the analysis, as recorded in the flight recorder event.
      * @return A map of managers and their underpayment or overpayment amounts.
      */
     private Map<Manager, BigDecimal> getManagersBySalaryCondition(Map<String, CompanyStaff> employees,
                                                                   BigDecimal multiplier,
-                                                                  BiPredicate<BigDecimal, BigDecimal> salaryComparator) {
-        return employees.values().stream()
+                                                                  BiPredicate<BigDecimal, BigDecimal> salaryComparator,
+                                                                  String analysis) {
+        AnalysisEvent analysisEvent = new AnalysisEvent();
+        analysisEvent.begin();
+        Map<Manager, BigDecimal> managers = employees.values().stream()
                         .filter(Manager.class::isInstance)
                         .map(Manager.class::cast)
                         .filter(manager -> isSalaryConditionMet(manager, multiplier, salaryComparator))
                         .collect(Collectors.toMap(Function.identity(),
                                                   manager -> calculateUnderOrOverPayment(manager, multiplier)));
+        analysisEvent.end();
+        if (analysisEvent.shouldCommit()) {
+            analysisEvent.analysis = analysis;
+            analysisEvent.orgSize = employees.size();
+            analysisEvent.findings = managers.size();
+            analysisEvent.commit();
+        }
+        return managers;
+    }
+
+    /**
+     * Gets the managers of an index-based organisation view based on a specified salary condition.
+     * The subordinates of each manager occupy a contiguous range of indices, so the view is read sequentially.
+     * Off-heap organisations whose salaries share one scale are analysed by the salary band kernel over
+     * primitive salaries; any other view is analysed with BigDecimal arithmetic. Both give the same results.
+     * @param org The view of the organisation.
+     * @param multiplier The multiplier to calculate the expected salary.
+     * @param salaryComparator The salary comparator to check if the salary meets the condition.
+     * @param band The salary band kernel band that corresponds to the condition.
+     * @param analysis The name of the analysis, as recorded in the flight recorder event.
+     * @return A map from the index of each manager to the underpayment or overpayment amount, in index order.
+     */
+    private Map<Integer, BigDecimal> getManagersBySalaryCondition(OrgView org,
+                                                                  BigDecimal multiplier,
+                                                                  BiPredicate<BigDecimal, BigDecimal> salaryComparator,
+                                                                  byte band,
+                                                                  String analysis) {
+        AnalysisEvent analysisEvent = new AnalysisEvent();
+        analysisEvent.begin();
+        Map<Integer, BigDecimal> managers = org instanceof OffHeapOrg offHeapOrg && salaryBenchmark == SalaryBenchmark.MEAN
+                ? getManagersInBand(offHeapOrg, band, multiplier)
+                : null;
+        if (managers == null) {
+            managers = getManagersBySalaryCondition(org, multiplier, salaryComparator);
+        }
+        analysisEvent.end();
+        if (analysisEvent.shouldCommit()) {
+            analysisEvent.analysis = analysis;
+            analysisEvent.orgSize = org.size();
+            analysisEvent.findings = managers.size();
+            analysisEvent.commit();
+        }
+        return managers;
+    }
+
+    /**
+     * Gets the managers of an index-based organisation view that meet a salary condition, with BigDecimal arithmetic.
+     * This is the only index-based path that supports the median benchmark.
+     * @param org The view of the organisation.
+     * @param multiplier The multiplier to calculate the expected salary.
+     * @param salaryComparator The salary comparator to check if the salary meets the condition.
+     * @return A map from the index of each manager to the underpayment or overpayment amount, in index order.
+     */
+    private Map<Integer, BigDecimal> getManagersBySalaryCondition(OrgView org,
+                                                                  BigDecimal multiplier,
+                                                                  BiPredicate<BigDecimal, BigDecimal> salaryComparator) {
+        Map<Integer, BigDecimal> managers = new LinkedHashMap<>();
+        for (int index = 0; index < org.size(); index++) {
+            int subordinateCount = org.getSubordinateCount(index);
+            if (subordinateCount == 0) {
+                continue;
+            }
+            int firstSubordinate = org.getFirstSubordinate(index);
+            BigDecimal benchmarkSalary;
+            if (salaryBenchmark == SalaryBenchmark.MEAN) {
+                BigDecimal totalSalary = BigDecimal.ZERO;
+                for (int subordinate = firstSubordinate; subordinate < firstSubordinate + subordinateCount; subordinate++) {
+                    totalSalary = totalSalary.add(org.getSalary(subordinate));
+                }
+                benchmarkSalary = calculateAverageSalary(totalSalary, subordinateCount);
+            } else {
+                List<BigDecimal> salaries = new ArrayList<>(subordinateCount);
+                for (int subordinate = firstSubordinate; subordinate < firstSubordinate + subordinateCount; subordinate++) {
+                    salaries.add(org.getSalary(subordinate));
+                }
+                benchmarkSalary = calculateMedianSalary(salaries);
+            }
+            BigDecimal expectedSalary = benchmarkSalary.multiply(multiplier);
+            BigDecimal managerSalary = org.getSalary(index);
+            if (salaryComparator.test(managerSalary, expectedSalary)) {
+                managers.put(index, managerSalary.subtract(expectedSalary).abs().setScale(SCALE, RoundingMode.HALF_UP));
+            }
+        }
+        return managers;
+    }
+
+    /**
+     * Gets the managers of an off-heap organisation in a salary band, with the salary band kernel.
+     * The kernel works on unscaled salaries, so it is only used when all salaries share one non-negative scale,
+     * are positive, and are small enough that no sum or threshold can overflow a long.
+     * @param org The off-heap organisation.
+     * @param band The band to select.
+     * @param multiplier The multiplier of the band, used to calculate the underpayment or overpayment amounts.
+     * @return A map from the index of each manager in the band to the amount, in index order,
+     *         or null if the kernel cannot be used for this organisation.
+     */
+    private Map<Integer, BigDecimal> getManagersInBand(OffHeapOrg org, byte band, BigDecimal multiplier) {
+        OptionalInt salaryScale = org.getUniformSalaryScale();
+        if (salaryScale.isEmpty() || salaryScale.getAsInt() < 0) {
+            return null;
+        }
+        int multiplierScale = Math.max(UNDERPAID_MULTIPLIER.scale(), OVERPAID_MULTIPLIER.scale());
+        long lowerNumerator = UNDERPAID_MULTIPLIER.setScale(multiplierScale).unscaledValue().longValueExact();
+        long upperNumerator = OVERPAID_MULTIPLIER.setScale(multiplierScale).unscaledValue().longValueExact();
+        long denominator = BigDecimal.ONE.setScale(multiplierScale).unscaledValue().longValueExact();
+        long[] salaries = org.copyUnscaledSalaries();
+        long maxSalary = 0;
+        for (long salary : salaries) {
+            if (salary <= 0) {
+                return null;
+            }
+            maxSalary = Math.max(maxSalary, salary);
+        }
+        if (maxSalary > Long.MAX_VALUE / Math.max(Math.max(salaries.length, upperNumerator), denominator)) {
+            return null;
+        }
+
+        int managerCount = 0;
+        for (int index = 0; index < org.size(); index++) {
+            if (org.getSubordinateCount(index) > 0) {
+                managerCount++;
+            }
+        }
+        int[] managerIndexes = new int[managerCount];
+        long[] managerSalaries = new long[managerCount];
+        long[] averageSalaries = new long[managerCount];
+        int manager = 0;
+        for (int index = 0; index < org.size(); index++) {
+            int subordinateCount = org.getSubordinateCount(index);
+            if (subordinateCount > 0) {
+                int firstSubordinate = org.getFirstSubordinate(index);
+                long totalSalary = salaryBandKernel.sum(salaries, firstSubordinate, firstSubordinate + subordinateCount);
+                // Same rounding as calculateAverageSalary: half up, at the scale of the salaries
+                long averageSalary = totalSalary / subordinateCount;
+                if (2 * (totalSalary % subordinateCount) >= subordinateCount) {
+                    averageSalary++;
+                }
+                managerIndexes[manager] = index;
+                managerSalaries[manager] = salaries[index];
+                averageSalaries[manager] = averageSalary;
+                manager++;
+            }
+        }
+        byte[] bands = new byte[managerCount];
+        salaryBandKernel.classify(managerSalaries, averageSalaries, managerCount, lowerNumerator, upperNumerator, denominator, bands);
+
+        Map<Integer, BigDecimal> managers = new LinkedHashMap<>();
+        for (manager = 0; manager < managerCount; manager++) {
+            if (bands[manager] == band) {
+                BigDecimal managerSalary = BigDecimal.valueOf(managerSalaries[manager], salaryScale.getAsInt());
+                BigDecimal expectedSalary = BigDecimal.valueOf(averageSalaries[manager], salaryScale.getAsInt()).multiply(multiplier);
+                managers.put(managerIndexes[manager], managerSalary.subtract(expectedSalary).abs().setScale(SCALE, RoundingMode.HALF_UP));
+            }
+        }
+        return managers;
     }
 
     /**
@@ -95,7 +433,7 @@ public class SalaryService implements ISalaryService {
      * @return The underpayment or overpayment amount for the given manager.
      */
     private BigDecimal calculateUnderOrOverPayment(Manager manager, BigDecimal multiplier) {
-        BigDecimal averageSubordinateSalary = calculateAverageSubordinateSalary(manager);
+        BigDecimal averageSubordinateSalary = calculateBenchmarkSubordinateSalary(manager);
         BigDecimal expectedSalary = averageSubordinateSalary.multiply(multiplier);
         BigDecimal managerSalary = manager.getSalary();
         BigDecimal underOrOverPayment = managerSalary.subtract(expectedSalary).abs();
@@ -111,7 +449,7 @@ public class SalaryService implements ISalaryService {
     private boolean isSalaryConditionMet(Manager manager,
                                          BigDecimal multiplier,
                                          BiPredicate<BigDecimal, BigDecimal> salaryComparator) {
-        BigDecimal averageSubordinateSalary = calculateAverageSubordinateSalary(manager);
+        BigDecimal averageSubordinateSalary = calculateBenchmarkSubordinateSalary(manager);
         BigDecimal managerSalary = manager.getSalary();
         BigDecimal expectedSalary = averageSubordinateSalary.multiply(multiplier);
         return salaryComparator.test(managerSalary, expectedSalary);
@@ -0,0 +1,184 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.exception.InvalidSalaryException;
+import org.bigcompany.model.BandChange;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Manager;
+import org.bigcompany.model.SalaryBand;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SalaryWhatIfSession class applies tentative salary changes on top of a loaded hierarchy and reports
+ * which managers move into or out of their salary band.
+ * A salary change only affects the average of the employee's own manager, so each change updates that
+ * manager's running subordinate total and reclassifies at most two managers: the employee's manager and,
+ * if the employee is a manager, the employee. The loaded employees are never modified.
+ */
+public final class SalaryWhatIfSession {
+
+    private final Map<String, CompanyStaff> employees;
+    private final Map<String, BigDecimal> tentativeSalaries = new HashMap<>();
+    private final Map<String, ManagerState> managerStates = new HashMap<>();
+
+    /**
+     * Constructs a SalaryWhatIfSession over the given hierarchy.
+     * @param employees A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     */
+    public SalaryWhatIfSession(Map<String, CompanyStaff> employees) {
+        this.employees = employees;
+    }
+
+    /**
+     * Tentatively changes the salary of an employee.
+     * @param employeeId The ID of the employee whose salary changes.
+     * @param newSalary The new salary, which must be greater than zero.
+     * @return The managers whose band changed with this salary change, compared with the band before it.
+     */
+    public List<BandChange> changeSalary(String employeeId, BigDecimal newSalary) {
+        if (newSalary.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidSalaryException("Salary must be greater than zero");
+        }
+        CompanyStaff employee = getEmployee(employeeId);
+        Manager manager = employee.getManagerId() == null ? null : (Manager) getEmployee(employee.getManagerId());
+        ManagerState managerState = manager == null ? null : getManagerState(manager);
+        ManagerState employeeState = isManager(employee) ? getManagerState((Manager) employee) : null;
+
+        BigDecimal oldSalary = getSalary(employeeId);
+        tentativeSalaries.put(employeeId, newSalary);
+
+        List<BandChange> changes = new ArrayList<>(2);
+        if (managerState != null) {
+            managerState.subordinateTotal = managerState.subordinateTotal.subtract(oldSalary).add(newSalary);
+            reclassify(managerState, changes);
+        }
+        if (employeeState != null) {
+            reclassify(employeeState, changes);
+        }
+        return changes;
+    }
+
+    /**
+     * Tentatively raises the salary of an employee. A negative raise lowers the salary.
+     * @param employeeId The ID of the employee whose salary changes.
+     * @param raise The amount added to the employee's current tentative salary.
+     * @return The managers whose band changed with this salary change, compared with the band before it.
+     */
+    public List<BandChange> raiseSalary(String employeeId, BigDecimal raise) {
+        return changeSalary(employeeId, getSalary(employeeId).add(raise));
+    }
+
+    /**
+     * Gets the tentative salary of an employee.
+     * @param employeeId The ID of the employee.
+     * @return The salary of the employee with all changes of this session applied.
+     */
+    public BigDecimal getSalary(String employeeId) {
+        BigDecimal salary = tentativeSalaries.get(employeeId);
+        return salary != null ? salary : getEmployee(employeeId).getSalary();
+    }
+
+    /**
+     * Gets the tentative salary band of a manager.
+     * @param managerId The ID of the manager.
+     * @return The band of the manager's salary with all changes of this session applied.
+     */
+    public SalaryBand getBand(String managerId) {
+        CompanyStaff employee = getEmployee(managerId);
+        if (!isManager(employee)) {
+            throw new EmployeeDataException("CompanyStaff " + managerId + " is not a manager");
+        }
+        return getManagerState((Manager) employee).band;
+    }
+
+    /**
+     * Gets the managers whose band differs from their band in the loaded hierarchy.
+     * @return The accumulated difference of all changes of this session, from the loaded bands to the tentative ones.
+     */
+    public List<BandChange> getChangesFromBase() {
+        List<BandChange> changes = new ArrayList<>();
+        for (ManagerState state : managerStates.values()) {
+            if (state.band != state.baseBand) {
+                changes.add(new BandChange(state.manager, state.baseBand, state.band));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Discards all tentative salary changes of this session.
+     */
+    public void reset() {
+        tentativeSalaries.clear();
+        managerStates.clear();
+    }
+
+    /**
+     * Reclassifies a manager and records the change of band, if any.
+     */
+    private void reclassify(ManagerState state, List<BandChange> changes) {
+        SalaryBand band = classify(state);
+        if (band != state.band) {
+            changes.add(new BandChange(state.manager, state.band, band));
+            state.band = band;
+        }
+    }
+
+    /**
+     * Gets the running state of a manager, summing the tentative salaries of the subordinates on first use.
+     */
+    private ManagerState getManagerState(Manager manager) {
+        ManagerState state = managerStates.get(manager.getId());
+        if (state == null) {
+            state = new ManagerState(manager);
+            BigDecimal total = BigDecimal.ZERO;
+            for (CompanyStaff subordinate : manager.getSubordinates()) {
+                total = total.add(getSalary(subordinate.getId()));
+            }
+            state.subordinateTotal = total;
+            state.band = classify(state);
+            state.baseBand = state.band;
+            managerStates.put(manager.getId(), state);
+        }
+        return state;
+    }
+
+    /**
+     * Classifies the tentative salary of a manager against the tentative average of their subordinates.
+     */
+    private SalaryBand classify(ManagerState state) {
+        BigDecimal averageSalary = SalaryService.calculateAverageSalary(state.subordinateTotal, state.manager.getSubordinates().size());
+        return SalaryService.classifySalary(getSalary(state.manager.getId()), averageSalary);
+    }
+
+    private CompanyStaff getEmployee(String employeeId) {
+        CompanyStaff employee = employees.get(employeeId);
+        if (employee == null) {
+            throw new EmployeeDataException("Unknown employee ID: " + employeeId);
+        }
+        return employee;
+    }
+
+    private static boolean isManager(CompanyStaff employee) {
+        return employee instanceof Manager manager && !manager.getSubordinates().isEmpty();
+    }
+
+    /**
+     * The running subordinate total and the bands of one manager touched by the session.
+     */
+    private static final class ManagerState {
+        private final Manager manager;
+        private BigDecimal subordinateTotal;
+        private SalaryBand baseBand;
+        private SalaryBand band;
+
+        private ManagerState(Manager manager) {
+            this.manager = manager;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.bigcompany.service.impl;
+
+/**
+ * The ScalarSalaryBandKernel class is the portable implementation of the SalaryBandKernel,
+ * used when the Vector API is not available.
+ */
+public final class ScalarSalaryBandKernel implements SalaryBandKernel {
+
+    @Override
+    public long sum(long[] salaries, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += salaries[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int classify(long[] salaries, long[] averages, int length,
+                        long lowerNumerator, long upperNumerator, long denominator, byte[] bands) {
+        int outsideBand = 0;
+        for (int i = 0; i < length; i++) {
+            long scaledSalary = salaries[i] * denominator;
+            if (scaledSalary < averages[i] * lowerNumerator) {
+                bands[i] = UNDERPAID;
+                outsideBand++;
+            } else if (scaledSalary > averages[i] * upperNumerator) {
+                bands[i] = OVERPAID;
+                outsideBand++;
+            } else {
+                bands[i] = WITHIN_BAND;
+            }
+        }
+        return outsideBand;
+    }
+}
@@ -0,0 +1,128 @@
+package org.bigcompany.service.impl;
+
+import org.bigcompany.event.AnalysisEvent;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Manager;
+import org.bigcompany.model.SalaryPercentiles;
+import org.bigcompany.model.SalarySketch;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The SubtreeSalaryQuantiles class answers salary percentile queries for the team and the subtree of every manager
+ * of a loaded hierarchy. The team of a manager is their direct subordinates; the subtree is everyone who reports
+ * to them, directly or indirectly.
+ * <p>
+ * Each manager keeps a SalarySketch of their subtree. The sketches are built bottom-up in one pass: the hierarchy is
+ * numbered depth-first, so walking the numbers backwards visits every employee after all of their subordinates,
+ * and each employee's salary and subtree sketch are merged into their manager's sketch. A sketch holds a bounded
+ * number of salaries however large the subtree is, so the whole index takes memory proportional to the number
+ * of managers. Teams are small and are sketched when they are queried.
+ */
+public final class SubtreeSalaryQuantiles {
+
+    private static final int SCALE = 2;
+
+    private final HierarchyNumbering numbering;
+    private final SalarySketch[] subtreeSketches;
+    private final int accuracy;
+
+    /**
+     * Constructs a SubtreeSalaryQuantiles with sketches of the default accuracy.
+     * @param employees A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     */
+    public SubtreeSalaryQuantiles(Map<String, CompanyStaff> employees) {
+        this(employees, SalarySketch.DEFAULT_ACCURACY);
+    }
+
+    /**
+     * Constructs a SubtreeSalaryQuantiles.
+     * @param employees A map of all employees, keyed by their unique identifiers, as built by the EmployeeService.
+     * @param accuracy The accuracy parameter of the sketches.
+     */
+    public SubtreeSalaryQuantiles(Map<String, CompanyStaff> employees, int accuracy) {
+        AnalysisEvent analysisEvent = new AnalysisEvent();
+        analysisEvent.begin();
+        this.accuracy = accuracy;
+        numbering = new HierarchyNumbering(employees);
+        subtreeSketches = new SalarySketch[numbering.size()];
+        int managerCount = 0;
+        for (int index = numbering.size() - 1; index > HierarchyNumbering.CEO; index--) {
+            int parent = numbering.parents[index];
+            if (subtreeSketches[parent] == null) {
+                subtreeSketches[parent] = new SalarySketch(accuracy);
+                managerCount++;
+            }
+            subtreeSketches[parent].add(numbering.employees[index].getSalary().doubleValue());
+            if (subtreeSketches[index] != null) {
+                subtreeSketches[parent].merge(subtreeSketches[index]);
+            }
+        }
+        analysisEvent.end();
+        if (analysisEvent.shouldCommit()) {
+            analysisEvent.analysis = AnalysisEvent.SUBTREE_SALARY_QUANTILES;
+            analysisEvent.orgSize = employees.size();
+            analysisEvent.findings = managerCount;
+            analysisEvent.commit();
+        }
+    }
+
+    /**
+     * Estimates a salary quantile of everyone who reports to a manager, directly or indirectly.
+     * @param managerId The ID of the manager.
+     * @param rank The fraction of the subtree, from 0 to 1, such as 0.9 for the 90th percentile.
+     * @return The estimated quantile, or an empty Optional if nobody reports to the employee.
+     */
+    public Optional<BigDecimal> getSubtreeQuantile(String managerId, double rank) {
+        return getSubtreeSketch(managerId).map(sketch -> toSalary(sketch.getQuantile(rank)));
+    }
+
+    /**
+     * Estimates the salary percentiles of everyone who reports to a manager, directly or indirectly.
+     * @param managerId The ID of the manager.
+     * @return The estimated percentiles, or an empty Optional if nobody reports to the employee.
+     */
+    public Optional<SalaryPercentiles> getSubtreePercentiles(String managerId) {
+        return getSubtreeSketch(managerId).map(SubtreeSalaryQuantiles::getPercentiles);
+    }
+
+    /**
+     * Gets the salary percentiles of the direct subordinates of a manager. They are exact for teams no larger than
+     * the accuracy parameter.
+     * @param managerId The ID of the manager.
+     * @return The percentiles, or an empty Optional if the employee has no direct subordinates.
+     */
+    public Optional<SalaryPercentiles> getTeamPercentiles(String managerId) {
+        if (!(numbering.employees[numbering.indexOf(managerId)] instanceof Manager manager)
+                || manager.getSubordinates().isEmpty()) {
+            return Optional.empty();
+        }
+        SalarySketch teamSketch = new SalarySketch(accuracy);
+        for (CompanyStaff subordinate : manager.getSubordinates()) {
+            teamSketch.add(subordinate.getSalary().doubleValue());
+        }
+        return Optional.of(getPercentiles(teamSketch));
+    }
+
+    /**
+     * Gets the subtree sketch of a manager.
+     * @param managerId The ID of the manager.
+     * @return The sketch, or an empty Optional if nobody reports to the employee.
+     */
+    private Optional<SalarySketch> getSubtreeSketch(String managerId) {
+        return Optional.ofNullable(subtreeSketches[numbering.indexOf(managerId)]);
+    }
+
+    private static SalaryPercentiles getPercentiles(SalarySketch sketch) {
+        return new SalaryPercentiles(toSalary(sketch.getQuantile(0.5)),
+                                     toSalary(sketch.getQuantile(0.9)),
+                                     toSalary(sketch.getQuantile(0.99)));
+    }
+
+    private static BigDecimal toSalary(double salary) {
+        return BigDecimal.valueOf(salary).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+}
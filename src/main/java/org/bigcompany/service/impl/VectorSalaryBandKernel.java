@@ -0,0 +1,69 @@
+package org.bigcompany.service.impl;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The VectorSalaryBandKernel class implements the SalaryBandKernel with the incubating Vector API,
+ * processing as many salaries per instruction as the preferred vector shape of the CPU holds.
+ * Classification compares whole vectors against both thresholds and turns the resulting masks into bands.
+ * The class must only be loaded when the jdk.incubator.vector module is present; see SalaryBandKernel.select().
+ */
+public final class VectorSalaryBandKernel implements SalaryBandKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public long sum(long[] salaries, int from, int to) {
+        LongVector partialSums = LongVector.zero(SPECIES);
+        int i = from;
+        int upperBound = from + SPECIES.loopBound(to - from);
+        for (; i < upperBound; i += SPECIES.length()) {
+            partialSums = partialSums.add(LongVector.fromArray(SPECIES, salaries, i));
+        }
+        long sum = partialSums.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum += salaries[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int classify(long[] salaries, long[] averages, int length,
+                        long lowerNumerator, long upperNumerator, long denominator, byte[] bands) {
+        int outsideBand = 0;
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            LongVector scaledSalaries = LongVector.fromArray(SPECIES, salaries, i).mul(denominator);
+            LongVector averageSalaries = LongVector.fromArray(SPECIES, averages, i);
+            VectorMask<Long> underpaid = scaledSalaries.compare(VectorOperators.LT, averageSalaries.mul(lowerNumerator));
+            VectorMask<Long> overpaid = scaledSalaries.compare(VectorOperators.GT, averageSalaries.mul(upperNumerator));
+            for (int lane = 0; lane < SPECIES.length(); lane++) {
+                bands[i + lane] = WITHIN_BAND;
+            }
+            for (long lanes = underpaid.toLong(); lanes != 0; lanes &= lanes - 1) {
+                bands[i + Long.numberOfTrailingZeros(lanes)] = UNDERPAID;
+            }
+            for (long lanes = overpaid.toLong(); lanes != 0; lanes &= lanes - 1) {
+                bands[i + Long.numberOfTrailingZeros(lanes)] = OVERPAID;
+            }
+            outsideBand += underpaid.trueCount() + overpaid.trueCount();
+        }
+        for (; i < length; i++) {
+            long scaledSalary = salaries[i] * denominator;
+            if (scaledSalary < averages[i] * lowerNumerator) {
+                bands[i] = UNDERPAID;
+                outsideBand++;
+            } else if (scaledSalary > averages[i] * upperNumerator) {
+                bands[i] = OVERPAID;
+                outsideBand++;
+            } else {
+                bands[i] = WITHIN_BAND;
+            }
+        }
+        return outsideBand;
+    }
+}
@@ -0,0 +1,142 @@
+package org.bigcompany;
+
+import org.bigcompany.dao.impl.EmployeeCSVLoader;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.EmployeeLoad;
+import org.bigcompany.service.impl.EmployeeService;
+import org.bigcompany.service.impl.ReportingService;
+import org.bigcompany.service.impl.SalaryService;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class guards the number of bytes allocated per input row by the hot paths of the report.
+ * Each budget below is the committed ceiling for its stage: lower it when a change reduces allocation,
+ * and only raise it together with the change that justifies it.
+ */
+class AllocationBudgetTest {
+
+    private static final int ORG_SIZE = 5_000;
+    private static final long SEED = 42L;
+    private static final int WARM_UP_RUNS = 5;
+
+    private static final long PARSE_BYTES_PER_ROW = 300;
+    private static final long BUILD_BYTES_PER_ROW = 250;
+    private static final long SALARY_ANALYSIS_BYTES_PER_ROW = 850;
+    private static final long DEPTH_ANALYSIS_BYTES_PER_ROW = 120;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Map<String, CompanyStaff> generatedEmployees;
+    private static Map<String, CompanyStaff> builtEmployees;
+    private static Path csvFile;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        generatedEmployees = OrgGenerator.generate(ORG_SIZE, SEED);
+        csvFile = OrgGenerator.writeCsv(generatedEmployees, Files.createTempFile("allocation-budget", ".csv"));
+        builtEmployees = new EmployeeService(new EmployeeCSVLoaderStub(generatedEmployees)).loadAllEmployee();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    /**
+     * This test verifies that parsing the CSV file stays within its allocation budget.
+     */
+    @Test
+    void testParsing_StaysWithinBudget() {
+        EmployeeCSVLoader employeeCSVLoader = new EmployeeCSVLoader();
+        assertWithinBudget("CSV parsing", PARSE_BYTES_PER_ROW, () -> employeeCSVLoader.buildEmployeeMapFromCSV(csvFile));
+    }
+
+    /**
+     * This test verifies that building the manager hierarchy stays within its allocation budget.
+     */
+    @Test
+    void testHierarchyBuild_StaysWithinBudget() {
+        EmployeeService employeeService = new EmployeeService(new EmployeeCSVLoaderStub(generatedEmployees));
+        assertWithinBudget("Hierarchy build", BUILD_BYTES_PER_ROW, employeeService::loadAllEmployee);
+    }
+
+    /**
+     * This test verifies that the overpaid and underpaid analyses stay within their allocation budget.
+     */
+    @Test
+    void testSalaryAnalysis_StaysWithinBudget() {
+        SalaryService salaryService = new SalaryService();
+        assertWithinBudget("Salary analysis", SALARY_ANALYSIS_BYTES_PER_ROW, () -> {
+            salaryService.getOverpaidManagers(builtEmployees);
+            salaryService.getUnderpaidManagers(builtEmployees);
+        });
+    }
+
+    /**
+     * This test verifies that the reporting line analysis stays within its allocation budget.
+     */
+    @Test
+    void testDepthAnalysis_StaysWithinBudget() {
+        ReportingService reportingService = new ReportingService(new EmployeeServiceStub(builtEmployees), new SalaryService());
+        assertWithinBudget("Reporting line analysis", DEPTH_ANALYSIS_BYTES_PER_ROW, reportingService::getEmployeeReportingLineLengths);
+    }
+
+    /**
+     * Warms the given stage up, then measures the bytes it allocates on the current thread in one run.
+     */
+    private static void assertWithinBudget(String stage, long budgetBytesPerRow, Runnable run) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            run.run();
+        }
+        long before = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        run.run();
+        long bytesPerRow = (THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - before) / ORG_SIZE;
+        assertTrue(bytesPerRow <= budgetBytesPerRow,
+                   stage + " allocated " + bytesPerRow + " bytes per row, over its budget of " + budgetBytesPerRow);
+    }
+
+    /**
+     * This stub returns the generated employees instead of reading the CSV file.
+     */
+    static class EmployeeCSVLoaderStub extends EmployeeCSVLoader {
+        private final Map<String, CompanyStaff> employeeMap;
+
+        EmployeeCSVLoaderStub(Map<String, CompanyStaff> employeeMap) {
+            this.employeeMap = employeeMap;
+        }
+
+        @Override
+        public Map<String, CompanyStaff> buildEmployeeMapFromCSV(Path csvFilePath) {
+            return employeeMap;
+        }
+    }
+
+    /**
+     * This stub returns the already built hierarchy instead of loading it.
+     */
+    static class EmployeeServiceStub extends EmployeeService {
+        private final Map<String, CompanyStaff> employeeMap;
+
+        EmployeeServiceStub(Map<String, CompanyStaff> employeeMap) {
+            super(null);
+            this.employeeMap = employeeMap;
+        }
+
+        @Override
+        public EmployeeLoad loadEmployees() {
+            return new EmployeeLoad(employeeMap, null);
+        }
+    }
+}
@@ -5,16 +5,22 @@ import org.bigcompany.exception.EmployeeDataException;
 import org.bigcompany.exception.InvalidSalaryException;
 import org.bigcompany.model.CompanyStaff;
 import org.bigcompany.model.Manager;
+import org.bigcompany.model.OrgView;
 import org.bigcompany.service.ISalaryService;
 import org.bigcompany.service.factory.ServiceFactory;
 import org.bigcompany.service.impl.EmployeeService;
 import org.bigcompany.service.impl.ReportingService;
+import org.bigcompany.support.OrgGenerator;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +32,9 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class ReportGeneratorTest {
 
+    @TempDir
+    Path directory;
+
     /**
      * This test verifies that the getOverpaidManagers and getUnderpaidManagers methods of the SalaryService class
      * are called when the generateEmployeeReport method of the EmployeeService class is called.
@@ -126,6 +135,94 @@ class ReportGeneratorTest {
         assertEquals(1, employeeCSVLoaderStub.buildEmployeeMapFromCSVInvocation());
     }
 
+    /**
+     * This test verifies that with the --cache option the second report of an unchanged CSV file is printed
+     * from the cache without analysing the salaries again, and is the same as the first.
+     */
+    @Test
+    void testMainMethod_WithCache_SecondRunPrintsCachedReport() throws IOException {
+        Path csvFile = OrgGenerator.writeCsv(OrgGenerator.generate(200, 43L), directory.resolve("employees.csv"));
+        Path cacheDirectory = directory.resolve("cache");
+        SalaryServiceStub salaryServiceStub = new SalaryServiceStub();
+        ServiceFactory.setSalaryService(salaryServiceStub);
+        String[] args = {"--input", csvFile.toString(), "--cache", cacheDirectory.toString()};
+
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream firstReport = new ByteArrayOutputStream();
+        ByteArrayOutputStream secondReport = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(firstReport));
+            ReportGenerator.main(args);
+            System.setOut(new PrintStream(secondReport));
+            ReportGenerator.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        assertEquals(1, salaryServiceStub.getOverpaidManagersInvocationCount());
+        assertTrue(firstReport.toString().contains("Employee with longer reporting line"));
+        assertEquals(firstReport.toString(), secondReport.toString());
+        try (var cachedReports = Files.list(cacheDirectory)) {
+            assertEquals(1, cachedReports.count());
+        }
+    }
+
+    /**
+     * This test verifies that options the external memory analysis cannot honour are rejected with an error
+     * instead of being silently ignored.
+     */
+    @Test
+    void testMainMethod_ExternalMemoryWithLenientAndCache_PrintsUnsupportedOptions() throws IOException {
+        Path csvFile = OrgGenerator.writeCsv(OrgGenerator.generate(20, 47L), directory.resolve("employees.csv"));
+        String[] args = {"--external-memory", "--input", csvFile.toString(), "--lenient",
+                         "--cache", directory.resolve("cache").toString()};
+
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(report));
+            System.setErr(new PrintStream(errors));
+            ReportGenerator.main(args);
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+
+        assertEquals("", report.toString());
+        assertTrue(errors.toString().contains("The --lenient, --cache options are not supported with --external-memory"));
+        assertFalse(Files.exists(directory.resolve("cache")));
+    }
+
+    /**
+     * This test verifies that a sample size that is not a number, or is less than one, is rejected with a clear
+     * error before any employee data is loaded.
+     */
+    @Test
+    void testMainMethod_InvalidSampleSize_PrintsSampleOptionError() throws IOException {
+        Path csvFile = OrgGenerator.writeCsv(OrgGenerator.generate(20, 48L), directory.resolve("employees.csv"));
+
+        for (String sampleSize : List.of("many", "0", "-5", "99999999999")) {
+            PrintStream originalOut = System.out;
+            PrintStream originalErr = System.err;
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            try {
+                System.setOut(new PrintStream(report));
+                System.setErr(new PrintStream(errors));
+                ReportGenerator.main(new String[]{"--input", csvFile.toString(), "--sample", sampleSize});
+            } finally {
+                System.setOut(originalOut);
+                System.setErr(originalErr);
+            }
+
+            assertEquals("", report.toString(), sampleSize);
+            assertTrue(errors.toString().contains("The --sample option needs ") && errors.toString().contains("not: " + sampleSize),
+                       errors.toString());
+        }
+    }
+
     /**
      * This class is used to test the functionality of the EmployeeCSVLoader class.
      */
@@ -162,6 +259,18 @@ class ReportGeneratorTest {
             return Map.of();
         }
 
+        @Override
+        public Map<Integer, BigDecimal> getOverpaidManagers(OrgView org) {
+            overpaidInvocationCount++;
+            return Map.of();
+        }
+
+        @Override
+        public Map<Integer, BigDecimal> getUnderpaidManagers(OrgView org) {
+            underpaidInvocationCount++;
+            return Map.of();
+        }
+
         public int getOverpaidManagersInvocationCount() {
             return overpaidInvocationCount;
         }
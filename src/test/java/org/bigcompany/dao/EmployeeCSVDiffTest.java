@@ -0,0 +1,169 @@
+package org.bigcompany.dao;
+
+import org.bigcompany.dao.impl.EmployeeCSVDiff;
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.OrgChange;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the EmployeeCSVDiff class.
+ */
+class EmployeeCSVDiffTest {
+
+    private static final int ORG_SIZE = 3_000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * This test verifies that an unsorted and a sorted export give the hires, leavers, salary changes and
+     * manager changes in ID order, and that the spilled runs of the sort are deleted afterwards.
+     */
+    @Test
+    void testDiff_UnsortedExport_ReportsChangesInIdOrder() throws IOException {
+        Map<String, CompanyStaff> before = OrgGenerator.generate(ORG_SIZE, 41L);
+        Map<String, CompanyStaff> after = changeEmployees(before);
+        Path beforeFile = OrgGenerator.writeCsv(shuffle(before), directory.resolve("before.csv"));
+        Path afterFile = OrgGenerator.writeCsv(after, directory.resolve("after.csv"));
+        Path spillDirectory = Files.createDirectory(directory.resolve("spill"));
+
+        List<OrgChange> changes = new ArrayList<>();
+        new EmployeeCSVDiff(100, spillDirectory).diff(beforeFile, afterFile, changes::add);
+
+        assertEquals(expectedChanges(before, after), changes);
+        try (var spilledRuns = Files.list(spillDirectory)) {
+            assertEquals(0, spilledRuns.count());
+        }
+    }
+
+    /**
+     * This test verifies that a budget small enough to need more runs than one merge can read
+     * gives the same changes as a budget that holds the whole file.
+     */
+    @Test
+    void testDiff_TinyMemoryBudget_MatchesInMemorySort() throws IOException {
+        Map<String, CompanyStaff> before = OrgGenerator.generate(ORG_SIZE, 42L);
+        Map<String, CompanyStaff> after = changeEmployees(before);
+        Path beforeFile = OrgGenerator.writeCsv(shuffle(before), directory.resolve("before.csv"));
+        Path afterFile = OrgGenerator.writeCsv(shuffle(after), directory.resolve("after.csv"));
+
+        List<OrgChange> inMemory = new ArrayList<>();
+        new EmployeeCSVDiff(ORG_SIZE * 2, directory).diff(beforeFile, afterFile, inMemory::add);
+        List<OrgChange> spilled = new ArrayList<>();
+        new EmployeeCSVDiff(10, directory).diff(beforeFile, afterFile, spilled::add);
+
+        assertTrue(inMemory.size() > 4);
+        assertEquals(inMemory, spilled);
+    }
+
+    /**
+     * This test verifies that rows with quoted IDs and quoted line breaks are sorted and compared whole,
+     * also when the sort spills them to run files.
+     */
+    @Test
+    void testDiff_QuotedMultilineRows_ReportsChanges() throws IOException {
+        Path beforeFile = Files.writeString(directory.resolve("before.csv"),
+                "Id,firstName,lastName,salary,managerId\n\"3\",Jim,\"Doe\nSmith\\\",4000,1\n2,Jane,\"Doe, Jr.\",4000,1\n1,John,Doe,9000,\n");
+        Path afterFile = Files.writeString(directory.resolve("after.csv"),
+                "Id,firstName,lastName,salary,managerId\n1,John,Doe,9000,\n2,Jane,\"Doe, Jr.\",4000,3\n\"3\",Jim,\"Doe\nSmith\\\",4500,1\n");
+
+        List<OrgChange> changes = new ArrayList<>();
+        new EmployeeCSVDiff(1, directory).diff(beforeFile, afterFile, changes::add);
+
+        assertEquals(List.of(new OrgChange.ManagerChange("2", "1", "3"),
+                             new OrgChange.SalaryChange("3", new BigDecimal("4000"), new BigDecimal("4500"))), changes);
+    }
+
+    /**
+     * This test verifies that a file with a duplicate employee ID is rejected.
+     */
+    @Test
+    void testDiff_DuplicateId_ThrowsEmployeeDataException() throws IOException {
+        Path beforeFile = Files.writeString(directory.resolve("before.csv"),
+                                           "Id,firstName,lastName,salary,managerId\n2,Jane,Doe,4000,1\n1,John,Doe,9000,\n2,Jim,Doe,4000,1\n");
+        Path afterFile = Files.writeString(directory.resolve("after.csv"),
+                                          "Id,firstName,lastName,salary,managerId\n1,John,Doe,9000,\n");
+
+        EmployeeDataException exception = assertThrows(EmployeeDataException.class,
+                                                       () -> new EmployeeCSVDiff().diff(beforeFile, afterFile, change -> {}));
+        assertTrue(exception.getMessage().contains("2"));
+    }
+
+    /**
+     * This method applies one change of each kind, and a few salary changes, to a copy of the given employees.
+     * @param employees The employees before the changes.
+     * @return The employees after the changes.
+     */
+    private static Map<String, CompanyStaff> changeEmployees(Map<String, CompanyStaff> employees) {
+        Map<String, CompanyStaff> changed = new LinkedHashMap<>(employees);
+        changed.remove(Integer.toString(ORG_SIZE));
+        changed.put("5000", new Employee("5000", "New", "Hire", new BigDecimal("45000"), "7"));
+        CompanyStaff moved = changed.get("1234");
+        changed.put("1234", new Employee("1234", moved.getFirstName(), moved.getLastName(), new BigDecimal("77777"), "1"));
+        for (String id : List.of("3", "99", "2500")) {
+            CompanyStaff raised = changed.get(id);
+            changed.put(id, new Employee(id, raised.getFirstName(), raised.getLastName(),
+                                         raised.getSalary().add(BigDecimal.TEN), raised.getManagerId()));
+        }
+        return changed;
+    }
+
+    /**
+     * This method lists the changes between two sets of employees in the order the diff reports them.
+     * @param before The older employees.
+     * @param after The newer employees.
+     * @return The expected changes.
+     */
+    private static List<OrgChange> expectedChanges(Map<String, CompanyStaff> before, Map<String, CompanyStaff> after) {
+        TreeSet<String> ids = new TreeSet<>(EmployeeCSVDiff.EMPLOYEE_ID_ORDER);
+        ids.addAll(before.keySet());
+        ids.addAll(after.keySet());
+        List<OrgChange> changes = new ArrayList<>();
+        for (String id : ids) {
+            CompanyStaff older = before.get(id);
+            CompanyStaff newer = after.get(id);
+            if (newer == null) {
+                changes.add(new OrgChange.Leaver(older));
+            } else if (older == null) {
+                changes.add(new OrgChange.Hire(newer));
+            } else {
+                if (older.getSalary().compareTo(newer.getSalary()) != 0) {
+                    changes.add(new OrgChange.SalaryChange(id, older.getSalary(), newer.getSalary()));
+                }
+                if (!Objects.equals(older.getManagerId(), newer.getManagerId())) {
+                    changes.add(new OrgChange.ManagerChange(id, older.getManagerId(), newer.getManagerId()));
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static Map<String, CompanyStaff> shuffle(Map<String, CompanyStaff> employees) {
+        List<CompanyStaff> shuffled = new ArrayList<>(employees.values());
+        Collections.shuffle(shuffled, new Random(43L));
+        Map<String, CompanyStaff> shuffledEmployees = new LinkedHashMap<>();
+        shuffled.forEach(employee -> shuffledEmployees.put(employee.getId(), employee));
+        return shuffledEmployees;
+    }
+}
@@ -4,14 +4,29 @@ import org.bigcompany.dao.impl.EmployeeCSVLoader;
 import org.bigcompany.exception.EmployeeDataException;
 import org.bigcompany.exception.InvalidSalaryException;
 import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.support.OrgGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,6 +48,7 @@ class EmployeeCSVLoaderTest {
     private static final Path NEGATIVE_SALARY_CSV = Paths.get("src/test/resources/big_company_neg_sal.csv");
     private static final Path ZERO_SALARY_CSV = Paths.get("src/test/resources/big_company_zero_sal.csv");
     private static final Path INCORRECT_FIELDS_CSV = Paths.get("src/test/resources/big_company_incorrect_fields.csv");
+    private static final Path REPEATED_NAMES_CSV = Paths.get("src/test/resources/big_company_repeated_names.csv");
     private static final Path WRONG_PATH_TO_FILE = Paths.get("wrong/path/to/file.csv");
     private static final String TEST_EMP_ID = "100";
 
@@ -67,6 +83,21 @@ class EmployeeCSVLoaderTest {
         assertTrue(companyStaff.getSalary().compareTo(BigDecimal.ZERO) > 0, "Salary should be greater than zero");
     }
 
+    /**
+     * This test verifies that employees with equal names and equal manager IDs share the same String instances.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_RepeatedNames_ShareInstances() {
+        Map<String, CompanyStaff> employeeMap = employeeCSVLoader.buildEmployeeMapFromCSV(REPEATED_NAMES_CSV);
+        CompanyStaff first = employeeMap.get("101");
+        CompanyStaff second = employeeMap.get("102");
+
+        assertSame(first.getFirstName(), second.getFirstName());
+        assertSame(first.getLastName(), second.getLastName());
+        assertSame(first.getManagerId(), second.getManagerId());
+        assertSame(employeeMap.get("100").getId(), first.getManagerId());
+    }
+
     /**
      * This test verifies that the buildEmployeeMapFromCSV method returns an empty map when given a non-existent CSV file.
      */
@@ -149,6 +180,138 @@ class EmployeeCSVLoaderTest {
         assertExceptionForCSVPath(INCORRECT_FIELDS_CSV, EmployeeDataException.class, "Incorrect number of fields in line: 101,Dulcinea,Greenwald,8998,107,89989");
     }
 
+    /**
+     * This test verifies that a lenient load skips the row with an invalid salary and records it with its line number.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_LenientInvalidSalary_SkipsRow() {
+        RowErrorLog rowErrorLog = new RowErrorLog();
+        Map<String, CompanyStaff> employeeMap = employeeCSVLoader.buildEmployeeMapFromCSV(INVALID_SALARY_CSV, rowErrorLog);
+
+        assertEquals(Set.of(TEST_EMP_ID), employeeMap.keySet());
+        assertEquals(1, rowErrorLog.getTotalCount());
+        RowError rowError = rowErrorLog.getErrors().getFirst();
+        assertEquals(3, rowError.lineNumber());
+        assertEquals(RowError.Reason.INVALID_SALARY, rowError.reason());
+        assertEquals("101,Dulcinea,Greenwald,8X98,107", rowError.line());
+    }
+
+    /**
+     * This test verifies that a lenient load keeps the first of two CEOs and records the second one and the blank line.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_LenientMultipleCeos_SkipsRows() {
+        RowErrorLog rowErrorLog = new RowErrorLog();
+        Map<String, CompanyStaff> employeeMap = employeeCSVLoader.buildEmployeeMapFromCSV(MULTIPLE_CEOS_CSV, rowErrorLog);
+
+        assertEquals(Set.of(TEST_EMP_ID), employeeMap.keySet());
+        List<RowError.Reason> reasons = rowErrorLog.getErrors().stream().map(RowError::reason).toList();
+        assertEquals(List.of(RowError.Reason.ADDITIONAL_CEO, RowError.Reason.INCORRECT_FIELD_COUNT), reasons);
+    }
+
+    /**
+     * This test verifies that a lenient load keeps only as many errors as the log can hold and counts the others.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_LenientDuplicateIds_CountsOverflow() {
+        RowErrorLog rowErrorLog = new RowErrorLog(1);
+        Map<String, CompanyStaff> employeeMap = employeeCSVLoader.buildEmployeeMapFromCSV(DUPLICATE_IDS_CSV, rowErrorLog);
+
+        assertEquals("Dulcinea", employeeMap.get("101").getFirstName(), "The first row with a duplicated ID must be kept");
+        assertEquals(2, rowErrorLog.getTotalCount());
+        assertEquals(2, rowErrorLog.getCount(RowError.Reason.DUPLICATE_ID));
+        assertEquals(1, rowErrorLog.getErrors().size());
+        assertEquals(1, rowErrorLog.getOverflowCount());
+    }
+
+    /**
+     * This test verifies that a lenient load still fails on an empty CSV file.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_LenientEmptyCSV_ThrowsException() {
+        Exception exception = assertThrows(EmployeeDataException.class,
+                () -> employeeCSVLoader.buildEmployeeMapFromCSV(EMPTY_CSV, new RowErrorLog()));
+        assertTrue(exception.getMessage().contains("The CSV file is empty"));
+    }
+
+    /**
+     * This test verifies that rows are split and their salaries parsed like the fields of String.split and
+     * the BigDecimal parser: with any line terminator, trailing empty fields, scaled and exponent salaries,
+     * and a last line without a terminator.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_MixedLineEndingsAndSalaryFormats_ParsesLikeSplit() {
+        String csv = "Id,firstName,lastName,salary,managerId\r\n"
+                + "100,Karina,Cloris,60000.50,\r\n"
+                + "101,Dulcinea,Greenwald,+4.5E4,100,,\r"
+                + "102,Hermione,Nester,0045000,100\n"
+                + "103,Anica,Haldas,12345678901234567890.25,101";
+        Map<String, CompanyStaff> employeeMap = employeeCSVLoader.buildEmployeeMapFromCSV(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(4, employeeMap.size());
+        assertEquals(new BigDecimal("60000.50"), employeeMap.get("100").getSalary());
+        assertNull(employeeMap.get("100").getManagerId());
+        assertEquals(new BigDecimal("+4.5E4"), employeeMap.get("101").getSalary());
+        assertEquals("100", employeeMap.get("101").getManagerId());
+        assertEquals(new BigDecimal("0045000"), employeeMap.get("102").getSalary());
+        assertEquals(new BigDecimal("12345678901234567890.25"), employeeMap.get("103").getSalary());
+        assertEquals("101", employeeMap.get("103").getManagerId());
+    }
+
+    /**
+     * This test verifies that a strict load reports a row with too many fields as it would have been split.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_TooManyFields_ReportsRowWithoutTrailingCommas() {
+        String csv = "Id,firstName,lastName,salary,managerId\n100,Karina,Cloris,60000,,extra,,\n";
+        Exception exception = assertThrows(EmployeeDataException.class, () -> employeeCSVLoader.buildEmployeeMapFromCSV(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+        assertTrue(exception.getMessage().endsWith("in line: 100,Karina,Cloris,60000,,extra"), exception.getMessage());
+    }
+
+    /**
+     * This test verifies that quoted fields may hold commas, escaped quotes and line breaks.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_QuotedFields_ParsesRfc4180() {
+        String csv = "Id,firstName,lastName,salary,managerId\n"
+                + "100,Karina,\"O'Neil, Jr.\",60000,\n"
+                + "\"101\",\"Dulcinea \"\"Dee\"\"\",Green\"wald,\"8998\",100\r\n"
+                + "102,\"Hermione\r\nAnne\",\"\",7000,\"100\"\n";
+        Map<String, CompanyStaff> employeeMap = employeeCSVLoader.buildEmployeeMapFromCSV(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), new RowErrorLog());
+
+        assertEquals(Set.of("100", "101"), employeeMap.keySet());
+        assertEquals("O'Neil, Jr.", employeeMap.get("100").getLastName());
+        assertEquals("Dulcinea \"Dee\"", employeeMap.get("101").getFirstName());
+        assertEquals("Green\"wald", employeeMap.get("101").getLastName());
+        assertEquals(new BigDecimal("8998"), employeeMap.get("101").getSalary());
+        assertEquals("100", employeeMap.get("101").getManagerId());
+    }
+
+    /**
+     * This test verifies that a lenient load skips a row with an unclosed quote, and numbers the rows after
+     * a row with a quoted line break by the lines of the file.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_LenientMalformedQuotes_SkipsRows() {
+        String csv = "Id,firstName,lastName,salary,managerId\n"
+                + "100,Karina,Cloris,60000,\n"
+                + "101,\"Dulcinea\nDee\",Greenwald,8998,100\n"
+                + "102,\"Hermione\"x,Nester,7000,100\n"
+                + "103,Anica,\"Haldas,7000,100";
+        RowErrorLog rowErrorLog = new RowErrorLog();
+        Map<String, CompanyStaff> employeeMap = employeeCSVLoader.buildEmployeeMapFromCSV(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), rowErrorLog);
+
+        assertEquals(Set.of("100", "101"), employeeMap.keySet());
+        assertEquals("Dulcinea\nDee", employeeMap.get("101").getFirstName());
+        assertEquals(List.of(new RowError(5, RowError.Reason.MALFORMED_QUOTED_FIELD, "102,\"Hermione\"x,Nester,7000,100"),
+                             new RowError(6, RowError.Reason.MALFORMED_QUOTED_FIELD, "103,Anica,\"Haldas,7000,100")),
+                     rowErrorLog.getErrors());
+    }
+
    /**
      * This test verifies that the buildEmployeeMapFromCSV method throws an EmployeeDataException when given a CSV file with an invalid path.
      */
@@ -158,4 +321,106 @@ class EmployeeCSVLoaderTest {
         assertTrue(exception.getMessage().contains(expectedMessage));
     }
 
-}
\ No newline at end of file
+
+    /**
+     * This test verifies that a gzip-compressed file is inflated inline and gives the same employees as the plain file,
+     * including a generated file large enough to be read ahead in several chunks.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_GzipFile_MatchesPlainFile() throws IOException {
+        Path largeCsv = OrgGenerator.writeCsv(OrgGenerator.generate(20_000, 7L), Files.createTempFile("employees", ".csv"));
+        Path gzipCsv = Files.createTempFile("employees", ".csv.gz");
+        try {
+            for (Path plainCsv : List.of(VALID_CSV, largeCsv)) {
+                try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(gzipCsv))) {
+                    Files.copy(plainCsv, output);
+                }
+                assertEquals(employeeCSVLoader.buildEmployeeMapFromCSV(plainCsv), employeeCSVLoader.buildEmployeeMapFromCSV(gzipCsv));
+            }
+        } finally {
+            Files.deleteIfExists(largeCsv);
+            Files.deleteIfExists(gzipCsv);
+        }
+    }
+
+    /**
+     * This test verifies that deflate-compressed data read from a stream gives the same employees as the plain file
+     * and that the stream is left open.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_DeflateStream_MatchesPlainFileAndLeavesStreamOpen() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = new DeflaterOutputStream(compressed)) {
+            Files.copy(VALID_CSV, output);
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream input = new FilterInputStream(new ByteArrayInputStream(compressed.toByteArray())) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        assertEquals(employeeCSVLoader.buildEmployeeMapFromCSV(VALID_CSV), employeeCSVLoader.buildEmployeeMapFromCSV(input));
+        assertFalse(closed.get(), "The caller's stream should not be closed");
+    }
+
+    /**
+     * This test verifies that plain CSV data whose header happens to start with a valid zlib header is read as plain
+     * text instead of being inflated.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_PlainHeaderLikeZlib_ReadsPlainText() throws IOException {
+        List<String> lines = Files.readAllLines(VALID_CSV);
+        Map<String, CompanyStaff> expected = employeeCSVLoader.buildEmployeeMapFromCSV(VALID_CSV);
+        for (String prefix : List.of("H,", "HK", "x ", "80", "(4")) {
+            String csv = prefix + String.join("\n", lines);
+            InputStream input = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(expected, employeeCSVLoader.buildEmployeeMapFromCSV(input), prefix);
+        }
+    }
+
+    /**
+     * This test verifies that a runtime failure of the source of a compressed stream ends the load instead of
+     * leaving it waiting for bytes that the inflating thread will never read.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_GzipSourceFails_EndsLoad() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(compressed)) {
+            Path largeCsv = OrgGenerator.writeCsv(OrgGenerator.generate(20_000, 17L), Files.createTempFile("employees", ".csv"));
+            Files.copy(largeCsv, output);
+            Files.delete(largeCsv);
+        }
+        byte[] gzipData = compressed.toByteArray();
+        InputStream failingInput = new ByteArrayInputStream(gzipData) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                // Fails after the first buffer, which is read on the calling thread to detect the compression
+                if (pos > 0) {
+                    throw new IllegalStateException("Simulated failure of the source");
+                }
+                return super.read(buffer, offset, length);
+            }
+        };
+
+        Map<String, CompanyStaff> employees = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> employeeCSVLoader.buildEmployeeMapFromCSV(failingInput));
+
+        assertTrue(employees.isEmpty());
+    }
+
+    /**
+     * This test verifies that plain CSV data read from a channel is validated like a file.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_PlainChannel_ValidatesLikeFile() throws IOException {
+        try (ReadableByteChannel channel = Files.newByteChannel(VALID_CSV)) {
+            assertEquals(employeeCSVLoader.buildEmployeeMapFromCSV(VALID_CSV), employeeCSVLoader.buildEmployeeMapFromCSV(channel));
+        }
+        try (ReadableByteChannel channel = Files.newByteChannel(DUPLICATE_IDS_CSV)) {
+            assertThrows(EmployeeDataException.class, () -> employeeCSVLoader.buildEmployeeMapFromCSV(channel));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.bigcompany.dao;
+
+import org.bigcompany.dao.impl.EmployeeCSVLoader;
+import org.bigcompany.dao.impl.PipelinedEmployeeCSVLoader;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class tests that the PipelinedEmployeeCSVLoader gives the same results as the EmployeeCSVLoader.
+ */
+class PipelinedEmployeeCSVLoaderTest {
+
+    private final EmployeeCSVLoader sequentialLoader = new EmployeeCSVLoader();
+    private final EmployeeCSVLoader pipelinedLoader = new PipelinedEmployeeCSVLoader();
+    private Path csvFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        csvFile = Files.createTempFile("pipelined", ".csv");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    /**
+     * This test verifies that a file of many batches loads into the same employees.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_LargeFile_MatchesSequentialLoader() throws IOException {
+        OrgGenerator.writeCsv(OrgGenerator.generate(25_000, 13L), csvFile);
+
+        Map<String, CompanyStaff> employees = pipelinedLoader.buildEmployeeMapFromCSV(csvFile);
+
+        assertEquals(25_000, employees.size());
+        assertEquals(sequentialLoader.buildEmployeeMapFromCSV(csvFile), employees);
+    }
+
+    /**
+     * This test verifies that the invalid test files fail with the same exception and message.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_InvalidFiles_FailLikeSequentialLoader() {
+        for (String fileName : List.of("big_company_duplicates.csv", "big_company_malformed_salary.csv",
+                                       "big_company_malformed_name.csv", "big_company_two_ceo.csv",
+                                       "big_company_neg_sal.csv", "big_company_zero_sal.csv",
+                                       "big_company_incorrect_fields.csv", "big_company_empty.csv")) {
+            Path invalidCsv = Paths.get("src/test/resources", fileName);
+            assertSameFailure(() -> sequentialLoader.buildEmployeeMapFromCSV(invalidCsv),
+                              () -> pipelinedLoader.buildEmployeeMapFromCSV(invalidCsv));
+        }
+    }
+
+    /**
+     * This test verifies that an invalid row deep in a large file is reported like the sequential loader does,
+     * even when an earlier row of the same batch breaks a rule checked after parsing.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_InvalidRowInLaterBatch_FailsLikeSequentialLoader() throws IOException {
+        List<String> lines = new ArrayList<>(Files.readAllLines(OrgGenerator.writeCsv(OrgGenerator.generate(5_000, 3L), csvFile)));
+        lines.set(3_000, "1,Duplicate,Chief,50000,");
+        lines.set(3_001, "3002,Broken,Salary,lots,1");
+        Files.write(csvFile, lines);
+
+        assertSameFailure(() -> sequentialLoader.buildEmployeeMapFromCSV(csvFile),
+                          () -> pipelinedLoader.buildEmployeeMapFromCSV(csvFile));
+    }
+
+    /**
+     * This test verifies that a lenient load skips the same rows, in the same order, across batch boundaries.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_LenientInvalidRows_MatchSequentialLoader() throws IOException {
+        List<String> lines = new ArrayList<>(Files.readAllLines(OrgGenerator.writeCsv(OrgGenerator.generate(5_000, 5L), csvFile)));
+        for (int line = 500; line < lines.size(); line += 733) {
+            lines.set(line, switch (line % 4) {
+                case 0 -> "17,Duplicate,Employee,40000,1";
+                case 1 -> line + ",Broken,Salary,lots,1";
+                case 2 -> line + ",Second,Chief,90000,";
+                default -> line + ",Missing";
+            });
+        }
+        Files.write(csvFile, lines);
+        RowErrorLog sequentialErrors = new RowErrorLog();
+        RowErrorLog pipelinedErrors = new RowErrorLog();
+
+        Map<String, CompanyStaff> sequentialEmployees = sequentialLoader.buildEmployeeMapFromCSV(csvFile, sequentialErrors);
+        Map<String, CompanyStaff> pipelinedEmployees = pipelinedLoader.buildEmployeeMapFromCSV(csvFile, pipelinedErrors);
+
+        assertEquals(sequentialEmployees, pipelinedEmployees);
+        assertFalse(pipelinedErrors.isEmpty());
+        assertEquals(sequentialErrors.getErrors(), pipelinedErrors.getErrors());
+    }
+
+    /**
+     * This test verifies that quoted names with commas, quotes and line breaks load like the sequential loader does,
+     * when the reads and the batches of the file end at any point of the quoted fields, and that a quote left open
+     * by the last row is reported on the line where that row starts.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_QuotedMultilineFields_MatchSequentialLoader() throws IOException {
+        List<String> lines = new ArrayList<>(Files.readAllLines(OrgGenerator.writeCsv(OrgGenerator.generate(5_000, 9L), csvFile)));
+        for (int line = 1; line < lines.size(); line++) {
+            String[] fields = lines.get(line).split(",", -1);
+            String lastName = "\"" + fields[2] + ", \"\"Jr.\"\"\n" + "x".repeat(line % 97) + "\r\nend\"";
+            lines.set(line, String.join(",", fields[0], fields[1], lastName, fields[3], fields[4]));
+        }
+        lines.set(lines.size() - 1, "5000,\"Unclosed,Quote,7000,1");
+        Files.write(csvFile, lines);
+        RowErrorLog sequentialErrors = new RowErrorLog();
+        RowErrorLog pipelinedErrors = new RowErrorLog();
+
+        Map<String, CompanyStaff> sequentialEmployees = sequentialLoader.buildEmployeeMapFromCSV(csvFile, sequentialErrors);
+        Map<String, CompanyStaff> pipelinedEmployees = pipelinedLoader.buildEmployeeMapFromCSV(csvFile, pipelinedErrors);
+
+        assertEquals(4_999, pipelinedEmployees.size());
+        assertEquals(sequentialEmployees, pipelinedEmployees);
+        assertTrue(pipelinedEmployees.get("2").getLastName().endsWith(", \"Jr.\"\nxx\r\nend"));
+        assertEquals(sequentialErrors.getErrors(), pipelinedErrors.getErrors());
+        assertEquals(RowError.Reason.MALFORMED_QUOTED_FIELD, pipelinedErrors.getErrors().getFirst().reason());
+        assertEquals(1 + 3 * 4_999 + 1, pipelinedErrors.getErrors().getFirst().lineNumber());
+    }
+
+    /**
+     * This test verifies that an Error thrown while the reading stage reads the input reaches the caller
+     * instead of leaving it waiting for a batch that never comes.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_ErrorWhileReading_RethrowsError() throws IOException {
+        byte[] csvData = Files.readAllBytes(OrgGenerator.writeCsv(OrgGenerator.generate(20_000, 11L), csvFile));
+        InputStream failingInput = new ByteArrayInputStream(csvData) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                // Fails well after the header, which is read on the calling thread
+                if (pos > csvData.length / 2) {
+                    throw new InternalError("Simulated failure of the input");
+                }
+                return super.read(buffer, offset, length);
+            }
+        };
+
+        InternalError error = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> assertThrows(InternalError.class, () -> pipelinedLoader.buildEmployeeMapFromCSV(failingInput)));
+
+        assertEquals("Simulated failure of the input", error.getMessage());
+    }
+
+    /**
+     * This test verifies that an invalid row followed by a read error in the same batch is reported like the
+     * sequential loader does, which fails on the invalid row before it reads far enough to hit the read error.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_InvalidRowThenReadError_FailsLikeSequentialLoader() throws IOException {
+        List<String> lines = new ArrayList<>(Files.readAllLines(OrgGenerator.writeCsv(OrgGenerator.generate(5_000, 7L), csvFile)));
+        lines.set(3_000, "3001,Broken,Salary,lots,1");
+        byte[] csvData = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+        int failingOffset = String.join("\n", lines.subList(0, 3_010)).length();
+
+        assertSameFailure(() -> sequentialLoader.buildEmployeeMapFromCSV(failingInput(csvData, failingOffset)),
+                          () -> pipelinedLoader.buildEmployeeMapFromCSV(failingInput(csvData, failingOffset)));
+    }
+
+    /**
+     * Creates an input stream that returns the data in small reads and fails once it gets to the given offset.
+     */
+    private static InputStream failingInput(byte[] data, int failingOffset) {
+        ByteArrayInputStream source = new ByteArrayInputStream(data);
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (data.length - source.available() >= failingOffset) {
+                    throw new IOException("Simulated read error");
+                }
+                return source.read(buffer, offset, Math.min(length, 256));
+            }
+        };
+    }
+
+    private static void assertSameFailure(Executable sequentialLoad, Executable pipelinedLoad) {
+        Throwable expected = assertThrows(RuntimeException.class, sequentialLoad);
+        Throwable actual = assertThrows(RuntimeException.class, pipelinedLoad);
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+}
@@ -0,0 +1,108 @@
+package org.bigcompany.dao;
+
+import org.bigcompany.dao.impl.ReportCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the ReportCache class.
+ */
+class ReportCacheTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * This test verifies that the key of a report changes with the content of the CSV file and with the parameters,
+     * but not with the name of the file.
+     */
+    @Test
+    void testComputeKey_ChangedContentOrParameters_ChangesKey() throws IOException {
+        Path csvFile = Files.writeString(directory.resolve("employees.csv"), "Id,firstName,lastName,salary,managerId\n123,Joe,Doe,60000,\n");
+        Path copy = Files.copy(csvFile, directory.resolve("copy.csv"));
+        Path changed = Files.writeString(directory.resolve("changed.csv"), "Id,firstName,lastName,salary,managerId\n123,Joe,Doe,60001,\n");
+
+        String key = ReportCache.computeKey(csvFile, "threshold=4");
+
+        assertEquals(key, ReportCache.computeKey(copy, "threshold=4"));
+        assertNotEquals(key, ReportCache.computeKey(changed, "threshold=4"));
+        assertNotEquals(key, ReportCache.computeKey(csvFile, "threshold=5"));
+    }
+
+    /**
+     * This test verifies that a stored report is copied back unchanged, that an unknown key is a miss, and that
+     * concurrent writers of the same key leave one complete report and no temporary files.
+     */
+    @Test
+    void testCopyTo_ConcurrentPuts_ReturnsCompleteReport() throws Exception {
+        ReportCache reportCache = new ReportCache(directory.resolve("cache"), ReportCache.DEFAULT_MAX_BYTES);
+        byte[] report = "Employee Report:\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 8; writer++) {
+                writers.add(executor.submit(() -> {
+                    reportCache.put("abc", report);
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertFalse(reportCache.copyTo("def", out));
+        assertTrue(reportCache.copyTo("abc", out));
+        assertArrayEquals(report, out.toByteArray());
+        try (var files = Files.list(directory.resolve("cache"))) {
+            assertEquals(List.of("abc.report"), files.map(file -> file.getFileName().toString()).toList());
+        }
+    }
+
+    /**
+     * This test verifies that a write beyond the size limit evicts the least recently used reports,
+     * where reading a report counts as using it.
+     */
+    @Test
+    void testPut_OverSizeLimit_EvictsLeastRecentlyUsed() throws IOException {
+        Path cacheDirectory = directory.resolve("cache");
+        ReportCache reportCache = new ReportCache(cacheDirectory, 250);
+        byte[] report = new byte[100];
+        reportCache.put("first", report);
+        reportCache.put("second", report);
+        Instant now = Instant.now();
+        Files.setLastModifiedTime(cacheDirectory.resolve("first.report"), FileTime.from(now.minus(Duration.ofHours(3))));
+        Files.setLastModifiedTime(cacheDirectory.resolve("second.report"), FileTime.from(now.minus(Duration.ofHours(2))));
+
+        assertTrue(reportCache.copyTo("first", new ByteArrayOutputStream()));
+        reportCache.put("third", report);
+
+        assertTrue(Files.exists(cacheDirectory.resolve("first.report")));
+        assertFalse(Files.exists(cacheDirectory.resolve("second.report")));
+        assertTrue(Files.exists(cacheDirectory.resolve("third.report")));
+    }
+}
@@ -0,0 +1,105 @@
+package org.bigcompany.event;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.bigcompany.dao.impl.EmployeeCSVLoader;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.Manager;
+import org.bigcompany.service.impl.SalaryService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests that the loader and the analyses emit their JDK Flight Recorder events.
+ */
+class FlightRecorderEventsTest {
+
+    private static final Path VALID_CSV = Paths.get("src/test/resources/big_company_valid.csv");
+
+    /**
+     * This test verifies that loading a CSV file emits one load event and one batch event carrying the row and character counts.
+     */
+    @Test
+    void testBuildEmployeeMapFromCSV_EmitsLoadAndBatchEvents() throws IOException {
+        List<RecordedEvent> events = record(() -> new EmployeeCSVLoader().buildEmployeeMapFromCSV(VALID_CSV));
+
+        RecordedEvent loadEvent = single(events, "org.bigcompany.CsvLoad");
+        assertEquals(2, loadEvent.getLong("rows"));
+        assertEquals(Files.size(VALID_CSV), loadEvent.getLong("bytes"));
+        assertEquals(VALID_CSV.toString(), loadEvent.getString("source"));
+
+        RecordedEvent batchEvent = single(events, "org.bigcompany.CsvBatch");
+        assertEquals(2, batchEvent.getInt("rows"));
+        assertEquals(2, batchEvent.getLong("firstLine"));
+        assertEquals(Files.readString(VALID_CSV).lines().skip(1).mapToLong(line -> line.length() + 1).sum(),
+                     batchEvent.getLong("chars"));
+    }
+
+    /**
+     * This test verifies that each salary analysis emits an analysis event with the organisation size and findings.
+     */
+    @Test
+    void testSalaryAnalysis_EmitsAnalysisEvents() throws IOException {
+        Employee employee = new Employee("2", "Jane", "Doe", new BigDecimal("8000"), "1");
+        Manager manager = new Manager("1", "John", "Doe", new BigDecimal("5000"), null, List.of(employee));
+        Map<String, CompanyStaff> employees = Map.of("1", manager, "2", employee);
+        SalaryService salaryService = new SalaryService();
+
+        List<RecordedEvent> events = record(() -> {
+            salaryService.getOverpaidManagers(employees);
+            salaryService.getUnderpaidManagers(employees);
+        });
+
+        List<RecordedEvent> analysisEvents = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.bigcompany.Analysis"))
+                .toList();
+        assertEquals(2, analysisEvents.size());
+        assertTrue(analysisEvents.stream().allMatch(event -> event.getInt("orgSize") == 2));
+        assertTrue(analysisEvents.stream().anyMatch(event -> event.getString("analysis").equals(AnalysisEvent.UNDERPAID_MANAGERS)
+                && event.getInt("findings") == 1));
+        assertTrue(analysisEvents.stream().anyMatch(event -> event.getString("analysis").equals(AnalysisEvent.OVERPAID_MANAGERS)
+                && event.getInt("findings") == 0));
+    }
+
+    /**
+     * Runs the given action inside a flight recording and returns the recorded events of this project.
+     */
+    private static List<RecordedEvent> record(Runnable action) throws IOException {
+        Path dump = Files.createTempFile("employee-metrics", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.bigcompany.CsvLoad");
+            recording.enable("org.bigcompany.CsvBatch");
+            recording.enable("org.bigcompany.HierarchyBuild");
+            recording.enable("org.bigcompany.Analysis");
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+            return RecordingFile.readAllEvents(dump).stream()
+                    .filter(event -> event.getEventType().getName().startsWith("org.bigcompany."))
+                    .toList();
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .toList();
+        assertEquals(1, matching.size(), "Expected exactly one " + name + " event");
+        return matching.getFirst();
+    }
+}
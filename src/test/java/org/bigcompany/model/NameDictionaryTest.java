@@ -0,0 +1,85 @@
+package org.bigcompany.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class tests the functionality of the NameDictionary class.
+ */
+class NameDictionaryTest {
+
+    private NameDictionary nameDictionary;
+
+    @BeforeEach
+    void setUp() {
+        nameDictionary = new NameDictionary();
+    }
+
+    /**
+     * This test verifies that equal names get the same code and distinct names get consecutive codes.
+     */
+    @Test
+    void testEncode_AssignsOneCodePerDistinctName() {
+        assertEquals(0, nameDictionary.encode("Karina"));
+        assertEquals(1, nameDictionary.encode("Cloris"));
+        assertEquals(0, nameDictionary.encode(new String("Karina")));
+        assertEquals(2, nameDictionary.size());
+        assertEquals("Cloris", nameDictionary.decode(1));
+    }
+
+    /**
+     * This test verifies that canonicalize returns the first instance seen of an equal name.
+     */
+    @Test
+    void testCanonicalize_ReturnsFirstInstance() {
+        String first = new String("Greenwald");
+        String second = new String("Greenwald");
+        assertSame(first, nameDictionary.canonicalize(first));
+        assertSame(first, nameDictionary.canonicalize(second));
+    }
+
+    /**
+     * This test verifies that codes and canonical instances survive the growth of the dictionary.
+     */
+    @Test
+    void testCanonicalize_ManyNames_DecodesEveryCode() {
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("name" + i, nameDictionary.canonicalize("name" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, nameDictionary.encode("name" + i));
+            assertEquals("name" + i, nameDictionary.decode(i));
+        }
+        assertEquals(10_000, nameDictionary.size());
+    }
+
+    /**
+     * This test verifies that decoding a code that was never assigned fails.
+     */
+    @Test
+    void testDecode_UnknownCode_ThrowsException() {
+        nameDictionary.encode("Karina");
+        assertThrows(IndexOutOfBoundsException.class, () -> nameDictionary.decode(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> nameDictionary.decode(-1));
+    }
+
+    /**
+     * This test verifies that a name read from a range of a char buffer shares the canonical instance of the equal String,
+     * and that a new name from a buffer becomes canonical itself.
+     */
+    @Test
+    void testCanonicalize_CharRange_MatchesStringNames() {
+        String karina = nameDictionary.canonicalize(new String("Karina"));
+        char[] chars = "101,Karina,Cloris".toCharArray();
+
+        assertSame(karina, nameDictionary.canonicalize(chars, 4, 10));
+        String cloris = nameDictionary.canonicalize(chars, 11, 17);
+        assertEquals("Cloris", cloris);
+        assertSame(cloris, nameDictionary.canonicalize(new String("Cloris")));
+        assertEquals(1, nameDictionary.encode("Cloris"));
+        assertEquals("", nameDictionary.canonicalize(chars, 3, 3));
+        assertEquals(3, nameDictionary.size());
+    }
+}
@@ -0,0 +1,98 @@
+package org.bigcompany.model;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class tests the functionality of the OffHeapOrg class.
+ */
+class OffHeapOrgTest {
+
+    /**
+     * This test verifies that every employee is stored with its fields and that subordinates occupy the
+     * contiguous range of indices that points back to their manager.
+     */
+    @Test
+    void testFrom_GeneratedOrg_StoresBreadthFirstLayout() {
+        Map<String, CompanyStaff> employees = OrgGenerator.generate(2_000, 7L);
+        try (OffHeapOrg org = OffHeapOrg.from(employees)) {
+            assertEquals(employees.size(), org.size());
+            assertEquals(1, org.getId(0), "The CEO must have index 0");
+            assertEquals(OrgView.NONE, org.getManager(0));
+            int expectedFirstSubordinate = 1;
+            for (int index = 0; index < org.size(); index++) {
+                CompanyStaff employee = employees.get(Long.toString(org.getId(index)));
+                assertEquals(employee.getFirstName(), org.getFirstName(index));
+                assertEquals(employee.getLastName(), org.getLastName(index));
+                assertEquals(employee.getSalary(), org.getSalary(index));
+                if (index > 0) {
+                    assertTrue(org.getManager(index) < index, "A manager must come before the subordinate");
+                    assertEquals(employee.getManagerId(), Long.toString(org.getId(org.getManager(index))));
+                }
+                int subordinateCount = org.getSubordinateCount(index);
+                if (subordinateCount > 0) {
+                    assertEquals(expectedFirstSubordinate, org.getFirstSubordinate(index));
+                    for (int subordinate = expectedFirstSubordinate; subordinate < expectedFirstSubordinate + subordinateCount; subordinate++) {
+                        assertEquals(index, org.getManager(subordinate));
+                    }
+                    expectedFirstSubordinate += subordinateCount;
+                }
+            }
+            assertEquals(org.size(), expectedFirstSubordinate);
+        }
+    }
+
+    /**
+     * This test verifies that salaries keep their exact value and scale.
+     */
+    @Test
+    void testGetSalary_FractionalSalary_IsExact() {
+        Map<String, CompanyStaff> employees = Map.of(
+                "1", new Employee("1", "Karina", "Cloris", new BigDecimal("10000.50"), null),
+                "2", new Employee("2", "Dulcinea", "Greenwald", new BigDecimal("8998"), "1"));
+        try (OffHeapOrg org = OffHeapOrg.from(employees)) {
+            assertEquals(new BigDecimal("10000.50"), org.getSalary(0));
+            assertEquals(new BigDecimal("8998"), org.getSalary(1));
+        }
+    }
+
+    /**
+     * This test verifies that an organisation with non-numeric IDs is rejected.
+     */
+    @Test
+    void testFrom_NonNumericId_ThrowsException() {
+        Map<String, CompanyStaff> employees = Map.of("A1", new Employee("A1", "Karina", "Cloris", new BigDecimal("10000"), null));
+        Exception exception = assertThrows(EmployeeDataException.class, () -> OffHeapOrg.from(employees));
+        assertTrue(exception.getMessage().contains("numeric employee IDs"));
+    }
+
+    /**
+     * This test verifies that employees outside the reporting line of the CEO are rejected.
+     */
+    @Test
+    void testFrom_Cycle_ThrowsException() {
+        Map<String, CompanyStaff> employees = new HashMap<>();
+        employees.put("1", new Employee("1", "Karina", "Cloris", new BigDecimal("10000"), null));
+        employees.put("2", new Employee("2", "Dulcinea", "Greenwald", new BigDecimal("8998"), "3"));
+        employees.put("3", new Employee("3", "Neha", "Acharya", new BigDecimal("7000"), "2"));
+        Exception exception = assertThrows(EmployeeDataException.class, () -> OffHeapOrg.from(employees));
+        assertTrue(exception.getMessage().contains("2 employees are not in the reporting line of the CEO"));
+    }
+
+    /**
+     * This test verifies that a closed organisation can no longer be read.
+     */
+    @Test
+    void testClose_ReleasesMemory() {
+        OffHeapOrg org = OffHeapOrg.from(OrgGenerator.generate(10, 1L));
+        org.close();
+        assertThrows(IllegalStateException.class, () -> org.getId(0));
+    }
+}
@@ -0,0 +1,84 @@
+package org.bigcompany.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the PersistentHashMap class.
+ */
+class PersistentHashMapTest {
+
+    /**
+     * This test verifies that random additions and removals give the same entries as a HashMap,
+     * and that every earlier version of the map keeps its entries.
+     */
+    @Test
+    void testPlusAndMinus_RandomOperations_MatchHashMap() {
+        Random random = new Random(40L);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> actual = PersistentHashMap.empty();
+        Map<Integer, Integer> expectedHalfway = null;
+        PersistentHashMap<Integer, Integer> actualHalfway = null;
+        for (int operation = 0; operation < 20_000; operation++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.minus(key);
+            } else {
+                expected.put(key, operation);
+                actual = actual.plus(key, operation);
+            }
+            if (operation == 10_000) {
+                expectedHalfway = new HashMap<>(expected);
+                actualHalfway = actual;
+            }
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, new HashMap<>(actual));
+        assertEquals(expectedHalfway, actualHalfway);
+    }
+
+    /**
+     * This test verifies that keys with equal hash codes are kept apart and can be removed one by one.
+     */
+    @Test
+    void testPlusAndMinus_CollidingHashes_KeepAllKeys() {
+        // "Aa" and "BB" have the same hash code, and so do all strings built from them
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty()
+                .plus("AaAa", 1).plus("AaBB", 2).plus("BBAa", 3).plus("BBBB", 4).plus("other", 5);
+
+        assertEquals(5, map.size());
+        assertEquals(3, map.get("BBAa"));
+        PersistentHashMap<String, Integer> removed = map.minus("AaBB").minus("AaAa").minus("BBBB");
+        assertEquals(Map.of("BBAa", 3, "other", 5), removed);
+        assertNull(removed.get("AaAa"));
+        assertEquals(4, map.get("BBBB"), "The earlier version keeps its entries");
+    }
+
+    /**
+     * This test verifies that unchanged updates return the same map and that the map cannot be modified in place.
+     */
+    @Test
+    void testPlus_SameValue_ReturnsSameMap() {
+        Integer value = 1;
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty().plus("a", value);
+
+        assertSame(map, map.plus("a", value));
+        assertSame(map, map.minus("b"));
+        assertFalse(map.containsKey("b"));
+        assertTrue(map.minus("a").isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> map.put("b", 2));
+    }
+}
@@ -0,0 +1,89 @@
+package org.bigcompany.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the PersistentVector class.
+ */
+class PersistentVectorTest {
+
+    /**
+     * This test verifies that random replacements, appends and removals of the last element give the same elements
+     * as an ArrayList, across several levels of the trie, and that every earlier version keeps its elements.
+     */
+    @Test
+    void testWithPlusAndMinusLast_RandomOperations_MatchArrayList() {
+        Random random = new Random(40L);
+        List<Integer> expected = new ArrayList<>();
+        PersistentVector<Integer> actual = PersistentVector.empty();
+        List<Integer> expectedHalfway = null;
+        PersistentVector<Integer> actualHalfway = null;
+        for (int operation = 0; operation < 60_000; operation++) {
+            int choice = random.nextInt(10);
+            if (choice == 0 && !expected.isEmpty()) {
+                expected.removeLast();
+                actual = actual.minusLast();
+            } else if (choice < 3 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                expected.set(index, operation);
+                actual = actual.with(index, operation);
+            } else {
+                expected.add(operation);
+                actual = actual.plus(operation);
+            }
+            if (operation == 30_000) {
+                expectedHalfway = new ArrayList<>(expected);
+                actualHalfway = actual;
+            }
+        }
+
+        assertTrue(expected.size() > 32 * 32, "The vector needs three levels");
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expectedHalfway, actualHalfway);
+    }
+
+    /**
+     * This test verifies that a copied vector holds the elements in order, and shrinks back to the empty vector.
+     */
+    @Test
+    void testCopyOf_ManyElements_KeepsOrder() {
+        List<Integer> elements = IntStream.range(0, 33 * 32 + 1).boxed().toList();
+
+        PersistentVector<Integer> vector = PersistentVector.copyOf(elements);
+
+        assertEquals(elements, vector);
+        assertEquals(elements.subList(0, 32), vector.plus(-1).subList(0, 32));
+        for (int size = elements.size(); size > 0; size--) {
+            assertEquals(size - 1, vector.get(size - 1));
+            vector = vector.minusLast();
+        }
+        assertSame(PersistentVector.empty(), vector);
+        assertSame(PersistentVector.empty(), PersistentVector.copyOf(List.of()));
+    }
+
+    /**
+     * This test verifies that unchanged replacements return the same vector and that the vector cannot be modified
+     * in place.
+     */
+    @Test
+    void testWith_SameElement_ReturnsSameVector() {
+        Integer element = 1;
+        PersistentVector<Integer> vector = PersistentVector.<Integer>empty().plus(element);
+
+        assertSame(vector, vector.with(0, element));
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.get(1));
+        assertThrows(IllegalStateException.class, () -> PersistentVector.empty().minusLast());
+        assertThrows(UnsupportedOperationException.class, () -> vector.add(2));
+    }
+}
@@ -0,0 +1,98 @@
+package org.bigcompany.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the SalarySketch class.
+ */
+class SalarySketchTest {
+
+    private static final double[] RANKS = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+    private static final double MAX_RANK_ERROR = 0.02;
+
+    /**
+     * This test verifies that a sketch that holds all its salaries gives the exact nearest-rank quantiles.
+     */
+    @Test
+    void testGetQuantile_FewSalaries_IsExact() {
+        SalarySketch sketch = new SalarySketch();
+        double[] salaries = new double[150];
+        Random random = new Random(44L);
+        for (int index = 0; index < salaries.length; index++) {
+            salaries[index] = 30_000 + random.nextInt(60_000);
+            sketch.add(salaries[index]);
+        }
+        Arrays.sort(salaries);
+
+        for (double rank : RANKS) {
+            assertEquals(salaries[(int) Math.ceil(rank * salaries.length) - 1], sketch.getQuantile(rank));
+        }
+        assertEquals(salaries[0], sketch.getQuantile(0));
+        assertEquals(salaries[salaries.length - 1], sketch.getQuantile(1));
+        assertThrows(IllegalStateException.class, () -> new SalarySketch().getQuantile(0.5));
+    }
+
+    /**
+     * This test verifies that a sketch built by merging many small sketches holds a bounded number of salaries
+     * and estimates every quantile within the rank error, like a sketch that saw the salaries one at a time.
+     */
+    @Test
+    void testMerge_ManySketches_StaysBoundedAndAccurate() {
+        Random random = new Random(45L);
+        double[] salaries = new double[200_000];
+        SalarySketch streamed = new SalarySketch();
+        SalarySketch merged = new SalarySketch();
+        for (int start = 0; start < salaries.length; start += 100) {
+            SalarySketch part = new SalarySketch();
+            for (int index = start; index < start + 100; index++) {
+                // A skewed distribution, as salaries are
+                salaries[index] = Math.round(30_000 * Math.exp(random.nextGaussian() * 0.5));
+                part.add(salaries[index]);
+                streamed.add(salaries[index]);
+            }
+            merged.merge(part);
+        }
+        Arrays.sort(salaries);
+
+        for (SalarySketch sketch : new SalarySketch[]{streamed, merged}) {
+            assertEquals(salaries.length, sketch.getCount());
+            assertTrue(sketch.getRetainedCount() <= 4 * SalarySketch.DEFAULT_ACCURACY, "retained " + sketch.getRetainedCount());
+            for (double rank : RANKS) {
+                assertRankWithin(salaries, rank, sketch.getQuantile(rank));
+            }
+        }
+    }
+
+    /**
+     * Asserts that the fraction of the sorted salaries at or below an estimate is close to the requested rank.
+     */
+    static void assertRankWithin(double[] sortedSalaries, double rank, double estimate) {
+        int below = lowerBound(sortedSalaries, estimate);
+        int atOrBelow = lowerBound(sortedSalaries, Math.nextUp(estimate));
+        double lowest = (double) below / sortedSalaries.length;
+        double highest = (double) atOrBelow / sortedSalaries.length;
+        assertTrue(rank >= lowest - MAX_RANK_ERROR && rank <= highest + MAX_RANK_ERROR,
+                   "rank " + rank + " estimated as " + estimate + " at ranks " + lowest + " to " + highest);
+    }
+
+    private static int lowerBound(double[] sortedSalaries, double salary) {
+        int low = 0;
+        int high = sortedSalaries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedSalaries[middle] < salary) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
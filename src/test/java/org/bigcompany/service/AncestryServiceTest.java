@@ -0,0 +1,96 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.service.impl.AncestryService;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class tests the functionality of the AncestryService class against walks along the manager IDs.
+ */
+class AncestryServiceTest {
+
+    private static final int ORG_SIZE = 2_000;
+
+    private Map<String, CompanyStaff> employees;
+    private IAncestryService ancestryService;
+    private final Random random = new Random(29L);
+
+    /**
+     * This method builds the hierarchy of a generated organisation and its ancestry index.
+     */
+    @BeforeEach
+    void setUp() {
+        Map<String, CompanyStaff> generated = OrgGenerator.generate(ORG_SIZE, 29L);
+        employees = OrgGenerator.buildHierarchy(generated);
+        ancestryService = new AncestryService(employees);
+    }
+
+    /**
+     * This test verifies that the management chain, reporting line length and manager at each level
+     * match the chain of manager IDs of every employee.
+     */
+    @Test
+    void testManagementChain_EveryEmployee_MatchesManagerIds() {
+        for (String employeeId : employees.keySet()) {
+            List<String> chain = chainOf(employeeId);
+            assertEquals(chain.size(), ancestryService.getReportingLineLength(employeeId));
+            assertEquals(Optional.of(employeeId), ancestryService.getManagerAtLevel(employeeId, 0).map(CompanyStaff::getId));
+            for (int level = 1; level <= chain.size(); level++) {
+                assertEquals(chain.get(level - 1), ancestryService.getManagerAtLevel(employeeId, level).orElseThrow().getId());
+            }
+            assertTrue(ancestryService.getManagerAtLevel(employeeId, chain.size() + 1).isEmpty());
+            String otherId = randomId();
+            assertEquals(chain.contains(otherId), ancestryService.isInManagementChain(employeeId, otherId));
+        }
+    }
+
+    /**
+     * This test verifies that the lowest common manager of random pairs matches the first shared manager
+     * of their chains, including pairs where one employee manages the other.
+     */
+    @Test
+    void testGetLowestCommonManager_RandomPairs_MatchesChains() {
+        for (int i = 0; i < 2_000; i++) {
+            String firstId = randomId();
+            String secondId = i % 10 == 0 ? ancestryService.getManagerAtLevel(firstId, 1).map(CompanyStaff::getId).orElse(firstId) : randomId();
+            List<String> firstChain = new ArrayList<>(chainOf(firstId));
+            firstChain.addFirst(firstId);
+            List<String> secondChain = new ArrayList<>(chainOf(secondId));
+            secondChain.addFirst(secondId);
+            String expected = firstChain.stream().filter(secondChain::contains).findFirst().orElseThrow();
+
+            assertEquals(expected, ancestryService.getLowestCommonManager(firstId, secondId).getId());
+        }
+    }
+
+    /**
+     * This test verifies that a query for an unknown employee ID throws an EmployeeDataException.
+     */
+    @Test
+    void testGetReportingLineLength_UnknownEmployee_ThrowsEmployeeDataException() {
+        assertThrows(EmployeeDataException.class, () -> ancestryService.getReportingLineLength("unknown"));
+    }
+
+    private List<String> chainOf(String employeeId) {
+        List<String> chain = new ArrayList<>();
+        for (String id = employees.get(employeeId).getManagerId(); id != null; id = employees.get(id).getManagerId()) {
+            chain.add(id);
+        }
+        return chain;
+    }
+
+    private String randomId() {
+        return Integer.toString(1 + random.nextInt(ORG_SIZE));
+    }
+}
@@ -0,0 +1,77 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.ApproximateReport;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.ShareEstimate;
+import org.bigcompany.service.impl.ApproximateAnalysis;
+import org.bigcompany.service.impl.ReportingService;
+import org.bigcompany.service.impl.SalaryService;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the ApproximateAnalysis class.
+ */
+class ApproximateAnalysisTest {
+
+    private static final int SEEDS = 20;
+
+    /**
+     * This test verifies against the exact engine that the 95 percent confidence intervals of samples with
+     * different seeds contain the exact counts about as often as they should, and that the intervals are narrow.
+     */
+    @Test
+    void testAnalyse_GeneratedOrg_IntervalsContainExactCounts() {
+        Map<String, CompanyStaff> employees = OrgGenerator.buildHierarchy(OrgGenerator.generate(50_000, 48L));
+        SalaryService salaryService = new SalaryService();
+        ReportingService reportingService = new ReportingService(() -> employees, salaryService);
+        int overpaid = salaryService.getOverpaidManagers(employees).size();
+        int underpaid = salaryService.getUnderpaidManagers(employees).size();
+        int longReportingLines = reportingService.getEmployeeReportingLineLengths().size();
+        assertTrue(overpaid > 0 && underpaid > 0 && longReportingLines > 0);
+
+        int[] covered = new int[3];
+        for (long seed = 0; seed < SEEDS; seed++) {
+            ApproximateReport report = new ApproximateAnalysis(salaryService, 5_000, seed).analyse(employees);
+            assertEquals(5_000, report.overpaidManagers().sampleSize());
+            covered[0] += contains(report.overpaidManagers(), overpaid) ? 1 : 0;
+            covered[1] += contains(report.underpaidManagers(), underpaid) ? 1 : 0;
+            covered[2] += contains(report.longReportingLines(), longReportingLines) ? 1 : 0;
+            for (ShareEstimate estimate : new ShareEstimate[]{report.overpaidManagers(), report.underpaidManagers(),
+                                                              report.longReportingLines()}) {
+                assertTrue(estimate.upperShare() - estimate.lowerShare() < 0.05, estimate.toString());
+            }
+        }
+        for (int coveredCount : covered) {
+            assertTrue(coveredCount >= SEEDS - 3, "covered " + coveredCount + " of " + SEEDS);
+        }
+    }
+
+    /**
+     * This test verifies that a sample at least as large as the organisation gives the exact counts with
+     * closed intervals.
+     */
+    @Test
+    void testAnalyse_SampleCoversOrg_IsExact() {
+        Map<String, CompanyStaff> employees = OrgGenerator.buildHierarchy(OrgGenerator.generate(2_000, 49L));
+        SalaryService salaryService = new SalaryService();
+        ReportingService reportingService = new ReportingService(() -> employees, salaryService);
+
+        ApproximateReport report = new ApproximateAnalysis(salaryService, 5_000, 1L).analyse(employees);
+
+        assertEquals(salaryService.getOverpaidManagers(employees).size(), report.overpaidManagers().count());
+        assertEquals(salaryService.getUnderpaidManagers(employees).size(), report.underpaidManagers().count());
+        assertEquals(reportingService.getEmployeeReportingLineLengths().size(), report.longReportingLines().count());
+        assertEquals(report.overpaidManagers().count(), report.overpaidManagers().lowerCount());
+        assertEquals(report.overpaidManagers().count(), report.overpaidManagers().upperCount());
+    }
+
+    private static boolean contains(ShareEstimate estimate, long exactCount) {
+        return estimate.lowerCount() <= exactCount && exactCount <= estimate.upperCount();
+    }
+}
@@ -1,22 +1,32 @@
 package org.bigcompany.service;
 
+import org.bigcompany.dao.RowError;
+import org.bigcompany.dao.RowErrorLog;
 import org.bigcompany.dao.impl.EmployeeCSVLoader;
+import org.bigcompany.exception.EmployeeDataException;
 import org.bigcompany.model.CompanyStaff;
 import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeLoad;
 import org.bigcompany.model.Manager;
+import org.bigcompany.model.OrgView;
+import org.bigcompany.model.OrgViewLoad;
 import org.bigcompany.service.impl.EmployeeService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -90,6 +100,127 @@ class EmployeeServiceTest {
         assertEquals(2, employees.size());
     }
 
+    /**
+     * This test verifies that the loadAllEmployee method builds each manager with all of its subordinates,
+     * nested managers included, and that the subordinate lists cannot be modified.
+     */
+    @Test
+    void testLoadAllEmployee_NestedManagers_BuildsCompleteImmutableHierarchy() {
+        Map<String, CompanyStaff> employeeMap = Map.of(
+                "1", new Employee("1", "Chief", "Executive", new BigDecimal("9000"), null),
+                "2", new Employee("2", "Middle", "Manager", new BigDecimal("7000"), "1"),
+                "3", new Employee("3", "First", "Report", new BigDecimal("5000"), "2"),
+                "4", new Employee("4", "Second", "Report", new BigDecimal("5000"), "2"),
+                "5", new Employee("5", "Direct", "Report", new BigDecimal("6000"), "1"));
+        employeeService = new EmployeeService(new EmployeeCSVLoaderStub(employeeMap));
+
+        Map<String, CompanyStaff> employees = employeeService.loadAllEmployee();
+
+        Manager ceo = (Manager) employees.get("1");
+        Manager middleManager = (Manager) employees.get("2");
+        assertEquals(5, employees.size());
+        assertEquals(2, ceo.getSubordinates().size());
+        assertTrue(ceo.getSubordinates().contains(middleManager));
+        assertEquals(List.of("3", "4"), middleManager.getSubordinates().stream().map(CompanyStaff::getId).sorted().toList());
+        assertSame(employees.get("3"), employeeMap.get("3"));
+        assertThrows(UnsupportedOperationException.class, () -> ceo.getSubordinates().add(employee));
+    }
+
+    /**
+     * This test verifies that the loadAllEmployee method throws an EmployeeDataException
+     * when the reporting lines of some employees form a cycle.
+     */
+    @Test
+    void testLoadAllEmployee_ReportingLineCycle_ThrowsEmployeeDataException() {
+        Map<String, CompanyStaff> employeeMap = Map.of(
+                "1", new Employee("1", "Chief", "Executive", new BigDecimal("9000"), null),
+                "2", new Employee("2", "Circular", "One", new BigDecimal("7000"), "3"),
+                "3", new Employee("3", "Circular", "Two", new BigDecimal("7000"), "2"));
+        employeeService = new EmployeeService(new EmployeeCSVLoaderStub(employeeMap));
+
+        EmployeeDataException exception = assertThrows(EmployeeDataException.class, () -> employeeService.loadAllEmployee());
+
+        assertEquals("Employees 2 -> 3 -> 2 form a reporting cycle", exception.getMessage());
+    }
+
+    /**
+     * This test verifies that a lenient load drops the employees under a skipped manager row,
+     * records them as skipped rows and builds the hierarchy from the rest, instead of failing on their manager IDs.
+     */
+    @Test
+    void testLoadAllEmployee_LenientSkippedManagerRow_DropsOrphanedSubtree(@TempDir Path tempDir) throws IOException {
+        Path csvFile = tempDir.resolve("employees.csv");
+        Files.writeString(csvFile, """
+                Id,firstName,lastName,salary,managerId
+                1,Chief,Executive,90000,
+                2,Broken,Manager,not-a-salary,1
+                3,Orphaned,One,40000,2
+                4,Orphaned,Two,40000,3
+                5,Direct,Report,50000,1
+                """);
+        employeeService = new EmployeeService(new EmployeeCSVLoader(), RowErrorLog.DEFAULT_CAPACITY, csvFile);
+
+        EmployeeLoad load = employeeService.loadEmployees();
+
+        Map<String, CompanyStaff> employees = load.employees();
+        assertEquals(Set.of("1", "5"), employees.keySet());
+        assertEquals(List.of(employees.get("5")), ((Manager) employees.get("1")).getSubordinates());
+        RowErrorLog rowErrorLog = load.rowErrorLog();
+        assertEquals(1, rowErrorLog.getCount(RowError.Reason.INVALID_SALARY));
+        assertEquals(2, rowErrorLog.getCount(RowError.Reason.UNKNOWN_MANAGER));
+        assertEquals(List.of("3,Orphaned,One,40000,2", "4,Orphaned,Two,40000,3"),
+                     rowErrorLog.getErrors().stream()
+                             .filter(rowError -> rowError.reason() == RowError.Reason.UNKNOWN_MANAGER)
+                             .map(RowError::line)
+                             .toList());
+    }
+
+    /**
+     * This test verifies that the loadOrgView method numbers the employees breadth-first from the CEO
+     * and reports no skipped rows when the load is strict.
+     */
+    @Test
+    void testLoadOrgView_StrictLoad_ReturnsBreadthFirstView() {
+        Map<String, CompanyStaff> employeeMap = Map.of(
+                "1", new Employee("1", "Chief", "Executive", new BigDecimal("9000"), null),
+                "2", new Employee("2", "Middle", "Manager", new BigDecimal("7000"), "1"),
+                "3", new Employee("3", "Team", "Member", new BigDecimal("5000"), "2"));
+        employeeService = new EmployeeService(new EmployeeCSVLoaderStub(employeeMap));
+
+        try (OrgViewLoad load = employeeService.loadOrgView()) {
+            OrgView view = load.view();
+            assertEquals(3, view.size());
+            assertEquals(List.of(1L, 2L, 3L), List.of(view.getId(0), view.getId(1), view.getId(2)));
+            assertEquals(1, view.getManager(2));
+            assertNull(load.rowErrorLog());
+        }
+    }
+
+    /**
+     * This test verifies that a lenient loadOrgView drops the employees under a skipped manager row and returns
+     * them with the skipped rows, as loadEmployees does, instead of failing on their manager IDs.
+     */
+    @Test
+    void testLoadOrgView_LenientSkippedManagerRow_DropsOrphanedSubtree(@TempDir Path tempDir) throws IOException {
+        Path csvFile = tempDir.resolve("employees.csv");
+        Files.writeString(csvFile, """
+                Id,firstName,lastName,salary,managerId
+                1,Chief,Executive,90000,
+                2,Broken,Manager,not-a-salary,1
+                3,Orphaned,One,40000,2
+                5,Direct,Report,50000,1
+                """);
+        employeeService = new EmployeeService(new EmployeeCSVLoader(), RowErrorLog.DEFAULT_CAPACITY, csvFile);
+
+        try (OrgViewLoad load = employeeService.loadOrgView()) {
+            assertEquals(2, load.view().size());
+            assertEquals(5L, load.view().getId(1));
+            RowErrorLog rowErrorLog = load.getSkippedRows().orElseThrow();
+            assertEquals(1, rowErrorLog.getCount(RowError.Reason.INVALID_SALARY));
+            assertEquals(1, rowErrorLog.getCount(RowError.Reason.UNKNOWN_MANAGER));
+        }
+    }
+
     /**
      * This test verifies that the loadAllEmployee method returns the correct employees
      * when the manager has multiple subordinates.
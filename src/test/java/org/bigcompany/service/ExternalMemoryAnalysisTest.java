@@ -0,0 +1,132 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.ReportFinding;
+import org.bigcompany.service.impl.EmployeeService;
+import org.bigcompany.service.impl.ExternalMemoryAnalysis;
+import org.bigcompany.service.impl.ReportingService;
+import org.bigcompany.service.impl.SalaryService;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the ExternalMemoryAnalysis class.
+ */
+class ExternalMemoryAnalysisTest {
+
+    private static final int ORG_SIZE = 5_000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * This test verifies that an analysis that holds only a small part of the organisation in memory
+     * gives the same findings as the in-memory services, and leaves no spill files behind.
+     */
+    @Test
+    void testAnalyse_SmallMemoryBudget_MatchesInMemoryServices() throws IOException {
+        Map<String, CompanyStaff> generated = OrgGenerator.generate(ORG_SIZE, 42L);
+        Path csvFile = OrgGenerator.writeCsv(generated, directory.resolve("employees.csv"));
+        Path spillDirectory = Files.createDirectory(directory.resolve("spill"));
+
+        List<ReportFinding> findings = new ArrayList<>();
+        new ExternalMemoryAnalysis(200, spillDirectory).analyse(csvFile, findings::add);
+
+        Map<String, CompanyStaff> employees = OrgGenerator.buildHierarchy(generated);
+        SalaryService salaryService = new SalaryService();
+        Map<String, Integer> expectedLongReportingLines = new HashMap<>();
+        new ReportingService(() -> employees, salaryService).getEmployeeReportingLineLengths()
+                .forEach((employee, length) -> expectedLongReportingLines.put(employee.getId(), length));
+        Map<String, BigDecimal> expectedOverpaid = new HashMap<>();
+        salaryService.getOverpaidManagers(employees).forEach((manager, amount) -> expectedOverpaid.put(manager.getId(), amount));
+        Map<String, BigDecimal> expectedUnderpaid = new HashMap<>();
+        salaryService.getUnderpaidManagers(employees).forEach((manager, amount) -> expectedUnderpaid.put(manager.getId(), amount));
+
+        Map<String, Integer> longReportingLines = new HashMap<>();
+        Map<String, BigDecimal> overpaid = new HashMap<>();
+        Map<String, BigDecimal> underpaid = new HashMap<>();
+        for (ReportFinding finding : findings) {
+            switch (finding) {
+                case ReportFinding.LongReportingLine line -> longReportingLines.put(line.employee().getId(), line.reportingLineLength());
+                case ReportFinding.OverpaidManager manager -> overpaid.put(manager.employee().getId(), manager.overpayment());
+                case ReportFinding.UnderpaidManager manager -> underpaid.put(manager.employee().getId(), manager.underpayment());
+            }
+        }
+        assertFalse(expectedLongReportingLines.isEmpty());
+        assertEquals(expectedLongReportingLines, longReportingLines);
+        assertEquals(expectedOverpaid, overpaid);
+        assertEquals(expectedUnderpaid, underpaid);
+        assertEquals(longReportingLines.size() + overpaid.size() + underpaid.size(), findings.size());
+        try (var spillFiles = Files.list(spillDirectory)) {
+            assertEquals(0, spillFiles.count());
+        }
+    }
+
+    /**
+     * This test verifies that unknown managers and cycles fail the analysis like they fail the EmployeeService.
+     */
+    @Test
+    void testAnalyse_InvalidHierarchies_ThrowEmployeeDataException() throws IOException {
+        Map<String, CompanyStaff> unknownManager = new LinkedHashMap<>();
+        unknownManager.put("1", new Employee("1", "John", "Doe", new BigDecimal("9000"), null));
+        unknownManager.put("2", new Employee("2", "Jane", "Doe", new BigDecimal("4000"), "7"));
+        Path unknownManagerFile = OrgGenerator.writeCsv(unknownManager, directory.resolve("unknown.csv"));
+        Map<String, CompanyStaff> cycle = new LinkedHashMap<>(unknownManager);
+        cycle.put("2", new Employee("2", "Jane", "Doe", new BigDecimal("4000"), "3"));
+        cycle.put("3", new Employee("3", "Jim", "Doe", new BigDecimal("4000"), "2"));
+        Path cycleFile = OrgGenerator.writeCsv(cycle, directory.resolve("cycle.csv"));
+        ExternalMemoryAnalysis analysis = new ExternalMemoryAnalysis(2, directory);
+
+        EmployeeDataException unknown = assertThrows(EmployeeDataException.class, () -> analysis.analyse(unknownManagerFile, finding -> {}));
+        assertEquals("Unknown manager ID 7 for employee 2", unknown.getMessage());
+        EmployeeDataException cyclic = assertThrows(EmployeeDataException.class, () -> analysis.analyse(cycleFile, finding -> {}));
+        assertTrue(cyclic.getMessage().startsWith("2 employees"));
+    }
+
+    /**
+     * This test verifies that data that fails the analysis passes on no finding, even when the findings before
+     * the invalid rows were already known.
+     */
+    @Test
+    void testAnalyse_InvalidHierarchyAfterFindings_PassesOnNoFinding() throws IOException {
+        Map<String, CompanyStaff> valid = new LinkedHashMap<>();
+        valid.put("1", new Employee("1", "John", "Doe", new BigDecimal("90000"), null));
+        valid.put("2", new Employee("2", "Jane", "Doe", new BigDecimal("4000"), "1"));
+        Path validFile = OrgGenerator.writeCsv(valid, directory.resolve("valid.csv"));
+        Map<String, CompanyStaff> unknownManager = new LinkedHashMap<>(valid);
+        unknownManager.put("9", new Employee("9", "Jim", "Doe", new BigDecimal("4000"), "99"));
+        Path unknownManagerFile = OrgGenerator.writeCsv(unknownManager, directory.resolve("unknown.csv"));
+        Map<String, CompanyStaff> cycle = new LinkedHashMap<>(valid);
+        cycle.put("3", new Employee("3", "Jim", "Doe", new BigDecimal("4000"), "4"));
+        cycle.put("4", new Employee("4", "Joe", "Doe", new BigDecimal("4000"), "3"));
+        Path cycleFile = OrgGenerator.writeCsv(cycle, directory.resolve("cycle.csv"));
+        ExternalMemoryAnalysis analysis = new ExternalMemoryAnalysis(2, directory);
+        List<ReportFinding> findings = new ArrayList<>();
+
+        analysis.analyse(validFile, findings::add);
+        assertEquals(1, findings.size(), "The CEO is overpaid");
+        findings.clear();
+        assertThrows(EmployeeDataException.class, () -> analysis.analyse(unknownManagerFile, findings::add));
+        assertThrows(EmployeeDataException.class, () -> analysis.analyse(cycleFile, findings::add));
+
+        assertEquals(List.of(), findings);
+    }
+}
@@ -0,0 +1,82 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.HierarchyProblem;
+import org.bigcompany.service.impl.HierarchyValidator;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the HierarchyValidator class.
+ */
+class HierarchyValidatorTest {
+
+    /**
+     * This test verifies that a generated organisation and an empty organisation have no problems.
+     */
+    @Test
+    void testValidate_ValidOrg_ReturnsNoProblems() {
+        assertTrue(HierarchyValidator.validate(OrgGenerator.generate(5_000, 50L)).isEmpty());
+        assertTrue(HierarchyValidator.validate(Map.of()).isEmpty());
+    }
+
+    /**
+     * This test verifies that one validation reports every unknown manager, every cycle with its members,
+     * the extra CEO and every group of employees that does not reach a CEO through them.
+     */
+    @Test
+    void testValidate_BrokenOrg_ReportsEveryProblem() {
+        Map<String, CompanyStaff> employees = employees(
+                "1", null, "2", "1", "3", "2",
+                "4", "99", "5", "4",
+                "6", "7", "7", "8", "8", "6", "9", "7",
+                "10", null, "11", "10",
+                "12", "98");
+
+        List<HierarchyProblem> problems = HierarchyValidator.validate(employees);
+
+        assertEquals(List.of(new HierarchyProblem.MultipleCeos(List.of("1", "10")),
+                             new HierarchyProblem.UnknownManager("4", "99"),
+                             new HierarchyProblem.ReportingCycle(List.of("6", "7", "8")),
+                             new HierarchyProblem.UnknownManager("12", "98"),
+                             new HierarchyProblem.UnreachableGroup("4", 2),
+                             new HierarchyProblem.UnreachableGroup("6", 4)), problems);
+    }
+
+    /**
+     * This test verifies that loading an organisation whose only reporting line is a cycle fails with
+     * a description of the cycle and the missing CEO, instead of failing while the hierarchy is built.
+     */
+    @Test
+    void testLoadAllEmployee_CycleWithoutCeo_ThrowsEmployeeDataException() {
+        Map<String, CompanyStaff> employees = employees("1", "3", "2", "1", "3", "2");
+
+        EmployeeDataException exception = assertThrows(EmployeeDataException.class, () -> OrgGenerator.buildHierarchy(employees));
+
+        assertEquals("The employee hierarchy has 2 problems: No employee is without a manager ID; "
+                             + "Employees 1 -> 3 -> 2 -> 1 form a reporting cycle", exception.getMessage());
+    }
+
+    /**
+     * Creates employees from pairs of employee ID and manager ID, in order.
+     */
+    private static Map<String, CompanyStaff> employees(String... idsAndManagerIds) {
+        Map<String, CompanyStaff> employees = new LinkedHashMap<>();
+        for (int index = 0; index < idsAndManagerIds.length; index += 2) {
+            String id = idsAndManagerIds[index];
+            employees.put(id, new Employee(id, "First" + id, "Last" + id, new BigDecimal("50000"), idsAndManagerIds[index + 1]));
+        }
+        return employees;
+    }
+}
@@ -0,0 +1,183 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.Manager;
+import org.bigcompany.model.OrgSnapshot;
+import org.bigcompany.service.impl.OrgVersionStore;
+import org.bigcompany.service.impl.ReportingService;
+import org.bigcompany.service.impl.SalaryService;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the OrgVersionStore class.
+ */
+class OrgVersionStoreTest {
+
+    private static final int ORG_SIZE = 2_000;
+    private static final int WIDE_FAN_OUT = 5_000;
+    private static final int CHANGES = 1_000;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final SalaryService salaryService = new SalaryService();
+
+    /**
+     * This test verifies that every version, analysed with the existing services, gives the same report
+     * as a hierarchy rebuilt from the same employees, and that later changes do not affect earlier versions.
+     */
+    @Test
+    void testGetEmployeeService_ChangedVersions_MatchRebuiltHierarchies() {
+        Map<String, CompanyStaff> january = OrgGenerator.generate(ORG_SIZE, 40L);
+        Map<String, CompanyStaff> february = new LinkedHashMap<>(january);
+        february.put("17", withSalary(february.get("17"), new BigDecimal("250000")));
+        february.put("900", withManager(february.get("900"), "1"));
+        february.remove("2000");
+        february.put("2001", new Employee("2001", "New", "Hire", new BigDecimal("45000"), "1999"));
+
+        OrgVersionStore store = new OrgVersionStore();
+        OrgSnapshot snapshot = store.commit("2024-01", OrgGenerator.buildHierarchy(january));
+        snapshot = snapshot.withSalary("17", new BigDecimal("250000"))
+                .withManager("900", "1")
+                .withoutEmployee("2000")
+                .withHire(new Employee("2001", "New", "Hire", new BigDecimal("45000"), "1999"));
+        store.commit("2024-02", snapshot);
+
+        assertEquals(List.of("2024-01", "2024-02"), store.getLabels());
+        assertEquals(report(OrgGenerator.buildHierarchy(january)), report(store.getEmployeeService("2024-01")));
+        assertEquals(report(OrgGenerator.buildHierarchy(february)), report(store.getEmployeeService("2024-02")));
+    }
+
+    /**
+     * This test verifies that a salary change only replaces the employee and the managers on their reporting line.
+     */
+    @Test
+    void testWithSalary_SingleChange_SharesUnchangedEmployees() {
+        OrgSnapshot before = OrgSnapshot.of(OrgGenerator.buildHierarchy(OrgGenerator.generate(ORG_SIZE, 41L)));
+        OrgSnapshot after = before.withSalary("1500", new BigDecimal("99999"));
+
+        int reportingLineLength = 0;
+        for (CompanyStaff employee = before.get("1500"); employee.getManagerId() != null;
+             employee = before.get(employee.getManagerId())) {
+            reportingLineLength++;
+        }
+        Set<CompanyStaff> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        shared.addAll(before.asMap().values());
+        long changed = after.asMap().values().stream().filter(employee -> !shared.contains(employee)).count();
+        assertEquals(reportingLineLength + 1, changed);
+        assertEquals(new BigDecimal("99999"), after.get("1500").getSalary());
+        assertTrue(before.get("1500").getSalary().compareTo(new BigDecimal("99999")) != 0);
+    }
+
+    /**
+     * This test verifies that the last subordinate leaving turns a manager into a plain employee,
+     * and that moves that would form a cycle and leavers with subordinates are rejected.
+     */
+    @Test
+    void testWithoutEmployee_LastSubordinateLeaves_ManagerBecomesEmployee() {
+        OrgSnapshot snapshot = OrgSnapshot.of(OrgGenerator.buildHierarchy(Map.of(
+                "1", new Employee("1", "John", "Doe", new BigDecimal("9000"), null),
+                "2", new Employee("2", "Jane", "Doe", new BigDecimal("6000"), "1"),
+                "3", new Employee("3", "Jim", "Doe", new BigDecimal("4000"), "2"))));
+
+        OrgSnapshot changed = snapshot.withoutEmployee("3");
+
+        assertInstanceOf(Manager.class, snapshot.get("2"));
+        assertEquals(Employee.class, changed.get("2").getClass());
+        assertEquals(List.of(changed.get("2")), ((Manager) changed.get("1")).getSubordinates());
+        assertThrows(EmployeeDataException.class, () -> snapshot.withManager("2", "3"));
+        assertThrows(EmployeeDataException.class, () -> snapshot.withoutEmployee("2"));
+    }
+
+    /**
+     * This test verifies that changes under a CEO with thousands of direct reports share the CEO's subordinates
+     * instead of copying them: each change allocates a small fraction of what a copy of the subordinates would take,
+     * unchanged subordinates stay the same objects, and earlier versions keep their employees.
+     */
+    @Test
+    void testWithSalary_WideFanOut_SharesSubordinates() {
+        Map<String, CompanyStaff> employees = new LinkedHashMap<>();
+        employees.put("1", new Employee("1", "John", "Doe", new BigDecimal("900000"), null));
+        for (int id = 2; id <= WIDE_FAN_OUT + 1; id++) {
+            employees.put(String.valueOf(id), new Employee(String.valueOf(id), "Jane", "Doe", new BigDecimal("50000"), "1"));
+        }
+        // The first change converts the CEO's subordinates once; the later ones share them
+        OrgSnapshot first = OrgSnapshot.of(OrgGenerator.buildHierarchy(employees)).withSalary("2", new BigDecimal("51000"));
+        BigDecimal salary = new BigDecimal("52000");
+
+        OrgSnapshot last = first;
+        long before = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        for (int id = 3; id < 3 + CHANGES; id++) {
+            last = last.withSalary(String.valueOf(id), salary);
+        }
+        long bytesPerChange = (THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - before) / CHANGES;
+
+        // Copying the references to all subordinates alone would take at least four bytes for each of them
+        assertTrue(bytesPerChange < WIDE_FAN_OUT,
+                   "A change allocated " + bytesPerChange + " bytes, close to a copy of all subordinates");
+        List<CompanyStaff> firstSubordinates = ((Manager) first.get("1")).getSubordinates();
+        List<CompanyStaff> lastSubordinates = ((Manager) last.get("1")).getSubordinates();
+        assertEquals(WIDE_FAN_OUT, lastSubordinates.size());
+        assertSame(firstSubordinates.get(WIDE_FAN_OUT - 1), lastSubordinates.get(WIDE_FAN_OUT - 1));
+        assertSame(last.get("3"), lastSubordinates.get(1));
+        assertEquals(salary, last.get("3").getSalary());
+        assertEquals(new BigDecimal("50000"), first.get("3").getSalary());
+
+        OrgSnapshot reorganised = last.withoutEmployee("2").withHire(
+                new Employee("9999", "New", "Hire", new BigDecimal("45000"), "1")).withSalary(String.valueOf(WIDE_FAN_OUT + 1), salary);
+        Set<String> subordinateIds = ((Manager) reorganised.get("1")).getSubordinates().stream()
+                .map(CompanyStaff::getId).collect(Collectors.toSet());
+        assertEquals(WIDE_FAN_OUT, subordinateIds.size());
+        assertTrue(subordinateIds.contains("9999") && !subordinateIds.contains("2"));
+        assertSame(reorganised.get(String.valueOf(WIDE_FAN_OUT + 1)), ((Manager) reorganised.get("1")).getSubordinates().getFirst());
+    }
+
+    /**
+     * This method runs the report analyses and keys their findings by employee ID.
+     * @param employeeService The service that loads the employees to analyse.
+     * @return The long reporting lines, overpaid managers and underpaid managers, keyed by employee ID.
+     */
+    private List<Map<String, Object>> report(IEmployeeService employeeService) {
+        Map<String, CompanyStaff> employees = employeeService.loadAllEmployee();
+        Map<String, Object> longReportingLines = new ReportingService(employeeService, salaryService)
+                .getEmployeeReportingLineLengths().entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().getId(), Map.Entry::getValue, (a, b) -> a, TreeMap::new));
+        Map<String, Object> overpaid = salaryService.getOverpaidManagers(employees).entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().getId(), Map.Entry::getValue, (a, b) -> a, TreeMap::new));
+        Map<String, Object> underpaid = salaryService.getUnderpaidManagers(employees).entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().getId(), Map.Entry::getValue, (a, b) -> a, TreeMap::new));
+        return List.of(longReportingLines, overpaid, underpaid);
+    }
+
+    private List<Map<String, Object>> report(Map<String, CompanyStaff> employees) {
+        return report(() -> employees);
+    }
+
+    private static CompanyStaff withSalary(CompanyStaff employee, BigDecimal salary) {
+        return new Employee(employee.getId(), employee.getFirstName(), employee.getLastName(), salary, employee.getManagerId());
+    }
+
+    private static CompanyStaff withManager(CompanyStaff employee, String managerId) {
+        return new Employee(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getSalary(), managerId);
+    }
+}
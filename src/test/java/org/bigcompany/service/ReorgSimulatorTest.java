@@ -0,0 +1,147 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exception.EmployeeDataException;
+import org.bigcompany.model.BandChange;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.SalaryBand;
+import org.bigcompany.service.impl.ReorgSimulator;
+import org.bigcompany.service.impl.ReorgSimulator.MoveResult;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class tests the functionality of the ReorgSimulator class.
+ */
+class ReorgSimulatorTest {
+
+    /**
+     * This test verifies that moving a subtree deeper makes the reporting lines of the whole subtree longer
+     * and reclassifies the old and the new manager.
+     */
+    @Test
+    void testMoveSubtree_MoveDeeper_ReportsNewLongReportingLinesAndBandChanges() {
+        // 1 - 2 - 3 - 4 - 5 - 6 and 1 - 7 - 8 - 9
+        Map<String, CompanyStaff> employeeMap = new HashMap<>();
+        employeeMap.put("1", new Employee("1", "Chief", "Executive", new BigDecimal("10000"), null));
+        String[] managers = {null, "1", "2", "3", "4", "5", "1", "7", "8"};
+        for (int id = 2; id <= 9; id++) {
+            employeeMap.put(Integer.toString(id), new Employee(Integer.toString(id), "First" + id, "Last" + id,
+                                                                new BigDecimal("5000"), managers[id - 1]));
+        }
+        ReorgSimulator simulator = new ReorgSimulator(OrgGenerator.buildHierarchy(employeeMap));
+        assertEquals(1, simulator.getLongReportingLineCount());
+
+        MoveResult result = simulator.moveSubtree("7", "6");
+
+        assertEquals(3, result.movedEmployees());
+        assertEquals(3, result.newLongReportingLines());
+        assertEquals(0, result.resolvedLongReportingLines());
+        assertEquals(4, simulator.getLongReportingLineCount());
+        assertEquals(8, simulator.getReportingLineLength("9"));
+        assertEquals("6", simulator.getManagerId("7"));
+        assertEquals(List.of(new BandChange(employeeMap.get("6"), null, SalaryBand.UNDERPAID)), result.bandChanges());
+    }
+
+    /**
+     * This test verifies that a move that would put an employee under one of their own subordinates is rejected.
+     */
+    @Test
+    void testMoveSubtree_UnderOwnSubordinate_ThrowsEmployeeDataException() {
+        Map<String, CompanyStaff> generated = OrgGenerator.generate(200, 3L);
+        ReorgSimulator simulator = new ReorgSimulator(OrgGenerator.buildHierarchy(generated));
+        String subordinate = generated.values().stream()
+                .filter(employee -> "1".equals(employee.getManagerId()))
+                .findFirst().orElseThrow().getId();
+
+        assertThrows(EmployeeDataException.class, () -> simulator.moveSubtree("1", subordinate));
+        assertThrows(EmployeeDataException.class, () -> simulator.moveSubtree(subordinate, subordinate));
+    }
+
+    /**
+     * This test verifies that a sequence of random moves keeps the reporting line lengths, the number
+     * of long reporting lines and the bands of the old and new managers equal to a full recomputation.
+     */
+    @Test
+    void testMoveSubtree_RandomMoves_MatchFullRecomputation() {
+        Map<String, CompanyStaff> generated = OrgGenerator.generate(1_500, 23L);
+        ReorgSimulator simulator = new ReorgSimulator(OrgGenerator.buildHierarchy(generated));
+        Map<String, String> managerIds = new HashMap<>();
+        generated.values().forEach(employee -> managerIds.put(employee.getId(), employee.getManagerId()));
+        Random random = new Random(23L);
+
+        int moves = 0;
+        while (moves < 200) {
+            String employeeId = Integer.toString(2 + random.nextInt(generated.size() - 1));
+            String newManagerId = Integer.toString(1 + random.nextInt(generated.size()));
+            if (isInChain(employeeId, newManagerId, managerIds)) {
+                assertThrows(EmployeeDataException.class, () -> simulator.moveSubtree(employeeId, newManagerId));
+                continue;
+            }
+            String oldManagerId = managerIds.get(employeeId);
+            int longBefore = countLongReportingLines(managerIds);
+            MoveResult result = simulator.moveSubtree(employeeId, newManagerId);
+            managerIds.put(employeeId, newManagerId);
+            int longAfter = countLongReportingLines(managerIds);
+
+            assertEquals(longAfter, simulator.getLongReportingLineCount());
+            assertEquals(longAfter - longBefore, result.newLongReportingLines() - result.resolvedLongReportingLines());
+            for (BandChange change : result.bandChanges()) {
+                String id = change.employee().getId();
+                assertTrue(id.equals(oldManagerId) || id.equals(newManagerId));
+                assertEquals(band(id, managerIds, generated), change.after());
+            }
+            moves++;
+        }
+        for (String id : generated.keySet()) {
+            assertEquals(depth(id, managerIds), simulator.getReportingLineLength(id));
+        }
+    }
+
+    private static boolean isInChain(String ancestorId, String employeeId, Map<String, String> managerIds) {
+        for (String id = employeeId; id != null; id = managerIds.get(id)) {
+            if (id.equals(ancestorId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int depth(String employeeId, Map<String, String> managerIds) {
+        int depth = 0;
+        for (String id = managerIds.get(employeeId); id != null; id = managerIds.get(id)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static int countLongReportingLines(Map<String, String> managerIds) {
+        return (int) managerIds.keySet().stream().filter(id -> depth(id, managerIds) > 4).count();
+    }
+
+    private static SalaryBand band(String managerId, Map<String, String> managerIds, Map<String, CompanyStaff> employees) {
+        List<BigDecimal> salaries = managerIds.entrySet().stream()
+                .filter(entry -> managerId.equals(entry.getValue()))
+                .map(entry -> employees.get(entry.getKey()).getSalary())
+                .toList();
+        if (salaries.isEmpty()) {
+            return null;
+        }
+        BigDecimal average = salaries.stream().reduce(BigDecimal.ZERO, BigDecimal::add)
+                .divide(BigDecimal.valueOf(salaries.size()), RoundingMode.HALF_UP);
+        BigDecimal salary = employees.get(managerId).getSalary();
+        if (salary.compareTo(average.multiply(new BigDecimal("1.2"))) < 0) {
+            return SalaryBand.UNDERPAID;
+        }
+        return salary.compareTo(average.multiply(new BigDecimal("1.5"))) > 0 ? SalaryBand.OVERPAID : SalaryBand.WITHIN_BAND;
+    }
+}
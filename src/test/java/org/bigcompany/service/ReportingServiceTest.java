@@ -1,24 +1,53 @@
 package org.bigcompany.service;
 
 
+import org.bigcompany.dao.RowError;
+import org.bigcompany.dao.RowErrorLog;
+import org.bigcompany.dao.impl.EmployeeCSVLoader;
+import org.bigcompany.exception.EmployeeDataException;
 import org.bigcompany.model.CompanyStaff;
 import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeLoad;
+import org.bigcompany.model.EmployeeReport;
 import org.bigcompany.model.Manager;
+import org.bigcompany.model.OffHeapOrg;
+import org.bigcompany.model.OrgSnapshot;
+import org.bigcompany.model.ReportFinding;
 import org.bigcompany.service.impl.EmployeeService;
 import org.bigcompany.service.impl.ReportingService;
 import org.bigcompany.service.impl.SalaryService;
+import org.bigcompany.support.OrgGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ReportingServiceTest {
@@ -87,6 +116,23 @@ class ReportingServiceTest {
         assertTrue(employees.isEmpty());
     }
 
+    /**
+     * This test verifies that the getEmployeeReportingLineLengths method throws an EmployeeDataException
+     * instead of looping forever when the reporting lines of some employees form a cycle.
+     */
+    @Test
+    void testGetEmployeeReportingLineLengths_ReportingCycle_ThrowsEmployeeDataException() {
+        Map<String, CompanyStaff> employeeMap = Map.of(
+                "1", new Employee("1", "Chief", "Executive", new BigDecimal("9000"), null),
+                "2", new Employee("2", "Circular", "One", new BigDecimal("7000"), "3"),
+                "3", new Employee("3", "Circular", "Two", new BigDecimal("7000"), "2"));
+
+        EmployeeDataException exception = assertThrows(EmployeeDataException.class,
+                                                       () -> reportingService.getEmployeeReportingLineLengths(employeeMap));
+
+        assertTrue(exception.getMessage().endsWith("does not reach the CEO"));
+    }
+
     /**
      * This test verifies that the printPaymentReport method prints the correct manager salary overpayment report.
      */
@@ -105,6 +151,331 @@ class ReportingServiceTest {
                      outContent.toString(StandardCharsets.UTF_8).lines().count());
     }
 
+    /**
+     * This test verifies that the off-heap view yields the same long reporting lines as the map of employees.
+     */
+    @Test
+    void testGetLongReportingLine_OffHeapView_MatchesEmployeeMap() {
+        Map<String, CompanyStaff> employeeMap = populateEmployeeMap();
+        reportingService = new ReportingService(new EmployeeServiceStub(employeeMap), salaryService);
+        Map<String, Integer> expected = new HashMap<>();
+        reportingService.getEmployeeReportingLineLengths().forEach((employee, length) -> expected.put(employee.getId(), length));
+
+        try (OffHeapOrg org = OffHeapOrg.from(employeeMap)) {
+            Map<String, Integer> actual = new HashMap<>();
+            reportingService.getEmployeeReportingLineLengths(org).forEach((index, length) -> actual.put(Long.toString(org.getId(index)), length));
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * This test verifies that the generateEmployeeReport method lists the rows skipped by a lenient load after the report.
+     */
+    @Test
+    void testGenerateEmployeeReport_PrintsSkippedRows() {
+        RowErrorLog rowErrorLog = new RowErrorLog(1);
+        rowErrorLog.record(3, RowError.Reason.INVALID_SALARY, "101,Dulcinea,Greenwald,8X98,107");
+        rowErrorLog.record(4, RowError.Reason.DUPLICATE_ID, "101,Hermione,Nester,8109,106");
+        employeeService = new EmployeeServiceStub(populateEmployeeMap()) {
+            @Override
+            public EmployeeLoad loadEmployees() {
+                return new EmployeeLoad(super.loadEmployees().employees(), rowErrorLog);
+            }
+        };
+        reportingService = new ReportingService(employeeService, salaryService);
+        reportingService.generateEmployeeReport();
+
+        String output = outContent.toString(StandardCharsets.UTF_8);
+        assertTrue(output.contains("Rows skipped while loading the employee data: 2"));
+        assertTrue(output.contains("Line 3: Invalid salary in line: 101,Dulcinea,Greenwald,8X98,107"));
+        assertTrue(output.contains("... and 1 more skipped rows not listed"));
+    }
+
+    /**
+     * This test verifies that the published findings are the same as the long reporting lines,
+     * overpaid managers and underpaid managers of the map-based analyses.
+     */
+    @Test
+    void testPublishFindings_UnboundedDemand_MatchesReport() throws Exception {
+        Map<String, CompanyStaff> employees = buildGeneratedOrg();
+        reportingService = new ReportingService(new EmployeeServiceStub(employees), salaryService);
+        Map<CompanyStaff, Integer> longReportingLines = new HashMap<>();
+        Map<Manager, BigDecimal> overpaidManagers = new HashMap<>();
+        Map<Manager, BigDecimal> underpaidManagers = new HashMap<>();
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        reportingService.publishFindings().subscribe(new Flow.Subscriber<ReportFinding>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ReportFinding finding) {
+                switch (finding) {
+                    case ReportFinding.LongReportingLine line -> longReportingLines.put(line.employee(), line.reportingLineLength());
+                    case ReportFinding.OverpaidManager overpaid -> overpaidManagers.put(overpaid.employee(), overpaid.overpayment());
+                    case ReportFinding.UnderpaidManager underpaid -> underpaidManagers.put(underpaid.employee(), underpaid.underpayment());
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completion.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completion.complete(null);
+            }
+        });
+        completion.get(30, TimeUnit.SECONDS);
+
+        assertFalse(longReportingLines.isEmpty());
+        assertEquals(reportingService.getEmployeeReportingLineLengths(), longReportingLines);
+        assertEquals(salaryService.getOverpaidManagers(employees), overpaidManagers);
+        assertEquals(salaryService.getUnderpaidManagers(employees), underpaidManagers);
+    }
+
+    /**
+     * This test verifies that the publisher delivers no more findings than requested and analyses
+     * no further employees while the subscriber has no outstanding demand.
+     */
+    @Test
+    void testPublishFindings_BoundedDemand_PausesAnalysis() {
+        AtomicInteger classifiedManagers = new AtomicInteger();
+        SalaryService countingSalaryService = new SalaryService() {
+            @Override
+            public Optional<ReportFinding> getSalaryFinding(Manager manager) {
+                classifiedManagers.incrementAndGet();
+                return super.getSalaryFinding(manager);
+            }
+        };
+        Map<String, CompanyStaff> employees = buildGeneratedOrg();
+        long managerCount = employees.values().stream().filter(Manager.class::isInstance).count();
+        reportingService = new ReportingService(new EmployeeServiceStub(employees), countingSalaryService);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        reportingService.publishFindings(Runnable::run).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        assertEquals(1, subscriber.findings.size());
+        subscriber.subscription.request(2);
+        assertEquals(3, subscriber.findings.size());
+        assertTrue(classifiedManagers.get() < managerCount);
+
+        int classifiedBeforeCancel = classifiedManagers.get();
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(10);
+        assertEquals(3, subscriber.findings.size());
+        assertEquals(classifiedBeforeCancel, classifiedManagers.get());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    /**
+     * This test verifies that a request for a non-positive number of findings ends the subscription with an error.
+     */
+    @Test
+    void testPublishFindings_NonPositiveRequest_SignalsError() {
+        reportingService = new ReportingService(new EmployeeServiceStub(populateEmployeeMap()), salaryService);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        reportingService.publishFindings(Runnable::run).subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        subscriber.subscription.request(1);
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        assertTrue(subscriber.findings.isEmpty());
+    }
+
+    /**
+     * This test verifies that one ReportingService shared by many threads, each creating reports of two different
+     * organisations at once, returns the same reports as when they are created one at a time.
+     */
+    @Test
+    void testCreateReport_ConcurrentRequests_MatchSingleThreadedReports() throws Exception {
+        reportingService = new ReportingService(Map::of, salaryService);
+        OrgSnapshot original = OrgSnapshot.of(buildGeneratedOrg());
+        String ceoId = original.asMap().values().stream()
+                .filter(employee -> employee.getManagerId() == null)
+                .findFirst().orElseThrow().getId();
+        OrgSnapshot raised = original.withSalary(ceoId, new BigDecimal(10_000_000));
+        List<OrgSnapshot> orgs = List.of(original, raised);
+        List<EmployeeReport> expectedReports = List.of(reportingService.createReport(original),
+                                                       reportingService.createReport(raised.asMap()));
+        assertNotEquals(expectedReports.get(0), expectedReports.get(1));
+
+        int threads = 8;
+        int iterations = 25;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int first = thread;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int iteration = 0; iteration < iterations; iteration++) {
+                        int org = (first + iteration) % orgs.size();
+                        EmployeeReport report = iteration % 2 == 0
+                                ? reportingService.createReport(orgs.get(org))
+                                : reportingService.createReport(orgs.get(org).asMap());
+                        assertEquals(expectedReports.get(org), report);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * This test verifies that lenient loads of different files, run at the same time through shared services,
+     * each report exactly the rows skipped by their own load, as when the reports are generated one at a time.
+     */
+    @Test
+    void testGenerateEmployeeReport_ConcurrentLenientLoads_ReportOwnSkippedRows(@TempDir Path directory) throws Exception {
+        List<IEmployeeService> lenientServices = new ArrayList<>();
+        List<String> expectedOutputs = new ArrayList<>();
+        for (int file = 0; file < 2; file++) {
+            Path csvFile = OrgGenerator.writeCsv(OrgGenerator.generate(3_000, 51L + file), directory.resolve(file + ".csv"));
+            List<String> lines = new ArrayList<>(Files.readAllLines(csvFile));
+            for (int line = 200 + file * 50; line < lines.size(); line += 300 + file * 100) {
+                lines.set(line, file == 0 ? line + ",Broken,Salary,lots,1" : line + ",Missing");
+            }
+            Files.write(csvFile, lines);
+            IEmployeeService lenientService = new EmployeeService(new EmployeeCSVLoader(), RowErrorLog.DEFAULT_CAPACITY, csvFile);
+            lenientServices.add(lenientService);
+            expectedOutputs.add(generateReport(lenientService));
+        }
+        assertNotEquals(expectedOutputs.get(0), expectedOutputs.get(1));
+        assertTrue(expectedOutputs.get(0).contains("Rows skipped while loading the employee data"));
+
+        int threads = 8;
+        int iterations = 10;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int first = thread;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int iteration = 0; iteration < iterations; iteration++) {
+                        int file = (first + iteration) % lenientServices.size();
+                        assertEquals(expectedOutputs.get(file), generateReport(lenientServices.get(file)));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * This test verifies that the salary sections of a report run at the same time: each waits for the other
+     * to start, which would time out if they ran one after another. The report is printed in section order.
+     */
+    @Test
+    void testGenerateEmployeeReport_SalarySections_RunConcurrently() {
+        CyclicBarrier bothSectionsStarted = new CyclicBarrier(2);
+        salaryService = new SalaryService() {
+            @Override
+            public Map<Manager, BigDecimal> getOverpaidManagers(Map<String, CompanyStaff> employees) {
+                awaitQuietly(bothSectionsStarted);
+                return super.getOverpaidManagers(employees);
+            }
+
+            @Override
+            public Map<Manager, BigDecimal> getUnderpaidManagers(Map<String, CompanyStaff> employees) {
+                awaitQuietly(bothSectionsStarted);
+                return super.getUnderpaidManagers(employees);
+            }
+        };
+        Map<String, CompanyStaff> employeeMap = populateEmployeeMap();
+        employeeMap.put("1", employee);
+        employeeMap.put("2", manager);
+        reportingService = new ReportingService(new EmployeeServiceStub(employeeMap), salaryService);
+
+        reportingService.generateEmployeeReport();
+
+        String output = outContent.toString(StandardCharsets.UTF_8);
+        assertTrue(output.indexOf("reporting line of length") < output.indexOf("The underpaid managers"));
+        assertTrue(output.contains("Jane Doe with ID 2 is underpaid by 5000.00"));
+    }
+
+    /**
+     * This test verifies that the failure of one section of a report is thrown with its own type and message.
+     */
+    @Test
+    void testCreateReport_FailingSection_ThrowsItsException() {
+        reportingService = new ReportingService(Map::of, new SalaryService() {
+            @Override
+            public Map<Manager, BigDecimal> getOverpaidManagers(Map<String, CompanyStaff> employees) {
+                throw new EmployeeDataException("Overpaid section failed");
+            }
+        });
+
+        EmployeeDataException exception = assertThrows(EmployeeDataException.class,
+                                                       () -> reportingService.createReport(populateEmployeeMap()));
+        assertEquals("Overpaid section failed", exception.getMessage());
+    }
+
+    private static void awaitQuietly(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("The other section did not start", e);
+        }
+    }
+
+    /**
+     * This subscriber records the signals it receives and leaves all requests to the test.
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<ReportFinding> {
+        private final List<ReportFinding> findings = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ReportFinding finding) {
+            findings.add(finding);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    /**
+     * This method builds the hierarchy of a generated organisation.
+     * @return A map of employees and managers, keyed by their unique identifiers.
+     */
+    private static Map<String, CompanyStaff> buildGeneratedOrg() {
+        Map<String, CompanyStaff> generated = OrgGenerator.generate(2_000, 39L);
+        return OrgGenerator.buildHierarchy(generated);
+    }
+
    /**
     * This stub class is used to test the ReportingService class by loading the employeeMap.
     */
@@ -117,11 +488,23 @@ class ReportingServiceTest {
         }
 
         @Override
-        public Map<String, CompanyStaff> loadAllEmployee() {
-            return employeeMap;
+        public EmployeeLoad loadEmployees() {
+            return new EmployeeLoad(employeeMap, null);
         }
     }
 
+    /**
+     * This method generates the employee report of the given employees into a string.
+     * @param employeeService The service to load the employees with.
+     * @return The printed report.
+     */
+    private String generateReport(IEmployeeService employeeService) {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        new ReportingService(employeeService, salaryService, new PrintStream(report, true, StandardCharsets.UTF_8))
+                .generateEmployeeReport();
+        return report.toString(StandardCharsets.UTF_8);
+    }
+
     /**
      * This method populates the employee map with test data.
      * @return A map of employees, keyed by their unique identifiers.
@@ -0,0 +1,69 @@
+package org.bigcompany.service;
+
+import org.bigcompany.service.impl.SalaryBandKernel;
+import org.bigcompany.service.impl.ScalarSalaryBandKernel;
+import org.bigcompany.service.impl.VectorSalaryBandKernel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class tests that the Vector API salary band kernel gives exactly the same results as the scalar kernel.
+ */
+class SalaryBandKernelTest {
+
+    private final SalaryBandKernel scalarKernel = new ScalarSalaryBandKernel();
+    private final SalaryBandKernel vectorKernel = new VectorSalaryBandKernel();
+    private final Random random = new Random(3L);
+
+    /**
+     * This test verifies that both kernels sum every range of salaries, including ranges shorter than a vector
+     * and ranges that do not start on a vector boundary.
+     */
+    @Test
+    void testSum_AnyRange_MatchesScalarKernel() {
+        long[] salaries = randomSalaries(257);
+        for (int from = 0; from < 20; from++) {
+            for (int to = from; to <= salaries.length; to += 7) {
+                assertEquals(scalarKernel.sum(salaries, from, to), vectorKernel.sum(salaries, from, to));
+            }
+        }
+    }
+
+    /**
+     * This test verifies that both kernels classify managers into the same bands, including managers
+     * exactly on a threshold.
+     */
+    @Test
+    void testClassify_RandomManagers_MatchesScalarKernel() {
+        int length = 1_003;
+        long[] salaries = randomSalaries(length);
+        long[] averages = randomSalaries(length);
+        // Put some managers exactly on the thresholds of 1.2 and 1.5 times the average
+        for (int i = 0; i < length; i += 10) {
+            averages[i] = 10_000;
+            salaries[i] = i % 20 == 0 ? 12_000 : 15_000;
+        }
+        byte[] scalarBands = new byte[length];
+        byte[] vectorBands = new byte[length];
+
+        int scalarOutsideBand = scalarKernel.classify(salaries, averages, length, 12, 15, 10, scalarBands);
+        int vectorOutsideBand = vectorKernel.classify(salaries, averages, length, 12, 15, 10, vectorBands);
+
+        assertArrayEquals(scalarBands, vectorBands);
+        assertEquals(scalarOutsideBand, vectorOutsideBand);
+        assertEquals(SalaryBandKernel.WITHIN_BAND, vectorBands[0], "A salary of exactly 1.2 times the average is within the band");
+        assertEquals(SalaryBandKernel.WITHIN_BAND, vectorBands[10], "A salary of exactly 1.5 times the average is within the band");
+        assertTrue(vectorOutsideBand > 0);
+    }
+
+    private long[] randomSalaries(int length) {
+        long[] salaries = new long[length];
+        for (int i = 0; i < length; i++) {
+            salaries[i] = 30_000 + random.nextInt(60_000);
+        }
+        return salaries;
+    }
+}
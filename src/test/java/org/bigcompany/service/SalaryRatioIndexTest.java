@@ -0,0 +1,100 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.Manager;
+import org.bigcompany.service.impl.SalaryRatioIndex;
+import org.bigcompany.service.impl.SalaryService;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class tests the functionality of the SalaryRatioIndex class.
+ */
+class SalaryRatioIndexTest {
+
+    private Map<String, CompanyStaff> employees;
+    private SalaryRatioIndex salaryRatioIndex;
+
+    /**
+     * This method builds the hierarchy of a generated organisation and indexes its salary ratios.
+     */
+    @BeforeEach
+    void setUp() {
+        Map<String, CompanyStaff> generated = OrgGenerator.generate(2_000, 5L);
+        employees = OrgGenerator.buildHierarchy(generated);
+        salaryRatioIndex = new SalaryRatioIndex(employees);
+    }
+
+    /**
+     * This test verifies that the index finds the same underpaid and overpaid managers as the SalaryService
+     * for the report's own multipliers.
+     */
+    @Test
+    void testGetManagers_ReportMultipliers_MatchSalaryService() {
+        SalaryService salaryService = new SalaryService();
+
+        assertEquals(salaryService.getUnderpaidManagers(employees).keySet(),
+                     Set.copyOf(salaryRatioIndex.getUnderpaidManagers(new BigDecimal("1.2"))));
+        assertEquals(salaryService.getOverpaidManagers(employees).keySet(),
+                     Set.copyOf(salaryRatioIndex.getOverpaidManagers(new BigDecimal("1.5"))));
+    }
+
+    /**
+     * This test verifies that sweeping many multipliers gives the same counts as checking every manager.
+     */
+    @Test
+    void testCountOutsideBand_MultiplierSweep_MatchesFullScan() {
+        for (int hundredths = 50; hundredths <= 300; hundredths++) {
+            BigDecimal multiplier = BigDecimal.valueOf(hundredths, 2);
+            assertEquals(countByFullScan(multiplier, -1), salaryRatioIndex.countUnderpaid(multiplier), "underpaid at " + multiplier);
+            assertEquals(countByFullScan(multiplier, 1), salaryRatioIndex.countOverpaid(multiplier), "overpaid at " + multiplier);
+        }
+        assertEquals(salaryRatioIndex.countUnderpaid(new BigDecimal("1.1")) + salaryRatioIndex.countOverpaid(new BigDecimal("1.7")),
+                     salaryRatioIndex.countOutsideBand(new BigDecimal("1.1"), new BigDecimal("1.7")));
+    }
+
+    /**
+     * This test verifies that a manager earning exactly the multiple of the average is inside the band.
+     */
+    @Test
+    void testCountOutsideBand_SalaryOnBoundary_IsInsideBand() {
+        Employee subordinate = new Employee("2", "Jane", "Doe", new BigDecimal("4000"), "1");
+        Manager onLowerBound = new Manager("1", "John", "Doe", new BigDecimal("4800"), null, List.of(subordinate));
+        SalaryRatioIndex boundaryIndex = new SalaryRatioIndex(Map.of("1", onLowerBound, "2", subordinate));
+
+        assertEquals(0, boundaryIndex.countUnderpaid(new BigDecimal("1.2")));
+        assertEquals(1, boundaryIndex.countUnderpaid(new BigDecimal("1.21")));
+        assertEquals(0, boundaryIndex.countOverpaid(new BigDecimal("1.2")));
+        assertEquals(1, boundaryIndex.countOverpaid(new BigDecimal("1.19")));
+    }
+
+    /**
+     * Counts the managers whose salary compares to the multiple of their subordinates' average as given.
+     */
+    private int countByFullScan(BigDecimal multiplier, int comparison) {
+        Set<Manager> managers = new HashSet<>();
+        for (CompanyStaff employee : employees.values()) {
+            if (employee instanceof Manager manager && !manager.getSubordinates().isEmpty()) {
+                BigDecimal totalSalary = manager.getSubordinates().stream()
+                        .map(CompanyStaff::getSalary)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                BigDecimal averageSalary = totalSalary.divide(BigDecimal.valueOf(manager.getSubordinates().size()), RoundingMode.HALF_UP);
+                if (manager.getSalary().compareTo(averageSalary.multiply(multiplier)) == comparison) {
+                    managers.add(manager);
+                }
+            }
+        }
+        return managers.size();
+    }
+}
@@ -1,13 +1,21 @@
 package org.bigcompany.service;
 
+import org.bigcompany.dao.impl.EmployeeCSVLoader;
 import org.bigcompany.model.CompanyStaff;
 import org.bigcompany.model.Employee;
 import org.bigcompany.model.Manager;
+import org.bigcompany.model.OffHeapOrg;
+import org.bigcompany.model.SalaryBenchmark;
+import org.bigcompany.service.impl.EmployeeService;
 import org.bigcompany.service.impl.SalaryService;
+import org.bigcompany.service.impl.ScalarSalaryBandKernel;
+import org.bigcompany.service.impl.VectorSalaryBandKernel;
+import org.bigcompany.support.OrgGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -92,4 +100,80 @@ class SalaryServiceTest {
         assertTrue(overpaidManagers.containsKey(overpaidManager));
         assertEquals(new BigDecimal("3250.00"), overpaidManagers.get(overpaidManager));
     }
-}
\ No newline at end of file
+
+    /**
+     * This test verifies that the off-heap view yields the same overpaid and underpaid managers and amounts
+     * as the map of employees it was built from, with either salary band kernel.
+     */
+    @Test
+    void testGetManagers_OffHeapView_MatchesEmployeeMap() {
+        Map<String, CompanyStaff> generated = OrgGenerator.generate(3_000, 11L);
+        Map<String, CompanyStaff> employees = new EmployeeService(new EmployeeCSVLoader() {
+            @Override
+            public Map<String, CompanyStaff> buildEmployeeMapFromCSV(Path csvFilePath) {
+                return generated;
+            }
+        }).loadAllEmployee();
+        Map<String, BigDecimal> expectedOverpaid = byId(salaryService.getOverpaidManagers(employees));
+        Map<String, BigDecimal> expectedUnderpaid = byId(salaryService.getUnderpaidManagers(employees));
+
+        try (OffHeapOrg org = OffHeapOrg.from(generated)) {
+            for (SalaryService kernelSalaryService : List.of(new SalaryService(new ScalarSalaryBandKernel()),
+                                                             new SalaryService(new VectorSalaryBandKernel()))) {
+                assertEquals(expectedOverpaid, byId(org, kernelSalaryService.getOverpaidManagers(org)));
+                assertEquals(expectedUnderpaid, byId(org, kernelSalaryService.getUnderpaidManagers(org)));
+            }
+        }
+    }
+
+    /**
+     * This test verifies that an off-heap view with salaries of different scales is analysed with
+     * the same rounding as the map of employees.
+     */
+    @Test
+    void testGetManagers_OffHeapViewWithMixedScales_MatchesEmployeeMap() {
+        Employee subordinate1 = new Employee("4", "Subordinate", "One", new BigDecimal("4000.25"), "3");
+        Employee subordinate2 = new Employee("5", "Subordinate", "Two", new BigDecimal("5000"), "3");
+        Manager manager = new Manager("3", "Overpaid", "Manager", new BigDecimal("10000"), null, List.of(subordinate1, subordinate2));
+        Map<String, CompanyStaff> employees = Map.of("3", manager, "4", subordinate1, "5", subordinate2);
+
+        try (OffHeapOrg org = OffHeapOrg.from(employees)) {
+            assertEquals(byId(salaryService.getOverpaidManagers(employees)), byId(org, salaryService.getOverpaidManagers(org)));
+        }
+    }
+
+    /**
+     * This test verifies that with the median benchmark a single highly paid subordinate no longer makes the manager
+     * underpaid, and that the off-heap view gives the same result.
+     */
+    @Test
+    void testGetUnderpaidManagers_MedianBenchmark_IgnoresOutlier() {
+        Employee subordinate1 = new Employee("4", "Subordinate", "One", new BigDecimal("4000"), "3");
+        Employee subordinate2 = new Employee("5", "Subordinate", "Two", new BigDecimal("5000"), "3");
+        Employee subordinate3 = new Employee("6", "Subordinate", "Three", new BigDecimal("30000"), "3");
+        Manager manager = new Manager("3", "Team", "Manager", new BigDecimal("7000"), null,
+                                      List.of(subordinate1, subordinate2, subordinate3));
+        Map<String, CompanyStaff> employees = Map.of("3", manager, "4", subordinate1, "5", subordinate2, "6", subordinate3);
+        SalaryService medianSalaryService = new SalaryService(SalaryBenchmark.MEDIAN);
+
+        assertEquals(new BigDecimal("8600.00"), salaryService.getUnderpaidManagers(employees).get(manager));
+        assertTrue(medianSalaryService.getUnderpaidManagers(employees).isEmpty());
+        assertTrue(medianSalaryService.getOverpaidManagers(employees).isEmpty());
+        assertTrue(medianSalaryService.getSalaryFinding(manager).isEmpty());
+        try (OffHeapOrg org = OffHeapOrg.from(employees)) {
+            assertTrue(medianSalaryService.getUnderpaidManagers(org).isEmpty());
+        }
+    }
+
+    private static Map<String, BigDecimal> byId(Map<Manager, BigDecimal> managers) {
+        Map<String, BigDecimal> amounts = new HashMap<>();
+        managers.forEach((manager, amount) -> amounts.put(manager.getId(), amount));
+        return amounts;
+    }
+
+    private static Map<String, BigDecimal> byId(OffHeapOrg org, Map<Integer, BigDecimal> managers) {
+        Map<String, BigDecimal> amounts = new HashMap<>();
+        managers.forEach((index, amount) -> amounts.put(Long.toString(org.getId(index)), amount));
+        return amounts;
+    }
+}
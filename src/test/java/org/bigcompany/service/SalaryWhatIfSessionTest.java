@@ -0,0 +1,109 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exception.InvalidSalaryException;
+import org.bigcompany.model.BandChange;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.Manager;
+import org.bigcompany.model.SalaryBand;
+import org.bigcompany.service.impl.SalaryService;
+import org.bigcompany.service.impl.SalaryWhatIfSession;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class tests the functionality of the SalaryWhatIfSession class.
+ */
+class SalaryWhatIfSessionTest {
+
+    private final SalaryService salaryService = new SalaryService();
+
+    /**
+     * This test verifies that raising a subordinate's salary reclassifies their manager
+     * and that a further change reports only the change since the previous one.
+     */
+    @Test
+    void testRaiseSalary_SubordinateRaise_ReportsManagerBandChange() {
+        Map<String, CompanyStaff> employees = OrgGenerator.buildHierarchy(Map.of(
+                "1", new Employee("1", "John", "Doe", new BigDecimal("5500"), null),
+                "2", new Employee("2", "Jane", "Doe", new BigDecimal("4000"), "1"),
+                "3", new Employee("3", "Jim", "Doe", new BigDecimal("4000"), "1")));
+        SalaryWhatIfSession session = new SalaryWhatIfSession(employees);
+
+        List<BandChange> changes = session.raiseSalary("2", new BigDecimal("2000"));
+
+        assertEquals(1, changes.size());
+        assertEquals("1", changes.getFirst().employee().getId());
+        assertEquals(SalaryBand.WITHIN_BAND, changes.getFirst().before());
+        assertEquals(SalaryBand.UNDERPAID, changes.getFirst().after());
+        assertEquals(List.of(), session.raiseSalary("3", new BigDecimal("100")));
+        assertEquals(new BigDecimal("4000"), employees.get("2").getSalary(), "The loaded employees are not modified");
+
+        session.reset();
+        assertEquals(SalaryBand.WITHIN_BAND, session.getBand("1"));
+    }
+
+    /**
+     * This test verifies that the accumulated changes of a session match a full recomputation
+     * of the SalaryService over the organisation with the changed salaries.
+     */
+    @Test
+    void testGetChangesFromBase_RandomChanges_MatchFullRecomputation() {
+        Map<String, CompanyStaff> generated = OrgGenerator.generate(1_000, 17L);
+        Map<String, CompanyStaff> employees = OrgGenerator.buildHierarchy(generated);
+        SalaryWhatIfSession session = new SalaryWhatIfSession(employees);
+        Random random = new Random(17L);
+        Map<String, CompanyStaff> changed = new LinkedHashMap<>(generated);
+        for (int i = 0; i < 300; i++) {
+            String id = Integer.toString(1 + random.nextInt(generated.size()));
+            BigDecimal newSalary = BigDecimal.valueOf(20_000 + random.nextInt(100_000));
+            session.changeSalary(id, newSalary);
+            CompanyStaff employee = changed.get(id);
+            changed.put(id, new Employee(id, employee.getFirstName(), employee.getLastName(), newSalary, employee.getManagerId()));
+        }
+        Map<String, CompanyStaff> recomputed = OrgGenerator.buildHierarchy(changed);
+
+        Set<String> expectedUnderpaid = ids(salaryService.getUnderpaidManagers(recomputed));
+        Set<String> expectedOverpaid = ids(salaryService.getOverpaidManagers(recomputed));
+        Set<String> underpaid = new HashSet<>(ids(salaryService.getUnderpaidManagers(employees)));
+        Set<String> overpaid = new HashSet<>(ids(salaryService.getOverpaidManagers(employees)));
+        for (BandChange change : session.getChangesFromBase()) {
+            String id = change.employee().getId();
+            underpaid.remove(id);
+            overpaid.remove(id);
+            if (change.after() == SalaryBand.UNDERPAID) {
+                underpaid.add(id);
+            } else if (change.after() == SalaryBand.OVERPAID) {
+                overpaid.add(id);
+            }
+        }
+        assertEquals(expectedUnderpaid, underpaid);
+        assertEquals(expectedOverpaid, overpaid);
+    }
+
+    /**
+     * This test verifies that a salary change to zero is rejected.
+     */
+    @Test
+    void testChangeSalary_ZeroSalary_ThrowsInvalidSalaryException() {
+        Map<String, CompanyStaff> employees = OrgGenerator.buildHierarchy(OrgGenerator.generate(10, 1L));
+        SalaryWhatIfSession session = new SalaryWhatIfSession(employees);
+
+        assertThrows(InvalidSalaryException.class, () -> session.changeSalary("2", BigDecimal.ZERO));
+    }
+
+    private static Set<String> ids(Map<Manager, BigDecimal> managers) {
+        return managers.keySet().stream().map(CompanyStaff::getId).collect(Collectors.toSet());
+    }
+}
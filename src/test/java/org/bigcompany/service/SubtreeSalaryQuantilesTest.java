@@ -0,0 +1,105 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Manager;
+import org.bigcompany.model.SalaryPercentiles;
+import org.bigcompany.service.impl.SubtreeSalaryQuantiles;
+import org.bigcompany.support.OrgGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the functionality of the SubtreeSalaryQuantiles class.
+ */
+class SubtreeSalaryQuantilesTest {
+
+    private static final double MAX_RANK_ERROR = 0.02;
+
+    /**
+     * This test verifies that the subtree percentiles of large and small subtrees are within the rank error
+     * of the exact percentiles, that small subtrees are exact, and that employees without subordinates have none.
+     */
+    @Test
+    void testGetSubtreePercentiles_GeneratedOrg_MatchesExactPercentiles() {
+        Map<String, CompanyStaff> employees = OrgGenerator.buildHierarchy(OrgGenerator.generate(20_000, 46L));
+        SubtreeSalaryQuantiles quantiles = new SubtreeSalaryQuantiles(employees);
+
+        int largeSubtrees = 0;
+        for (CompanyStaff employee : employees.values()) {
+            List<BigDecimal> subtreeSalaries = getSubtreeSalaries(employee);
+            if (subtreeSalaries.isEmpty()) {
+                assertTrue(quantiles.getSubtreePercentiles(employee.getId()).isEmpty());
+                continue;
+            }
+            subtreeSalaries.sort(null);
+            SalaryPercentiles percentiles = quantiles.getSubtreePercentiles(employee.getId()).orElseThrow();
+            if (subtreeSalaries.size() <= 100) {
+                assertEquals(getExactPercentile(subtreeSalaries, 0.5), percentiles.p50());
+                assertEquals(getExactPercentile(subtreeSalaries, 0.99), percentiles.p99());
+            } else {
+                largeSubtrees++;
+                assertRankWithin(subtreeSalaries, 0.5, percentiles.p50());
+                assertRankWithin(subtreeSalaries, 0.9, percentiles.p90());
+                assertRankWithin(subtreeSalaries, 0.99, percentiles.p99());
+            }
+        }
+        assertTrue(largeSubtrees > 0);
+    }
+
+    /**
+     * This test verifies that the team percentiles are the exact percentiles of the direct subordinates' salaries.
+     */
+    @Test
+    void testGetTeamPercentiles_Manager_IsExact() {
+        Map<String, CompanyStaff> employees = OrgGenerator.buildHierarchy(OrgGenerator.generate(2_000, 47L));
+        SubtreeSalaryQuantiles quantiles = new SubtreeSalaryQuantiles(employees);
+
+        for (CompanyStaff employee : employees.values()) {
+            if (employee instanceof Manager manager && !manager.getSubordinates().isEmpty()) {
+                List<BigDecimal> teamSalaries = new ArrayList<>(manager.getSubordinates().stream().map(CompanyStaff::getSalary).toList());
+                teamSalaries.sort(null);
+                SalaryPercentiles percentiles = quantiles.getTeamPercentiles(manager.getId()).orElseThrow();
+                assertEquals(getExactPercentile(teamSalaries, 0.5), percentiles.p50());
+                assertEquals(getExactPercentile(teamSalaries, 0.9), percentiles.p90());
+            } else {
+                assertTrue(quantiles.getTeamPercentiles(employee.getId()).isEmpty());
+            }
+        }
+    }
+
+    private static BigDecimal getExactPercentile(List<BigDecimal> sortedSalaries, double rank) {
+        return sortedSalaries.get((int) Math.ceil(rank * sortedSalaries.size()) - 1).setScale(2);
+    }
+
+    private static void assertRankWithin(List<BigDecimal> sortedSalaries, double rank, BigDecimal estimate) {
+        long below = sortedSalaries.stream().filter(salary -> salary.compareTo(estimate) < 0).count();
+        long atOrBelow = sortedSalaries.stream().filter(salary -> salary.compareTo(estimate) <= 0).count();
+        assertTrue(rank >= (double) below / sortedSalaries.size() - MAX_RANK_ERROR
+                           && rank <= (double) atOrBelow / sortedSalaries.size() + MAX_RANK_ERROR,
+                   "rank " + rank + " estimated as " + estimate);
+    }
+
+    private static List<BigDecimal> getSubtreeSalaries(CompanyStaff root) {
+        List<BigDecimal> salaries = new ArrayList<>();
+        Deque<CompanyStaff> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            if (pending.pop() instanceof Manager manager) {
+                for (CompanyStaff subordinate : manager.getSubordinates()) {
+                    salaries.add(subordinate.getSalary());
+                    pending.push(subordinate);
+                }
+            }
+        }
+        return salaries;
+    }
+}
@@ -0,0 +1,92 @@
+package org.bigcompany.support;
+
+import org.bigcompany.dao.impl.EmployeeCSVLoader;
+import org.bigcompany.model.CompanyStaff;
+import org.bigcompany.model.Employee;
+import org.bigcompany.service.impl.EmployeeService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class generates synthetic organisations for tests that need more than a handful of employees.
+ * Every organisation has a single CEO with ID 1, and every other employee reports to a randomly chosen
+ * earlier employee, so the generated hierarchy is always a valid tree.
+ * The same seed always produces the same organisation.
+ */
+public final class OrgGenerator {
+
+    private static final String[] FIRST_NAMES = {"Karina", "Dulcinea", "Neha", "Anica", "Blondelle", "Tom", "Jane", "Bob",
+            "Alice", "Omar", "Priya", "Liam", "Mei", "Carlos", "Fatima", "Noah"};
+    private static final String[] LAST_NAMES = {"Cloris", "Greenwald", "Acharya", "Haldas", "Greyson", "Taylor", "Doe",
+            "Brown", "Smith", "Khan", "Rao", "Murphy", "Chen", "Garcia", "Ali", "Jones"};
+    private static final int MIN_SALARY = 30_000;
+    private static final int SALARY_RANGE = 60_000;
+
+    private OrgGenerator() {
+    }
+
+    /**
+     * Generates an organisation of plain employees, as the CSV loader would return it.
+     *
+     * @param size the number of employees
+     * @param seed the seed of the random generator
+     * @return the employees keyed by ID, in ID order
+     */
+    public static Map<String, CompanyStaff> generate(int size, long seed) {
+        Random random = new Random(seed);
+        Map<String, CompanyStaff> employees = new LinkedHashMap<>();
+        for (int i = 1; i <= size; i++) {
+            String id = Integer.toString(i);
+            // A uniformly chosen earlier manager gives a random recursive tree of logarithmic depth
+            String managerId = i == 1 ? null : Integer.toString(1 + random.nextInt(i - 1));
+            BigDecimal salary = BigDecimal.valueOf(MIN_SALARY + random.nextInt(SALARY_RANGE));
+            employees.put(id, new Employee(id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                                           LAST_NAMES[random.nextInt(LAST_NAMES.length)], salary, managerId));
+        }
+        return employees;
+    }
+
+    /**
+     * Builds the manager hierarchy of the given employees, as the EmployeeService builds it from a loaded CSV file.
+     *
+     * @param employees the employees as the CSV loader would return them, keyed by ID
+     * @return the employees and the built managers, keyed by ID
+     */
+    public static Map<String, CompanyStaff> buildHierarchy(Map<String, CompanyStaff> employees) {
+        return new EmployeeService(new EmployeeCSVLoader() {
+            @Override
+            public Map<String, CompanyStaff> buildEmployeeMapFromCSV(Path csvFilePath) {
+                return employees;
+            }
+        }).loadAllEmployee();
+    }
+
+    /**
+     * Writes the given employees to a CSV file in the format read by the EmployeeCSVLoader.
+     *
+     * @param employees the employees to write
+     * @param csvFile   the file to write to
+     * @return the file written to
+     * @throws IOException if the file cannot be written
+     */
+    public static Path writeCsv(Map<String, CompanyStaff> employees, Path csvFile) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile)) {
+            writer.write("Id,firstName,lastName,salary,managerId");
+            writer.newLine();
+            for (CompanyStaff employee : employees.values()) {
+                writer.write(employee.getId() + "," + employee.getFirstName() + "," + employee.getLastName() + ","
+                                     + employee.getSalary().toPlainString() + ","
+                                     + (employee.getManagerId() == null ? "" : employee.getManagerId()));
+                writer.newLine();
+            }
+        }
+        return csvFile;
+    }
+}